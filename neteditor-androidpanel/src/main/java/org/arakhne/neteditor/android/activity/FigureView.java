@@ -20,13 +20,13 @@
  */
 package org.arakhne.neteditor.android.activity;
 
-import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EventListener;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -89,15 +89,19 @@ import org.arakhne.neteditor.fig.graphics.ViewGraphicsUtil;
 import org.arakhne.neteditor.fig.graphics.ViewGraphicsUtil.Factory;
 import org.arakhne.neteditor.fig.selection.SelectionManager;
 import org.arakhne.neteditor.fig.subfigure.SubFigure;
+import org.arakhne.neteditor.fig.view.GridViewComponentIndex;
+import org.arakhne.neteditor.fig.view.IncrementalViewBounds;
 import org.arakhne.neteditor.fig.view.ModelObjectView;
 import org.arakhne.neteditor.fig.view.ViewComponent;
 import org.arakhne.neteditor.fig.view.ViewComponentBindingListener;
 import org.arakhne.neteditor.fig.view.ViewComponentChangeEvent;
 import org.arakhne.neteditor.fig.view.ViewComponentChangeListener;
 import org.arakhne.neteditor.fig.view.ViewComponentContainer;
+import org.arakhne.neteditor.fig.view.ViewComponentIndex;
 import org.arakhne.neteditor.fig.view.ViewComponentLayoutListener;
 import org.arakhne.neteditor.fig.view.ViewComponentPropertyChangeEvent;
 import org.arakhne.neteditor.fig.view.ViewComponentPropertyChangeListener;
+import org.arakhne.neteditor.fig.view.ZOrderList;
 import org.arakhne.neteditor.formalism.Anchor;
 import org.arakhne.neteditor.formalism.Edge;
 import org.arakhne.neteditor.formalism.Graph;
@@ -143,9 +147,43 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 
 	private final UUID viewID = UUID.randomUUID();
 
-	private volatile LinkedList<Figure> figures = new LinkedList<Figure>();
+	private final ZOrderList<Figure> figures = new ZOrderList<Figure>();
 
-	private SoftReference<Rectangle2f> documentBounds = null;
+	/** Spatial index on the figures.
+	 */
+	private ViewComponentIndex<Figure> figureIndex = new GridViewComponentIndex<Figure>();
+
+	private final Comparator<Figure> zOrderComparator = new ZOrderComparator();
+
+	/** Bounds of the document, maintained incrementally.
+	 */
+	private final IncrementalViewBounds<Figure> documentBounds = new IncrementalViewBounds<Figure>() {
+		@Override
+		protected Rectangle2f computeBounds() {
+			return calcDocumentBounds();
+		}
+	};
+
+	private int paintedFigureCount = 0;
+	private int skippedFigureCount = 0;
+
+	/** Number of nested transactions.
+	 */
+	private int transactionDepth = 0;
+
+	/** Graph on which a transaction was started by the outer
+	 * transaction of this view.
+	 */
+	private G transactionGraph = null;
+
+	/** Indicates if the view must be repainted at the
+	 * end of the transaction.
+	 */
+	private boolean transactionRepaint = false;
+
+	/** Figures that have changed during the transaction.
+	 */
+	private Set<Figure> transactionChangedFigures = null;
 
 	private G graph; 
 
@@ -393,8 +431,9 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 					iterator.remove();
 					fireFigureRemoved(fig);
 				}
+				this.figureIndex.clear();
 				this.graph = g;
-				this.documentBounds = null;
+				this.documentBounds.clear();
 				if (this.graph!=null) {
 					this.graph.addModelObjectListener(eh);
 					for(ModelObjectListener l : this.listenerList.getListeners(ModelObjectListener.class)) {
@@ -434,7 +473,9 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		Rectangle2f clickRect = new Rectangle2f();
 		clickRect.setFromCorners(x-precision, y-precision, x+precision, y+precision);
 		Rectangle2f figureBounds;
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsIntersecting(clickRect, candidates);
+		for(Figure figure : sortFromFront(candidates)) {
 			figureBounds = figure.getBounds();
 			if (figureBounds!=null && figureBounds.intersects(clickRect)) {
 				return figure;
@@ -450,7 +491,9 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 	 */
 	public Set<Figure> getFiguresOn(Shape2f bounds) {
 		Set<Figure> figures = new TreeSet<Figure>();
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsIntersecting(bounds.toBoundingBox(), candidates);
+		for(Figure figure : candidates) {
 			if (figure.intersects(bounds)) {
 				figures.add(figure);
 			}
@@ -464,7 +507,9 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 	 * @return the hit figure, or <code>null</code>.
 	 */
 	public Figure getFigureOn(Shape2f bounds) {
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsIntersecting(bounds.toBoundingBox(), candidates);
+		for(Figure figure : sortFromFront(candidates)) {
 			if (figure.intersects(bounds)) {
 				return figure;
 			}
@@ -481,7 +526,9 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		assert(bounds!=null);
 		Set<Figure> figures = new TreeSet<Figure>();
 		Rectangle2f figureBounds;
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsIntersecting(bounds, candidates);
+		for(Figure figure : candidates) {
 			figureBounds = figure.getBounds();
 			if (figureBounds!=null && bounds.contains(figureBounds)) {
 				figures.add(figure);
@@ -498,7 +545,9 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 	public Figure getFigureIn(Rectangle2f bounds) {
 		assert(bounds!=null);
 		Rectangle2f figureBounds;
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsIntersecting(bounds, candidates);
+		for(Figure figure : sortFromFront(candidates)) {
 			figureBounds = figure.getBounds();
 			if (figureBounds!=null && bounds.contains(figureBounds)) {
 				return figure;
@@ -515,8 +564,7 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		int idx = indexOfFigure(figure);
 		if (idx>0) {
 			Figure o = this.figures.get(idx-1);
-			this.figures.set(idx, o);
-			this.figures.set(idx-1, figure);
+			this.figures.move(idx, idx-1);
 
 			Rectangle2f r = figure.getBounds();
 			r = o.getBounds().createUnion(r);
@@ -533,8 +581,7 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		int idx = indexOfFigure(figure);
 		if (idx>=0 && idx<this.figures.size()-1) {
 			Figure o = this.figures.get(idx+1);
-			this.figures.set(idx, o);
-			this.figures.set(idx+1, figure);
+			this.figures.move(idx, idx+1);
 
 			Rectangle2f r = figure.getBounds();
 			r = o.getBounds().createUnion(r);
@@ -550,8 +597,7 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 	public void moveFigureFront(Figure figure) {
 		int idx = indexOfFigure(figure);
 		if (idx>0) {
-			this.figures.remove(idx);
-			this.figures.add(0, figure);
+			this.figures.move(idx, 0);
 			repaint(figure);
 		}
 	}
@@ -563,8 +609,7 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 	public void moveFigureBackground(Figure figure) {
 		int idx = indexOfFigure(figure);
 		if (idx>=0 && idx<this.figures.size()-1) {
-			this.figures.remove(idx);
-			this.figures.add(figure);
+			this.figures.move(idx, this.figures.size()-1);
 			repaint(figure);
 		}
 	}
@@ -578,12 +623,11 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 	 * @throws IllegalArgumentException
 	 */
 	public int moveFigureAt(Figure figure, int index) {
-		if (index<0 && index>=this.figures.size())
+		if (index<0 || index>=this.figures.size())
 			throw new IllegalArgumentException();
 		int idx = indexOfFigure(figure);
 		if (idx!=index && idx>=0) {
-			this.figures.remove(idx);
-			this.figures.add(index, figure);
+			this.figures.move(idx, index);
 			repaint(figure);
 		}
 		return idx;
@@ -601,6 +645,63 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		return this.figures.indexOf(figure);
 	}
 
+	/** Replies the spatial index used to retreive the figures
+	 * from their positions.
+	 * 
+	 * @return the spatial index.
+	 */
+	public ViewComponentIndex<Figure> getFigureIndex() {
+		return this.figureIndex;
+	}
+
+	/** Set the spatial index used to retreive the figures
+	 * from their positions. The new index is filled with
+	 * the figures of this view.
+	 * 
+	 * @param index is the new spatial index.
+	 */
+	public void setFigureIndex(ViewComponentIndex<Figure> index) {
+		if (index!=null) {
+			try {
+				this.changeLock.lock();
+				if (index!=this.figureIndex) {
+					index.clear();
+					for(Figure figure : this.figures) {
+						index.add(figure);
+					}
+					this.figureIndex.clear();
+					this.figureIndex = index;
+				}
+			}
+			finally {
+				this.changeLock.unlock();
+			}
+		}
+	}
+
+	/** Replies the position of the figure in the layers.
+	 * 
+	 * @param figure
+	 * @return the position of the figure, or {@link Integer#MAX_VALUE}
+	 * if the figure is not in this view.
+	 */
+	private int getZOrderRank(Figure figure) {
+		int rank = this.figures.indexOf(figure);
+		return rank<0 ? Integer.MAX_VALUE : rank;
+	}
+
+	/** Sort the given figures from the front to the background.
+	 * 
+	 * @param candidates are the figures to sort.
+	 * @return <var>candidates</var>
+	 */
+	private List<Figure> sortFromFront(List<Figure> candidates) {
+		if (candidates.size()>1) {
+			Collections.sort(candidates, this.zOrderComparator);
+		}
+		return candidates;
+	}
+
 	private void removeFigureListeners(Figure figure) {
 		figure.removeViewComponentChangeListener(this.eventHandler);
 		figure.removeViewComponentPropertyChangeListener(this.eventHandler);
@@ -620,16 +721,23 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 
 	@Override
 	public final Rectangle2f getViewBounds() {
-		Rectangle2f r = (this.documentBounds==null) ? null : this.documentBounds.get();
-		if (r==null) {
-			r = calcDocumentBounds();
-			this.documentBounds = new SoftReference<Rectangle2f>(r);
+		try {
+			this.changeLock.lock();
+			Rectangle2f r = this.documentBounds.getBounds();
+			if (r==null) return null;
+			return r.clone();
+		}
+		finally {
+			this.changeLock.unlock();
 		}
-		if (r==null) return null;
-		return r.clone();
 	}
 
 	/** Compute and reply the bounds of the entire document.
+	 * <p>
+	 * The bounds of the document are maintained incrementally.
+	 * This function is invoked only when they must be recomputed
+	 * from all the figures, eg. when a figure on the border of
+	 * the document is removed.
 	 * 
 	 * @return the bounds of the entire document.
 	 */
@@ -713,6 +821,97 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		}
 	}
 
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void beginTransaction() {
+		if (this.transactionDepth==0) {
+			// The model changes are merged in the same transaction
+			G g = getGraph();
+			if (g!=null) {
+				g.beginTransaction();
+				this.transactionGraph = g;
+			}
+		}
+		++this.transactionDepth;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void commitTransaction() {
+		if (this.transactionDepth<=0)
+			throw new IllegalStateException("no transaction"); //$NON-NLS-1$
+		G g = null;
+		if (this.transactionDepth==1) {
+			g = this.transactionGraph;
+			this.transactionGraph = null;
+		}
+		try {
+			// The model events are dispatched before the view is
+			// updated, so that their effects on the figures are
+			// merged in this transaction.
+			if (g!=null) g.commitTransaction();
+		}
+		finally {
+			--this.transactionDepth;
+		}
+		if (this.transactionDepth==0) {
+			Set<Figure> changedFigures = this.transactionChangedFigures;
+			boolean repaint = this.transactionRepaint;
+			this.transactionChangedFigures = null;
+			this.transactionRepaint = false;
+			if (changedFigures!=null) {
+				for(Figure figure : changedFigures) {
+					if (this.figures.contains(figure)) {
+						fireFigureChanged(figure);
+					}
+				}
+			}
+			if (repaint) {
+				repaint();
+			}
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean isInTransaction() {
+		return this.transactionDepth>0;
+	}
+
+	/** Repaint the view, or delay the repaint until the end
+	 * of the current transaction.
+	 */
+	private void repaintView() {
+		if (this.transactionDepth>0) {
+			this.transactionRepaint = true;
+		}
+		else {
+			repaint();
+		}
+	}
+
+	/** Notifies the listeners about the change of a figure,
+	 * or delay the notification until the end of the
+	 * current transaction.
+	 * 
+	 * @param figure
+	 */
+	private void onFigureChanged(Figure figure) {
+		if (this.transactionDepth>0) {
+			if (this.transactionChangedFigures==null) {
+				this.transactionChangedFigures = Collections.newSetFromMap(
+						new IdentityHashMap<Figure,Boolean>());
+			}
+			this.transactionChangedFigures.add(figure);
+		}
+		else {
+			fireFigureChanged(figure);
+		}
+	}
+
 	/** Refresh the drawing area covered by the given figure.
 	 * <p>
 	 * This function does nothing if {@link #isIgnoreRepaint()}
@@ -781,7 +980,11 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 			
 			g.reset();
 			
-			Iterator<Figure> iterator = this.figures.descendingIterator();
+			// Only the figures intersecting the clip are painted.
+			Shape2f clip = g.getClip();
+			int painted = 0;
+			Iterator<Figure> iterator = getFiguresToPaint(
+					clip==null ? null : clip.toBoundingBox());
 			Figure figure;
 			while (iterator.hasNext()) {
 				figure = iterator.next();
@@ -792,13 +995,58 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 						bounds);
 				figure.paint(g);
 				g.popRenderingContext();
+				++painted;
 			}
+			
+			this.paintedFigureCount = painted;
+			this.skippedFigureCount = Math.max(0, this.figures.size() - painted);
 		}
 		finally {
 			this.changeLock.unlock();
 		}
 	}
 	
+	/** Replies the figures to paint in the given area, from the
+	 * background to the front.
+	 * 
+	 * @param area is the area to paint, or <code>null</code> to
+	 * paint all the figures.
+	 * @return the iterator on the figures to paint.
+	 */
+	private Iterator<Figure> getFiguresToPaint(Rectangle2f area) {
+		if (area!=null) {
+			List<Figure> candidates = new ArrayList<Figure>();
+			this.figureIndex.getComponentsIntersecting(area, candidates);
+			if (candidates.size()<this.figures.size()) {
+				sortFromFront(candidates);
+				Collections.reverse(candidates);
+				return candidates.iterator();
+			}
+		}
+		return this.figures.descendingIterator();
+	}
+
+	/** Replies the number of figures that were painted during
+	 * the last call to {@link #paintViewComponents(ViewGraphics2D)}.
+	 * 
+	 * @return the number of painted figures in the last frame.
+	 * @see #getSkippedFigureCount()
+	 */
+	public int getPaintedFigureCount() {
+		return this.paintedFigureCount;
+	}
+
+	/** Replies the number of figures that were not painted during
+	 * the last call to {@link #paintViewComponents(ViewGraphics2D)}
+	 * because they are outside the clip.
+	 * 
+	 * @return the number of skipped figures in the last frame.
+	 * @see #getPaintedFigureCount()
+	 */
+	public int getSkippedFigureCount() {
+		return this.skippedFigureCount;
+	}
+	
 	@Override
 	protected void onPointerPressed(PointerEvent e) {
 		this.mode.getModeManager().pointerPressed(e);
@@ -929,7 +1177,9 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 	public Figure getFigureAt(float x, float y) {
 		float precision = pixel2logical_size(getHitPrecision());
 		Circle2f circle = new Circle2f(x, y, precision);
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsAt(x, y, precision, candidates);
+		for(Figure figure : sortFromFront(candidates)) {
 			if (figure.intersects(circle)) {
 				return figure;
 			}
@@ -951,11 +1201,12 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 				boolean firstComponent = this.figures.isEmpty();
 				position = 0;
 				this.figures.add(position,component);
-				this.documentBounds = null;
+				this.figureIndex.add(component);
+				this.documentBounds.add(component);
 				component.setViewComponentContainer(this);
 				addFigureListeners(component);
 				if (firstComponent) setScalingFactor(1);
-				repaint();
+				repaintView();
 			}
 			finally {
 				this.changeLock.unlock();
@@ -987,15 +1238,16 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 				position = this.figures.indexOf(component);
 				if (position>=0) {
 					this.figures.remove(position);
+					this.figureIndex.remove(component);
+					this.documentBounds.remove(component);
 					component.setViewComponentContainer(null);
 					removeFigureListeners(component);
 					if (unlinkToModelObject &&
 							component instanceof ModelObjectFigure<?>) {
 						((ModelObjectFigure<?>)component).setModelObject(null);
 					}
-					this.documentBounds = null;
 					this.selectionManager.remove(component);
-					repaint();
+					repaintView();
 					fireFigureRemoved(component);
 				}
 			}
@@ -1012,11 +1264,12 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 			this.changeLock.lock();
 			Figure fig = this.figures.remove(index);
 			if (fig!=null) {
+				this.figureIndex.remove(fig);
+				this.documentBounds.remove(fig);
 				fig.setViewComponentContainer(null);
 				removeFigureListeners(fig);
-				this.documentBounds = null;
 				this.selectionManager.remove(fig);
-				repaint();
+				repaintView();
 				fireFigureRemoved(fig);
 			}
 			return fig;
@@ -1032,17 +1285,18 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		try {
 			this.changeLock.lock();
 			if (!this.figures.isEmpty()) {
-				oldFigures = this.figures;
-				this.figures = new LinkedList<Figure>();
+				oldFigures = new ArrayList<Figure>(this.figures);
+				this.figures.clear();
+				this.figureIndex.clear();
+				this.documentBounds.clear();
 
 				for(Figure fig : oldFigures) {
 					fig.setViewComponentContainer(null);
 					removeFigureListeners(fig);
 				}
 
-				this.documentBounds = null;
 				this.selectionManager.clear();
-				repaint();
+				repaintView();
 			}
 		}
 		finally {
@@ -1211,7 +1465,9 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		@Override
 		public boolean isCollisionFree(Rectangle2f bounds, Set<? extends ViewComponent> exceptions) {
 			Rectangle2f r;
-			for(Figure figure : FigureView.this) {
+			List<Figure> candidates = new ArrayList<Figure>();
+			getFigureIndex().getComponentsIntersecting(bounds, candidates);
+			for(Figure figure : candidates) {
 				if (figure instanceof BlockFigure && !exceptions.contains(figure)) {
 					r = figure.getBounds();
 					if (r!=null && !r.isEmpty()
@@ -1226,10 +1482,13 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		/**
 		 * {@inheritDoc}
 		 */
+		@SuppressWarnings("synthetic-access")
 		@Override
 		public Rectangle2f detectCollision(Rectangle2f bounds, Set<? extends ViewComponent> exceptions) {
 			Rectangle2f r;
-			for(Figure figure : FigureView.this) {
+			List<Figure> candidates = new ArrayList<Figure>();
+			getFigureIndex().getComponentsIntersecting(bounds, candidates);
+			for(Figure figure : sortFromFront(candidates)) {
 				if (figure instanceof BlockFigure && !exceptions.contains(figure)) {
 					r = figure.getBounds();
 					if (r!=null && !r.isEmpty()
@@ -1243,6 +1502,35 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 
 	} // class CAvoider
 
+	/** Compare the figures according to their positions in the layers,
+	 * from the front to the background.
+	 * 
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 */
+	private class ZOrderComparator implements Comparator<Figure> {
+
+		/**
+		 */
+		public ZOrderComparator() {
+			//
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public int compare(Figure o1, Figure o2) {
+			int r1 = getZOrderRank(o1);
+			int r2 = getZOrderRank(o2);
+			return (r1<r2) ? -1 : ((r1==r2) ? 0 : 1);
+		}
+
+	} // class ZOrderComparator
+
 	/**
 	 * @author $Author: hannoun$
 	 * @author $Author: galland$
@@ -1323,11 +1611,12 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		// ViewComponentChangeListener
 		//-------------------------------------
 
+		@SuppressWarnings("synthetic-access")
 		@Override
 		public void componentChange(ViewComponentChangeEvent event) {
 			ViewComponent vc = event.getSource();
 			if (vc instanceof Figure) {
-				fireFigureChanged((Figure)vc);
+				onFigureChanged((Figure)vc);
 			}
 		}
 
@@ -1335,11 +1624,12 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		// ViewComponentPropertyChangeListener
 		//-------------------------------------
 
+		@SuppressWarnings("synthetic-access")
 		@Override
 		public void propertyChange(ViewComponentPropertyChangeEvent event) {
 			ViewComponent vc = event.getSource();
 			if (vc instanceof Figure) {
-				fireFigureChanged((Figure)vc);
+				onFigureChanged((Figure)vc);
 			}
 		}
 
@@ -1350,10 +1640,20 @@ public class FigureView<G extends Graph<?,?,?,?>> extends ZoomableView  implemen
 		@SuppressWarnings("synthetic-access")
 		@Override
 		public void componentRepaint(ViewComponent component, boolean boundsChanged) {
-			if (boundsChanged) {
-				FigureView.this.documentBounds = null;
+			if (component instanceof Figure) {
+				// The update is cheap when the bounds have not changed
+				try {
+					FigureView.this.changeLock.lock();
+					FigureView.this.figureIndex.update((Figure)component);
+					if (boundsChanged) {
+						FigureView.this.documentBounds.update((Figure)component);
+					}
+				}
+				finally {
+					FigureView.this.changeLock.unlock();
+				}
 			}
-			repaint();
+			repaintView();
 		}
 
 		@Override
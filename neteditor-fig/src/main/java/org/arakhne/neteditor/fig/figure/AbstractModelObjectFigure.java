@@ -166,6 +166,7 @@ public abstract class AbstractModelObjectFigure<M extends ModelObject> extends A
 	 * @param event
 	 */
 	protected void fireModelChange(ModelObjectEvent event) {
+		if (!hasListeners(ViewComponentModelChangeListener.class)) return;
 		ViewComponentModelChangeEvent figEvent = new ViewComponentModelChangeEvent(
 				this, event);
 		for(ViewComponentModelChangeListener listener : getListeners(ViewComponentModelChangeListener.class)) {
@@ -24,6 +24,8 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.arakhne.neteditor.fig.figure.decoration.TextFigure;
+import org.arakhne.neteditor.fig.graphics.ViewGraphics2D;
+import org.arakhne.neteditor.fig.graphics.ViewGraphicsUtil;
 
 /** Text Figure that is associated to an anchor
  * and located according to the anchor position.
@@ -75,6 +77,17 @@ public class CoercedTextFigure extends TextFigure implements CoercedFigure {
 		return false;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void paint(ViewGraphics2D g) {
+		// A coerced figure is a detail of the figure it is attached to
+		if (ViewGraphicsUtil.isDetailDrawn(g, Math.max(getWidth(), getHeight()))) {
+			super.paint(g);
+		}
+	}
+
 	/**
 	 * @param viewId is the identifier of the view.
 	 */
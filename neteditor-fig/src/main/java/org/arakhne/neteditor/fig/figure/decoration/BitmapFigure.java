@@ -35,6 +35,7 @@ import org.arakhne.afc.ui.vector.Image;
 import org.arakhne.afc.ui.vector.ImageObserver;
 import org.arakhne.afc.ui.vector.VectorToolkit;
 import org.arakhne.neteditor.fig.graphics.ViewGraphics2D;
+import org.arakhne.neteditor.fig.graphics.ViewGraphicsUtil;
 
 /** A decoration figure that is drawing a bitmap.
  *
@@ -184,7 +185,11 @@ public class BitmapFigure extends BlockDecorationFigure implements ImageObserver
 	 */
 	@Override
 	public void paint(ViewGraphics2D g) {
-		if (this.bitmap!=null) {
+		if (!ViewGraphicsUtil.isDetailDrawn(g, Math.max(getWidth(), getHeight()))) {
+			// Too small to show the content of the image
+			ViewGraphicsUtil.paintSimplifiedFigure(g);
+		}
+		else if (this.bitmap!=null) {
 			Rectangle2f bounds = g.getCurrentViewComponentBounds();
 			Image img;
 			if (g.getLOD()==Graphics2DLOD.SHADOW) {
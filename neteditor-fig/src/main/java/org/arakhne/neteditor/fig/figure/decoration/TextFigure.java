@@ -31,6 +31,7 @@ import org.arakhne.afc.ui.vector.Font;
 import org.arakhne.afc.ui.vector.VectorToolkit;
 import org.arakhne.afc.vmutil.locale.Locale;
 import org.arakhne.neteditor.fig.graphics.ViewGraphics2D;
+import org.arakhne.neteditor.fig.graphics.ViewGraphicsUtil;
 
 /** A decoration figure that is drawing a text.
  *
@@ -172,10 +173,24 @@ public class TextFigure extends BlockDecorationFigure {
 	 */
 	@Override
 	public void paint(ViewGraphics2D g) {
-		g.setOutlineDrawn(isFramed());
-		g.setInteriorPainted(isFilled());
-		g.setInteriorText(getDisplayableText());
-		g.draw(g.getCurrentViewComponentBounds());
+		if (ViewGraphicsUtil.isDetailDrawn(g, getHeight())) {
+			g.setOutlineDrawn(isFramed());
+			g.setInteriorPainted(isFilled());
+			g.setInteriorText(getDisplayableText());
+			g.draw(g.getCurrentViewComponentBounds());
+		}
+		else if (isFramed() || isFilled()) {
+			// The text is not readable, only the box is drawn
+			if (ViewGraphicsUtil.isSimplified(g, Math.max(getWidth(), getHeight()))) {
+				ViewGraphicsUtil.paintSimplifiedFigure(g);
+			}
+			else {
+				g.setOutlineDrawn(isFramed());
+				g.setInteriorPainted(isFilled());
+				g.setInteriorText(null);
+				g.draw(g.getCurrentViewComponentBounds());
+			}
+		}
 	}
 
 	/**
@@ -22,6 +22,7 @@
 package org.arakhne.neteditor.fig.figure.edge ;
 
 import java.lang.ref.SoftReference;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -29,6 +30,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
@@ -40,6 +42,7 @@ import org.arakhne.afc.math.continous.object2d.Path2f;
 import org.arakhne.afc.math.continous.object2d.PathIterator2f;
 import org.arakhne.afc.math.continous.object2d.Point2f;
 import org.arakhne.afc.math.continous.object2d.Rectangle2f;
+import org.arakhne.afc.math.continous.object2d.Segment2f;
 import org.arakhne.afc.math.continous.object2d.Shape2f;
 import org.arakhne.afc.math.continous.object2d.UnmodifiablePoint2f;
 import org.arakhne.afc.math.generic.Point2D;
@@ -52,6 +55,7 @@ import org.arakhne.neteditor.fig.figure.ResizeDirection;
 import org.arakhne.neteditor.fig.figure.coercion.CoercedFigure;
 import org.arakhne.neteditor.fig.figure.edge.symbol.EdgeSymbol;
 import org.arakhne.neteditor.fig.graphics.ViewGraphics2D;
+import org.arakhne.neteditor.fig.graphics.ViewGraphicsUtil;
 import org.arakhne.neteditor.fig.shadow.ShadowedControlPoint;
 import org.arakhne.neteditor.fig.subfigure.SubFigure;
 import org.arakhne.neteditor.fig.view.LinearFeature;
@@ -73,12 +77,32 @@ import org.arakhne.neteditor.formalism.Node;
  */
 public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelObjectFigure<E> implements LinearFeature {
 
-	private static final long serialVersionUID = -1067666543925554497L;
+	private static final long serialVersionUID = -4162656952694798885L;
 
-	/** This is the set of control points that composed
-	 *  this edge.
+	/** Initial number of control points that may be stored
+	 * without reallocation.
 	 */
-	private final List<ControlPoint> points = new ArrayList<ControlPoint>() ;
+	private static final int INITIAL_CAPACITY = 4;
+
+	/** Coordinates of the control points that are composing
+	 * this edge, packed as <code>x0, y0, x1, y1...</code>
+	 */
+	private float[] coordinates = new float[INITIAL_CAPACITY*2];
+
+	/** Number of control points.
+	 */
+	private int pointCount = 0;
+
+	/** Lengths of the straight lines between the control points.
+	 * They are updated on each change of the control points.
+	 */
+	private float[] chordLengths = new float[INITIAL_CAPACITY];
+
+	/** Bounds of the control points: <code>minx, miny, maxx, maxy</code>.
+	 * They are updated on each change of the control points, or
+	 * set to <code>null</code> when they must be recomputed.
+	 */
+	private transient float[] pointBounds = null;
 
 	/** This is the end-symbol connected to the source port.
 	 */
@@ -92,7 +116,14 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	 */
 	private SoftReference<PathDetails> bufferedPath = null;
 
-	private transient SoftReference<float[]> bufferedSegmentLengths = null;
+	/** Buffered lengths of the segments.
+	 */
+	private transient float[] bufferedSegmentLengths = null;
+
+	/** Buffered distances from the first control point to each
+	 * control point along the edge (prefix sums of the segment lengths).
+	 */
+	private transient float[] bufferedDistances = null;
 
 	/** Contruct a new AbstractEdgeFigure.
 	 *
@@ -109,8 +140,8 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 				DEFAULT_MINIMAL_SIZE, DEFAULT_MINIMAL_SIZE) ;
 		setMinimalWidth(0f);
 		setMinimalHeight(0f);
-		this.points.add(new ControlPoint(xfrom,yfrom)) ;
-		this.points.add(new ControlPoint(xto,yto)) ;
+		addPoint(xfrom, yfrom);
+		addPoint(xto, yto);
 		updateGeometry() ;
 	}
 	
@@ -178,35 +209,229 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 		return p.lastPointTangent;
 	}
 
+	/** Ensure that the buffers are able to contain the given
+	 * number of control points.
+	 * 
+	 * @param count
+	 */
+	private void ensureCapacity(int count) {
+		if (count*2>this.coordinates.length) {
+			int capacity = Math.max(count, (this.pointCount*3)/2+1);
+			this.coordinates = Arrays.copyOf(this.coordinates, capacity*2);
+			this.chordLengths = Arrays.copyOf(this.chordLengths, capacity);
+		}
+	}
+
+	/** Update the length of the straight line between the control
+	 * points at the indexes <var>segment</var> and <var>segment+1</var>.
+	 * 
+	 * @param segment
+	 */
+	private void updateChordLength(int segment) {
+		if (segment>=0 && segment<this.pointCount-1) {
+			int i = segment*2;
+			float[] c = this.coordinates;
+			this.chordLengths[segment] = MathUtil.distancePointToPoint(
+					c[i], c[i+1], c[i+2], c[i+3]);
+		}
+	}
+
+	/** Enlarge the bounds of the control points to contain the given point.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	private void growPointBounds(float x, float y) {
+		float[] b = this.pointBounds;
+		if (b!=null) {
+			if (x<b[0]) b[0] = x;
+			if (y<b[1]) b[1] = y;
+			if (x>b[2]) b[2] = x;
+			if (y>b[3]) b[3] = y;
+		}
+	}
+
+	/** Invalidate the bounds of the control points if the given
+	 * point, that is removed or moved, is on their border.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	private void shrinkPointBounds(float x, float y) {
+		float[] b = this.pointBounds;
+		if (b!=null && (x<=b[0] || y<=b[1] || x>=b[2] || y>=b[3])) {
+			this.pointBounds = null;
+		}
+	}
+
+	/** Replies the bounds of the control points.
+	 * 
+	 * @return the bounds: <code>minx, miny, maxx, maxy</code>; or
+	 * <code>null</code> if there is no control point.
+	 */
+	private float[] getPointBounds() {
+		float[] b = this.pointBounds;
+		if (b==null && this.pointCount>0) {
+			float[] c = this.coordinates;
+			b = new float[] {c[0], c[1], c[0], c[1]};
+			int n = this.pointCount*2;
+			for(int i=2; i<n; i+=2) {
+				if (c[i]<b[0]) b[0] = c[i];
+				if (c[i+1]<b[1]) b[1] = c[i+1];
+				if (c[i]>b[2]) b[2] = c[i];
+				if (c[i+1]>b[3]) b[3] = c[i+1];
+			}
+			this.pointBounds = b;
+		}
+		return b;
+	}
+
+	/** Add a control point at the end of the buffers.
+	 * The geometry is not updated.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	private void addPoint(float x, float y) {
+		ensureCapacity(this.pointCount+1);
+		int i = this.pointCount*2;
+		this.coordinates[i] = x;
+		this.coordinates[i+1] = y;
+		++this.pointCount;
+		updateChordLength(this.pointCount-2);
+		growPointBounds(x, y);
+	}
+
+	/** Insert a control point in the buffers.
+	 * The geometry is not updated.
+	 * 
+	 * @param index
+	 * @param x
+	 * @param y
+	 */
+	private void insertPoint(int index, float x, float y) {
+		ensureCapacity(this.pointCount+1);
+		int i = index*2;
+		System.arraycopy(this.coordinates, i, this.coordinates, i+2, (this.pointCount-index)*2);
+		if (index<this.pointCount-1) {
+			System.arraycopy(this.chordLengths, index, this.chordLengths, index+1, this.pointCount-1-index);
+		}
+		this.coordinates[i] = x;
+		this.coordinates[i+1] = y;
+		++this.pointCount;
+		updateChordLength(index-1);
+		updateChordLength(index);
+		growPointBounds(x, y);
+	}
+
+	/** Change a control point in the buffers.
+	 * The geometry is not updated.
+	 * 
+	 * @param index
+	 * @param x
+	 * @param y
+	 */
+	private void storePoint(int index, float x, float y) {
+		int i = index*2;
+		shrinkPointBounds(this.coordinates[i], this.coordinates[i+1]);
+		this.coordinates[i] = x;
+		this.coordinates[i+1] = y;
+		updateChordLength(index-1);
+		updateChordLength(index);
+		growPointBounds(x, y);
+	}
+
+	/** Remove a control point from the buffers.
+	 * The geometry is not updated.
+	 * 
+	 * @param index
+	 */
+	private void deletePoint(int index) {
+		int i = index*2;
+		shrinkPointBounds(this.coordinates[i], this.coordinates[i+1]);
+		System.arraycopy(this.coordinates, i+2, this.coordinates, i, (this.pointCount-index-1)*2);
+		if (index<this.pointCount-1) {
+			System.arraycopy(this.chordLengths, index+1, this.chordLengths, index, this.pointCount-2-index);
+		}
+		--this.pointCount;
+		updateChordLength(index-1);
+	}
+
+	/** Remove all the control points from the buffers.
+	 * The geometry is not updated.
+	 */
+	private void clearPoints() {
+		this.pointCount = 0;
+		this.pointBounds = null;
+	}
+
+	/** Translate the control points between the first and the last
+	 * control points. The geometry is not updated.
+	 * 
+	 * @param dx
+	 * @param dy
+	 */
+	private void translateInnerPoints(float dx, float dy) {
+		if (this.pointCount>2) {
+			int n = (this.pointCount-1)*2;
+			for(int i=2; i<n; i+=2) {
+				this.coordinates[i] += dx;
+				this.coordinates[i+1] += dy;
+			}
+			// The inner segments keep their lengths
+			updateChordLength(0);
+			updateChordLength(this.pointCount-2);
+			this.pointBounds = null;
+		}
+	}
+
+	/** Check if the given index is the index of a control point.
+	 * 
+	 * @param index
+	 * @throws IndexOutOfBoundsException if the index is invalid.
+	 */
+	private void checkIndex(int index) {
+		if (index<0 || index>=this.pointCount)
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+	}
+
 	private float[] getSegmentLengths() {
-		float[] lengths = this.bufferedSegmentLengths==null ? null : this.bufferedSegmentLengths.get();
+		float[] lengths = this.bufferedSegmentLengths;
 		if (lengths==null) {
-			lengths = new float[getCtrlPointCount()-1];
-			computeSegmentLengths(lengths);
-			this.bufferedSegmentLengths = new SoftReference<float[]>(lengths);
+			lengths = new float[Math.max(0, this.pointCount-1)];
+			if (lengths.length>0) {
+				computeSegmentLengths(lengths);
+			}
+			this.bufferedSegmentLengths = lengths;
 		}
 		return lengths;
 	}
 
+	private float[] getDistances() {
+		float[] distances = this.bufferedDistances;
+		if (distances==null) {
+			float[] lengths = getSegmentLengths();
+			distances = new float[lengths.length+1];
+			for(int i=0; i<lengths.length; ++i) {
+				distances[i+1] = distances[i] + lengths[i];
+			}
+			this.bufferedDistances = distances;
+		}
+		return distances;
+	}
+
 	/** Compute the lengths of all the segments and put these lengths
 	 * in the specified array.
-	 * The size of the specified array must be the same as 
-	 * the number of control points
+	 * The size of the specified array must be the number of
+	 * segments, ie. the number of control points minus one.
+	 * By default, the lengths are the lengths of the straight
+	 * lines between the control points.
 	 *
 	 * @param lengths are the computed lengths.
 	 */
 	protected void computeSegmentLengths(float[] lengths) {
-		assert(this.points.size()==lengths.length);
-		Point2D p;
-		Point2D previous = this.points.get(0);
-		for(int i=1; i<this.points.size(); ++i) {
-			p = this.points.get(i);
-			lengths[i-1] = MathUtil.distancePointToPoint(
-					previous.getX(), previous.getY(),
-					p.getX(), p.getY());
-			previous = p;
-		}
-		lengths[lengths.length-1] = 0;
+		assert(this.pointCount-1==lengths.length);
+		System.arraycopy(this.chordLengths, 0, lengths, 0, lengths.length);
 	}
 
 	/** Replies the distance of the first point of the segment at 
@@ -217,12 +442,8 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	 * first point of the segment.
 	 */
 	public float getDistanceToSegmentAt(int index) {
-		float dist = 0f;
-		float[] lengths = getSegmentLengths();
-		for(int i=0; i<index; ++i) {
-			dist += lengths[i];
-		}
-		return dist;
+		if (index<=0) return 0f;
+		return getDistances()[index];
 	}
 
 	/** Replies the size of the segment at the specified index.
@@ -239,17 +460,14 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	 * @return the length of the entire edge.
 	 */
 	public float getLength() {
-		float length = 0f;
-		for(float d : getSegmentLengths()) {
-			length += d;
-		}
-		return length;
+		float[] distances = getDistances();
+		return distances[distances.length-1];
 	}
 	
 	private PathDetails getPathDetails() {
 		PathDetails p = (this.bufferedPath==null) ? null : this.bufferedPath.get();
 		if (p==null) {
-			p = computePath(this.points);
+			p = computePath(getCtrlPoints());
 			this.bufferedPath = new SoftReference<PathDetails>(p);
 		}
 		return p;
@@ -272,6 +490,7 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 		super.cleanUp();
 		this.bufferedPath = null;
 		this.bufferedSegmentLengths = null;
+		this.bufferedDistances = null;
 	}
 
 	/**
@@ -333,9 +552,10 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	@Override
 	public void setCtrlPoints(Collection<? extends Point2D> pathPoints) {
 		cleanUp();
-		this.points.clear();
+		clearPoints();
+		ensureCapacity(pathPoints.size());
 		for(Point2D p : pathPoints) {
-			this.points.add(new ControlPoint(p));
+			addPoint(p.getX(), p.getY());
 		}
 		refreshConnectedCtrlPoints();
 		repaint(true);
@@ -343,11 +563,13 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	
 
 	/** Get the edge control points.
+	 * The replied list is an unmodifiable view on the
+	 * control points of this edge.
 	 *
 	 * @return control points of this edge.
 	 */
 	public List<? extends Point2D> getCtrlPoints() {
-		return Collections.unmodifiableList(this.points) ;
+		return new ControlPointList();
 	}
 
 	/** Set the source port point.
@@ -356,9 +578,9 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	 * @param y is the coordinate of the first control point.
 	 */
 	public void setFirstCtrlPoint( float x, float y ) {
-		ControlPoint p = this.points.get(0);
-		if (x!=p.getX() || y!=p.getY()) {
-			p.setCtrlPoint(x, y);
+		checkIndex(0);
+		if (x!=this.coordinates[0] || y!=this.coordinates[1]) {
+			storePoint(0, x, y);
 			updateGeometry();
 			repaint(true);
 		}
@@ -369,7 +591,7 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	 * @return the first control point.
 	 */
 	public UnmodifiablePoint2f getFirstCtrlPoint() {
-		return this.points.get(0) ;
+		return getCtrlPointAt(0);
 	}
 
 	/** Set the destination port point.
@@ -378,10 +600,10 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	 * @param y is the coordinate of the last control point.
 	 */
 	public void setLastCtrlPoint( float x, float y) {
-		int size = this.points.size() ; 
-		ControlPoint p = this.points.get(size-1);
-		if (x!=p.getX() || y!=p.getY()) {
-			p.setCtrlPoint(x, y);
+		int index = this.pointCount-1;
+		checkIndex(index);
+		if (x!=this.coordinates[index*2] || y!=this.coordinates[index*2+1]) {
+			storePoint(index, x, y);
 			updateGeometry();
 			repaint(true);
 		}
@@ -392,14 +614,14 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	 * @return the last control point.
 	 */
 	public UnmodifiablePoint2f getLastCtrlPoint() {
-		return this.points.get(this.points.size()-1);
+		return getCtrlPointAt(this.pointCount-1);
 	}
 
 	/** {@inheritDoc}
 	 */
 	@Override
 	public int getCtrlPointCount() {
-		return this.points.size() ;
+		return this.pointCount;
 	}
 
 	/** Return the max number of control point for the edge. Usually two
@@ -411,22 +633,25 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	public abstract int getMaxAllowedCtrlPoints() ;
 
 	/** {@inheritDoc}
+	 * <p>
+	 * The replied point is a copy of the control point.
 	 */
 	@Override
 	public Point2f getCtrlPointAt( int index) {
-		return this.points.get(index) ;
+		checkIndex(index);
+		return new ControlPoint(this.coordinates[index*2], this.coordinates[index*2+1]);
 	}
 
 	/** {@inheritDoc}
 	 */
 	@Override
 	public void setCtrlPointAt(int index, float x, float y) {
-		ControlPoint p = this.points.get(index);
-		if (x!=p.getX() || y!=p.getY()) {
-			p.setCtrlPoint(x, y);
+		checkIndex(index);
+		if (x!=this.coordinates[index*2] || y!=this.coordinates[index*2+1]) {
+			storePoint(index, x, y);
 
 			// Update the position of the ends if necessary.
-			if (index<=1 || index>=this.points.size()-2)
+			if (index<=1 || index>=this.pointCount-2)
 				refreshConnectedCtrlPoints();
 			else
 				updateGeometry();
@@ -439,14 +664,14 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	 */
 	@Override
 	public void insertCtrlPointAt(int index, float x, float y) {
-		if (this.points.size()<getMaxAllowedCtrlPoints()) {
+		if (this.pointCount<getMaxAllowedCtrlPoints()) {
 			int idx = index;
 			if (idx<0) idx = 0;
-			if (idx>this.points.size()) idx = this.points.size();
-			this.points.add(idx, new ControlPoint(x,y));
+			if (idx>this.pointCount) idx = this.pointCount;
+			insertPoint(idx, x, y);
 			
 			// Update the position of the ends if necessary.
-			if (index<=1 || index>=this.points.size()-2)
+			if (index<=1 || index>=this.pointCount-2)
 				refreshConnectedCtrlPoints();
 			else
 				updateGeometry();
@@ -460,15 +685,13 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	@Override
 	public int getNearestSegmentTo(float x, float y) {
 		float distance = Float.POSITIVE_INFINITY;
-		Point2D p1, p2;
+		float[] c = this.coordinates;
 		float d;
 		int index=  -1;
-		for(int i=0; i<this.points.size()-1; ++i) {
-			p1 = this.getCtrlPointAt(i);
-			p2 = this.getCtrlPointAt(i+1);
+		for(int i=0, j=0; i<this.pointCount-1; ++i, j+=2) {
 			d = distanceToSegment(
-					p1.getX(), p1.getY(),
-					p2.getX(), p2.getY(),
+					c[j], c[j+1],
+					c[j+2], c[j+3],
 					x, y,
 					null);
 			if (!Float.isNaN(d) && d<distance) {
@@ -489,14 +712,12 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 		Point2D pts = new Point2f();
 		Point2D ppts = new Point2f();
 		float distance = Float.POSITIVE_INFINITY;
-		Point2D p1, p2;
+		float[] c = this.coordinates;
 		float d;
-		for(int i=0; i<this.points.size()-1; ++i) {
-			p1 = this.getCtrlPointAt(i);
-			p2 = this.getCtrlPointAt(i+1);
+		for(int i=0, j=0; i<this.pointCount-1; ++i, j+=2) {
 			d = distanceToSegment(
-					p1.getX(), p1.getY(),
-					p2.getX(), p2.getY(),
+					c[j], c[j+1],
+					c[j+2], c[j+3],
 					x, y,
 					ppts);
 			if (!Float.isNaN(d) && d<distance) {
@@ -512,18 +733,17 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	@Override
 	public int getNearestCtrlPointTo(float x, float y) {
 		float distance = Float.POSITIVE_INFINITY;
+		float[] c = this.coordinates;
 		float d;
 		int index=  -1;
-		int i=0;
-		for(Point2D p : this.points) {
+		for(int i=0, j=0; i<this.pointCount; ++i, j+=2) {
 			d = MathUtil.distancePointToPoint(
 					x, y,
-					p.getX(), p.getY());
+					c[j], c[j+1]);
 			if (!Float.isNaN(d) && d<distance) {
 				distance = d;
 				index = i;
 			}
-			++i;
 		}
 		if (Float.isInfinite(distance) || Float.isNaN(distance)) {
 			return -1;
@@ -535,8 +755,9 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	 */
 	@Override
 	public void removeCtrlPointAt(int index) {
-		if (this.points.size()>2) {
-			this.points.remove(index) ;
+		if (this.pointCount>2) {
+			checkIndex(index);
+			deletePoint(index);
 			updateGeometry();
 			repaint(true);
 		}
@@ -584,14 +805,18 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 
 	/** Invoked to refine the computation of the bounds of the edge's segments.
 	 * By default this function compute the bounds of the control points themselves.
+	 * These bounds are maintained when the control points are changed.
 	 * It is defined to be overridden by the subclasses.
 	 * 
 	 * @return the bounds of the edge's control points; or <code>null</code>
 	 * if the bounds cannot be computed.
 	 */
 	protected Rectangle2f computeEdgeBounds() {
-		Path2f path = getPath();
-		return path.toBoundingBox();
+		float[] b = getPointBounds();
+		if (b==null) return null;
+		Rectangle2f r = new Rectangle2f();
+		r.setFromCorners(b[0], b[1], b[2], b[3]);
+		return r;
 	}
 
 	/** Invoked to update the geometry of the given end-symbol.
@@ -645,13 +870,7 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	public void setLocation(float x, float y) {
 		Point2D loc = getLocation();
 		if (x!=loc.getX() || y!=loc.getY()) {
-			if (!this.points.isEmpty()) {
-				float dx = (x - loc.getX());
-				float dy = (y - loc.getY());
-				for(int i=1; i<this.points.size()-1; ++i) {
-					this.points.get(i).translateCtrlPoint(dx, dy);
-				}
-			}
+			translateInnerPoints(x - loc.getX(), y - loc.getY());
 			updateGeometry();
 			repaint(true);
 		}
@@ -662,11 +881,7 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	@Override
 	public void translate(float dx, float dy) {
 		if (dx!=0f || dy!=0f) {
-			if (!this.points.isEmpty()) {
-				for(int i=1; i<this.points.size()-1; ++i) {
-					this.points.get(i).translateCtrlPoint(dx, dy);
-				}
-			}
+			translateInnerPoints(dx, dy);
 			updateGeometry();
 			repaint(true);
 		}
@@ -832,20 +1047,20 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	@Override
 	public int hitSegment(float x, float y, float epsilon) {
 		if ( getBounds().contains(x,y) ) {
-			ControlPoint previous = null;
-			int segmentIndex = 0;
-			for(ControlPoint p : this.points) {
-				if (previous!=null) {
-					if (isClosedToSegment(
-							previous.x(), previous.y(),
-							p.x(), p.y(),
-							x, y,
-							epsilon)) {
-						return segmentIndex;
-					}
-					++segmentIndex;
+			float[] c = this.coordinates;
+			float e = Math.abs(epsilon);
+			float x1, y1, x2, y2;
+			for(int i=0, j=0; i<this.pointCount-1; ++i, j+=2) {
+				x1 = c[j];
+				y1 = c[j+1];
+				x2 = c[j+2];
+				y2 = c[j+3];
+				// Ignore the segments that are too far from the point.
+				if (x>=Math.min(x1, x2)-e && x<=Math.max(x1, x2)+e
+					&& y>=Math.min(y1, y2)-e && y<=Math.max(y1, y2)+e
+					&& isClosedToSegment(x1, y1, x2, y2, x, y, epsilon)) {
+					return i;
 				}
-				previous = p;
 			}
 		}
 		return -1;
@@ -893,10 +1108,9 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	 */
 	@Override
 	public int hitCtrlPoint(float x, float y, float epsilon) {
-		ControlPoint p;
-		for(int i=1; i<this.points.size()-1; ++i) { 
-			p = this.points.get(i);
-			if (MathUtil.distancePointToPoint(x, y, p.getX(), p.getY())<=epsilon) {
+		float[] c = this.coordinates;
+		for(int i=1; i<this.pointCount-1; ++i) { 
+			if (MathUtil.distancePointToPoint(x, y, c[i*2], c[i*2+1])<=epsilon) {
 				return i;
 			}
 		}
@@ -923,8 +1137,23 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 	@Override
 	public final void paint(ViewGraphics2D g) {
 		g.beginGroup();
-		paintSegments(g, getPath());
-		paintEdgeSymbols(g);
+		Rectangle2f bounds = getBounds();
+		float size = (bounds==null) ? 0f : Math.max(bounds.getWidth(), bounds.getHeight());
+		int count = getCtrlPointCount();
+		if (count>=2 && ViewGraphicsUtil.isSimplified(g, size)) {
+			// Too small to be drawn with details
+			Point2f p1 = getCtrlPointAt(0);
+			Point2f p2 = getCtrlPointAt(count-1);
+			g.setOutlineDrawn(true);
+			g.setInteriorPainted(false);
+			g.draw(new Segment2f(p1.getX(), p1.getY(), p2.getX(), p2.getY()));
+		}
+		else {
+			paintSegments(g, getPath());
+			if (ViewGraphicsUtil.isDetailDrawn(g, size)) {
+				paintEdgeSymbols(g);
+			}
+		}
 		g.endGroup();
 	}
 
@@ -1019,11 +1248,11 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 			}
 		}
 		StringBuilder b = new StringBuilder();
-		for(Point2D p : this.points) {
+		for(int i=0; i<this.pointCount*2; i+=2) {
 			b.append("("); //$NON-NLS-1$
-			b.append(p.getX());
+			b.append(this.coordinates[i]);
 			b.append("|"); //$NON-NLS-1$
-			b.append(p.getY());
+			b.append(this.coordinates[i+1]);
 			b.append(")"); //$NON-NLS-1$
 		}
 		properties.put(PROPERTY_CONTROLPOINTS, b.toString()); 
@@ -1065,12 +1294,12 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 				Matcher matcher = pattern.matcher(ctrlpoints);
 
 				cleanUp();
-				this.points.clear();
+				clearPoints();
 				
 				while (matcher.find()) {
 					float x = Float.parseFloat(matcher.group(1));
 					float y = Float.parseFloat(matcher.group(2));
-					this.points.add(new ControlPoint(x,y));
+					addPoint(x, y);
 				}
 				refreshConnectedCtrlPoints();
 				repaint(true);
@@ -1111,8 +1340,9 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 		 */
 		@SuppressWarnings("synthetic-access")
 		public SPainter() {
-			for(ControlPoint p : EdgeFigure.this.points) {
-				this.shadowPoints.add(new ShadowedControlPoint(p));
+			float[] c = EdgeFigure.this.coordinates;
+			for(int i=0; i<EdgeFigure.this.pointCount*2; i+=2) {
+				this.shadowPoints.add(new ShadowedControlPoint(c[i], c[i+1]));
 			}
 		}
 
@@ -1237,6 +1467,44 @@ public abstract class EdgeFigure<E extends Edge<?,?,?,?>> extends AbstractModelO
 
 	}
 
+	/** Unmodifiable list of the control points. The points are
+	 * created on demand from the coordinate buffer of the edge.
+	 *
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 */
+	private class ControlPointList extends AbstractList<ControlPoint> implements RandomAccess {
+
+		/**
+		 */
+		public ControlPointList() {
+			//
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public ControlPoint get(int index) {
+			checkIndex(index);
+			float[] c = EdgeFigure.this.coordinates;
+			return new ControlPoint(c[index*2], c[index*2+1]);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public int size() {
+			return EdgeFigure.this.pointCount;
+		}
+
+	} // class ControlPointList
+
 	/** A container for a path and the tangents
 	 * of the path ends.
 	 *
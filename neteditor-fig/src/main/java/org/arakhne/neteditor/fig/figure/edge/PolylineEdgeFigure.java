@@ -32,6 +32,7 @@ import org.arakhne.afc.math.MathUtil;
 import org.arakhne.afc.math.continous.object2d.Path2f;
 import org.arakhne.afc.math.continous.object2d.PathElement2f;
 import org.arakhne.afc.math.continous.object2d.Point2f;
+import org.arakhne.afc.math.continous.object2d.Rectangle2f;
 import org.arakhne.afc.math.continous.object2d.Vector2f;
 import org.arakhne.afc.math.generic.Point2D;
 import org.arakhne.afc.math.generic.Vector2D;
@@ -182,6 +183,22 @@ public class PolylineEdgeFigure<E extends Edge<?,?,?,?>> extends EdgeFigure<E> {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Rectangle2f computeEdgeBounds() {
+		switch(getDrawingMethod()) {
+		case BEZIER_SPLINE:
+		case QUADRATIC_SPLINE:
+			Path2f path = getPath();
+			return path==null ? null : path.toBoundingBox();
+		case SEGMENTS:
+		default:
+			return super.computeEdgeBounds();
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
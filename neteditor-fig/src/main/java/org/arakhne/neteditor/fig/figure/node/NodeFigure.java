@@ -40,6 +40,7 @@ import org.arakhne.neteditor.fig.figure.ResizeDirection;
 import org.arakhne.neteditor.fig.figure.edge.EdgeFigure;
 import org.arakhne.neteditor.fig.figure.edge.EdgeShadowPainter;
 import org.arakhne.neteditor.fig.graphics.ViewGraphics2D;
+import org.arakhne.neteditor.fig.graphics.ViewGraphicsUtil;
 import org.arakhne.neteditor.fig.subfigure.SubFigure;
 import org.arakhne.neteditor.fig.view.ViewComponentConstants;
 import org.arakhne.neteditor.formalism.Anchor;
@@ -175,8 +176,17 @@ public abstract class NodeFigure<N extends Node<?,? super N,? super A,?>,A exten
 	@Override
 	public void paint(ViewGraphics2D g) {
 		g.beginGroup();
-		paintNode(g);
-		paintAnchors(g);
+		float size = Math.max(getWidth(), getHeight());
+		if (ViewGraphicsUtil.isSimplified(g, size)) {
+			// Too small to be drawn with details
+			ViewGraphicsUtil.paintSimplifiedFigure(g);
+		}
+		else {
+			paintNode(g);
+			if (ViewGraphicsUtil.isDetailDrawn(g, size)) {
+				paintAnchors(g);
+			}
+		}
 		g.endGroup();
 	}
 
@@ -21,8 +21,11 @@
  */
 package org.arakhne.neteditor.fig.graphics;
 
+import org.arakhne.afc.math.continous.object2d.Rectangle2f;
 import org.arakhne.afc.ui.Graphics2DLOD;
+import org.arakhne.afc.ui.ZoomableContext;
 import org.arakhne.afc.ui.vector.VectorGraphics2D;
+import org.arakhne.neteditor.fig.view.ViewComponentConstants;
 
 /** Utilities for ViewGraphics2D.
  *
@@ -35,6 +38,10 @@ public class ViewGraphicsUtil {
 
 	private static Factory FACTORY = null;
 
+	private static final float DETAIL_PIXEL_SIZE = ViewComponentConstants.DEFAULT_DETAIL_PIXEL_SIZE;
+
+	private static final float SIMPLIFICATION_PIXEL_SIZE = ViewComponentConstants.DEFAULT_SIMPLIFICATION_PIXEL_SIZE;
+
 	/** Change the inner factory.
 	 * 
 	 * @param factory is the new factory.
@@ -74,6 +81,86 @@ public class ViewGraphicsUtil {
 		throw new IllegalStateException("You must given a Factory to ViewGraphicsUtil"); //$NON-NLS-1$
 	}
 
+	/** Replies the size in pixels under which the details of a figure
+	 * (texts, edge symbols, anchors, coerced figures) are not drawn.
+	 * 
+	 * @return the size in pixels.
+	 * @see ViewComponentConstants#DEFAULT_DETAIL_PIXEL_SIZE
+	 */
+	public static float getDetailPixelSize() {
+		return DETAIL_PIXEL_SIZE;
+	}
+
+	/** Replies the size in pixels under which a figure is drawn
+	 * with a simple rectangle or a simple line.
+	 * 
+	 * @return the size in pixels.
+	 * @see ViewComponentConstants#DEFAULT_SIMPLIFICATION_PIXEL_SIZE
+	 */
+	public static float getSimplificationPixelSize() {
+		return SIMPLIFICATION_PIXEL_SIZE;
+	}
+
+	/** Replies the size in pixels of the given logical size.
+	 * If the graphical context is not zoomable, the logical
+	 * size is replied.
+	 * 
+	 * @param g
+	 * @param size is the logical size.
+	 * @return the size in pixels.
+	 */
+	public static float toPixelSize(VectorGraphics2D g, float size) {
+		if (g instanceof ZoomableContext) {
+			return ((ZoomableContext)g).logical2pixel_size(size);
+		}
+		return size;
+	}
+
+	/** Replies if the details of an object with the given logical size
+	 * must be drawn. The details are the texts, the edge symbols,
+	 * the anchors and the coerced figures. They are not drawn
+	 * when the level of details is low, or when the size of the
+	 * object on the screen is lower than {@link #getDetailPixelSize()}.
+	 * 
+	 * @param g
+	 * @param size is the logical size of the object.
+	 * @return <code>true</code> if the details must be drawn;
+	 * <code>false</code> otherwise.
+	 */
+	public static boolean isDetailDrawn(ViewGraphics2D g, float size) {
+		if (g.getLOD()==Graphics2DLOD.LOW_LEVEL_OF_DETAIL && !g.isShadowDrawing()) {
+			return false;
+		}
+		return toPixelSize(g, size)>=DETAIL_PIXEL_SIZE;
+	}
+
+	/** Replies if an object with the given logical size must be drawn
+	 * with a simple rectangle or a simple line, ie. if its size on the
+	 * screen is lower than {@link #getSimplificationPixelSize()}.
+	 * 
+	 * @param g
+	 * @param size is the logical size of the object.
+	 * @return <code>true</code> if the object must be simplified;
+	 * <code>false</code> otherwise.
+	 */
+	public static boolean isSimplified(ViewGraphics2D g, float size) {
+		return toPixelSize(g, size)<SIMPLIFICATION_PIXEL_SIZE;
+	}
+
+	/** Paint the current view component as a filled rectangle.
+	 * This function is used by the figures that are too small
+	 * to be drawn with details.
+	 * 
+	 * @param g
+	 */
+	public static void paintSimplifiedFigure(ViewGraphics2D g) {
+		Rectangle2f bounds = g.getCurrentViewComponentBounds();
+		g.setInteriorText(null);
+		g.setInteriorPainted(true);
+		g.setOutlineDrawn(true);
+		g.draw(bounds);
+	}
+
 	/** Factory to create ViewVector2D.
 	 *
 	 * @author $Author: galland$
@@ -26,6 +26,7 @@ import java.util.TreeSet;
 import java.util.UUID;
 
 import org.arakhne.afc.math.continous.object2d.Rectangle2f;
+import org.arakhne.afc.math.continous.object2d.Shape2f;
 import org.arakhne.neteditor.fig.figure.Figure;
 import org.arakhne.neteditor.fig.figure.ResizeDirection;
 import org.arakhne.neteditor.fig.graphics.ViewGraphics2D;
@@ -186,7 +187,15 @@ public class ComposedShadowPainter implements BlockShadowPainter {
 	 */
 	@Override
 	public void paint(ViewGraphics2D g) {
+		// Skip the shadows that are outside the clip.
+		Shape2f clip = g.getClip();
+		Rectangle2f clipBounds = (clip==null) ? null : clip.toBoundingBox();
+		Rectangle2f bb;
 		for(ShadowPainter painter : this.painters) {
+			if (clipBounds!=null) {
+				bb = painter.getDamagedBounds();
+				if (bb!=null && !bb.intersects(clipBounds)) continue;
+			}
 			painter.paint(g);
 		}
 	}
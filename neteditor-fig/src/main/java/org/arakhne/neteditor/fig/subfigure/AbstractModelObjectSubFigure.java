@@ -147,6 +147,7 @@ public abstract class AbstractModelObjectSubFigure<M extends ModelObject> extend
 	 * @param event
 	 */
 	protected void fireModelChange(ModelObjectEvent event) {
+		if (!hasListeners(ViewComponentModelChangeListener.class)) return;
 		ViewComponentModelChangeEvent figEvent = new ViewComponentModelChangeEvent(
 					this, event);
 		for(ViewComponentModelChangeListener listener : getListeners(ViewComponentModelChangeListener.class)) {
@@ -43,7 +43,6 @@ import org.arakhne.afc.ui.vector.Colors;
 import org.arakhne.afc.ui.vector.Dimension;
 import org.arakhne.afc.ui.vector.Image;
 import org.arakhne.afc.ui.vector.VectorToolkit;
-import org.arakhne.afc.util.ListenerCollection;
 import org.arakhne.neteditor.fig.PropertyNames;
 import org.arakhne.neteditor.fig.figure.coercion.CoercedFigure;
 import org.arakhne.neteditor.formalism.AbstractPropertyTooler;
@@ -141,7 +140,7 @@ public abstract class AbstractViewComponent extends AbstractPropertyTooler imple
 
 	/** Listener on view component events.
 	 */
-	private transient ListenerCollection<EventListener> listeners = null;
+	private transient volatile CopyOnWriteListenerCollection listeners = null;
 
 	private UUID viewUUID;
 	private UUID uuid = UUID.randomUUID();
@@ -226,12 +225,10 @@ public abstract class AbstractViewComponent extends AbstractPropertyTooler imple
 		}
 	}
 
-	/** Replies the container of this component.
-	 * 
-	 * @return the container; may be <code>null</code> if the
-	 * container was never set before.
+	/** {@inheritDoc}
 	 */
-	ViewComponentContainer<?,?> getViewComponentContainer() {
+	@Override
+	public ViewComponentContainer<?,?> getViewComponentContainer() {
 		return this.container==null ? null : this.container.get();
 	}
 
@@ -311,7 +308,7 @@ public abstract class AbstractViewComponent extends AbstractPropertyTooler imple
 	 */
 	protected synchronized final <T extends EventListener> void addListener(Class<T> type, T listener) {
 		if (this.listeners==null) {
-			this.listeners = new ListenerCollection<EventListener>();
+			this.listeners = new CopyOnWriteListenerCollection();
 		}
 		this.listeners.add(type, listener);
 	}
@@ -330,15 +327,31 @@ public abstract class AbstractViewComponent extends AbstractPropertyTooler imple
 	}
 
 	/** Replies the listeners of the given type.
+	 * The replied array is shared and must not be modified.
 	 * 
 	 * @param type
 	 * @return the listeners, never <code>null</code>.
 	 */
 	@SuppressWarnings("unchecked")
-	protected synchronized final <T extends EventListener> T[] getListeners(Class<T> type) {
-		if (this.listeners==null)
+	protected final <T extends EventListener> T[] getListeners(Class<T> type) {
+		CopyOnWriteListenerCollection l = this.listeners;
+		T[] tab = (l==null) ? null : l.getListeners(type);
+		if (tab==null)
 			return (T[])Array.newInstance(type, 0);
-		return this.listeners.getListeners(type);
+		return tab;
+	}
+
+	/** Replies if a listener of the given type was added.
+	 * This function may be used to avoid the creation
+	 * of events when no listener is registered.
+	 * 
+	 * @param type
+	 * @return <code>true</code> if a listener of the given type was added;
+	 * otherwise <code>false</code>.
+	 */
+	protected final boolean hasListeners(Class<? extends EventListener> type) {
+		CopyOnWriteListenerCollection l = this.listeners;
+		return l!=null && l.hasListeners(type);
 	}
 
 	/** Notifies listeners about changes.
@@ -348,6 +361,7 @@ public abstract class AbstractViewComponent extends AbstractPropertyTooler imple
 	 * @param newValue is the new value for the property.
 	 */
 	public void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+		if (!hasListeners(ViewComponentPropertyChangeListener.class)) return;
 		ViewComponentPropertyChangeEvent event = new ViewComponentPropertyChangeEvent(
 				this, propertyName, oldValue, newValue);
 		for(ViewComponentPropertyChangeListener listener : getListeners(ViewComponentPropertyChangeListener.class)) {
@@ -927,6 +941,7 @@ public abstract class AbstractViewComponent extends AbstractPropertyTooler imple
 	 */
 	@Override
 	public void repaint(boolean boundChanged) {
+		if (!hasListeners(ViewComponentLayoutListener.class)) return;
 		for(ViewComponentLayoutListener listener : getListeners(ViewComponentLayoutListener.class)) {
 			listener.componentRepaint(this, boundChanged);
 		}
@@ -0,0 +1,178 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.fig.view;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.EventListener;
+
+/** Collection of listeners, classified by type, in which
+ * the arrays of listeners are replaced on each change
+ * (copy-on-write).
+ * <p>
+ * The changes are synchronized, but the retreival of the listeners
+ * is done without lock and without allocation: the replied arrays are
+ * shared and must not be modified. This collection is designed for
+ * the objects that are firing events very often and that are rarely
+ * changing their listeners.
+ *
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ */
+public class CopyOnWriteListenerCollection {
+
+	private static final Slot[] EMPTY = new Slot[0];
+
+	private volatile Slot[] slots = EMPTY;
+
+	/**
+	 */
+	public CopyOnWriteListenerCollection() {
+		//
+	}
+
+	/** Add a listener.
+	 *
+	 * @param type is the type of the listener.
+	 * @param listener
+	 */
+	public synchronized <T extends EventListener> void add(Class<T> type, T listener) {
+		Slot[] s = this.slots;
+		EventListener[] tab;
+		for(int i=0; i<s.length; ++i) {
+			if (s[i].type==type) {
+				EventListener[] old = s[i].listeners;
+				tab = (EventListener[])Array.newInstance(type, old.length+1);
+				System.arraycopy(old, 0, tab, 0, old.length);
+				tab[old.length] = listener;
+				Slot[] ns = s.clone();
+				ns[i] = new Slot(type, tab);
+				this.slots = ns;
+				return;
+			}
+		}
+		tab = (EventListener[])Array.newInstance(type, 1);
+		tab[0] = listener;
+		Slot[] ns = Arrays.copyOf(s, s.length+1);
+		ns[s.length] = new Slot(type, tab);
+		this.slots = ns;
+	}
+
+	/** Remove a listener.
+	 *
+	 * @param type is the type of the listener.
+	 * @param listener
+	 */
+	public synchronized <T extends EventListener> void remove(Class<T> type, T listener) {
+		Slot[] s = this.slots;
+		for(int i=0; i<s.length; ++i) {
+			if (s[i].type==type) {
+				EventListener[] old = s[i].listeners;
+				for(int j=0; j<old.length; ++j) {
+					if (old[j].equals(listener)) {
+						if (old.length==1) {
+							Slot[] ns = new Slot[s.length-1];
+							System.arraycopy(s, 0, ns, 0, i);
+							System.arraycopy(s, i+1, ns, i, ns.length-i);
+							this.slots = ns;
+						}
+						else {
+							EventListener[] tab = (EventListener[])Array.newInstance(type, old.length-1);
+							System.arraycopy(old, 0, tab, 0, j);
+							System.arraycopy(old, j+1, tab, j, tab.length-j);
+							Slot[] ns = s.clone();
+							ns[i] = new Slot(type, tab);
+							this.slots = ns;
+						}
+						return;
+					}
+				}
+				return;
+			}
+		}
+	}
+
+	/** Replies the listeners of the given type.
+	 * The replied array is shared and must not be modified.
+	 *
+	 * @param type is the type of the listeners.
+	 * @return the listeners, or <code>null</code> if there is
+	 * no listener of the given type.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends EventListener> T[] getListeners(Class<T> type) {
+		for(Slot slot : this.slots) {
+			if (slot.type==type) {
+				return (T[])slot.listeners;
+			}
+		}
+		return null;
+	}
+
+	/** Replies if there is a listener of the given type.
+	 *
+	 * @param type is the type of the listeners.
+	 * @return <code>true</code> if a listener of the given type
+	 * was added; otherwise <code>false</code>.
+	 */
+	public boolean hasListeners(Class<? extends EventListener> type) {
+		for(Slot slot : this.slots) {
+			if (slot.type==type) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Replies if there is no listener.
+	 *
+	 * @return <code>true</code> if there is no listener;
+	 * otherwise <code>false</code>.
+	 */
+	public boolean isEmpty() {
+		return this.slots.length==0;
+	}
+
+	/**
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 */
+	private static class Slot {
+
+		public final Class<?> type;
+		public final EventListener[] listeners;
+
+		/**
+		 * @param type
+		 * @param listeners
+		 */
+		public Slot(Class<?> type, EventListener[] listeners) {
+			this.type = type;
+			this.listeners = listeners;
+		}
+
+	} // class Slot
+
+}
@@ -0,0 +1,383 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.fig.view;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.arakhne.afc.math.continous.object2d.Rectangle2f;
+
+/** Spatial index on the bounds of view components that is
+ * based on a uniform grid.
+ * <p>
+ * The space is split into square cells of the same size. Only the
+ * non-empty cells are stored. Each component is stored in all the
+ * cells that are covered by its bounds. The components covering
+ * too many cells, ie. the components that are very large according
+ * to the size of the cells, are stored in a separate list that
+ * is always tested.
+ * <p>
+ * The cost of a point query is constant when the components are
+ * uniformly distributed; the cost of a rectangle query is
+ * proportional to the number of cells covered by the rectangle,
+ * and never greater than the cost of a linear scan of the components.
+ *
+ * @param <C> is the type of the indexed components.
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ */
+public class GridViewComponentIndex<C extends ViewComponent> implements ViewComponentIndex<C> {
+
+	/** Default size of the cells of the grid (in logical units).
+	 */
+	public static final float DEFAULT_CELL_SIZE = 128f;
+
+	/** Default maximal number of cells that may be covered by a
+	 * component. If a component is covering more cells, it is
+	 * stored in the list of the large components.
+	 */
+	public static final int DEFAULT_MAX_CELLS_PER_COMPONENT = 64;
+
+	private static final int MAX_CELL_INDEX = 1 << 30;
+
+	private final float cellSize;
+	private final int maxCellsPerComponent;
+
+	private final Map<Long,List<C>> cells = new HashMap<Long,List<C>>();
+	private final Map<C,Entry> entries = new IdentityHashMap<C,Entry>();
+	private final List<C> largeComponents = new ArrayList<C>();
+
+	/** Construct an index with the default parameters.
+	 */
+	public GridViewComponentIndex() {
+		this(DEFAULT_CELL_SIZE, DEFAULT_MAX_CELLS_PER_COMPONENT);
+	}
+
+	/**
+	 * @param cellSize is the size of the cells of the grid (in logical units).
+	 * @param maxCellsPerComponent is the maximal number of cells that may be covered by a
+	 * component before it is considered as a large component.
+	 */
+	public GridViewComponentIndex(float cellSize, int maxCellsPerComponent) {
+		if (cellSize<=0f || Float.isNaN(cellSize) || Float.isInfinite(cellSize))
+			throw new IllegalArgumentException("cellSize"); //$NON-NLS-1$
+		if (maxCellsPerComponent<1)
+			throw new IllegalArgumentException("maxCellsPerComponent"); //$NON-NLS-1$
+		this.cellSize = cellSize;
+		this.maxCellsPerComponent = maxCellsPerComponent;
+	}
+
+	/** Replies the size of the cells of the grid.
+	 *
+	 * @return the size of the cells (in logical units).
+	 */
+	public float getCellSize() {
+		return this.cellSize;
+	}
+
+	private static long key(int column, int row) {
+		return (((long)column)<<32) | (row & 0xFFFFFFFFL);
+	}
+
+	private int cell(float coordinate) {
+		float c = (float)Math.floor(coordinate / this.cellSize);
+		// Bound the cell indexes to avoid overflows in the loops
+		if (c<=-MAX_CELL_INDEX) return -MAX_CELL_INDEX;
+		if (c>=MAX_CELL_INDEX) return MAX_CELL_INDEX;
+		return (int)c;
+	}
+
+	private void link(C component, Entry entry) {
+		if (entry.large) {
+			this.largeComponents.add(component);
+		}
+		else {
+			Long k;
+			List<C> cell;
+			for(int col=entry.minColumn; col<=entry.maxColumn; ++col) {
+				for(int row=entry.minRow; row<=entry.maxRow; ++row) {
+					k = Long.valueOf(key(col, row));
+					cell = this.cells.get(k);
+					if (cell==null) {
+						cell = new ArrayList<C>(4);
+						this.cells.put(k, cell);
+					}
+					cell.add(component);
+				}
+			}
+		}
+	}
+
+	private void unlink(C component, Entry entry) {
+		if (entry.large) {
+			removeIdentity(this.largeComponents, component);
+		}
+		else {
+			Long k;
+			List<C> cell;
+			for(int col=entry.minColumn; col<=entry.maxColumn; ++col) {
+				for(int row=entry.minRow; row<=entry.maxRow; ++row) {
+					k = Long.valueOf(key(col, row));
+					cell = this.cells.get(k);
+					if (cell!=null && removeIdentity(cell, component) && cell.isEmpty()) {
+						this.cells.remove(k);
+					}
+				}
+			}
+		}
+	}
+
+	private static <T> boolean removeIdentity(List<T> list, Object object) {
+		int last = list.size() - 1;
+		for(int i=last; i>=0; --i) {
+			if (list.get(i)==object) {
+				// The order in the lists is not significant
+				list.set(i, list.get(last));
+				list.remove(last);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Fill the given entry with the bounds of the component.
+	 *
+	 * @param component
+	 * @param entry
+	 * @return <code>true</code> if the cells covered by the entry have changed.
+	 */
+	private boolean fill(C component, Entry entry) {
+		Rectangle2f bounds = component.getBounds();
+		if (bounds==null) {
+			entry.minX = entry.minY = Float.POSITIVE_INFINITY;
+			entry.maxX = entry.maxY = Float.NEGATIVE_INFINITY;
+		}
+		else {
+			entry.minX = bounds.getMinX();
+			entry.minY = bounds.getMinY();
+			entry.maxX = bounds.getMaxX();
+			entry.maxY = bounds.getMaxY();
+		}
+		boolean large;
+		int minColumn, minRow, maxColumn, maxRow;
+		if (bounds==null || Float.isNaN(entry.minX) || Float.isNaN(entry.minY)
+			|| Float.isNaN(entry.maxX) || Float.isNaN(entry.maxY)) {
+			large = true;
+			minColumn = minRow = maxColumn = maxRow = 0;
+		}
+		else {
+			minColumn = cell(entry.minX);
+			minRow = cell(entry.minY);
+			maxColumn = cell(entry.maxX);
+			maxRow = cell(entry.maxY);
+			long count = ((long)maxColumn - minColumn + 1) * ((long)maxRow - minRow + 1);
+			large = count>this.maxCellsPerComponent;
+		}
+		boolean changed = entry.large!=large
+				|| (!large && (entry.minColumn!=minColumn || entry.minRow!=minRow
+						|| entry.maxColumn!=maxColumn || entry.maxRow!=maxRow));
+		entry.large = large;
+		entry.minColumn = minColumn;
+		entry.minRow = minRow;
+		entry.maxColumn = maxColumn;
+		entry.maxRow = maxRow;
+		return changed;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void add(C component) {
+		if (component!=null) {
+			Entry entry = this.entries.get(component);
+			if (entry!=null) {
+				update(component);
+			}
+			else {
+				entry = new Entry();
+				fill(component, entry);
+				this.entries.put(component, entry);
+				link(component, entry);
+			}
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean remove(C component) {
+		Entry entry = this.entries.remove(component);
+		if (entry!=null) {
+			unlink(component, entry);
+			return true;
+		}
+		return false;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void update(C component) {
+		Entry entry = this.entries.get(component);
+		if (entry!=null) {
+			Entry old = entry.clone();
+			if (fill(component, entry)) {
+				unlink(component, old);
+				link(component, entry);
+			}
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void clear() {
+		this.cells.clear();
+		this.entries.clear();
+		this.largeComponents.clear();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return this.entries.size();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void getComponentsAt(float x, float y, float precision, Collection<? super C> result) {
+		float p = Math.abs(precision);
+		search(x-p, y-p, x+p, y+p, result);
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void getComponentsIntersecting(Rectangle2f area, Collection<? super C> result) {
+		if (area!=null) {
+			search(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY(), result);
+		}
+	}
+
+	private void search(float minX, float minY, float maxX, float maxY, Collection<? super C> result) {
+		int minColumn = cell(minX);
+		int minRow = cell(minY);
+		int maxColumn = cell(maxX);
+		int maxRow = cell(maxY);
+		long count = ((long)maxColumn - minColumn + 1) * ((long)maxRow - minRow + 1);
+
+		if (count>this.cells.size()) {
+			// The area is covering more cells than the filled cells:
+			// a scan of the components is faster.
+			Iterator<Map.Entry<C,Entry>> iterator = this.entries.entrySet().iterator();
+			Map.Entry<C,Entry> e;
+			while (iterator.hasNext()) {
+				e = iterator.next();
+				if (e.getValue().intersects(minX, minY, maxX, maxY)) {
+					result.add(e.getKey());
+				}
+			}
+			return;
+		}
+
+		List<C> cell;
+		Entry entry;
+		for(int col=minColumn; col<=maxColumn; ++col) {
+			for(int row=minRow; row<=maxRow; ++row) {
+				cell = this.cells.get(Long.valueOf(key(col, row)));
+				if (cell!=null) {
+					for(C component : cell) {
+						entry = this.entries.get(component);
+						// A component covering several cells is replied only
+						// for the first cell shared by the component and the area.
+						if (col==Math.max(minColumn, entry.minColumn)
+							&& row==Math.max(minRow, entry.minRow)
+							&& entry.intersects(minX, minY, maxX, maxY)) {
+							result.add(component);
+						}
+					}
+				}
+			}
+		}
+
+		for(C component : this.largeComponents) {
+			entry = this.entries.get(component);
+			if (entry.intersects(minX, minY, maxX, maxY)) {
+				result.add(component);
+			}
+		}
+	}
+
+	/**
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 */
+	private static class Entry implements Cloneable {
+
+		public float minX;
+		public float minY;
+		public float maxX;
+		public float maxY;
+
+		public boolean large;
+		public int minColumn;
+		public int minRow;
+		public int maxColumn;
+		public int maxRow;
+
+		/**
+		 */
+		public Entry() {
+			//
+		}
+
+		public boolean intersects(float x1, float y1, float x2, float y2) {
+			return this.minX<=x2 && this.maxX>=x1
+					&& this.minY<=y2 && this.maxY>=y1;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Entry clone() {
+			try {
+				return (Entry)super.clone();
+			}
+			catch (CloneNotSupportedException e) {
+				throw new Error(e);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,268 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.fig.view;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.arakhne.afc.math.continous.object2d.Rectangle2f;
+
+/** Bounds of a set of view components that are maintained
+ * incrementally.
+ * <p>
+ * The bounds are enlarged when a component is added, or when
+ * a component is moved outside the bounds. They are recomputed
+ * from the bounds of all the components only when a component
+ * that is on the border of the bounds is removed or shrunk.
+ * The recomputation is lazy: it is done on the next call to
+ * {@link #getBounds()}, with {@link #computeBounds()}.
+ * <p>
+ * These bounds are not thread-safe; they are assumed to be protected by
+ * the locks of their container.
+ *
+ * @param <C> is the type of the components.
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ */
+public class IncrementalViewBounds<C extends ViewComponent> {
+
+	/** Last known bounds of the components: minx, miny, maxx, maxy.
+	 */
+	private final Map<C,float[]> components = new IdentityHashMap<C,float[]>();
+
+	private float minX = Float.POSITIVE_INFINITY;
+	private float minY = Float.POSITIVE_INFINITY;
+	private float maxX = Float.NEGATIVE_INFINITY;
+	private float maxY = Float.NEGATIVE_INFINITY;
+
+	/** Indicates if the bounds must be recomputed from the components.
+	 */
+	private boolean invalid = false;
+
+	/** Buffered rectangle that is replied by {@link #getBounds()}.
+	 */
+	private Rectangle2f bounds = null;
+
+	private int recomputationCount = 0;
+
+	/**
+	 */
+	public IncrementalViewBounds() {
+		//
+	}
+
+	/** Replies the bounds of the given component in a new array,
+	 * or <code>null</code> if the component has no valid bounds.
+	 */
+	private static float[] boundsOf(ViewComponent component) {
+		Rectangle2f r = component.getBounds();
+		if (r==null) return null;
+		float x1 = r.getMinX();
+		float y1 = r.getMinY();
+		float x2 = r.getMaxX();
+		float y2 = r.getMaxY();
+		if (Float.isNaN(x1) || Float.isNaN(y1) || Float.isNaN(x2) || Float.isNaN(y2)) return null;
+		return new float[] {x1, y1, x2, y2};
+	}
+
+	/** Replies if the given bounds are touching the border
+	 * of the current bounds.
+	 */
+	private boolean isOnBorder(float[] b) {
+		return b[0]<=this.minX || b[1]<=this.minY
+				|| b[2]>=this.maxX || b[3]>=this.maxY;
+	}
+
+	private void grow(float[] b) {
+		boolean changed = false;
+		if (b[0]<this.minX) {
+			this.minX = b[0];
+			changed = true;
+		}
+		if (b[1]<this.minY) {
+			this.minY = b[1];
+			changed = true;
+		}
+		if (b[2]>this.maxX) {
+			this.maxX = b[2];
+			changed = true;
+		}
+		if (b[3]>this.maxY) {
+			this.maxY = b[3];
+			changed = true;
+		}
+		if (changed) this.bounds = null;
+	}
+
+	private void invalidate() {
+		this.invalid = true;
+		this.bounds = null;
+	}
+
+	/** Add a component.
+	 * If the component was already added, its bounds are updated.
+	 *
+	 * @param component
+	 */
+	public void add(C component) {
+		if (component==null) return;
+		if (this.components.containsKey(component)) {
+			update(component);
+		}
+		else {
+			float[] b = boundsOf(component);
+			this.components.put(component, b);
+			if (b!=null && !this.invalid) {
+				grow(b);
+			}
+		}
+	}
+
+	/** Remove a component.
+	 *
+	 * @param component
+	 */
+	public void remove(C component) {
+		if (this.components.containsKey(component)) {
+			float[] old = this.components.remove(component);
+			if (this.components.isEmpty()) {
+				clear();
+			}
+			else if (old!=null && !this.invalid && isOnBorder(old)) {
+				invalidate();
+			}
+		}
+	}
+
+	/** Update the bounds according to the current bounds of
+	 * the given component.
+	 * This function does nothing if the component was not added.
+	 *
+	 * @param component
+	 */
+	public void update(C component) {
+		if (!this.components.containsKey(component)) return;
+		float[] b = boundsOf(component);
+		float[] old = this.components.put(component, b);
+		if (this.invalid) return;
+		if (old!=null && isOnBorder(old)) {
+			if (b==null
+				|| (old[0]<=this.minX && b[0]>old[0])
+				|| (old[1]<=this.minY && b[1]>old[1])
+				|| (old[2]>=this.maxX && b[2]<old[2])
+				|| (old[3]>=this.maxY && b[3]<old[3])) {
+				// The component was on the border and it is
+				// moving inside the bounds.
+				invalidate();
+				return;
+			}
+		}
+		if (b!=null) {
+			grow(b);
+		}
+	}
+
+	/** Remove all the components.
+	 */
+	public void clear() {
+		this.components.clear();
+		this.minX = this.minY = Float.POSITIVE_INFINITY;
+		this.maxX = this.maxY = Float.NEGATIVE_INFINITY;
+		this.invalid = false;
+		this.bounds = null;
+	}
+
+	/** Replies the number of times the bounds were recomputed
+	 * from all the components.
+	 *
+	 * @return the number of recomputations.
+	 */
+	public int getRecomputationCount() {
+		return this.recomputationCount;
+	}
+
+	/** Compute the bounds from all the components.
+	 * This function is invoked when the bounds cannot be
+	 * updated incrementally.
+	 * <p>
+	 * By default, the last known bounds of the components
+	 * are merged. The subclasses may override this function
+	 * to compute the bounds in another way.
+	 *
+	 * @return the bounds, or <code>null</code> if there is no
+	 * component with valid bounds.
+	 */
+	protected Rectangle2f computeBounds() {
+		float x1 = Float.POSITIVE_INFINITY;
+		float y1 = Float.POSITIVE_INFINITY;
+		float x2 = Float.NEGATIVE_INFINITY;
+		float y2 = Float.NEGATIVE_INFINITY;
+		for(float[] b : this.components.values()) {
+			if (b!=null) {
+				if (b[0]<x1) x1 = b[0];
+				if (b[1]<y1) y1 = b[1];
+				if (b[2]>x2) x2 = b[2];
+				if (b[3]>y2) y2 = b[3];
+			}
+		}
+		if (x1>x2 || y1>y2) return null;
+		Rectangle2f r = new Rectangle2f();
+		r.setFromCorners(x1, y1, x2, y2);
+		return r;
+	}
+
+	private void recompute() {
+		++this.recomputationCount;
+		Rectangle2f r = computeBounds();
+		if (r==null) {
+			this.minX = this.minY = Float.POSITIVE_INFINITY;
+			this.maxX = this.maxY = Float.NEGATIVE_INFINITY;
+		}
+		else {
+			this.minX = r.getMinX();
+			this.minY = r.getMinY();
+			this.maxX = r.getMaxX();
+			this.maxY = r.getMaxY();
+		}
+		this.invalid = false;
+	}
+
+	/** Replies the bounds of the components.
+	 * The replied rectangle is shared until the next change of
+	 * the bounds; it must not be modified.
+	 *
+	 * @return the bounds, or <code>null</code> if there is no
+	 * component with valid bounds.
+	 */
+	public Rectangle2f getBounds() {
+		if (this.invalid) {
+			recompute();
+		}
+		if (this.bounds==null && this.minX<=this.maxX && this.minY<=this.maxY) {
+			this.bounds = new Rectangle2f();
+			this.bounds.setFromCorners(this.minX, this.minY, this.maxX, this.maxY);
+		}
+		return this.bounds;
+	}
+
+}
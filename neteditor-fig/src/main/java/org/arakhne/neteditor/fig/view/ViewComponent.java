@@ -50,6 +50,13 @@ public interface ViewComponent extends Serializable, Comparable<ViewComponent>,
 	 */
 	public void setViewComponentContainer(ViewComponentContainer<?,?> container);
 
+	/** Replies the container of this component.
+	 * 
+	 * @return the container; may be <code>null</code> if the
+	 * component is not inside a container.
+	 */
+	public ViewComponentContainer<?,?> getViewComponentContainer();
+
 	/** Repaint the component.
 	 * 
 	 * @param boundsChanged indicates if the repaint is due to a change
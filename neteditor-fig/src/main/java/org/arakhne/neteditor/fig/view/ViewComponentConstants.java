@@ -121,4 +121,14 @@ public interface ViewComponentConstants {
 	 */
 	public static final float DEFAULT_SHADOW_PROJECTION_DISTANCE_Y = 3f;
 
+	/** Default size in pixels under which the details of a figure
+	 * (texts, edge symbols, anchors, coerced figures) are not drawn.
+	 */
+	public static final float DEFAULT_DETAIL_PIXEL_SIZE = 8f;
+
+	/** Default size in pixels under which a figure is drawn
+	 * with a simple rectangle or a simple line.
+	 */
+	public static final float DEFAULT_SIMPLIFICATION_PIXEL_SIZE = 3f;
+
 }
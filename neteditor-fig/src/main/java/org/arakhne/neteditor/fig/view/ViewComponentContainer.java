@@ -142,4 +142,39 @@ public interface ViewComponentContainer<C extends ViewComponent, G extends Graph
 	 * otherwise <code>false</code>.
 	 */
 	public void setShadowDrawn(boolean draw);
+
+	/** Start a transaction on this container.
+	 * <p>
+	 * During a transaction, the container does not repaint
+	 * nor update its view parameters each time a component
+	 * is added, removed or changed. The dirty areas are merged,
+	 * and the container is updated and repainted once when the
+	 * transaction is committed. The transactions may be nested.
+	 * A transaction must be used when a large number of
+	 * components are updated, eg. by a layout, a paste or an import.
+	 * <p>
+	 * The outer transaction of the container also starts a transaction
+	 * on its graph, see {@link Graph#beginTransaction()}. The model
+	 * events are merged and dispatched when the container transaction
+	 * is committed.
+	 * 
+	 * @see #commitTransaction()
+	 */
+	public void beginTransaction();
+
+	/** Commit the transaction that was started with
+	 * {@link #beginTransaction()}, and update the container
+	 * if it is the outer transaction.
+	 * 
+	 * @see #beginTransaction()
+	 */
+	public void commitTransaction();
+
+	/** Replies if a transaction is running on this container.
+	 * 
+	 * @return <code>true</code> if a transaction is running;
+	 * otherwise <code>false</code>.
+	 */
+	public boolean isInTransaction();
+
 }
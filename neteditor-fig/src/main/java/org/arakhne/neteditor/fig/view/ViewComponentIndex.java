@@ -0,0 +1,103 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.fig.view;
+
+import java.util.Collection;
+
+import org.arakhne.afc.math.continous.object2d.Rectangle2f;
+
+/** This interface represents a spatial index on the bounds
+ * of view components.
+ * <p>
+ * The index is used by the {@link ViewComponentContainer containers}
+ * to retreive the components that are near a point or an area without
+ * iterating on all the components. The index is only
+ * a coarse filter based on the bounds of the components: the
+ * callers must still apply the precise tests (shape intersection,
+ * z-order...) on the replied components.
+ * <p>
+ * The index is not thread-safe; it is assumed to be protected by
+ * the locks of its container.
+ *
+ * @param <C> is the type of the indexed components.
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ */
+public interface ViewComponentIndex<C extends ViewComponent> {
+
+	/** Add the given component into the index.
+	 * If the component is already indexed, its bounds are updated.
+	 *
+	 * @param component
+	 */
+	public void add(C component);
+
+	/** Remove the given component from the index.
+	 *
+	 * @param component
+	 * @return <code>true</code> if the component was removed;
+	 * <code>false</code> if it was not indexed.
+	 */
+	public boolean remove(C component);
+
+	/** Update the position of the given component in the index
+	 * according to its current bounds.
+	 * This function does nothing if the component is not indexed.
+	 *
+	 * @param component
+	 */
+	public void update(C component);
+
+	/** Remove all the components from the index.
+	 */
+	public void clear();
+
+	/** Replies the number of components in the index.
+	 *
+	 * @return the number of components in the index.
+	 */
+	public int size();
+
+	/** Replies the components with bounds intersecting
+	 * the given area. The border of the area is included.
+	 * The components are replied in no particular order.
+	 *
+	 * @param area is the area to test.
+	 * @param result is the collection to fill with the
+	 * components that are intersecting the area.
+	 */
+	public void getComponentsIntersecting(Rectangle2f area, Collection<? super C> result);
+
+	/** Replies the components with bounds intersecting
+	 * the given point, with the given precision.
+	 * The components are replied in no particular order.
+	 *
+	 * @param x
+	 * @param y
+	 * @param precision is the distance around the point that is considered as hit.
+	 * @param result is the collection to fill with the
+	 * components that are intersecting the area.
+	 */
+	public void getComponentsAt(float x, float y, float precision, Collection<? super C> result);
+
+}
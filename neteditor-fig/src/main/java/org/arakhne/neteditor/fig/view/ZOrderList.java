@@ -0,0 +1,587 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.fig.view;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/** List of the layers of view components.
+ * <p>
+ * The components are stored in a balanced tree (AVL tree) in which each
+ * node is knowing the size of its subtree, and an identity map is
+ * replying the node of each component. In this way, the access by index,
+ * the insertion, the removal, the move of a component to another
+ * position, and the search of the index of a component are done
+ * in <code>O(log n)</code>.
+ * <p>
+ * A component cannot be inserted twice in the list, and
+ * the components are compared with the identity operator,
+ * not with {@link Object#equals(Object)}. The <code>null</code>
+ * value is not allowed.
+ * <p>
+ * This list is not thread-safe.
+ *
+ * @param <C> is the type of the components.
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ */
+public class ZOrderList<C> extends AbstractList<C> {
+
+	private Node<C> root = null;
+	private final Map<C,Node<C>> nodes = new IdentityHashMap<C,Node<C>>();
+
+	/**
+	 */
+	public ZOrderList() {
+		//
+	}
+
+	/**
+	 * @param components are the components to put in the list.
+	 */
+	public ZOrderList(Collection<? extends C> components) {
+		addAll(components);
+	}
+
+	private static int size(Node<?> node) {
+		return node==null ? 0 : node.size;
+	}
+
+	private static int height(Node<?> node) {
+		return node==null ? 0 : node.height;
+	}
+
+	private static void update(Node<?> node) {
+		node.size = size(node.left) + size(node.right) + 1;
+		node.height = Math.max(height(node.left), height(node.right)) + 1;
+	}
+
+	private void replaceChild(Node<C> parent, Node<C> oldChild, Node<C> newChild) {
+		if (newChild!=null) newChild.parent = parent;
+		if (parent==null) {
+			this.root = newChild;
+		}
+		else if (parent.left==oldChild) {
+			parent.left = newChild;
+		}
+		else {
+			parent.right = newChild;
+		}
+	}
+
+	private Node<C> rotateLeft(Node<C> node) {
+		Node<C> r = node.right;
+		replaceChild(node.parent, node, r);
+		node.right = r.left;
+		if (r.left!=null) r.left.parent = node;
+		r.left = node;
+		node.parent = r;
+		update(node);
+		update(r);
+		return r;
+	}
+
+	private Node<C> rotateRight(Node<C> node) {
+		Node<C> l = node.left;
+		replaceChild(node.parent, node, l);
+		node.left = l.right;
+		if (l.right!=null) l.right.parent = node;
+		l.right = node;
+		node.parent = l;
+		update(node);
+		update(l);
+		return l;
+	}
+
+	private Node<C> balance(Node<C> node) {
+		update(node);
+		int factor = height(node.left) - height(node.right);
+		if (factor>1) {
+			if (height(node.left.left)<height(node.left.right)) {
+				rotateLeft(node.left);
+			}
+			return rotateRight(node);
+		}
+		if (factor<-1) {
+			if (height(node.right.right)<height(node.right.left)) {
+				rotateRight(node.right);
+			}
+			return rotateLeft(node);
+		}
+		return node;
+	}
+
+	/** Rebalance the tree and update the sizes of the subtrees
+	 * from the given node to the root.
+	 */
+	private void rebalance(Node<C> node) {
+		Node<C> n = node;
+		while (n!=null) {
+			n = balance(n).parent;
+		}
+	}
+
+	private Node<C> nodeAt(int index) {
+		if (index<0 || index>=size())
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		Node<C> n = this.root;
+		int idx = index;
+		int leftSize;
+		while (n!=null) {
+			leftSize = size(n.left);
+			if (idx<leftSize) {
+				n = n.left;
+			}
+			else if (idx==leftSize) {
+				return n;
+			}
+			else {
+				idx -= leftSize + 1;
+				n = n.right;
+			}
+		}
+		throw new IndexOutOfBoundsException(Integer.toString(index));
+	}
+
+	private static int rank(Node<?> node) {
+		int r = size(node.left);
+		Node<?> n = node;
+		while (n.parent!=null) {
+			if (n==n.parent.right) {
+				r += size(n.parent.left) + 1;
+			}
+			n = n.parent;
+		}
+		return r;
+	}
+
+	private static <C> Node<C> first(Node<C> node) {
+		Node<C> n = node;
+		if (n!=null) {
+			while (n.left!=null) n = n.left;
+		}
+		return n;
+	}
+
+	private static <C> Node<C> last(Node<C> node) {
+		Node<C> n = node;
+		if (n!=null) {
+			while (n.right!=null) n = n.right;
+		}
+		return n;
+	}
+
+	private static <C> Node<C> successor(Node<C> node) {
+		if (node.right!=null) return first(node.right);
+		Node<C> n = node;
+		while (n.parent!=null && n==n.parent.right) {
+			n = n.parent;
+		}
+		return n.parent;
+	}
+
+	private static <C> Node<C> predecessor(Node<C> node) {
+		if (node.left!=null) return last(node.left);
+		Node<C> n = node;
+		while (n.parent!=null && n==n.parent.left) {
+			n = n.parent;
+		}
+		return n.parent;
+	}
+
+	private void insert(int index, Node<C> node) {
+		if (this.root==null) {
+			node.parent = null;
+			this.root = node;
+			return;
+		}
+		Node<C> n = this.root;
+		int idx = index;
+		int leftSize;
+		while (true) {
+			leftSize = size(n.left);
+			if (idx<=leftSize) {
+				if (n.left==null) {
+					n.left = node;
+					break;
+				}
+				n = n.left;
+			}
+			else {
+				idx -= leftSize + 1;
+				if (n.right==null) {
+					n.right = node;
+					break;
+				}
+				n = n.right;
+			}
+		}
+		node.parent = n;
+		rebalance(n);
+	}
+
+	/** Unlink the given node from the tree.
+	 *
+	 * @param node
+	 * @return the node that is now containing the value that
+	 * was following the value of the removed node. It may be
+	 * a node that was already containing another value.
+	 */
+	private Node<C> unlink(Node<C> node) {
+		Node<C> toRemove = node;
+		Node<C> following;
+		if (node.left!=null && node.right!=null) {
+			// Swap the values with the successor that
+			// has at most one child.
+			toRemove = first(node.right);
+			C value = node.value;
+			node.value = toRemove.value;
+			toRemove.value = value;
+			this.nodes.put(node.value, node);
+			following = node;
+		}
+		else {
+			following = successor(node);
+		}
+		Node<C> child = (toRemove.left!=null) ? toRemove.left : toRemove.right;
+		Node<C> parent = toRemove.parent;
+		replaceChild(parent, toRemove, child);
+		toRemove.left = toRemove.right = toRemove.parent = null;
+		this.nodes.remove(toRemove.value);
+		rebalance(parent);
+		return following;
+	}
+
+	private Node<C> createNode(C component) {
+		if (component==null) throw new NullPointerException();
+		if (this.nodes.containsKey(component))
+			throw new IllegalArgumentException("component already in the list"); //$NON-NLS-1$
+		Node<C> node = new Node<C>(component);
+		this.nodes.put(component, node);
+		return node;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int size() {
+		return this.nodes.size();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		return this.root==null;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public C get(int index) {
+		return nodeAt(index).value;
+	}
+
+	/** Replies the first component in the list.
+	 *
+	 * @return the first component.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public C getFirst() {
+		Node<C> n = first(this.root);
+		if (n==null) throw new NoSuchElementException();
+		return n.value;
+	}
+
+	/** Replies the last component in the list.
+	 *
+	 * @return the last component.
+	 * @throws NoSuchElementException if the list is empty.
+	 */
+	public C getLast() {
+		Node<C> n = last(this.root);
+		if (n==null) throw new NoSuchElementException();
+		return n.value;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public C set(int index, C element) {
+		Node<C> n = nodeAt(index);
+		C old = n.value;
+		if (old!=element) {
+			if (element==null) throw new NullPointerException();
+			if (this.nodes.containsKey(element))
+				throw new IllegalArgumentException("component already in the list"); //$NON-NLS-1$
+			this.nodes.remove(old);
+			n.value = element;
+			this.nodes.put(element, n);
+		}
+		return old;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void add(int index, C element) {
+		if (index<0 || index>size())
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		insert(index, createNode(element));
+		++this.modCount;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public boolean addAll(Collection<? extends C> c) {
+		if (this.root==null && !c.isEmpty()) {
+			// Build a perfectly balanced tree in linear time.
+			Object[] values = c.toArray();
+			Node<C>[] array = newArray(values.length);
+			try {
+				for(int i=0; i<values.length; ++i) {
+					array[i] = createNode(cast(values[i]));
+				}
+			}
+			catch(RuntimeException e) {
+				this.nodes.clear();
+				throw e;
+			}
+			this.root = build(array, 0, array.length-1, null);
+			++this.modCount;
+			return true;
+		}
+		return super.addAll(c);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <C> C cast(Object o) {
+		return (C)o;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <C> Node<C>[] newArray(int size) {
+		return new Node[size];
+	}
+
+	private static <C> Node<C> build(Node<C>[] array, int start, int end, Node<C> parent) {
+		if (start>end) return null;
+		int middle = (start + end) >>> 1;
+		Node<C> n = array[middle];
+		n.parent = parent;
+		n.left = build(array, start, middle-1, n);
+		n.right = build(array, middle+1, end, n);
+		update(n);
+		return n;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public C remove(int index) {
+		Node<C> n = nodeAt(index);
+		C value = n.value;
+		unlink(n);
+		++this.modCount;
+		return value;
+	}
+
+	/** {@inheritDoc}
+	 * The component is searched with the identity operator.
+	 */
+	@Override
+	public boolean remove(Object o) {
+		Node<C> n = this.nodes.get(o);
+		if (n!=null) {
+			unlink(n);
+			++this.modCount;
+			return true;
+		}
+		return false;
+	}
+
+	/** Move the component at the given position to another position.
+	 *
+	 * @param from is the current position of the component.
+	 * @param to is the new position of the component.
+	 * @throws IndexOutOfBoundsException
+	 */
+	public void move(int from, int to) {
+		if (to<0 || to>=size())
+			throw new IndexOutOfBoundsException(Integer.toString(to));
+		if (from!=to) {
+			C value = remove(from);
+			add(to, value);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void clear() {
+		this.root = null;
+		this.nodes.clear();
+		++this.modCount;
+	}
+
+	/** {@inheritDoc}
+	 * The component is searched with the identity operator.
+	 */
+	@Override
+	public boolean contains(Object o) {
+		return this.nodes.containsKey(o);
+	}
+
+	/** {@inheritDoc}
+	 * The component is searched with the identity operator.
+	 */
+	@Override
+	public int indexOf(Object o) {
+		Node<C> n = this.nodes.get(o);
+		return n==null ? -1 : rank(n);
+	}
+
+	/** {@inheritDoc}
+	 * The component is searched with the identity operator.
+	 */
+	@Override
+	public int lastIndexOf(Object o) {
+		return indexOf(o);
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public Iterator<C> iterator() {
+		return new NodeIterator(first(this.root), false);
+	}
+
+	/** Replies an iterator on the components from the
+	 * end of the list to the beginning.
+	 *
+	 * @return the iterator.
+	 */
+	public Iterator<C> descendingIterator() {
+		return new NodeIterator(last(this.root), true);
+	}
+
+	/**
+	 * @param <C> is the type of the components.
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 */
+	private static class Node<C> {
+
+		public C value;
+		public Node<C> parent = null;
+		public Node<C> left = null;
+		public Node<C> right = null;
+		public int size = 1;
+		public int height = 1;
+
+		/**
+		 * @param value
+		 */
+		public Node(C value) {
+			this.value = value;
+		}
+
+	} // class Node
+
+	/**
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 */
+	private class NodeIterator implements Iterator<C> {
+
+		private final boolean descending;
+		private Node<C> next;
+		private Node<C> lastReturned = null;
+		private int expectedModCount;
+
+		/**
+		 * @param first
+		 * @param descending
+		 */
+		@SuppressWarnings("synthetic-access")
+		public NodeIterator(Node<C> first, boolean descending) {
+			this.next = first;
+			this.descending = descending;
+			this.expectedModCount = ZOrderList.this.modCount;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext() {
+			return this.next!=null;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public C next() {
+			if (ZOrderList.this.modCount!=this.expectedModCount)
+				throw new ConcurrentModificationException();
+			Node<C> n = this.next;
+			if (n==null) throw new NoSuchElementException();
+			this.lastReturned = n;
+			this.next = this.descending ? predecessor(n) : successor(n);
+			return n.value;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public void remove() {
+			if (this.lastReturned==null) throw new IllegalStateException();
+			if (ZOrderList.this.modCount!=this.expectedModCount)
+				throw new ConcurrentModificationException();
+			Node<C> following = unlink(this.lastReturned);
+			if (!this.descending) {
+				// The next value may have been moved into another node.
+				this.next = following;
+			}
+			this.lastReturned = null;
+			++ZOrderList.this.modCount;
+			this.expectedModCount = ZOrderList.this.modCount;
+		}
+
+	} // class NodeIterator
+
+}
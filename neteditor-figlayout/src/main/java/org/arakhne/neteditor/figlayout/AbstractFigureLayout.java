@@ -22,10 +22,18 @@
 
 package org.arakhne.neteditor.figlayout;
 
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 import org.arakhne.afc.math.continous.object2d.Point2f;
 import org.arakhne.afc.math.generic.Point2D;
+import org.arakhne.afc.ui.undo.Undoable;
 import org.arakhne.afc.ui.vector.Margins;
 import org.arakhne.afc.ui.vector.VectorToolkit;
+import org.arakhne.neteditor.fig.figure.Figure;
+import org.arakhne.neteditor.fig.view.CopyOnWriteListenerCollection;
 import org.arakhne.neteditor.fig.view.ViewComponentConstants;
 
 /** Abstract implementation of a laying out algorithm.
@@ -47,6 +55,14 @@ public abstract class AbstractFigureLayout implements FigureLayout, FigureLayout
 	
 	private final Point2D origin = new Point2f();
 
+	private final CopyOnWriteListenerCollection listeners = new CopyOnWriteListenerCollection();
+	
+	private volatile int maxIterations = 0;
+	
+	private volatile long timeBudget = 0;
+	
+	private volatile long progressInterval = DEFAULT_PROGRESS_INTERVAL;
+
 	/**
 	 */
 	public AbstractFigureLayout() {
@@ -113,4 +129,137 @@ public abstract class AbstractFigureLayout implements FigureLayout, FigureLayout
 		this.origin.set(x, y); 
 	}
 	
+	/** Replies the maximal number of iterations of the
+	 * iterative laying-out algorithms.
+	 * 
+	 * @return the maximal number of iterations, or <code>0</code> if unlimited.
+	 * @since 18.0
+	 */
+	public int getMaximalIterationCount() {
+		return this.maxIterations;
+	}
+
+	/** Set the maximal number of iterations of the
+	 * iterative laying-out algorithms.
+	 * When the maximal number is reached, the current
+	 * positions of the figures are the result of the laying-out.
+	 * 
+	 * @param count is the maximal number of iterations, or <code>0</code> if unlimited.
+	 * @since 18.0
+	 */
+	public void setMaximalIterationCount(int count) {
+		this.maxIterations = Math.max(0, count);
+	}
+
+	/** Replies the maximal duration of the laying-out.
+	 * 
+	 * @return the duration in milliseconds, or <code>0</code> if unlimited.
+	 * @since 18.0
+	 */
+	public long getTimeBudget() {
+		return this.timeBudget;
+	}
+
+	/** Set the maximal duration of the laying-out.
+	 * When the duration is reached, the current
+	 * positions of the figures are the result of the laying-out.
+	 * 
+	 * @param duration is the duration in milliseconds, or <code>0</code> if unlimited.
+	 * @since 18.0
+	 */
+	public void setTimeBudget(long duration) {
+		this.timeBudget = Math.max(0, duration);
+	}
+
+	/** Replies the minimal duration between two notifications of
+	 * the intermediate positions to the listeners.
+	 * 
+	 * @return the duration in milliseconds.
+	 * @since 18.0
+	 */
+	public long getProgressInterval() {
+		return this.progressInterval;
+	}
+
+	/** Set the minimal duration between two notifications of
+	 * the intermediate positions to the listeners.
+	 * 
+	 * @param duration is the duration in milliseconds.
+	 * @since 18.0
+	 */
+	public void setProgressInterval(long duration) {
+		this.progressInterval = Math.max(0, duration);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addFigureLayoutListener(FigureLayoutListener listener) {
+		this.listeners.add(FigureLayoutListener.class, listener);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeFigureLayoutListener(FigureLayoutListener listener) {
+		this.listeners.remove(FigureLayoutListener.class, listener);
+	}
+
+	/** Create the controller of a new run of the laying-out algorithm
+	 * with the current settings of this layout.
+	 * 
+	 * @return the controller.
+	 * @since 18.0
+	 */
+	protected FigureLayoutControl createControl() {
+		return new FigureLayoutControl(this,
+				this.listeners.getListeners(FigureLayoutListener.class),
+				this.maxIterations, this.timeBudget, this.progressInterval);
+	}
+
+	/** Replies the presentation name of the undoable edits of this layout.
+	 * 
+	 * @return the name of the undoable edits.
+	 * @since 18.0
+	 */
+	protected abstract String getUndoName();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Undoable layoutFigures(Collection<? extends Figure> figures) {
+		LayoutGraph graph = new LayoutGraph(figures);
+		if (!computeLayout(graph)) return null;
+		return applyLayout(graph);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Undoable applyLayout(LayoutGraph graph) {
+		if (graph==null) return null;
+		FigureLayoutUndoableEdit undo = new FigureLayoutUndoableEdit(getUndoName());
+		graph.commit(undo);
+		if (undo.isEmpty()) return null;
+		return undo;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Future<LayoutGraph> layoutFigures(Collection<? extends Figure> figures, ExecutorService executor) {
+		final LayoutGraph graph = new LayoutGraph(figures);
+		return executor.submit(new Callable<LayoutGraph>() {
+			@Override
+			public LayoutGraph call() throws Exception {
+				return computeLayout(graph) ? graph : null;
+			}
+		});
+	}
+	
 }
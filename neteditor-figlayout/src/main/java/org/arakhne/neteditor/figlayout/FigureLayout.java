@@ -23,6 +23,8 @@
 package org.arakhne.neteditor.figlayout;
 
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.arakhne.afc.ui.undo.Undoable;
 import org.arakhne.neteditor.fig.figure.Figure;
@@ -47,4 +49,75 @@ public interface FigureLayout {
 	 */
 	public Undoable layoutFigures(Collection<? extends Figure> figures);
 	
+	/** Compute the laying-out of the given graph.
+	 * <p>
+	 * The positions of the vertices and the control points of the edges
+	 * are changed in the graph, but the figures are not changed; so that
+	 * this function may be invoked by a background thread. The figures
+	 * must not be changed until the result is applied with
+	 * {@link #applyLayout(LayoutGraph)}.
+	 * 
+	 * @param graph is the snapshot of the figures to lay out.
+	 * @return <code>true</code> if the laying-out was computed;
+	 * <code>false</code> if it was cancelled or if it has failed, and
+	 * the graph must not be applied.
+	 * @since 18.0
+	 */
+	public boolean computeLayout(LayoutGraph graph);
+
+	/** Apply the laying-out that was computed by
+	 * {@link #computeLayout(LayoutGraph)}: the figures are moved to the
+	 * positions of the vertices of the graph in a single transaction
+	 * of their container.
+	 * <p>
+	 * This function must be invoked by the thread that is allowed to
+	 * change the figures, eg. the UI thread.
+	 * 
+	 * @param graph is the laid-out graph, or <code>null</code>.
+	 * @return the undoable edit that permits to revert the laying out; or
+	 * <code>null</code> if the layout does not supports the undo/redo feature
+	 * or it has nothing to undo.
+	 * @since 18.0
+	 */
+	public Undoable applyLayout(LayoutGraph graph);
+
+	/** Compute the laying-out of the given figures in a
+	 * background task.
+	 * <p>
+	 * The snapshot of the figures is created by the calling thread,
+	 * and the laying-out is computed by the background task with
+	 * {@link #computeLayout(LayoutGraph)}. The background task does not
+	 * change the figures: the result must be applied with
+	 * {@link #applyLayout(LayoutGraph)} by the thread that is allowed
+	 * to change the figures, eg. with
+	 * <code>SwingUtilities.invokeLater()</code>.
+	 * <p>
+	 * The intermediate positions of the figures are notified to the
+	 * {@link FigureLayoutListener listeners} by the background task.
+	 * The task may be cancelled with {@link Future#cancel(boolean)}
+	 * with interruption.
+	 * 
+	 * @param figures are the figures to laying out.
+	 * @param executor is the executor service that is running the task.
+	 * @return the future laid-out graph; or <code>null</code> if the
+	 * laying-out was cancelled or if it has failed.
+	 * @since 18.0
+	 */
+	public Future<LayoutGraph> layoutFigures(Collection<? extends Figure> figures, ExecutorService executor);
+
+	/** Add a listener on the progression of the laying-out.
+	 * 
+	 * @param listener
+	 * @since 18.0
+	 */
+	public void addFigureLayoutListener(FigureLayoutListener listener);
+
+	/** Remove a listener on the progression of the laying-out.
+	 * 
+	 * @param listener
+	 * @since 18.0
+	 */
+	public void removeFigureLayoutListener(FigureLayoutListener listener);
+
+
 }
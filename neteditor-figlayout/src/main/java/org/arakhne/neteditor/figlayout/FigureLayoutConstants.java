@@ -41,4 +41,10 @@ public interface FigureLayoutConstants {
 	 */
 	public static final int HALF_MINIMAL_VERTICAL_PADDING = 10;
 
+	/** Default minimal duration between two notifications of the
+	 * intermediate positions, in milliseconds (about 25 frames per second).
+	 * @since 18.0
+	 */
+	public static final long DEFAULT_PROGRESS_INTERVAL = 40;
+
 }
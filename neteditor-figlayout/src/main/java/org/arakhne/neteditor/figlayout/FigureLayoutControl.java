@@ -0,0 +1,147 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout;
+
+/** Controller of a run of an iterative laying-out algorithm.
+ * <p>
+ * The controller counts the iterations, stops the algorithm
+ * when the maximal number of iterations or the time budget are
+ * reached, or when the running thread is interrupted; and it
+ * publishes the intermediate positions to the
+ * {@link FigureLayoutListener listeners} at a bounded rate.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+public class FigureLayoutControl {
+
+	private final FigureLayout layout;
+	private final FigureLayoutListener[] listeners;
+	private final int maxIterations;
+	private final long deadline;
+	private final long progressInterval;
+	private long nextProgress;
+	private int iterations = 0;
+	private boolean cancelled = false;
+	private boolean timeout = false;
+
+	/**
+	 * @param layout is the controlled layout.
+	 * @param listeners are the listeners to notify, or <code>null</code>.
+	 * @param maxIterations is the maximal number of iterations, or <code>0</code>
+	 * for no limit.
+	 * @param timeBudget is the maximal duration of the laying-out in milliseconds, or
+	 * <code>0</code> for no limit.
+	 * @param progressInterval is the minimal duration between two notifications of
+	 * the listeners in milliseconds.
+	 */
+	public FigureLayoutControl(FigureLayout layout, FigureLayoutListener[] listeners,
+			int maxIterations, long timeBudget, long progressInterval) {
+		long now = System.nanoTime();
+		this.layout = layout;
+		this.listeners = listeners;
+		this.maxIterations = maxIterations;
+		this.deadline = (timeBudget>0) ? now + timeBudget * 1000000l : 0;
+		this.progressInterval = progressInterval * 1000000l;
+		this.nextProgress = now + this.progressInterval;
+	}
+
+	/** Replies the number of iterations that were run.
+	 * 
+	 * @return the number of iterations.
+	 */
+	public int getIterationCount() {
+		return this.iterations;
+	}
+
+	/** Replies if the laying-out was cancelled, ie. the running
+	 * thread was interrupted. A cancelled laying-out must not change
+	 * the figures.
+	 * 
+	 * @return <code>true</code> if the laying-out was cancelled.
+	 */
+	public boolean isCancelled() {
+		if (!this.cancelled && Thread.currentThread().isInterrupted()) {
+			this.cancelled = true;
+		}
+		return this.cancelled;
+	}
+
+	/** Replies if the laying-out must stop because of the maximal
+	 * number of iterations or the time budget. The current positions
+	 * are the result of the laying-out.
+	 * 
+	 * @return <code>true</code> if the laying-out must stop.
+	 */
+	public boolean isBudgetExhausted() {
+		if (this.maxIterations>0 && this.iterations>=this.maxIterations) return true;
+		if (!this.timeout && this.deadline!=0 && System.nanoTime()>=this.deadline) {
+			this.timeout = true;
+		}
+		return this.timeout;
+	}
+
+	/** Replies if the laying-out must stop, because it was
+	 * cancelled or because its budget is exhausted.
+	 * 
+	 * @return <code>true</code> if the laying-out must stop.
+	 */
+	public boolean isStopped() {
+		return isCancelled() || isBudgetExhausted();
+	}
+
+	/** Notifies the end of an iteration.
+	 * 
+	 * @return <code>true</code> if the next iteration may be run;
+	 * <code>false</code> if the laying-out must stop.
+	 */
+	public boolean nextIteration() {
+		++this.iterations;
+		return !isStopped();
+	}
+
+	/** Replies if the listeners are waiting for intermediate positions.
+	 * 
+	 * @return <code>true</code> if {@link #publish(LayoutGraph)} should be invoked.
+	 */
+	public boolean isPublicationRequired() {
+		return this.listeners!=null && this.listeners.length>0
+				&& System.nanoTime()>=this.nextProgress;
+	}
+
+	/** Notifies the listeners with the positions in the given graph.
+	 * 
+	 * @param graph
+	 */
+	public void publish(LayoutGraph graph) {
+		if (this.listeners!=null && this.listeners.length>0) {
+			FigureLayoutEvent event = new FigureLayoutEvent(this.layout, graph, this.iterations);
+			for(FigureLayoutListener listener : this.listeners) {
+				listener.layoutProgressed(event);
+			}
+		}
+		this.nextProgress = System.nanoTime() + this.progressInterval;
+	}
+
+}
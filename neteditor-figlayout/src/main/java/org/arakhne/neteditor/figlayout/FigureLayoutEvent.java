@@ -0,0 +1,114 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout;
+
+import java.util.EventObject;
+
+import org.arakhne.neteditor.fig.figure.Figure;
+
+/** Event that contains the intermediate positions of the figures
+ * during a laying-out.
+ * <p>
+ * The positions are copies, so that the event may be forwarded to
+ * another thread, eg. the UI thread, while the algorithm is running.
+ * The figures are not moved until the final positions are applied
+ * with {@link FigureLayout#applyLayout(LayoutGraph)}.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+public class FigureLayoutEvent extends EventObject {
+
+	private static final long serialVersionUID = -3264758129004566014L;
+
+	private final LayoutGraph graph;
+	private final float[] x;
+	private final float[] y;
+	private final int iteration;
+
+	/**
+	 * @param source is the layout.
+	 * @param graph is the laid-out graph.
+	 * @param iteration is the number of iterations that were run.
+	 */
+	public FigureLayoutEvent(FigureLayout source, LayoutGraph graph, int iteration) {
+		super(source);
+		this.graph = graph;
+		this.x = graph.getX().clone();
+		this.y = graph.getY().clone();
+		this.iteration = iteration;
+	}
+
+	/** Replies the layout that fired this event.
+	 * 
+	 * @return the layout.
+	 */
+	public FigureLayout getLayout() {
+		return (FigureLayout)getSource();
+	}
+
+	/** Replies the number of iterations that were run.
+	 * 
+	 * @return the number of iterations.
+	 */
+	public int getIteration() {
+		return this.iteration;
+	}
+
+	/** Replies the number of figures with a position.
+	 * 
+	 * @return the number of figures.
+	 */
+	public int getFigureCount() {
+		return this.x.length;
+	}
+
+	/** Replies a figure.
+	 * 
+	 * @param index is the index of the figure.
+	 * @return the figure.
+	 */
+	public Figure getFigure(int index) {
+		return this.graph.getFigure(index);
+	}
+
+	/** Replies the intermediate x coordinate of a figure.
+	 * 
+	 * @param index is the index of the figure.
+	 * @return the x coordinate of the upper-left corner of the figure.
+	 */
+	public float getX(int index) {
+		return this.x[index];
+	}
+
+	/** Replies the intermediate y coordinate of a figure.
+	 * 
+	 * @param index is the index of the figure.
+	 * @return the y coordinate of the upper-left corner of the figure.
+	 */
+	public float getY(int index) {
+		return this.y[index];
+	}
+
+}
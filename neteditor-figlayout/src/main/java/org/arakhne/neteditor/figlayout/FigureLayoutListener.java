@@ -0,0 +1,46 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout;
+
+import java.util.EventListener;
+
+/** Listener on the progression of a {@link FigureLayout}.
+ * <p>
+ * The listeners are notified by the thread that is running the
+ * laying-out algorithm, eg. a background thread; they are responsible
+ * for forwarding the notification to the UI thread if needed.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+public interface FigureLayoutListener extends EventListener {
+
+	/** Invoked when intermediate positions of the figures are
+	 * available.
+	 * 
+	 * @param event
+	 */
+	public void layoutProgressed(FigureLayoutEvent event);
+
+}
@@ -29,9 +29,19 @@ import org.arakhne.afc.ui.undo.AbstractUndoable;
 import org.arakhne.afc.ui.undo.Undoable;
 import org.arakhne.neteditor.fig.figure.Figure;
 import org.arakhne.neteditor.fig.figure.edge.EdgeFigure;
+import org.arakhne.neteditor.fig.view.ViewComponentContainer;
 
 /** Standard implementation of an undoable edit that is
  * able to apply a layout of figures and revert it.
+ * <p>
+ * The changes of the positions of the figures are preferably
+ * stored in columns with {@link #addLocationChanges(Figure[], float[], float[], float[], float[])},
+ * and the changes of the control points of an edge are stored as
+ * snapshots of the whole polyline with
+ * {@link #addCtrlPointChange(EdgeFigure, float[], float[])}; so that
+ * the laying-out of a large diagram does not create a object per
+ * moved figure or per control point. The changes are applied in
+ * a single transaction of the container of the figures.
  * 
  * @author $Author: galland$
  * @version $Name$ $Revision$ $Date$
@@ -81,7 +91,22 @@ public class FigureLayoutUndoableEdit extends AbstractUndoable {
 	 * @param y is the new position of the figure.
 	 */
 	public void addLocationChange(Figure figure, float x, float y) {
-		this.changes.add(new PositionChange(figure, x, y));
+		this.changes.add(new PositionChange(figure, figure.getX(), figure.getY(), x, y));
+	}
+
+	/** Add a change into the undo edit with an explicit old position.
+	 * This function should be used when the figure was already moved,
+	 * eg. while the laying-out was computed in background.
+	 * 
+	 * @param figure is the figure to move.
+	 * @param oldX is the position of the figure before the laying-out.
+	 * @param oldY is the position of the figure before the laying-out.
+	 * @param x is the new position of the figure.
+	 * @param y is the new position of the figure.
+	 * @since 18.0
+	 */
+	public void addLocationChange(Figure figure, float oldX, float oldY, float x, float y) {
+		this.changes.add(new PositionChange(figure, oldX, oldY, x, y));
 	}
 
 	/** Add a removal of a control point.
@@ -93,6 +118,38 @@ public class FigureLayoutUndoableEdit extends AbstractUndoable {
 		this.changes.add(new ControlPointRemoval(figure, position));
 	}
 
+	/** Add a change of the positions of several figures.
+	 * The changes are stored in columns, ie. in the given arrays, that
+	 * are not copied and must not be changed after this call.
+	 * 
+	 * @param figures are the figures to move.
+	 * @param oldX are the positions of the figures before the laying-out.
+	 * @param oldY are the positions of the figures before the laying-out.
+	 * @param x are the new positions of the figures.
+	 * @param y are the new positions of the figures.
+	 * @since 18.0
+	 */
+	public void addLocationChanges(Figure[] figures, float[] oldX, float[] oldY, float[] x, float[] y) {
+		if (figures.length>0) {
+			this.changes.add(new LocationChanges(figures, oldX, oldY, x, y));
+		}
+	}
+
+	/** Add a change of all the control points of an edge.
+	 * The arrays contain the coordinates of the control points:
+	 * <code>x0, y0, x1, y1...</code>; they are not copied
+	 * and must not be changed after this call.
+	 * 
+	 * @param figure is the changed edge.
+	 * @param oldPoints are the control points before the laying-out.
+	 * @param points are the new control points.
+	 * @since 18.0
+	 * @see LayoutGraph#getCtrlPoints(EdgeFigure)
+	 */
+	public void addCtrlPointChange(EdgeFigure<?> figure, float[] oldPoints, float[] points) {
+		this.changes.add(new CtrlPointChange(figure, oldPoints, points));
+	}
+
 	/** Replies if this edit is empty, ie it contains no change.
 	 * 
 	 * @return <code>true</code> if there is no change inside;
@@ -102,17 +159,48 @@ public class FigureLayoutUndoableEdit extends AbstractUndoable {
 		return this.changes.isEmpty();
 	}
 
+	/** Replies the container of the changed figures.
+	 * 
+	 * @return the container, or <code>null</code> if unknown.
+	 */
+	private ViewComponentContainer<?,?> getViewComponentContainer() {
+		Figure figure;
+		for(Change c : this.changes) {
+			figure = c.getFigure();
+			if (figure!=null) {
+				return figure.getViewComponentContainer();
+			}
+		}
+		return null;
+	}
+
 	@Override
 	protected void doEdit() {
-		for(Change c : this.changes) {
-			c.doEdit();
+		// The changes are applied in a single transaction
+		// to repaint the container only once.
+		ViewComponentContainer<?,?> container = getViewComponentContainer();
+		if (container!=null) container.beginTransaction();
+		try {
+			for(Change c : this.changes) {
+				c.doEdit();
+			}
+		}
+		finally {
+			if (container!=null) container.commitTransaction();
 		}
 	}
 
 	@Override
 	protected void undoEdit() {
-		for(int i=this.changes.size()-1; i>=0; --i) {
-			this.changes.get(i).undoEdit();
+		ViewComponentContainer<?,?> container = getViewComponentContainer();
+		if (container!=null) container.beginTransaction();
+		try {
+			for(int i=this.changes.size()-1; i>=0; --i) {
+				this.changes.get(i).undoEdit();
+			}
+		}
+		finally {
+			if (container!=null) container.commitTransaction();
 		}
 	}
 
@@ -125,6 +213,8 @@ public class FigureLayoutUndoableEdit extends AbstractUndoable {
 	 */
 	private static interface Change {
 		
+		public Figure getFigure();
+
 		public void doEdit();
 		
 		public void undoEdit();
@@ -146,14 +236,19 @@ public class FigureLayoutUndoableEdit extends AbstractUndoable {
 		private final float nx;
 		private final float ny;
 
-		public PositionChange(Figure f, float x2, float y2) {
+		public PositionChange(Figure f, float x1, float y1, float x2, float y2) {
 			this.figure = f;
-			this.ox = f.getX();
-			this.oy = f.getY();
+			this.ox = x1;
+			this.oy = y1;
 			this.nx = x2;
 			this.ny = y2;
 		}
 
+		@Override
+		public Figure getFigure() {
+			return this.figure;
+		}
+
 		@Override
 		public void doEdit() {
 			this.figure.setLocation(this.nx, this.ny);
@@ -188,6 +283,11 @@ public class FigureLayoutUndoableEdit extends AbstractUndoable {
 			this.oy = p.getY();
 		}
 		
+		@Override
+		public Figure getFigure() {
+			return this.figure;
+		}
+
 		@Override
 		public void doEdit() {
 			this.figure.removeCtrlPointAt(this.position);
@@ -200,6 +300,88 @@ public class FigureLayoutUndoableEdit extends AbstractUndoable {
 
 	}
 
+	/** Changes of the positions of several figures, stored in columns.
+	 * 
+	 * @author $Author: galland$
+	 * @version $Name$ $Revision$ $Date$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 18.0
+	 */
+	private static class LocationChanges implements Change {
+
+		private final Figure[] figures;
+		private final float[] ox;
+		private final float[] oy;
+		private final float[] nx;
+		private final float[] ny;
+
+		public LocationChanges(Figure[] f, float[] x1, float[] y1, float[] x2, float[] y2) {
+			this.figures = f;
+			this.ox = x1;
+			this.oy = y1;
+			this.nx = x2;
+			this.ny = y2;
+		}
+
+		@Override
+		public Figure getFigure() {
+			return this.figures[0];
+		}
+
+		@Override
+		public void doEdit() {
+			for(int i=0; i<this.figures.length; ++i) {
+				this.figures[i].setLocation(this.nx[i], this.ny[i]);
+			}
+		}
+
+		@Override
+		public void undoEdit() {
+			for(int i=this.figures.length-1; i>=0; --i) {
+				this.figures[i].setLocation(this.ox[i], this.oy[i]);
+			}
+		}
+
+	}
+
+	/** Change of all the control points of an edge.
+	 * 
+	 * @author $Author: galland$
+	 * @version $Name$ $Revision$ $Date$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 18.0
+	 */
+	private static class CtrlPointChange implements Change {
+
+		private final EdgeFigure<?> figure;
+		private final float[] oldPoints;
+		private final float[] points;
+
+		public CtrlPointChange(EdgeFigure<?> f, float[] oldPoints, float[] points) {
+			this.figure = f;
+			this.oldPoints = oldPoints;
+			this.points = points;
+		}
+		
+		@Override
+		public Figure getFigure() {
+			return this.figure;
+		}
+
+		@Override
+		public void doEdit() {
+			LayoutGraph.setCtrlPoints(this.figure, this.points);
+		}
+
+		@Override
+		public void undoEdit() {
+			LayoutGraph.setCtrlPoints(this.figure, this.oldPoints);
+		}
+
+	}
+
 	/**
 	 * @author $Author: galland$
 	 * @version $Name$ $Revision$ $Date$
@@ -218,6 +400,11 @@ public class FigureLayoutUndoableEdit extends AbstractUndoable {
 			this.edit = edit;
 		}
 
+		@Override
+		public Figure getFigure() {
+			return null;
+		}
+
 		@Override
 		public void doEdit() {
 			this.edit.redo();
@@ -0,0 +1,745 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.arakhne.afc.math.continous.object2d.Point2f;
+import org.arakhne.afc.math.continous.object2d.Rectangle2f;
+import org.arakhne.afc.math.generic.Point2D;
+import org.arakhne.neteditor.fig.figure.Figure;
+import org.arakhne.neteditor.fig.figure.coercion.CoercedFigure;
+import org.arakhne.neteditor.fig.figure.decoration.DecorationFigure;
+import org.arakhne.neteditor.fig.figure.edge.EdgeFigure;
+import org.arakhne.neteditor.fig.figure.node.NodeFigure;
+import org.arakhne.neteditor.fig.view.ViewComponentContainer;
+import org.arakhne.neteditor.formalism.Edge;
+import org.arakhne.neteditor.formalism.Node;
+
+/** Compact snapshot of the figures to lay out.
+ * <p>
+ * The snapshot is built once from the figures given to a
+ * {@link FigureLayout}, and the laying-out algorithms are working
+ * on it instead of the figures and the model objects:
+ * <ul>
+ * <li>the node figures and the decoration figures are the <em>vertices</em>
+ * of the snapshot, identified by dense indexes in <code>[0;n)</code>, in the
+ * order of the given figures;</li>
+ * <li>the positions and the sizes of the vertices are stored in
+ * primitive arrays;</li>
+ * <li>the edge figures between two vertices are the <em>edges</em>
+ * of the snapshot, identified by dense indexes in <code>[0;m)</code>;</li>
+ * <li>the incoming and the outgoing edges of the vertices are stored
+ * in compressed sparse row arrays: the outgoing edges of the vertex
+ * <code>v</code> are <code>getOutEdges()[getOutOffsets()[v]]</code> to
+ * <code>getOutEdges()[getOutOffsets()[v+1]-1]</code>.</li>
+ * </ul>
+ * The positions of the vertices and the control points of the edges
+ * may be changed by the algorithms without changing the figures, so that
+ * an algorithm may run in a background thread. They are written back to
+ * the figures in a single pass by {@link #commit(FigureLayoutUndoableEdit)},
+ * that must be invoked by the thread that is allowed to change the figures,
+ * eg. the UI thread.
+ *
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+public class LayoutGraph {
+
+	private final Figure[] vertices;
+	private final boolean[] isNode;
+	private final float[] x;
+	private final float[] y;
+	private final float[] width;
+	private final float[] height;
+	private final float[] originalX;
+	private final float[] originalY;
+
+	private final EdgeFigure<?>[] edges;
+	private final int[] edgeSource;
+	private final int[] edgeTarget;
+	private int[] outOffsets;
+	private int[] outEdges;
+	private int[] inOffsets;
+	private int[] inEdges;
+
+	/** Edge figures that are not between two vertices.
+	 */
+	private final List<EdgeFigure<?>> otherEdges = new ArrayList<EdgeFigure<?>>();
+
+	/** Vertices that are linked to the edges in {@link #otherEdges},
+	 * or <code>-1</code>.
+	 */
+	private final int[] otherEdgeOwners;
+
+	/** Control points of the edges, then of the other edges,
+	 * when this graph was created or committed.
+	 */
+	private final float[][] originalCtrlPoints;
+
+	/** Control points of the edges, then of the other edges.
+	 * An array is replaced, never changed, when the control points
+	 * of an edge are changed.
+	 */
+	private final float[][] ctrlPoints;
+
+	private final Map<Figure,Integer> vertexIndexes = new IdentityHashMap<Figure,Integer>();
+
+	/** Graph from which this graph was extracted, or <code>null</code>.
+	 */
+	private final LayoutGraph parent;
+	private final int[] parentVertices;
+	private final int[] parentEdges;
+
+	/**
+	 * @param figures are the figures to lay out.
+	 */
+	public LayoutGraph(Collection<? extends Figure> figures) {
+		// Vertices
+		List<Figure> vertexList = new ArrayList<Figure>(figures.size());
+		Map<Node<?,?,?,?>,Integer> nodeIndexes = new IdentityHashMap<Node<?,?,?,?>,Integer>();
+		List<EdgeFigure<?>> edgeFigures = new ArrayList<EdgeFigure<?>>();
+		for(Figure figure : figures) {
+			if (figure instanceof NodeFigure<?,?>) {
+				Node<?,?,?,?> node = ((NodeFigure<?,?>)figure).getModelObject();
+				if (node!=null) nodeIndexes.put(node, Integer.valueOf(vertexList.size()));
+				this.vertexIndexes.put(figure, Integer.valueOf(vertexList.size()));
+				vertexList.add(figure);
+			}
+			else if (figure instanceof EdgeFigure<?>) {
+				edgeFigures.add((EdgeFigure<?>)figure);
+			}
+			else if (figure instanceof DecorationFigure && !(figure instanceof CoercedFigure)) {
+				this.vertexIndexes.put(figure, Integer.valueOf(vertexList.size()));
+				vertexList.add(figure);
+			}
+		}
+
+		int n = vertexList.size();
+		this.vertices = new Figure[n];
+		vertexList.toArray(this.vertices);
+		this.isNode = new boolean[n];
+		this.x = new float[n];
+		this.y = new float[n];
+		this.width = new float[n];
+		this.height = new float[n];
+		this.originalX = new float[n];
+		this.originalY = new float[n];
+		for(int i=0; i<n; ++i) {
+			Figure figure = this.vertices[i];
+			this.isNode[i] = figure instanceof NodeFigure<?,?>
+					&& ((NodeFigure<?,?>)figure).getModelObject()!=null;
+			this.x[i] = this.originalX[i] = figure.getX();
+			this.y[i] = this.originalY[i] = figure.getY();
+			this.width[i] = figure.getWidth();
+			this.height[i] = figure.getHeight();
+		}
+
+		// Edges
+		Map<EdgeFigure<?>,Boolean> knownEdges = new IdentityHashMap<EdgeFigure<?>,Boolean>();
+		List<EdgeFigure<?>> edgeList = new ArrayList<EdgeFigure<?>>();
+		List<Integer> sources = new ArrayList<Integer>();
+		List<Integer> targets = new ArrayList<Integer>();
+		List<Integer> owners = new ArrayList<Integer>();
+		for(int i=0; i<n; ++i) {
+			if (this.isNode[i]) {
+				Figure figure = this.vertices[i];
+				Node<?,?,?,?> node = ((NodeFigure<?,?>)figure).getModelObject();
+				for(Edge<?,?,?,?> edge : node.getEdges()) {
+					EdgeFigure<?> edgeFigure = edge.getViewBinding().getView(figure.getViewUUID(), EdgeFigure.class);
+					if (edgeFigure!=null && knownEdges.put(edgeFigure, Boolean.TRUE)==null) {
+						Integer source = nodeIndexes.get(edge.getStartAnchor().getNode());
+						Integer target = nodeIndexes.get(edge.getEndAnchor().getNode());
+						if (source!=null && target!=null) {
+							edgeList.add(edgeFigure);
+							sources.add(source);
+							targets.add(target);
+						}
+						else {
+							this.otherEdges.add(edgeFigure);
+							owners.add(Integer.valueOf(i));
+						}
+					}
+				}
+			}
+		}
+		for(EdgeFigure<?> edgeFigure : edgeFigures) {
+			if (knownEdges.put(edgeFigure, Boolean.TRUE)==null) {
+				this.otherEdges.add(edgeFigure);
+				owners.add(Integer.valueOf(-1));
+			}
+		}
+		this.otherEdgeOwners = new int[owners.size()];
+		for(int k=0; k<this.otherEdgeOwners.length; ++k) {
+			this.otherEdgeOwners[k] = owners.get(k).intValue();
+		}
+
+		int m = edgeList.size();
+		this.edges = new EdgeFigure<?>[m];
+		edgeList.toArray(this.edges);
+		this.edgeSource = new int[m];
+		this.edgeTarget = new int[m];
+		for(int e=0; e<m; ++e) {
+			this.edgeSource[e] = sources.get(e).intValue();
+			this.edgeTarget[e] = targets.get(e).intValue();
+		}
+		buildIncidences();
+
+		// Control points
+		this.originalCtrlPoints = new float[m + this.otherEdges.size()][];
+		for(int k=0; k<this.originalCtrlPoints.length; ++k) {
+			this.originalCtrlPoints[k] = getCtrlPoints(getCtrlPointEdge(k));
+		}
+		this.ctrlPoints = this.originalCtrlPoints.clone();
+
+		this.parent = null;
+		this.parentVertices = null;
+		this.parentEdges = null;
+	}
+
+	/** Extract a part of the given graph.
+	 * <p>
+	 * The vertices of the new graph are the given vertices. Its edges
+	 * are the edges between these vertices, and its other edges are
+	 * the edges that are linked to only one of them. The figures are
+	 * not read: the positions and the control points are copied from
+	 * the given graph, and they are copied back into the given graph
+	 * by {@link #writeBack()}.
+	 *
+	 * @param graph is the graph from which the new graph is extracted.
+	 * @param vertices are the indexes of the vertices in the given graph.
+	 * @since 18.0
+	 */
+	public LayoutGraph(LayoutGraph graph, int[] vertices) {
+		this.parent = graph;
+		this.parentVertices = vertices.clone();
+
+		// Vertices
+		int n = vertices.length;
+		int[] localIndexes = new int[graph.getVertexCount()];
+		for(int v=0; v<localIndexes.length; ++v) {
+			localIndexes[v] = -1;
+		}
+		this.vertices = new Figure[n];
+		this.isNode = new boolean[n];
+		this.x = new float[n];
+		this.y = new float[n];
+		this.width = new float[n];
+		this.height = new float[n];
+		this.originalX = new float[n];
+		this.originalY = new float[n];
+		int v;
+		for(int i=0; i<n; ++i) {
+			v = vertices[i];
+			localIndexes[v] = i;
+			this.vertices[i] = graph.vertices[v];
+			this.isNode[i] = graph.isNode[v];
+			this.x[i] = graph.x[v];
+			this.y[i] = graph.y[v];
+			this.width[i] = graph.width[v];
+			this.height[i] = graph.height[v];
+			this.originalX[i] = graph.originalX[v];
+			this.originalY[i] = graph.originalY[v];
+			this.vertexIndexes.put(this.vertices[i], Integer.valueOf(i));
+		}
+
+		// Edges
+		List<Integer> edgeList = new ArrayList<Integer>();
+		List<Integer> otherList = new ArrayList<Integer>();
+		List<Integer> owners = new ArrayList<Integer>();
+		int s, t;
+		for(int e=0; e<graph.edges.length; ++e) {
+			s = localIndexes[graph.edgeSource[e]];
+			t = localIndexes[graph.edgeTarget[e]];
+			if (s>=0 && t>=0) {
+				edgeList.add(Integer.valueOf(e));
+			}
+			else if (s>=0 || t>=0) {
+				otherList.add(Integer.valueOf(e));
+				owners.add(Integer.valueOf(Math.max(s, t)));
+			}
+		}
+		for(int k=0; k<graph.otherEdgeOwners.length; ++k) {
+			s = graph.otherEdgeOwners[k];
+			if (s>=0 && localIndexes[s]>=0) {
+				otherList.add(Integer.valueOf(graph.edges.length + k));
+				owners.add(Integer.valueOf(localIndexes[s]));
+			}
+		}
+
+		int m = edgeList.size();
+		this.edges = new EdgeFigure<?>[m];
+		this.edgeSource = new int[m];
+		this.edgeTarget = new int[m];
+		this.otherEdgeOwners = new int[otherList.size()];
+		this.parentEdges = new int[m + otherList.size()];
+		this.originalCtrlPoints = new float[this.parentEdges.length][];
+		this.ctrlPoints = new float[this.parentEdges.length][];
+		int e;
+		for(int k=0; k<m; ++k) {
+			e = edgeList.get(k).intValue();
+			this.edges[k] = graph.edges[e];
+			this.edgeSource[k] = localIndexes[graph.edgeSource[e]];
+			this.edgeTarget[k] = localIndexes[graph.edgeTarget[e]];
+			this.parentEdges[k] = e;
+		}
+		for(int k=0; k<this.otherEdgeOwners.length; ++k) {
+			e = otherList.get(k).intValue();
+			this.otherEdges.add(graph.getCtrlPointEdge(e));
+			this.otherEdgeOwners[k] = owners.get(k).intValue();
+			this.parentEdges[m + k] = e;
+		}
+		for(int k=0; k<this.parentEdges.length; ++k) {
+			this.originalCtrlPoints[k] = graph.originalCtrlPoints[this.parentEdges[k]];
+			this.ctrlPoints[k] = graph.ctrlPoints[this.parentEdges[k]];
+		}
+		buildIncidences();
+	}
+
+	/** Build the compressed sparse row arrays of the incoming and the
+	 * outgoing edges.
+	 */
+	private void buildIncidences() {
+		int n = this.vertices.length;
+		int m = this.edges.length;
+		this.outOffsets = new int[n+1];
+		this.inOffsets = new int[n+1];
+		for(int e=0; e<m; ++e) {
+			++this.outOffsets[this.edgeSource[e]+1];
+			++this.inOffsets[this.edgeTarget[e]+1];
+		}
+		for(int i=0; i<n; ++i) {
+			this.outOffsets[i+1] += this.outOffsets[i];
+			this.inOffsets[i+1] += this.inOffsets[i];
+		}
+		this.outEdges = new int[m];
+		this.inEdges = new int[m];
+		int[] outFill = new int[n];
+		int[] inFill = new int[n];
+		for(int e=0; e<m; ++e) {
+			int s = this.edgeSource[e];
+			int t = this.edgeTarget[e];
+			this.outEdges[this.outOffsets[s] + outFill[s]++] = e;
+			this.inEdges[this.inOffsets[t] + inFill[t]++] = e;
+		}
+	}
+
+	/** Replies the number of vertices.
+	 *
+	 * @return the number of vertices.
+	 */
+	public int getVertexCount() {
+		return this.vertices.length;
+	}
+
+	/** Replies the figure of a vertex.
+	 *
+	 * @param vertex is the index of the vertex.
+	 * @return the figure.
+	 */
+	public Figure getFigure(int vertex) {
+		return this.vertices[vertex];
+	}
+
+	/** Replies the index of the vertex for the given figure.
+	 *
+	 * @param figure
+	 * @return the index of the vertex, or <code>-1</code> if the figure
+	 * is not a vertex of this graph.
+	 */
+	public int indexOf(Figure figure) {
+		Integer index = this.vertexIndexes.get(figure);
+		return index==null ? -1 : index.intValue();
+	}
+
+	/** Replies if the vertex is for a node of the model.
+	 *
+	 * @param vertex is the index of the vertex.
+	 * @return <code>true</code> if the vertex is a node figure with a model
+	 * object; <code>false</code> if it is a decoration.
+	 */
+	public boolean isNode(int vertex) {
+		return this.isNode[vertex];
+	}
+
+	/** Replies the x coordinates of the vertices.
+	 * The replied array is shared and may be changed by the laying-out
+	 * algorithms.
+	 *
+	 * @return the x coordinates of the upper-left corners of the vertices.
+	 */
+	public float[] getX() {
+		return this.x;
+	}
+
+	/** Replies the y coordinates of the vertices.
+	 * The replied array is shared and may be changed by the laying-out
+	 * algorithms.
+	 *
+	 * @return the y coordinates of the upper-left corners of the vertices.
+	 */
+	public float[] getY() {
+		return this.y;
+	}
+
+	/** Replies the widths of the vertices.
+	 * The replied array is shared and must not be changed.
+	 *
+	 * @return the widths.
+	 */
+	public float[] getWidth() {
+		return this.width;
+	}
+
+	/** Replies the heights of the vertices.
+	 * The replied array is shared and must not be changed.
+	 *
+	 * @return the heights.
+	 */
+	public float[] getHeight() {
+		return this.height;
+	}
+
+	/** Replies the number of edges.
+	 *
+	 * @return the number of edges between the vertices.
+	 */
+	public int getEdgeCount() {
+		return this.edges.length;
+	}
+
+	/** Replies the figure of an edge.
+	 *
+	 * @param edge is the index of the edge.
+	 * @return the edge figure.
+	 */
+	public EdgeFigure<?> getEdgeFigure(int edge) {
+		return this.edges[edge];
+	}
+
+	/** Replies the vertex at the start of an edge.
+	 *
+	 * @param edge is the index of the edge.
+	 * @return the index of the source vertex.
+	 */
+	public int getEdgeSource(int edge) {
+		return this.edgeSource[edge];
+	}
+
+	/** Replies the vertex at the end of an edge.
+	 *
+	 * @param edge is the index of the edge.
+	 * @return the index of the target vertex.
+	 */
+	public int getEdgeTarget(int edge) {
+		return this.edgeTarget[edge];
+	}
+
+	/** Replies the offsets of the outgoing edges in {@link #getOutEdges()}.
+	 * The replied array has <code>n+1</code> elements and it is shared.
+	 *
+	 * @return the offsets of the outgoing edges.
+	 */
+	public int[] getOutOffsets() {
+		return this.outOffsets;
+	}
+
+	/** Replies the outgoing edges of all the vertices.
+	 * The replied array is shared.
+	 *
+	 * @return the indexes of the outgoing edges.
+	 * @see #getOutOffsets()
+	 */
+	public int[] getOutEdges() {
+		return this.outEdges;
+	}
+
+	/** Replies the offsets of the incoming edges in {@link #getInEdges()}.
+	 * The replied array has <code>n+1</code> elements and it is shared.
+	 *
+	 * @return the offsets of the incoming edges.
+	 */
+	public int[] getInOffsets() {
+		return this.inOffsets;
+	}
+
+	/** Replies the incoming edges of all the vertices.
+	 * The replied array is shared.
+	 *
+	 * @return the indexes of the incoming edges.
+	 * @see #getInOffsets()
+	 */
+	public int[] getInEdges() {
+		return this.inEdges;
+	}
+
+	/** Replies the edge figures that are not between two vertices of
+	 * this graph, eg. the edges that are linked to a node that is not laid out.
+	 *
+	 * @return the other edge figures.
+	 */
+	public List<EdgeFigure<?>> getOtherEdgeFigures() {
+		return this.otherEdges;
+	}
+
+	/** Replies the container of the figures.
+	 *
+	 * @return the container, or <code>null</code> if unknown.
+	 */
+	public ViewComponentContainer<?,?> getViewComponentContainer() {
+		if (this.vertices.length>0) return this.vertices[0].getViewComponentContainer();
+		if (this.edges.length>0) return this.edges[0].getViewComponentContainer();
+		if (!this.otherEdges.isEmpty()) return this.otherEdges.get(0).getViewComponentContainer();
+		return null;
+	}
+
+	/** Replies the edge figure of the control points at the given index
+	 * in {@link #ctrlPoints}.
+	 */
+	private EdgeFigure<?> getCtrlPointEdge(int index) {
+		if (index<this.edges.length) return this.edges[index];
+		return this.otherEdges.get(index - this.edges.length);
+	}
+
+	/** Replies the control points of an edge.
+	 * The replied array is shared and must not be changed; the
+	 * control points are changed with {@link #setEdgeCtrlPoints(int, float[])}.
+	 *
+	 * @param edge is the index of the edge.
+	 * @return the coordinates of the control points: <code>x0, y0, x1, y1...</code>
+	 * @since 18.0
+	 */
+	public float[] getEdgeCtrlPoints(int edge) {
+		return this.ctrlPoints[edge];
+	}
+
+	/** Change the control points of an edge.
+	 * The edge figure is changed by {@link #commit(FigureLayoutUndoableEdit)}.
+	 *
+	 * @param edge is the index of the edge.
+	 * @param points are the coordinates of the control points: <code>x0, y0, x1, y1...</code>;
+	 * the array is not copied and must not be changed after this call.
+	 * @since 18.0
+	 */
+	public void setEdgeCtrlPoints(int edge, float[] points) {
+		this.ctrlPoints[edge] = points;
+	}
+
+	/** Remove the intermediate control points of all the edges.
+	 * The edge figures are changed by {@link #commit(FigureLayoutUndoableEdit)}.
+	 */
+	public void removeIntermediateControlPoints() {
+		float[] points;
+		int last;
+		for(int k=0; k<this.ctrlPoints.length; ++k) {
+			points = this.ctrlPoints[k];
+			if (points.length>4) {
+				last = points.length - 2;
+				this.ctrlPoints[k] = new float[] {
+						points[0], points[1],
+						points[last], points[last+1]
+				};
+			}
+		}
+	}
+
+	/** Translate all the vertices and the intermediate control points
+	 * of all the edges.
+	 * The figures are changed by {@link #commit(FigureLayoutUndoableEdit)}.
+	 *
+	 * @param dx
+	 * @param dy
+	 */
+	public void translate(float dx, float dy) {
+		for(int i=0; i<this.vertices.length; ++i) {
+			this.x[i] += dx;
+			this.y[i] += dy;
+		}
+		float[] points;
+		for(int k=0; k<this.ctrlPoints.length; ++k) {
+			if (this.ctrlPoints[k].length>4) {
+				points = this.ctrlPoints[k].clone();
+				for(int i=2; i<points.length-2; i+=2) {
+					points[i] += dx;
+					points[i+1] += dy;
+				}
+				this.ctrlPoints[k] = points;
+			}
+		}
+	}
+
+	/** Replies the bounds of the vertices and of the intermediate
+	 * control points of the edges.
+	 * The first and the last control points of the edges are ignored
+	 * because they are following the vertices.
+	 *
+	 * @return the bounds, or <code>null</code> if this graph is empty.
+	 * @since 18.0
+	 */
+	public Rectangle2f getBounds() {
+		float minX = Float.POSITIVE_INFINITY;
+		float minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY;
+		float maxY = Float.NEGATIVE_INFINITY;
+		for(int i=0; i<this.vertices.length; ++i) {
+			minX = Math.min(minX, this.x[i]);
+			minY = Math.min(minY, this.y[i]);
+			maxX = Math.max(maxX, this.x[i] + this.width[i]);
+			maxY = Math.max(maxY, this.y[i] + this.height[i]);
+		}
+		float[] points;
+		for(int k=0; k<this.ctrlPoints.length; ++k) {
+			points = this.ctrlPoints[k];
+			for(int i=2; i<points.length-2; i+=2) {
+				minX = Math.min(minX, points[i]);
+				minY = Math.min(minY, points[i+1]);
+				maxX = Math.max(maxX, points[i]);
+				maxY = Math.max(maxY, points[i+1]);
+			}
+		}
+		if (minX>maxX || minY>maxY) return null;
+		return new Rectangle2f(minX, minY, maxX - minX, maxY - minY);
+	}
+
+	/** Copy the positions of the vertices and the control points of the
+	 * edges into the graph from which this graph was extracted.
+	 * The figures are not changed.
+	 *
+	 * @see #LayoutGraph(LayoutGraph, int[])
+	 * @since 18.0
+	 */
+	public void writeBack() {
+		if (this.parent!=null) {
+			int v;
+			for(int i=0; i<this.parentVertices.length; ++i) {
+				v = this.parentVertices[i];
+				this.parent.x[v] = this.x[i];
+				this.parent.y[v] = this.y[i];
+			}
+			for(int k=0; k<this.parentEdges.length; ++k) {
+				this.parent.ctrlPoints[this.parentEdges[k]] = this.ctrlPoints[k];
+			}
+		}
+	}
+
+	/** Replies the coordinates of the control points of an edge.
+	 *
+	 * @param edgeFigure
+	 * @return the coordinates of the control points: <code>x0, y0, x1, y1...</code>
+	 * @since 18.0
+	 */
+	public static float[] getCtrlPoints(EdgeFigure<?> edgeFigure) {
+		float[] points = new float[edgeFigure.getCtrlPointCount()*2];
+		int i = 0;
+		for(Point2D p : edgeFigure.getCtrlPoints()) {
+			points[i++] = p.getX();
+			points[i++] = p.getY();
+		}
+		return points;
+	}
+
+	/** Replace all the control points of an edge.
+	 * The geometry of the edge is updated once.
+	 *
+	 * @param edgeFigure
+	 * @param points are the coordinates of the control points: <code>x0, y0, x1, y1...</code>
+	 * @since 18.0
+	 */
+	public static void setCtrlPoints(EdgeFigure<?> edgeFigure, float[] points) {
+		List<Point2D> list = new ArrayList<Point2D>(points.length/2);
+		for(int i=0; i<points.length; i+=2) {
+			list.add(new Point2f(points[i], points[i+1]));
+		}
+		edgeFigure.setCtrlPoints(list);
+	}
+
+	/** Change the control points of the edges, and move the figures to
+	 * the positions of their vertices.
+	 * The figures are changed in a single transaction of their container,
+	 * and only the edges and the figures with changed values are changed.
+	 * The old positions that are put in the undoable edit are the
+	 * positions of the figures when this graph was created, even if the
+	 * figures were moved in between, eg. while the laying-out was
+	 * computed in background.
+	 * <p>
+	 * This function must be invoked by the thread that is allowed to
+	 * change the figures, eg. the UI thread.
+	 *
+	 * @param undo is the undoable edit to fill.
+	 */
+	public void commit(FigureLayoutUndoableEdit undo) {
+		ViewComponentContainer<?,?> container = getViewComponentContainer();
+		if (container!=null) container.beginTransaction();
+		try {
+			// The control points are changed before the figures are moved,
+			// so that the ends of the edges are following the moved anchors.
+			for(int k=0; k<this.ctrlPoints.length; ++k) {
+				if (this.ctrlPoints[k]!=this.originalCtrlPoints[k]) {
+					EdgeFigure<?> edgeFigure = getCtrlPointEdge(k);
+					setCtrlPoints(edgeFigure, this.ctrlPoints[k]);
+					undo.addCtrlPointChange(edgeFigure, this.originalCtrlPoints[k], this.ctrlPoints[k]);
+					this.originalCtrlPoints[k] = this.ctrlPoints[k];
+				}
+			}
+			int count = 0;
+			for(int i=0; i<this.vertices.length; ++i) {
+				if (this.x[i]!=this.originalX[i] || this.y[i]!=this.originalY[i]) {
+					++count;
+				}
+			}
+			Figure[] figures = new Figure[count];
+			float[] oldX = new float[count];
+			float[] oldY = new float[count];
+			float[] newX = new float[count];
+			float[] newY = new float[count];
+			int j = 0;
+			for(int i=0; i<this.vertices.length; ++i) {
+				if (this.x[i]!=this.originalX[i] || this.y[i]!=this.originalY[i]) {
+					figures[j] = this.vertices[i];
+					oldX[j] = this.originalX[i];
+					oldY[j] = this.originalY[i];
+					newX[j] = this.x[i];
+					newY[j] = this.y[i];
+					++j;
+					this.vertices[i].setLocation(this.x[i], this.y[i]);
+					this.originalX[i] = this.x[i];
+					this.originalY[i] = this.y[i];
+				}
+				else if (this.vertices[i].getX()!=this.x[i] || this.vertices[i].getY()!=this.y[i]) {
+					// Figure moved while the laying-out was computed
+					this.vertices[i].setLocation(this.x[i], this.y[i]);
+				}
+			}
+			undo.addLocationChanges(figures, oldX, oldY, newX, newY);
+		}
+		finally {
+			if (container!=null) container.commitTransaction();
+		}
+	}
+
+}
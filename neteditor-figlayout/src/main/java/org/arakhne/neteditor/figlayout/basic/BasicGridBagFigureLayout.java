@@ -21,16 +21,10 @@
 
 package org.arakhne.neteditor.figlayout.basic;
 
-import java.util.Collection;
-
-import org.arakhne.afc.ui.undo.Undoable;
 import org.arakhne.afc.ui.vector.Margins;
 import org.arakhne.afc.vmutil.locale.Locale;
-import org.arakhne.neteditor.fig.figure.Figure;
-import org.arakhne.neteditor.fig.figure.coercion.CoercedFigure;
-import org.arakhne.neteditor.fig.figure.edge.EdgeFigure;
 import org.arakhne.neteditor.figlayout.AbstractDirectionBasedFigureLayout;
-import org.arakhne.neteditor.figlayout.FigureLayoutUndoableEdit;
+import org.arakhne.neteditor.figlayout.LayoutGraph;
 
 /** Laying out figures on a grid. This laying out algorithm assumes that
  * all the given nodes are decorations.
@@ -52,84 +46,82 @@ public class BasicGridBagFigureLayout extends AbstractDirectionBasedFigureLayout
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Undoable layoutFigures(Collection<? extends Figure> figures) {
-		FigureLayoutUndoableEdit undo = new FigureLayoutUndoableEdit(
-				Locale.getString(BasicGridBagFigureLayout.class, "UNDO_NAME")); //$NON-NLS-1$
-		if (!figures.isEmpty()) {
-			int ncolumns = (int)Math.sqrt(figures.size());
-			assert(ncolumns>=1);
-			
-			float x = getOrigin().getX();
-			float y = getOrigin().getY();
-			float max = 0;
-			float size;
-			int c = 0;
-			Margins insets = getMargins();
-			
-			switch(getLayoutDirection()) {
-			case HORIZONTAL: 
-				for(Figure figure : figures) {
-					if (figure instanceof EdgeFigure<?>) {
-						EdgeFigure<?> edgeFigure = (EdgeFigure<?>)figure;
-						while (edgeFigure.getCtrlPointCount()>2) {
-							undo.addControlPointRemoval(edgeFigure, 1);
-							edgeFigure.removeCtrlPointAt(1);
-						}
-					}
-					else if (!(figure instanceof CoercedFigure)) {
-						if (c>=ncolumns) {
-							x = getOrigin().getX();
-							y += max;
-							max = 0;
-							c = 0;
-						}
-						
-						size = figure.getHeight() + insets.top() + insets.bottom();
-						if (size>max) max = size;
-						
-						x += insets.left();
-						undo.addLocationChange(figure, x, y + insets.top());
-						figure.setLocation(x, y + insets.top());
-						x += insets.right();
-						
-						++c;
-					}
+	protected String getUndoName() {
+		return Locale.getString(BasicGridBagFigureLayout.class, "UNDO_NAME"); //$NON-NLS-1$
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean computeLayout(LayoutGraph graph) {
+		if (graph.getVertexCount()>0) {
+			graph.removeIntermediateControlPoints();
+			layoutVertices(graph, (int)Math.sqrt(graph.getVertexCount()));
+		}
+		return true;
+	}
+	
+	/** Put the vertices of the given graph on a grid.
+	 * 
+	 * @param graph is the graph to lay out.
+	 * @param ncolumns is the number of figures per line or per column.
+	 */
+	void layoutVertices(LayoutGraph graph, int ncolumns) {
+		assert(ncolumns>=1);
+		
+		float[] xs = graph.getX();
+		float[] ys = graph.getY();
+		float x = getOrigin().getX();
+		float y = getOrigin().getY();
+		float max = 0;
+		float size;
+		int c = 0;
+		Margins insets = getMargins();
+		
+		switch(getLayoutDirection()) {
+		case HORIZONTAL: 
+			for(int i=0; i<graph.getVertexCount(); ++i) {
+				if (c>=ncolumns) {
+					x = getOrigin().getX();
+					y += max;
+					max = 0;
+					c = 0;
 				}
-				break;
-			case VERTICAL: 
-				for(Figure figure : figures) {
-					if (figure instanceof EdgeFigure<?>) {
-						EdgeFigure<?> edgeFigure = (EdgeFigure<?>)figure;
-						while (edgeFigure.getCtrlPointCount()>2) {
-							undo.addControlPointRemoval(edgeFigure, 1);
-							edgeFigure.removeCtrlPointAt(1);
-						}
-					}
-					else if (!(figure instanceof CoercedFigure)) {
-						if (c>=ncolumns) {
-							y = getOrigin().getY();
-							x += max;
-							max = 0;
-							c = 0;
-						}
-						
-						size = figure.getWidth() + insets.left() + insets.right();
-						if (size>max) max = size;
-						
-						y += insets.top();
-						undo.addLocationChange(figure, x + insets.left(), y);
-						figure.setLocation(x + insets.left(), y);
-						y += insets.bottom();
-						
-						++c;
-					}
+				
+				size = graph.getHeight()[i] + insets.top() + insets.bottom();
+				if (size>max) max = size;
+				
+				x += insets.left();
+				xs[i] = x;
+				ys[i] = y + insets.top();
+				x += insets.right();
+				
+				++c;
+			}
+			break;
+		case VERTICAL: 
+			for(int i=0; i<graph.getVertexCount(); ++i) {
+				if (c>=ncolumns) {
+					y = getOrigin().getY();
+					x += max;
+					max = 0;
+					c = 0;
 				}
-				break;
-			default:
+				
+				size = graph.getWidth()[i] + insets.left() + insets.right();
+				if (size>max) max = size;
+				
+				y += insets.top();
+				xs[i] = x + insets.left();
+				ys[i] = y;
+				y += insets.bottom();
+				
+				++c;
 			}
+			break;
+		default:
 		}
-		if (undo.isEmpty()) return null;
-		return undo;
 	}
 		
 }
@@ -0,0 +1,311 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.arakhne.afc.math.continous.object2d.Rectangle2f;
+import org.arakhne.afc.ui.vector.Margins;
+import org.arakhne.afc.vmutil.locale.Locale;
+import org.arakhne.neteditor.figlayout.AbstractFigureLayout;
+import org.arakhne.neteditor.figlayout.FigureLayout;
+import org.arakhne.neteditor.figlayout.FigureLayoutControl;
+import org.arakhne.neteditor.figlayout.LayoutGraph;
+
+/** Laying out of the connected components of the figures
+ * with another laying-out algorithm.
+ * <p>
+ * The figures are split into connected components according to the
+ * edges of the model. Each component with more than one figure is laid out
+ * independently by the delegate layout, in parallel when an executor
+ * service is given; the components with a single figure are not laid out.
+ * Then, the bounds of the components are packed on shelves from the
+ * origin of this layout. The margins of this layout are put around
+ * each component.
+ * <p>
+ * The components are extracted from the {@link LayoutGraph} to lay out,
+ * and they are laid out with {@link FigureLayout#computeLayout(LayoutGraph)}
+ * that does not change the figures. The results of the delegate layout
+ * and the packing are copied into the graph to lay out, so that the figures
+ * are changed once, when the graph is applied by the calling thread.
+ * When an executor service is given, the delegate layout must support
+ * concurrent invocations of {@link FigureLayout#computeLayout(LayoutGraph)}
+ * on different graphs; it is the case of the layouts of this library.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+public class ConnectedComponentFigureLayout extends AbstractFigureLayout {
+
+	private FigureLayout delegate;
+
+	private ExecutorService executor = null;
+
+	/**
+	 * @param delegate is the layout that is used for each component.
+	 */
+	public ConnectedComponentFigureLayout(FigureLayout delegate) {
+		assert(delegate!=null);
+		this.delegate = delegate;
+	}
+
+	/** Replies the layout that is used for each component.
+	 * 
+	 * @return the layout.
+	 */
+	public FigureLayout getDelegate() {
+		return this.delegate;
+	}
+
+	/** Set the layout that is used for each component.
+	 * 
+	 * @param delegate is the layout.
+	 */
+	public void setDelegate(FigureLayout delegate) {
+		if (delegate!=null) {
+			this.delegate = delegate;
+		}
+	}
+
+	/** Replies the executor service that is used for laying out
+	 * the components in parallel.
+	 * 
+	 * @return the executor service, or <code>null</code> if the
+	 * components are laid out in the calling thread.
+	 */
+	public ExecutorService getExecutorService() {
+		return this.executor;
+	}
+
+	/** Set the executor service that is used for laying out
+	 * the components in parallel.
+	 * <p>
+	 * The executor service should not be the one that is running this
+	 * layout, eg. with {@link #layoutFigures(Collection, ExecutorService)},
+	 * unless its number of threads is unbounded.
+	 * 
+	 * @param executor is the executor service, or <code>null</code> if the
+	 * components are laid out in the calling thread.
+	 */
+	public void setExecutorService(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/** Compute the connected components of the vertices.
+	 * 
+	 * @param graph
+	 * @return the index of the component of each vertex. The components are
+	 * numbered in the order of their first vertices.
+	 */
+	private static int[] computeComponents(LayoutGraph graph) {
+		int n = graph.getVertexCount();
+		int[] parents = new int[n];
+		for(int v=0; v<n; ++v) {
+			parents[v] = v;
+		}
+		int a, b;
+		for(int e=0; e<graph.getEdgeCount(); ++e) {
+			a = find(parents, graph.getEdgeSource(e));
+			b = find(parents, graph.getEdgeTarget(e));
+			if (a!=b) {
+				// The smallest index is the root, to number the components in order
+				if (a<b) parents[b] = a;
+				else parents[a] = b;
+			}
+		}
+		int[] components = new int[n];
+		int count = 0;
+		for(int v=0; v<n; ++v) {
+			a = find(parents, v);
+			components[v] = (a==v) ? count++ : components[a];
+		}
+		return components;
+	}
+
+	private static int find(int[] parents, int v) {
+		int root = v;
+		while (parents[root]!=root) root = parents[root];
+		// Path compression
+		int c = v;
+		int next;
+		while (parents[c]!=root) {
+			next = parents[c];
+			parents[c] = root;
+			c = next;
+		}
+		return root;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected String getUndoName() {
+		return Locale.getString(ConnectedComponentFigureLayout.class, "UNDO_NAME"); //$NON-NLS-1$
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean computeLayout(LayoutGraph graph) {
+		FigureLayoutControl control = createControl();
+		final FigureLayout layout = this.delegate;
+
+		int n = graph.getVertexCount();
+		if (n==0) return true;
+
+		// Split the graph
+		int[] componentIndexes = computeComponents(graph);
+		int componentCount = 0;
+		for(int v=0; v<n; ++v) {
+			componentCount = Math.max(componentCount, componentIndexes[v]+1);
+		}
+		int[] sizes = new int[componentCount];
+		for(int v=0; v<n; ++v) {
+			++sizes[componentIndexes[v]];
+		}
+		int[][] vertices = new int[componentCount][];
+		for(int c=0; c<componentCount; ++c) {
+			vertices[c] = new int[sizes[c]];
+			sizes[c] = 0;
+		}
+		for(int v=0; v<n; ++v) {
+			vertices[componentIndexes[v]][sizes[componentIndexes[v]]++] = v;
+		}
+		LayoutGraph[] components = new LayoutGraph[componentCount];
+		for(int c=0; c<componentCount; ++c) {
+			components[c] = new LayoutGraph(graph, vertices[c]);
+		}
+
+		// Lay out the components
+		List<Integer> indexes = new ArrayList<Integer>();
+		List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
+		for(int c=0; c<componentCount; ++c) {
+			final LayoutGraph component = components[c];
+			if (component.getVertexCount() + component.getEdgeCount()>1) {
+				indexes.add(Integer.valueOf(c));
+				tasks.add(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						return Boolean.valueOf(layout.computeLayout(component));
+					}
+				});
+			}
+		}
+		boolean[] results = new boolean[tasks.size()];
+		List<Future<Boolean>> futures = null;
+		try {
+			if (this.executor!=null && tasks.size()>1) {
+				futures = new ArrayList<Future<Boolean>>(tasks.size());
+				for(Callable<Boolean> task : tasks) {
+					futures.add(this.executor.submit(task));
+				}
+				try {
+					for(int i=0; i<results.length; ++i) {
+						results[i] = futures.get(i).get().booleanValue();
+					}
+				}
+				catch(ExecutionException e) {
+					cancel(futures);
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+					if (cause instanceof Error) throw (Error)cause;
+					throw new RuntimeException(cause);
+				}
+			}
+			else {
+				for(int i=0; i<results.length; ++i) {
+					if (control.isCancelled()) return false;
+					results[i] = tasks.get(i).call().booleanValue();
+				}
+			}
+		}
+		catch(InterruptedException e) {
+			// The layout is cancelled; the figures are not moved.
+			Thread.currentThread().interrupt();
+			if (futures!=null) cancel(futures);
+			return false;
+		}
+		catch(RuntimeException e) {
+			throw e;
+		}
+		catch(Exception e) {
+			throw new RuntimeException(e);
+		}
+		if (control.isCancelled()) return false;
+		for(int i=0; i<results.length; ++i) {
+			if (!results[i]) {
+				// The component is not laid out; it is only packed.
+				int c = indexes.get(i).intValue();
+				components[c] = new LayoutGraph(graph, vertices[c]);
+			}
+		}
+
+		// Pack the components
+		Margins insets = getMargins();
+		float[] minXs = new float[componentCount];
+		float[] minYs = new float[componentCount];
+		float[] widths = new float[componentCount];
+		float[] heights = new float[componentCount];
+		for(int c=0; c<componentCount; ++c) {
+			Rectangle2f r = components[c].getBounds();
+			if (r!=null) {
+				minXs[c] = r.getMinX();
+				minYs[c] = r.getMinY();
+				widths[c] = r.getMaxX() - r.getMinX() + insets.left() + insets.right();
+				heights[c] = r.getMaxY() - r.getMinY() + insets.top() + insets.bottom();
+			}
+			else {
+				widths[c] = insets.left() + insets.right();
+				heights[c] = insets.top() + insets.bottom();
+			}
+		}
+		float[] positions = ShelfPacking.pack(widths, heights);
+		float dx, dy;
+		for(int c=0; c<componentCount; ++c) {
+			dx = getOrigin().getX() + positions[c*2] + insets.left() - minXs[c];
+			dy = getOrigin().getY() + positions[c*2+1] + insets.top() - minYs[c];
+			if (dx!=0f || dy!=0f) {
+				components[c].translate(dx, dy);
+			}
+			components[c].writeBack();
+		}
+
+		return true;
+	}
+
+	private static void cancel(Collection<Future<Boolean>> futures) {
+		for(Future<Boolean> future : futures) {
+			future.cancel(true);
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.component;
+
+import java.util.Arrays;
+
+/** Packing of rectangles on shelves.
+ * <p>
+ * The rectangles are sorted by decreasing heights, and put from
+ * the left to the right on horizontal shelves. A new shelf is opened
+ * below the previous one when the next rectangle does not fit in
+ * the width of the packing, which is chosen to obtain a packing that
+ * is approximately square. The complexity is <code>O(n log n)</code>.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+class ShelfPacking {
+
+	private ShelfPacking() {
+		//
+	}
+
+	/** Pack the given rectangles.
+	 * 
+	 * @param widths are the widths of the rectangles.
+	 * @param heights are the heights of the rectangles.
+	 * @return the coordinates of the upper-left corners of the rectangles,
+	 * relative to the upper-left corner of the packing: <code>{x0, y0, x1, y1...}</code>.
+	 */
+	public static float[] pack(float[] widths, float[] heights) {
+		int n = widths.length;
+		float[] positions = new float[n*2];
+		if (n==0) return positions;
+
+		// Sort by decreasing heights; the index is the tie-breaker
+		long[] keys = new long[n];
+		double area = 0.;
+		float maxWidth = 0f;
+		for(int i=0; i<n; ++i) {
+			// The heights are positive, so that their bits are ordered as the floats
+			keys[i] = (((long)~Float.floatToIntBits(heights[i])) << 32) | i;
+			area += widths[i] * heights[i];
+			maxWidth = Math.max(maxWidth, widths[i]);
+		}
+		Arrays.sort(keys);
+
+		float shelfWidth = Math.max(maxWidth, (float)Math.sqrt(area));
+		float x = 0f;
+		float y = 0f;
+		float shelfHeight = 0f;
+		int r;
+		for(int k=0; k<n; ++k) {
+			r = (int)(keys[k] & 0xffffffffL);
+			if (x>0f && x+widths[r]>shelfWidth) {
+				// Open a new shelf
+				y += shelfHeight;
+				x = 0f;
+				shelfHeight = 0f;
+			}
+			positions[r*2] = x;
+			positions[r*2+1] = y;
+			x += widths[r];
+			shelfHeight = Math.max(shelfHeight, heights[r]);
+		}
+		return positions;
+	}
+
+}
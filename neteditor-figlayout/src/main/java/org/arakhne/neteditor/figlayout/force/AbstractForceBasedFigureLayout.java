@@ -0,0 +1,323 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+
+package org.arakhne.neteditor.figlayout.force;
+
+import java.util.concurrent.ExecutorService;
+
+import org.arakhne.neteditor.figlayout.AbstractFigureLayout;
+
+/** Abstract implementation of the force-based laying-out algorithms.
+ * <p>
+ * This class contains the parameters of the force model
+ * that are shared by the force-based algorithms: the
+ * nodes are repulsing each other according to Coulomb's Law, and
+ * the linked nodes are attracting each other according to Hooke's Law.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @see "http://en.wikipedia.org/wiki/Force-based_algorithms_(graph_drawing)"
+ * @since 18.0
+ */
+public abstract class AbstractForceBasedFigureLayout extends AbstractFigureLayout implements ForceBasedConstants {
+
+	/** Mass calaculator.
+	 */
+	private FigureMassCalculator massCalculator = null;
+	
+	/** Size of the coordinate space when randomizing coordinates.
+	 */
+	private float randomSpaceSize = 1000f;
+	
+	/** The kinematic energy when stable.
+	 */
+	private float maxKinematicEnergy = DEFAULT_STABILITY_ENERGY_THRESHOLD;
+	
+	/** The damping constant.
+	 * The damping constant is in (0;1) exclusive.
+	 */
+	private float damping = DEFAULT_DAMPING;
+
+	/** The step of time to consider.
+	 */
+	private float timestep = DEFAULT_TIME_STEP;
+	
+	/** The Coulomb's constant to use.
+	 */
+	private float coulombConstant = DEFAULT_COULOMB_CONSTANT;
+
+	/** The opening angle of the Barnes-Hut approximation.
+	 */
+	private float openingAngle = DEFAULT_BARNES_HUT_OPENING_ANGLE;
+
+	/** The Coulomb's constant to use.
+	 */
+	private float springConstant = DEFAULT_SPRING_CONSTANT;
+
+	/** Preferred space between two nodes (insets are outside this
+	 * preferred space).
+	 */
+	private float preferredInterNodeSpace = DEFAULT_MINIMAL_SIZE; 
+
+	/** Seed of the random coordinates, or <code>null</code>.
+	 */
+	private Long randomSeed = null;
+
+	/** Executor service for computing the forces in parallel, or <code>null</code>.
+	 */
+	private ExecutorService executor = null;
+
+	/**
+	 */
+	public AbstractForceBasedFigureLayout() {
+		//
+	}
+	
+	/** Set the preferred space between two nodes (insets are
+	 * outside this preferred space).
+	 * 
+	 * @param space
+	 */
+	public void setPreferredInterNodeSpace(float space) {
+		if (space>0f)
+			this.preferredInterNodeSpace = space;
+	}
+	
+	/** Replies the preferred space between two nodes (insets are
+	 * outside this preferred space).
+	 * 
+	 * @return the preferred space.
+	 */
+	public float getPreferredInterNodeSpace() {
+		return this.preferredInterNodeSpace;
+	}
+
+	/** Set the calculator of the node's masses.
+	 * 
+	 * @param calculator
+	 */
+	public void setNodeMassCalculator(FigureMassCalculator calculator) {
+		this.massCalculator = calculator;
+	}
+	
+	/** Replies the calculator of the node's masses.
+	 * 
+	 * @return the calculator of the masses.
+	 */
+	public FigureMassCalculator getNodeMassCalculator() {
+		return this.massCalculator;
+	}
+
+	/** Replies the size of the coordinate space that is
+	 * used to compute a coordinate randomly.
+	 * 
+	 * @return the size of the random coordinate space.
+	 */
+	public float getRandomCoordinateSpaceSize() {
+		return this.randomSpaceSize;
+	}
+	
+	/** Set the size of the coordinate space that is
+	 * used to compute a coordinate randomly.
+	 * 
+	 * @param size is the size of the random coordinate space; stricly positive.
+	 */
+	public void setRandomCoordinateSpaceSize(float size) {
+		if (size>=0f) {
+			this.randomSpaceSize = size;
+		}
+	}
+
+	/** Replies the maximal kinematic energy up to the algorithm
+	 * is able to reach.
+	 * 
+	 * @return the maximal kinematic energy, stricly positive.
+	 */
+	public float getMaximalKinematicEnergy() {
+		return this.maxKinematicEnergy;
+	}
+
+	/** Set the maximal kinematic energy up to the algorithm
+	 * is able to reach.
+	 * 
+	 * @param energy is the maximal kinematic energy, stricly positive.
+	 */
+	public void setMaximalKinematicEnergy(float energy) {
+		if (energy>0f) {
+			this.maxKinematicEnergy = energy;
+		}
+	}
+	
+	/** Replies the Coulomb's constant to use.
+	 * Default is {@link #DEFAULT_COULOMB_CONSTANT}.
+	 * 
+	 * @return the Coulomb's constant, stricly positive.
+	 */
+	public float getCoulombConstant() {
+		return this.coulombConstant;
+	}
+
+	/** Set the Coulomb's constant to use.
+	 * 
+	 * @param k the Coulomb's constant, stricly positive.
+	 */
+	public void setCoulombConstant(float k) {
+		if (k>0f) this.coulombConstant = k;
+	}
+
+	/** Replies the opening angle of the Barnes-Hut approximation
+	 * of the Coulomb's repulsion.
+	 * 
+	 * @return the opening angle; or <code>0</code> if the repulsion
+	 * is computed between all the pairs of nodes.
+	 * @see #setBarnesHutOpeningAngle(float)
+	 */
+	public float getBarnesHutOpeningAngle() {
+		return this.openingAngle;
+	}
+
+	/** Set the opening angle of the Barnes-Hut approximation
+	 * of the Coulomb's repulsion.
+	 * <p>
+	 * When the opening angle is strictly positive, the nodes are
+	 * put in a quadtree on each iteration, and the groups of nodes
+	 * that are far enough from a node are replaced by their barycenter
+	 * when computing the repulsion on this node. A group is far enough
+	 * when the ratio between its size and its distance to the node
+	 * is lower than the opening angle. The greater is the angle, the faster
+	 * and the less accurate is the layout. A typical value is
+	 * {@link #RECOMMENDED_BARNES_HUT_OPENING_ANGLE}.
+	 * <p>
+	 * When the opening angle is zero, the repulsion is computed
+	 * between all the pairs of nodes.
+	 * 
+	 * @param theta is the opening angle, positive or zero.
+	 */
+	public void setBarnesHutOpeningAngle(float theta) {
+		if (theta>=0f) this.openingAngle = theta;
+	}
+
+	/** Replies the spring constant to use.
+	 * Default is {@link #DEFAULT_SPRING_CONSTANT}.
+	 * 
+	 * @return the spring constant, stricly positive.
+	 */
+	public float getSpringConstant() {
+		return this.springConstant;
+	}
+
+	/** Set the spring constant to use.
+	 * 
+	 * @param k the spring constant, stricly positive.
+	 */
+	public void setSpringConstant(float k) {
+		if (k>0f) this.springConstant = k;
+	}
+
+	/** Replies the damping constant.
+	 * The damping constant is in (0;1) exclusive.
+	 * 
+	 * @return the damping constant.
+	 */
+	public float getDamping() {
+		return this.damping;
+	}
+
+	/** Set the damping constant.
+	 * The damping constant is in (0;1) exclusive.
+	 * 
+	 * @param damping is the damping constant.
+	 */
+	public void setDamping(float damping) {
+		if (damping<=0f) this.damping = 0f+Float.MIN_NORMAL;
+		else if (damping>=1f) this.damping = 1f-Float.MIN_NORMAL;
+		else this.damping = damping;
+	}
+	
+	/** Replies the time step used by the algorithm.
+	 * The time step is the amount of time during which 
+	 * a node is atomically moved.
+	 * 
+	 * @return the time step, stricly positive.
+	 */
+	public float getTimeStep() {
+		return this.timestep;
+	}
+
+	/** Set the time step used by the algorithm.
+	 * The time step is the amount of time during which 
+	 * a node is atomically moved.
+	 * 
+	 * @param step is the time step, stricly positive.
+	 */
+	public void setTimeStep(float step) {
+		if (step>0f) {
+			this.timestep = step;
+		}
+	}
+
+	/** Replies the seed of the generator of the random coordinates.
+	 * 
+	 * @return the seed, or <code>null</code> if the generator
+	 * is initialized with a different seed on each layout.
+	 */
+	public Long getRandomSeed() {
+		return this.randomSeed;
+	}
+
+	/** Set the seed of the generator of the random coordinates.
+	 * When the seed is set, the layout of the same figures is
+	 * reproducible.
+	 * 
+	 * @param seed is the seed, or <code>null</code> if the generator
+	 * is initialized with a different seed on each layout.
+	 */
+	public void setRandomSeed(Long seed) {
+		this.randomSeed = seed;
+	}
+
+	/** Replies the executor service that is used for computing
+	 * the forces in parallel.
+	 * 
+	 * @return the executor service, or <code>null</code> if the
+	 * forces are computed in the calling thread.
+	 */
+	public ExecutorService getExecutorService() {
+		return this.executor;
+	}
+
+	/** Set the executor service that is used for computing
+	 * the forces in parallel.
+	 * <p>
+	 * The layout is reproducible when the
+	 * {@link #setRandomSeed(Long) random seed} is set, whatever the
+	 * number of threads of the executor service.
+	 * 
+	 * @param executor is the executor service, or <code>null</code> if the
+	 * forces are computed in the calling thread.
+	 */
+	public void setExecutorService(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+}
@@ -0,0 +1,286 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.force;
+
+import java.util.Arrays;
+
+/** Quadtree that is approximating the Coulomb's repulsion
+ * replied by a set of charged points with the Barnes-Hut algorithm.
+ * <p>
+ * Each cell of the tree stores the number of points inside
+ * and the barycenter of these points. When a cell is far enough
+ * from the point on which the force is computed, ie. when the ratio
+ * between the size of the cell and its distance to the point is lower
+ * than the opening angle, the points of the cell are replaced by a
+ * single charge at the barycenter of the cell. A cell that contains
+ * the point is always opened, so that the point is never repulsed
+ * by a barycenter to which it contributes.
+ * <p>
+ * The tree is stored in primitive arrays that are reused from one
+ * build to the next one. Once built, the forces may be computed
+ * by several threads in parallel, each thread with its own
+ * {@link #newStack() stack}.
+ *
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @see "http://en.wikipedia.org/wiki/Barnes%E2%80%93Hut_simulation"
+ * @since 18.0
+ */
+class BarnesHutQuadTree {
+
+	/** Maximal depth of the tree. The points that are in the
+	 * same cell at this depth are stored in the same leaf.
+	 */
+	private static final int MAX_DEPTH = 32;
+
+	/** Size of the stacks that are used for computing the forces.
+	 */
+	private static final int STACK_SIZE = 3 * MAX_DEPTH + 4;
+
+	private float[] pointX = new float[0];
+	private float[] pointY = new float[0];
+	/** Index of the next point in the same leaf, or <code>-1</code>.
+	 */
+	private int[] nextPoint = new int[0];
+
+	/** Number of cells.
+	 */
+	private int cellCount = 0;
+	private float[] cellMinX = new float[0];
+	private float[] cellMinY = new float[0];
+	private float[] cellSize = new float[0];
+	private float[] cellSumX = new float[0];
+	private float[] cellSumY = new float[0];
+	private int[] cellPointCount = new int[0];
+	/** Index of the first child of each cell (the four children are
+	 * contiguous), or <code>-1</code> if the cell is a leaf.
+	 */
+	private int[] cellChildren = new int[0];
+	/** Index of the first point in each leaf, or <code>-1</code>.
+	 */
+	private int[] cellFirstPoint = new int[0];
+
+	/**
+	 */
+	public BarnesHutQuadTree() {
+		//
+	}
+
+	/** Create a stack that may be passed to
+	 * {@link #computeRepulsion(int, float, float, float, float, float[], int[])}.
+	 * 
+	 * @return a new stack.
+	 */
+	public static int[] newStack() {
+		return new int[STACK_SIZE];
+	}
+
+	/** Build the tree for the given points.
+	 * The coordinates are copied.
+	 *
+	 * @param x are the x coordinates of the points.
+	 * @param y are the y coordinates of the points.
+	 * @param count is the number of points.
+	 */
+	public void build(float[] x, float[] y, int count) {
+		if (this.pointX.length<count) {
+			this.pointX = new float[count];
+			this.pointY = new float[count];
+			this.nextPoint = new int[count];
+		}
+		System.arraycopy(x, 0, this.pointX, 0, count);
+		System.arraycopy(y, 0, this.pointY, 0, count);
+
+		float minX = Float.POSITIVE_INFINITY;
+		float minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY;
+		float maxY = Float.NEGATIVE_INFINITY;
+		for(int i=0; i<count; ++i) {
+			if (x[i]<minX) minX = x[i];
+			if (y[i]<minY) minY = y[i];
+			if (x[i]>maxX) maxX = x[i];
+			if (y[i]>maxY) maxY = y[i];
+		}
+
+		this.cellCount = 0;
+		if (count==0) return;
+		float size = Math.max(maxX-minX, maxY-minY);
+		if (size<=0f || Float.isNaN(size) || Float.isInfinite(size)) size = 1f;
+		newCell(minX, minY, size);
+
+		for(int i=0; i<count; ++i) {
+			insert(i);
+		}
+	}
+
+	private int newCell(float minX, float minY, float size) {
+		int cell = this.cellCount;
+		if (cell>=this.cellMinX.length) {
+			int capacity = Math.max(16, cell*2);
+			this.cellMinX = Arrays.copyOf(this.cellMinX, capacity);
+			this.cellMinY = Arrays.copyOf(this.cellMinY, capacity);
+			this.cellSize = Arrays.copyOf(this.cellSize, capacity);
+			this.cellSumX = Arrays.copyOf(this.cellSumX, capacity);
+			this.cellSumY = Arrays.copyOf(this.cellSumY, capacity);
+			this.cellPointCount = Arrays.copyOf(this.cellPointCount, capacity);
+			this.cellChildren = Arrays.copyOf(this.cellChildren, capacity);
+			this.cellFirstPoint = Arrays.copyOf(this.cellFirstPoint, capacity);
+		}
+		this.cellMinX[cell] = minX;
+		this.cellMinY[cell] = minY;
+		this.cellSize[cell] = size;
+		this.cellSumX[cell] = 0f;
+		this.cellSumY[cell] = 0f;
+		this.cellPointCount[cell] = 0;
+		this.cellChildren[cell] = -1;
+		this.cellFirstPoint[cell] = -1;
+		++this.cellCount;
+		return cell;
+	}
+
+	/** Replies the child of the given cell that is containing the point.
+	 */
+	private int childFor(int cell, float x, float y) {
+		float half = this.cellSize[cell] / 2f;
+		int child = this.cellChildren[cell];
+		if (x>=this.cellMinX[cell]+half) child += 1;
+		if (y>=this.cellMinY[cell]+half) child += 2;
+		return child;
+	}
+
+	private void insert(int point) {
+		float x = this.pointX[point];
+		float y = this.pointY[point];
+		int cell = 0;
+		int depth = 0;
+		while (true) {
+			if (this.cellChildren[cell]<0) {
+				int first = this.cellFirstPoint[cell];
+				if (first<0 || depth>=MAX_DEPTH) {
+					// Empty leaf, or leaf at the maximal depth
+					this.nextPoint[point] = first;
+					this.cellFirstPoint[cell] = point;
+					this.cellSumX[cell] += x;
+					this.cellSumY[cell] += y;
+					++this.cellPointCount[cell];
+					return;
+				}
+				// Split the leaf and move its point in a child
+				float half = this.cellSize[cell] / 2f;
+				float mx = this.cellMinX[cell];
+				float my = this.cellMinY[cell];
+				int children = newCell(mx, my, half);
+				newCell(mx+half, my, half);
+				newCell(mx, my+half, half);
+				newCell(mx+half, my+half, half);
+				this.cellChildren[cell] = children;
+				this.cellFirstPoint[cell] = -1;
+				int child = childFor(cell, this.pointX[first], this.pointY[first]);
+				this.nextPoint[first] = -1;
+				this.cellFirstPoint[child] = first;
+				this.cellSumX[child] = this.pointX[first];
+				this.cellSumY[child] = this.pointY[first];
+				this.cellPointCount[child] = 1;
+			}
+			this.cellSumX[cell] += x;
+			this.cellSumY[cell] += y;
+			++this.cellPointCount[cell];
+			cell = childFor(cell, x, y);
+			++depth;
+		}
+	}
+
+	/** Compute the Coulomb's repulsion replied by all the points
+	 * of the tree on the given point.
+	 * Each point has a unit charge, so that the force between two points
+	 * is {@code k / d^2}.
+	 *
+	 * @param point is the index of the point, that is ignored in the
+	 * computation; or <code>-1</code>.
+	 * @param x is the position of the point on which the force is computed.
+	 * @param y is the position of the point on which the force is computed.
+	 * @param theta is the opening angle.
+	 * @param coulombConstant is the Coulomb's constant.
+	 * @param force is the array in which the force is put: <code>{fx, fy}</code>.
+	 * @param stack is the stack replied by {@link #newStack()}.
+	 */
+	public void computeRepulsion(int point, float x, float y, float theta, float coulombConstant, float[] force, int[] stack) {
+		float fx = 0f;
+		float fy = 0f;
+		if (this.cellCount>0) {
+			float theta2 = theta * theta;
+			int[] s = stack;
+			int top = 0;
+			s[top++] = 0;
+			int cell, n, p;
+			float rx, ry, d2, size, minX, minY, F;
+			while (top>0) {
+				cell = s[--top];
+				n = this.cellPointCount[cell];
+				if (n==0) continue;
+				if (this.cellChildren[cell]<0) {
+					// Leaf: exact computation
+					p = this.cellFirstPoint[cell];
+					while (p>=0) {
+						if (p!=point) {
+							rx = x - this.pointX[p];
+							ry = y - this.pointY[p];
+							d2 = rx * rx + ry * ry;
+							if (d2>0f) {
+								F = coulombConstant / (d2 * (float)Math.sqrt(d2));
+								fx += rx * F;
+								fy += ry * F;
+							}
+						}
+						p = this.nextPoint[p];
+					}
+				}
+				else {
+					rx = x - this.cellSumX[cell] / n;
+					ry = y - this.cellSumY[cell] / n;
+					d2 = rx * rx + ry * ry;
+					size = this.cellSize[cell];
+					minX = this.cellMinX[cell];
+					minY = this.cellMinY[cell];
+					if (size * size < theta2 * d2
+						&& (x<minX || x>minX+size || y<minY || y>minY+size)) {
+						// Far cell: approximated by its barycenter
+						F = coulombConstant * n / (d2 * (float)Math.sqrt(d2));
+						fx += rx * F;
+						fy += ry * F;
+					}
+					else {
+						int children = this.cellChildren[cell];
+						s[top++] = children;
+						s[top++] = children+1;
+						s[top++] = children+2;
+						s[top++] = children+3;
+					}
+				}
+			}
+		}
+		force[0] = fx;
+		force[1] = fy;
+	}
+
+}
@@ -0,0 +1,289 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+
+package org.arakhne.neteditor.figlayout.force;
+
+import org.arakhne.afc.math.generic.Point2D;
+import org.arakhne.afc.ui.vector.Margins;
+import org.arakhne.neteditor.fig.figure.edge.EdgeFigure;
+
+/** Accumulator of the forces that are applied on the nodes.
+ * The accumulator only reads the positions of the nodes, so
+ * that it may be invoked by several threads in parallel.
+ * <p>
+ * The nodes are repulsing each other according to Coulomb's Law,
+ * with the Barnes-Hut approximation when a tree is given. The edges
+ * are repulsing the nodes they are crossing. The linked nodes are
+ * attracting each other according to Hooke's Law, and the other
+ * nodes are attracted by the center mass point.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+class ForceAccumulator {
+
+	/** Nodes.
+	 */
+	public final LayoutNode[] nodes;
+	
+	private final BarnesHutQuadTree tree;
+	private final float theta;
+	private final float coulombConstant;
+	private final float springConstant;
+	private final Margins insets;
+	private final float interNodeSpace;
+	private final Point2D centerMassPoint;
+
+	/**
+	 * @param nodes are the nodes.
+	 * @param tree is the Barnes-Hut tree, or <code>null</code> for
+	 * computing the repulsion between all the pairs of nodes.
+	 * @param theta is the opening angle of the Barnes-Hut approximation.
+	 * @param coulombConstant
+	 * @param springConstant
+	 * @param insets
+	 * @param interNodeSpace
+	 * @param centerMassPoint is the point that is attracting the nodes without
+	 * spring, or <code>null</code> if all the nodes have springs.
+	 */
+	public ForceAccumulator(LayoutNode[] nodes, BarnesHutQuadTree tree, float theta,
+			float coulombConstant, float springConstant,
+			Margins insets, float interNodeSpace,
+			Point2D centerMassPoint) {
+		this.nodes = nodes;
+		this.tree = tree;
+		this.theta = theta;
+		this.coulombConstant = coulombConstant;
+		this.springConstant = springConstant;
+		this.insets = insets;
+		this.interNodeSpace = interNodeSpace;
+		this.centerMassPoint = centerMassPoint;
+	}
+
+	/** Compute the net force applied on a node.
+	 * 
+	 * @param index is the index of the node.
+	 * @param force is the array in which the force is put: <code>{fx, fy}</code>.
+	 * @param stack is the stack to pass to the Barnes-Hut tree.
+	 */
+	public void computeNetForce(int index, float[] force, int[] stack) {
+		LayoutNode node = this.nodes[index];
+		
+		// net-force := (0, 0)
+		force[0] = force[1] = 0f;
+		
+		if (!node.active) {
+			return;
+		}
+		
+		// The forces are accumulated in the given array,
+		// without allocating an object per pair of nodes.
+		if (this.tree!=null) {
+			this.tree.computeRepulsion(index, node.getCenterX(), node.getCenterY(),
+					this.theta, this.coulombConstant, force, stack);
+		}
+		else {
+			for(int i=0; i<this.nodes.length; ++i) {
+				if (i!=index) {
+					addCoulombRepulsion(node, this.nodes[i], this.coulombConstant, force);
+				}
+			}
+		}
+		
+		if (node.repulsiveEdges!=null) {
+			for(EdgeFigure<?> edgeFigure : node.repulsiveEdges) {
+				addCoulombRepulsion(node, edgeFigure, this.coulombConstant, force);
+			}
+		}
+		
+		if (node.springs!=null) {
+			float[] weights = node.springWeights;
+			for(int i=0; i<node.springs.length; ++i) {
+				addHookeAttraction(node, node.springs[i], 
+						(weights==null) ? this.springConstant : this.springConstant * weights[i],
+						this.insets, this.interNodeSpace,
+						force);
+			}
+		}
+		else {
+			// Decoration figures are attracted by the center mass point (usually the barycenter of the previous loop)
+			addHookeAttraction(node, this.centerMassPoint, this.springConstant, this.insets, force);
+		}
+	}
+
+	/** Coulomb's Equation is: {@code F = (k * Q1 * Q2) / d^2};
+	 * where {@k} is the {@link #COULOMB_CONSTANT Coulomb's constant};
+	 * {@code Q1} and {@code Q2} are the charges of the nodes; and 
+	 * {@code d} is the distance between the node's centers.
+	 * <p>
+	 * Here we assume that {@code Q1 = Q2 = -1}, ie. the two nodes
+	 * are exceeding of 1 electron. So that the two nodes are repulsives.
+	 * 
+	 * @param from
+	 * @param to
+	 * @param coulombConstant
+	 * @param force is the array in which the repulsion is added: <code>{fx, fy}</code>.
+	 * @see "http://en.wikipedia.org/wiki/Coulomb%27s_law"
+	 */
+	private static void addCoulombRepulsion(LayoutNode from, LayoutNode to, float coulombConstant, float[] force) {
+		float rx = from.getCenterX() - to.getCenterX();
+		float ry = from.getCenterY() - to.getCenterY();
+		float squaredDistance = rx * rx + ry * ry;
+		float length = (float)Math.sqrt(squaredDistance);
+		float F = Math.max(-0f, coulombConstant / squaredDistance);
+		force[0] += rx * F / length;
+		force[1] += ry * F / length;
+	}
+	
+	/** Coulomb's Equation is: {@code F = (k * Q1 * Q2) / d^2};
+	 * where {@k} is the {@link #COULOMB_CONSTANT Coulomb's constant};
+	 * {@code Q1} and {@code Q2} are the charges of the nodes; and 
+	 * {@code d} is the distance between the node's centers.
+	 * <p>
+	 * Here we assume that {@code Q1 = Q2 = -1}, ie. the two nodes
+	 * are exceeding of 1 electron. So that the two nodes are repulsives.
+	 * 
+	 * @param from
+	 * @param edgeFigure
+	 * @param coulombConstant
+	 * @param force is the array in which the repulsion is added: <code>{fx, fy}</code>.
+	 * @see "http://en.wikipedia.org/wiki/Coulomb%27s_law"
+	 */
+	private static void addCoulombRepulsion(LayoutNode from, EdgeFigure<?> edgeFigure, float coulombConstant, float[] force) {
+		Point2D pts = edgeFigure.getNearestPointTo(from.getCenterX(), from.getCenterY());
+		float rx = (from.getCenterX() - pts.getX());
+		float ry = (from.getCenterY() - pts.getY());
+		float squaredDistance = rx * rx + ry * ry;
+		float length = (float)Math.sqrt(squaredDistance);
+		float boxSize = Math.max(from.width, from.height);
+		boxSize = boxSize * boxSize;
+		boxSize = (float)Math.sqrt(boxSize + boxSize);
+		if (length <= boxSize) {
+			float F = Math.max(0f, coulombConstant / squaredDistance);
+			assert(F>=0f);
+			force[0] += rx * F / length;
+			force[1] += ry * F / length;
+		}
+	}
+
+	/** Hooke's Equation is: {@code F = -k . x};
+	 * where {@code x} is the displacement of the spring's end from its 
+	 * equilibrium position; {@code F} is the restoring force exerted
+	 * by the spring on that end; and {@code k} is a constant called
+	 * the rate or spring constant. 
+	 * 
+	 * @param from
+	 * @param to
+	 * @param springConstant
+	 * @param insets
+	 * @param interNodeSpace
+	 * @param force is the array in which the attraction is added: <code>{fx, fy}</code>.
+	 * @see "http://en.wikipedia.org/wiki/Hooke%27s_Law"
+	 */
+	private static void addHookeAttraction(
+			LayoutNode from, 
+			LayoutNode to,
+			float springConstant,
+			Margins insets,
+			float interNodeSpace,
+			float[] force) {
+		float displacementX, displacementY;
+		
+		if ((from.getMaxX()+insets.right()) < (to.getX()-insets.left()-interNodeSpace)) {
+			displacementX =
+					(from.getMaxX() + insets.right())
+					-
+					(to.getX() - insets.left() - interNodeSpace);
+		}
+		else if ((from.getX()-insets.left()) > (to.getMaxX()+insets.right()+interNodeSpace)) {
+			displacementX =
+					(from.getX() - insets.left())
+					-
+					(to.getMaxX() + insets.right() + interNodeSpace);
+		}
+		else {
+			displacementX = 0f;
+		}
+		
+		if ((from.getMaxY()+insets.bottom()) < (to.getY()-insets.top()-interNodeSpace)) {
+			displacementY =
+					(from.getMaxY() + insets.bottom())
+					-
+					(to.getY() - insets.top() - interNodeSpace);
+		}
+		else if ((from.getY()-insets.top()) > (to.getMaxY()+insets.bottom()+interNodeSpace)) {
+			displacementY =
+					(from.getY() - insets.top())
+					-
+					(to.getMaxY() + insets.bottom() + interNodeSpace);
+		}
+		else {
+			displacementY = 0f;
+		}
+		
+		force[0] -= springConstant * displacementX;
+		force[1] -= springConstant * displacementY;
+	}
+
+	/** Hooke's Equation is: {@code F = -k . x};
+	 * where {@code x} is the displacement of the spring's end from its 
+	 * equilibrium position; {@code F} is the restoring force exerted
+	 * by the spring on that end; and {@code k} is a constant called
+	 * the rate or spring constant. 
+	 * 
+	 * @param from
+	 * @param attractivePoint
+	 * @param springConstant
+	 * @param insets
+	 * @param force is the array in which the attraction is added: <code>{fx, fy}</code>.
+	 * @see "http://en.wikipedia.org/wiki/Hooke%27s_Law"
+	 */
+	private static void addHookeAttraction(
+			LayoutNode from, 
+			Point2D attractivePoint,
+			float springConstant, Margins insets,
+			float[] force) {
+		float displacementX, displacementY;
+		
+		if ((attractivePoint.getX()<(from.getX()-insets.left()))
+			||(attractivePoint.getX()>(from.getMaxX()+insets.right()))) {
+			displacementX = (from.getCenterX() - attractivePoint.getX());
+		}
+		else {
+			displacementX = 0f;
+		}
+		
+		if ((attractivePoint.getY()<(from.getY()-insets.top()))
+				||(attractivePoint.getY()>(from.getMaxY()+insets.bottom()))) {
+			displacementY = (from.getCenterY() - attractivePoint.getY());
+		}
+		else {
+			displacementY = 0f;
+		}
+
+		force[0] -= springConstant * displacementX;
+		force[1] -= springConstant * displacementY;
+	}
+
+}
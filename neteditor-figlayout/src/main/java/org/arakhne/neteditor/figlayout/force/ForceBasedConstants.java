@@ -59,4 +59,29 @@ public interface ForceBasedConstants extends FigureLayoutConstants {
 	 */
 	public static final float DEFAULT_STABILITY_ENERGY_THRESHOLD = .2f;
 
+	/** The energy below which a node is assumed to be stable
+	 * when the layout is warm-started.
+	 */
+	public static final float DEFAULT_NODE_STABILITY_ENERGY_THRESHOLD = .01f;
+
+	/** Default opening angle of the Barnes-Hut approximation: 0,
+	 * ie. the repulsion forces are computed between all the pairs of nodes.
+	 */
+	public static final float DEFAULT_BARNES_HUT_OPENING_ANGLE = 0f;
+
+	/** Opening angle of the Barnes-Hut approximation that is usually
+	 * giving a good compromise between accuracy and speed: 0.8.
+	 */
+	public static final float RECOMMENDED_BARNES_HUT_OPENING_ANGLE = .8f;
+
+	/** Default maximal number of nodes of the coarsest graph
+	 * of the multilevel layout: 32.
+	 */
+	public static final int DEFAULT_COARSEST_GRAPH_SIZE = 32;
+
+	/** Default maximal number of iterations on each level
+	 * of the multilevel layout: 100.
+	 */
+	public static final int DEFAULT_LEVEL_ITERATIONS = 100;
+
 }
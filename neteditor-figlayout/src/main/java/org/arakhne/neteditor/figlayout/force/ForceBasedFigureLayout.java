@@ -22,36 +22,44 @@
 package org.arakhne.neteditor.figlayout.force;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Random;
-import java.util.TreeMap;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.arakhne.afc.math.continous.object2d.Point2f;
-import org.arakhne.afc.math.continous.object2d.Vector2f;
 import org.arakhne.afc.math.generic.Point2D;
-import org.arakhne.afc.math.generic.Vector2D;
-import org.arakhne.afc.ui.undo.Undoable;
-import org.arakhne.afc.ui.vector.Margins;
 import org.arakhne.afc.vmutil.locale.Locale;
 import org.arakhne.neteditor.fig.figure.Figure;
-import org.arakhne.neteditor.fig.figure.coercion.CoercedFigure;
-import org.arakhne.neteditor.fig.figure.decoration.DecorationFigure;
 import org.arakhne.neteditor.fig.figure.edge.EdgeFigure;
-import org.arakhne.neteditor.fig.figure.node.NodeFigure;
-import org.arakhne.neteditor.figlayout.AbstractFigureLayout;
-import org.arakhne.neteditor.figlayout.FigureLayoutUndoableEdit;
-import org.arakhne.neteditor.formalism.Edge;
-import org.arakhne.neteditor.formalism.Node;
+import org.arakhne.neteditor.fig.view.GridViewComponentIndex;
+import org.arakhne.neteditor.figlayout.FigureLayoutControl;
+import org.arakhne.neteditor.figlayout.LayoutGraph;
 
 /** This class provides the implementation of a force-based
  * laying-out algorithm.
  * <p>
  * The force toward and away from nodes is calculated according to 
  * Hooke's Law and Coulomb's Law.
+ * <p>
+ * By default, the repulsion is computed between all the pairs of nodes
+ * (see {@link #setBarnesHutOpeningAngle(float)}).
+ * When an {@link #setExecutorService(ExecutorService) executor service}
+ * is given, each iteration of the algorithm
+ * computes the forces on all the nodes from their positions at the
+ * end of the previous iteration, and then moves all the nodes.
+ * Otherwise, the nodes are moved one after the other, and
+ * the forces on a node are computed with the positions of the
+ * previous nodes that were already moved in the same iteration.
  * 
  * @author $Author: galland$
  * @version $Name$ $Revision$ $Date$
@@ -60,41 +68,23 @@ import org.arakhne.neteditor.formalism.Node;
  * @see "http://en.wikipedia.org/wiki/Force-based_algorithms_(graph_drawing)"
  * @since 16.0
  */
-public class ForceBasedFigureLayout extends AbstractFigureLayout implements ForceBasedConstants {
+public class ForceBasedFigureLayout extends AbstractForceBasedFigureLayout {
 
-	/** Mass calaculator.
-	 */
-	private FigureMassCalculator massCalculator = null;
-	
-	/** Size of the coordinate space when randomizing coordinates.
-	 */
-	private float randomSpaceSize = 1000f;
-	
-	/** The kinematic energy when stable.
-	 */
-	private float maxKinematicEnergy = DEFAULT_STABILITY_ENERGY_THRESHOLD;
-	
-	/** The damping constant.
-	 * The damping constant is in (0;1) exclusive.
+	/** Indicates if the layout starts from the current positions of the figures.
 	 */
-	private float damping = DEFAULT_DAMPING;
+	private boolean warmStart = false;
 
-	/** The step of time to consider.
-	 */
-	private float timestep = DEFAULT_TIME_STEP;
-	
-	/** The Coulomb's constant to use.
+	/** The kinematic energy of a node when stable.
 	 */
-	private float coulombConstant = DEFAULT_COULOMB_CONSTANT;
+	private float maxNodeKinematicEnergy = DEFAULT_NODE_STABILITY_ENERGY_THRESHOLD;
 
-	/** The Coulomb's constant to use.
+	/** Indicates if the locked figures are not moved.
 	 */
-	private float springConstant = DEFAULT_SPRING_CONSTANT;
+	private boolean pinLockedFigures = false;
 
-	/** Preferred space between two nodes (insets are outside this
-	 * preferred space).
+	/** Figures that are not moved.
 	 */
-	private float preferredInterNodeSpace = DEFAULT_MINIMAL_SIZE; 
+	private final Set<Figure> pinnedFigures = Collections.newSetFromMap(new IdentityHashMap<Figure,Boolean>());
 
 	/**
 	 */
@@ -102,664 +92,515 @@ public class ForceBasedFigureLayout extends AbstractFigureLayout implements Forc
 		//
 	}
 	
-	/** Set the preferred space between two nodes (insets are
-	 * outside this preferred space).
+	/** Replies if the layout starts from the current positions
+	 * of the figures.
 	 * 
-	 * @param space
+	 * @return <code>true</code> if the layout is warm-started;
+	 * <code>false</code> if the layout starts from random positions.
+	 * @see #setWarmStart(boolean)
 	 */
-	public void setPreferredInterNodeSpace(float space) {
-		if (space>0f)
-			this.preferredInterNodeSpace = space;
-	}
-	
-	/** Replies the preferred space between two nodes (insets are
-	 * outside this preferred space).
-	 * 
-	 * @return the preferred space.
-	 */
-	public float getPreferredInterNodeSpace() {
-		return this.preferredInterNodeSpace;
+	public boolean isWarmStart() {
+		return this.warmStart;
 	}
 
-	/** Set the calculator of the node's masses.
-	 * 
-	 * @param calculator
-	 */
-	public void setNodeMassCalculator(FigureMassCalculator calculator) {
-		this.massCalculator = calculator;
-	}
-	
-	/** Replies the calculator of the node's masses.
-	 * 
-	 * @return the calculator of the masses.
-	 */
-	public FigureMassCalculator getNodeMassCalculator() {
-		return this.massCalculator;
-	}
-
-	/** Replies the size of the coordinate space that is
-	 * used to compute a coordinate randomly.
-	 * 
-	 * @return the size of the random coordinate space.
-	 */
-	public float getRandomCoordinateSpaceSize() {
-		return this.randomSpaceSize;
-	}
-	
-	/** Set the size of the coordinate space that is
-	 * used to compute a coordinate randomly.
+	/** Set if the layout starts from the current positions
+	 * of the figures.
+	 * <p>
+	 * When the layout is warm-started, the nodes are not moved
+	 * randomly before the first iteration. A node stops to move as soon as
+	 * its kinetic energy is lower than the
+	 * {@link #getMaximalNodeKinematicEnergy() stability energy of the nodes},
+	 * and it moves again only if one of the nodes linked to it is moving.
+	 * The algorithm stops when no more node is moving.
+	 * So that, after a small change in a laid-out graph, only
+	 * the neighbourhood of the change is moved.
 	 * 
-	 * @param size is the size of the random coordinate space; stricly positive.
+	 * @param warmStart is <code>true</code> if the layout is warm-started;
+	 * <code>false</code> if the layout starts from random positions.
 	 */
-	public void setRandomCoordinateSpaceSize(float size) {
-		if (size>=0f) {
-			this.randomSpaceSize = size;
-		}
+	public void setWarmStart(boolean warmStart) {
+		this.warmStart = warmStart;
 	}
 
-	/** Replies the maximal kinematic energy up to the algorithm
-	 * is able to reach.
+	/** Replies the kinematic energy below which a node is assumed
+	 * to be stable when the layout is warm-started.
 	 * 
-	 * @return the maximal kinematic energy, stricly positive.
+	 * @return the maximal kinematic energy of a node, stricly positive.
 	 */
-	public float getMaximalKinematicEnergy() {
-		return this.maxKinematicEnergy;
+	public float getMaximalNodeKinematicEnergy() {
+		return this.maxNodeKinematicEnergy;
 	}
 
-	/** Set the maximal kinematic energy up to the algorithm
-	 * is able to reach.
+	/** Set the kinematic energy below which a node is assumed
+	 * to be stable when the layout is warm-started.
 	 * 
-	 * @param energy is the maximal kinematic energy, stricly positive.
+	 * @param energy is the maximal kinematic energy of a node, stricly positive.
 	 */
-	public void setMaximalKinematicEnergy(float energy) {
+	public void setMaximalNodeKinematicEnergy(float energy) {
 		if (energy>0f) {
-			this.maxKinematicEnergy = energy;
+			this.maxNodeKinematicEnergy = energy;
 		}
 	}
-	
-	/** Replies the Coulomb's constant to use.
-	 * Default is {@link #DEFAULT_COULOMB_CONSTANT}.
-	 * 
-	 * @return the Coulomb's constant, stricly positive.
-	 */
-	public float getCoulombConstant() {
-		return this.coulombConstant;
-	}
 
-	/** Set the Coulomb's constant to use.
+	/** Replies if the locked figures are not moved by the layout.
 	 * 
-	 * @param k the Coulomb's constant, stricly positive.
+	 * @return <code>true</code> if the locked figures are pinned;
+	 * otherwise <code>false</code>.
 	 */
-	public void setCoulombConstant(float k) {
-		if (k>0f) this.coulombConstant = k;
+	public boolean isLockedFiguresPinned() {
+		return this.pinLockedFigures;
 	}
 
-	/** Replies the spring constant to use.
-	 * Default is {@link #DEFAULT_SPRING_CONSTANT}.
+	/** Set if the locked figures are not moved by the layout.
+	 * The pinned figures are still repulsing and attracting the
+	 * other figures.
 	 * 
-	 * @return the spring constant, stricly positive.
+	 * @param pin is <code>true</code> if the locked figures are pinned;
+	 * otherwise <code>false</code>.
 	 */
-	public float getSpringConstant() {
-		return this.springConstant;
+	public void setLockedFiguresPinned(boolean pin) {
+		this.pinLockedFigures = pin;
 	}
 
-	/** Set the spring constant to use.
+	/** Replies the figures that are not moved by the layout.
 	 * 
-	 * @param k the spring constant, stricly positive.
+	 * @return the pinned figures.
 	 */
-	public void setSpringConstant(float k) {
-		if (k>0f) this.springConstant = k;
+	public Set<Figure> getPinnedFigures() {
+		return Collections.unmodifiableSet(this.pinnedFigures);
 	}
 
-	/** Replies the damping constant.
-	 * The damping constant is in (0;1) exclusive.
+	/** Set the figures that are not moved by the layout, eg.
+	 * the selected figures.
+	 * The pinned figures are still repulsing and attracting the
+	 * other figures.
 	 * 
-	 * @return the damping constant.
+	 * @param figures are the pinned figures, or <code>null</code> if none.
 	 */
-	public float getDamping() {
-		return this.damping;
+	public void setPinnedFigures(Collection<? extends Figure> figures) {
+		this.pinnedFigures.clear();
+		if (figures!=null) this.pinnedFigures.addAll(figures);
 	}
 
-	/** Set the damping constant.
-	 * The damping constant is in (0;1) exclusive.
-	 * 
-	 * @param damping is the damping constant.
-	 */
-	public void setDamping(float damping) {
-		if (damping<=0f) this.damping = 0f+Float.MIN_NORMAL;
-		else if (damping>=1f) this.damping = 1f-Float.MIN_NORMAL;
-		else this.damping = damping;
-	}
-	
-	/** Replies the time step used by the algorithm.
-	 * The time step is the amount of time during which 
-	 * a node is atomically moved.
+	/** Replies if the given figure is pinned.
 	 * 
-	 * @return the time step, stricly positive.
+	 * @param figure
+	 * @return <code>true</code> if the figure must not be moved.
 	 */
-	public float getTimeStep() {
-		return this.timestep;
+	private boolean isPinned(Figure figure) {
+		return this.pinnedFigures.contains(figure)
+				|| (this.pinLockedFigures && figure.isLocked());
 	}
 
-	/** Set the time step used by the algorithm.
-	 * The time step is the amount of time during which 
-	 * a node is atomically moved.
-	 * 
-	 * @param step is the time step, stricly positive.
+	/**
+	 * {@inheritDoc}
 	 */
-	public void setTimeStep(float step) {
-		if (step>0f) {
-			this.timestep = step;
-		}
+	@Override
+	protected String getUndoName() {
+		return Locale.getString(ForceBasedFigureLayout.class, "UNDO_NAME"); //$NON-NLS-1$
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public Undoable layoutFigures(Collection<? extends Figure> figures) {
-		FigureLayoutUndoableEdit undo = new FigureLayoutUndoableEdit(
-				Locale.getString(ForceBasedFigureLayout.class, "UNDO_NAME")); //$NON-NLS-1$
-
-		Random random = new Random();
+	public boolean computeLayout(LayoutGraph graph) {
+		Long seed = getRandomSeed();
+		Random random = (seed==null) ? new Random() : new Random(seed.longValue());
 
-		float kOfCoulomb = getCoulombConstant();
-		float kOfSpring = getSpringConstant();
 		float timestep = getTimeStep();
 		float damping = getDamping();
 		float threshold = getMaximalKinematicEnergy();
-		float interNodeSpace = getPreferredInterNodeSpace();
-		Margins insets = getMargins();
 		Point2D origin = getOrigin();
 		FigureMassCalculator calculator = getNodeMassCalculator();
+		float theta = getBarnesHutOpeningAngle();
+		ExecutorService executor = getExecutorService();
+		boolean isWarmStart = isWarmStart();
+		float nodeThreshold = getMaximalNodeKinematicEnergy();
+		FigureLayoutControl control = createControl();
 
 		float barycenterX, barycenterY;
 		barycenterX = barycenterY = 0f;
 		
+		int n = graph.getVertexCount();
+		if (n==0) return true;
+		
 		// set up initial node velocities to (0,0)
 		// set up initial node positions randomly: make sure no 2 nodes are in exactly the same position
-		Map<Node<?,?,?,?>,LayoutNode> nodes = new TreeMap<Node<?,?,?,?>,LayoutNode>();
-		List<LayoutNode> allNodes = new ArrayList<LayoutNode>();
-		Map<Edge<?,?,?,?>,EdgeFigure<?>> allEdges = new TreeMap<Edge<?,?,?,?>,EdgeFigure<?>>();
-		for(Figure figure : figures) {
-			if (figure instanceof NodeFigure<?,?>) {
-				NodeFigure<?,?> nodeFigure = (NodeFigure<?,?>)figure;
-				LayoutNode n = new LayoutNode(
-						origin.getX() + (random.nextFloat()-random.nextFloat()) * getRandomCoordinateSpaceSize(),
-						origin.getY() + (random.nextFloat()-random.nextFloat()) * getRandomCoordinateSpaceSize(),
-						figure,
-						(calculator==null) ? DEFAULT_MASS : calculator.computeMassFor(figure));
-				nodes.put(nodeFigure.getModelObject(), n);
-				allNodes.add(n);
-				barycenterX += n.getCenterX();
-				barycenterY += n.getCenterY();
-				for(Edge<?,?,?,?> edge : nodeFigure.getModelObject().getEdges()) {
-					EdgeFigure<?> edgeFigure = edge.getViewBinding().getView(figure.getViewUUID(), EdgeFigure.class);
-					if (edgeFigure!=null) {
-						allEdges.put(edge, edgeFigure);
+		// (the pinned nodes and the warm-started nodes stay at their positions)
+		LayoutNode[] nodeArray = new LayoutNode[n];
+		Set<Long> usedPositions = new HashSet<Long>();
+		int activeCount = 0;
+		for(int i=0; i<n; ++i) {
+			Figure figure = graph.getFigure(i);
+			boolean pinned = isPinned(figure);
+			float x, y;
+			if (pinned || isWarmStart) {
+				x = graph.getX()[i];
+				y = graph.getY()[i];
+				if (!pinned) {
+					while (!usedPositions.add(Long.valueOf(
+							(((long)Float.floatToIntBits(x))<<32) | (Float.floatToIntBits(y) & 0xffffffffL)))) {
+						x += random.nextFloat()-random.nextFloat();
+						y += random.nextFloat()-random.nextFloat();
 					}
 				}
 			}
-			else if (figure instanceof DecorationFigure && !(figure instanceof CoercedFigure)) {
-				LayoutNode n = new LayoutNode(
-						origin.getX() + (random.nextFloat()-random.nextFloat()) * getRandomCoordinateSpaceSize(),
-						origin.getY() + (random.nextFloat()-random.nextFloat()) * getRandomCoordinateSpaceSize(),
-						figure,
-						(calculator==null) ? DEFAULT_MASS : calculator.computeMassFor(figure));
-				allNodes.add(n);
-				barycenterX += n.getCenterX();
-				barycenterY += n.getCenterY();
+			else {
+				x = origin.getX() + (random.nextFloat()-random.nextFloat()) * getRandomCoordinateSpaceSize();
+				y = origin.getY() + (random.nextFloat()-random.nextFloat()) * getRandomCoordinateSpaceSize();
+			}
+			LayoutNode node = new LayoutNode(
+					x, y,
+					graph.getWidth()[i], graph.getHeight()[i],
+					figure,
+					(calculator==null) ? DEFAULT_MASS : calculator.computeMassFor(figure));
+			node.pinned = pinned;
+			node.active = !pinned;
+			if (node.active) ++activeCount;
+			nodeArray[i] = node;
+			barycenterX += node.getCenterX();
+			barycenterY += node.getCenterY();
+		}
+		
+		// The edges and the figures are not moved during the iterations,
+		// so that the edges that may repulse a node, and the springs
+		// of a node could be determined once for all.
+		int[] outOffsets = graph.getOutOffsets();
+		int[] outEdges = graph.getOutEdges();
+		int[] inOffsets = graph.getInOffsets();
+		int[] inEdges = graph.getInEdges();
+		findRepulsiveEdges(graph, nodeArray);
+		for(int i=0; i<n; ++i) {
+			LayoutNode node = nodeArray[i];
+			if (graph.isNode(i)) {
+				int outDegree = outOffsets[i+1] - outOffsets[i];
+				int inDegree = inOffsets[i+1] - inOffsets[i];
+				node.springs = new LayoutNode[outDegree + inDegree];
+				int k = 0;
+				for(int j=outOffsets[i]; j<outOffsets[i+1]; ++j) {
+					node.springs[k++] = nodeArray[graph.getEdgeTarget(outEdges[j])];
+				}
+				for(int j=inOffsets[i]; j<inOffsets[i+1]; ++j) {
+					node.springs[k++] = nodeArray[graph.getEdgeSource(inEdges[j])];
+				}
 			}
 		}
 		
-		if (allNodes.isEmpty()) return null;
-				
 		Point2D centerMassPoint = new Point2f();
-		Vector2D netForce = new Vector2f();
+		BarnesHutQuadTree tree = null;
+		float[] centerXs = null;
+		float[] centerYs = null;
+		if (theta>0f) {
+			tree = new BarnesHutQuadTree();
+			centerXs = new float[nodeArray.length];
+			centerYs = new float[nodeArray.length];
+		}
+		ForceAccumulator accumulator = new ForceAccumulator(
+				nodeArray, tree, theta,
+				getCoulombConstant(), getSpringConstant(),
+				getMargins(), getPreferredInterNodeSpace(),
+				centerMassPoint);
+		
+		ParallelStep parallelStep = null;
+		float[] force = null;
+		int[] stack = null;
+		if (executor!=null) {
+			parallelStep = new ParallelStep(accumulator, timestep, damping);
+		}
+		else {
+			force = new float[2];
+			stack = BarnesHutQuadTree.newStack();
+		}
+		
 		float totalKineticEnergy;
-		Node<?,?,?,?> otherSideNode;
-		Vector2D d;
-		EdgeFigure<?> springFigure;
-		LayoutNode otherSide;
 				
 		do {
 			// Update the center mass point
-			barycenterX /= allNodes.size();
-			barycenterY /= allNodes.size();
+			barycenterX /= nodeArray.length;
+			barycenterY /= nodeArray.length;
 			centerMassPoint.set(barycenterX, barycenterY);
 			barycenterX = barycenterY = 0f;
 			
 			//	total_kinetic_energy := 0
 			totalKineticEnergy = 0f;
 			
-			// running sum of total kinetic energy over all particles
-			for(LayoutNode node : allNodes) {
-								
-				// net-force := (0, 0)
-				netForce.set(0f, 0f);
-				
-				// running sum of total force on this particular node
-				
-				for(LayoutNode otherNode : allNodes) {
-					if (node!=otherNode) {
-						d = computeCoulombRepulsion(node, otherNode, kOfCoulomb);
-						netForce.add(d);
-					}
+			if (tree!=null) {
+				for(int i=0; i<nodeArray.length; ++i) {
+					centerXs[i] = nodeArray[i].getCenterX();
+					centerYs[i] = nodeArray[i].getCenterY();
 				}
-				
-				for(Entry<Edge<?,?,?,?>,EdgeFigure<?>> pair : allEdges.entrySet()) {
-					if (pair.getKey().getStartAnchor().getNode()!=node.getNode()
-						&& pair.getKey().getEndAnchor().getNode()!=node.getNode()) {
-						d = computeCoulombRepulsion(node, pair.getKey(), pair.getValue(), kOfCoulomb);
-						netForce.add(d);
-					}
+				tree.build(centerXs, centerYs, nodeArray.length);
+			}
+			
+			if (parallelStep!=null) {
+				try {
+					float[] result = parallelStep.run(executor);
+					totalKineticEnergy = result[0];
+					barycenterX = result[1];
+					barycenterY = result[2];
 				}
-
-				if (node.isNodeFigure()) {
-					for(Edge<?,?,?,?> spring : node.getNode().getEdges()) {
-						
-						// Remove the intermediate control points.
-						springFigure = spring.getViewBinding().getView(node.getView(), EdgeFigure.class);
-						if (springFigure!=null) {
-							while (springFigure.getCtrlPointCount()>2) {
-								undo.addControlPointRemoval(springFigure, 1);
-								springFigure.removeCtrlPointAt(1);
-							}
-						}
-						
-						otherSideNode = spring.getOtherSideFrom(node.getNode());
-						otherSide = nodes.get(otherSideNode);
-						
-						d = computeHookeAttraction(node, otherSide, 
-								spring, kOfSpring,
-								insets, interNodeSpace);
-						netForce.add(d);
-					}
+				catch(InterruptedException e) {
+					// The layout is cancelled; the nodes are not moved.
+					Thread.currentThread().interrupt();
+					totalKineticEnergy = Float.NaN;
+					break;
 				}
-				else {
-					// Decoration figures are attracted by the center mass point (usually the barycenter of the previous loop)
-					d = computeHookeAttraction(node, centerMassPoint, kOfSpring, insets);
-					netForce.add(d);
+			}
+			else {
+				// running sum of total kinetic energy over all particles
+				for(int i=0; i<nodeArray.length; ++i) {
+					LayoutNode node = nodeArray[i];
+					
+					// running sum of total force on this particular node
+					accumulator.computeNetForce(i, force, stack);
+					
+					// total_kinetic_energy := total_kinetic_energy + this_node.mass * (this_node.velocity)^2
+					totalKineticEnergy += node.move(force[0], force[1], timestep, damping);
+	
+					// Update the barycenter
+					barycenterX += node.getCenterX();
+					barycenterY += node.getCenterY();
 				}
-				
-				// without damping, it moves forever
-				
-				// this_node.velocity := (this_node.velocity + timestep * net-force) * damping
-				node.velocity.add(netForce.getX() * timestep, netForce.getY() * timestep);
-				node.velocity.scale(damping);
-				
-				// this_node.position := this_node.position + timestep * this_node.velocity
-				node.setX(node.getX() + timestep * node.velocity.getX());
-				node.setY(node.getY() + timestep * node.velocity.getY());
-				
-				// total_kinetic_energy := total_kinetic_energy + this_node.mass * (this_node.velocity)^2
-				totalKineticEnergy += node.mass * node.velocity.lengthSquared();
-
-				// Update the barycenter
-				barycenterX += node.getCenterX();
-				barycenterY += node.getCenterY();
 			}
+			
+			if (isWarmStart) {
+				activeCount = updateActiveNodes(nodeArray, nodeThreshold);
+			}
+			
+			if (control.isPublicationRequired()) {
+				copyPositions(nodeArray, graph);
+				control.publish(graph);
+			}
+			
+			if (!control.nextIteration()) break;
 		}
-		while (totalKineticEnergy>threshold);
+		while (totalKineticEnergy>threshold && activeCount>0);
 		
-		if (!Double.isNaN(totalKineticEnergy) && !Double.isInfinite(totalKineticEnergy)) {
-			// Move the nodes
-			for(LayoutNode node : nodes.values()) {
-				undo.addLocationChange(node.getFigure(), node.getX(), node.getY());
-				node.getFigure().setLocation(node.getX(), node.getY());
-			}
+		// A cancelled layout does not change the figures.
+		if (control.isCancelled()
+			|| Double.isNaN(totalKineticEnergy) || Double.isInfinite(totalKineticEnergy)) {
+			return false;
 		}
 		
-		if (undo.isEmpty()) return null;
-		return undo;
+		// Remove the intermediate control points.
+		graph.removeIntermediateControlPoints();
+		// Move the nodes
+		copyPositions(nodeArray, graph);
+		return true;
 	}
 	
-	/** Coulomb's Equation is: {@code F = (k * Q1 * Q2) / d^2};
-	 * where {@k} is the {@link #COULOMB_CONSTANT Coulomb's constant};
-	 * {@code Q1} and {@code Q2} are the charges of the nodes; and 
-	 * {@code d} is the distance between the node's centers.
+	/** Find the edges that may repulse each node, ie. the edges
+	 * that are not linked to the node and whose bounds are
+	 * intersecting the node.
 	 * <p>
-	 * Here we assume that {@code Q1 = Q2 = -1}, ie. the two nodes
-	 * are exceeding of 1 electron. So that the two nodes are repulsives.
+	 * The edges are put in a spatial index on their bounds, so that
+	 * only the edges near a node are tested. The repulsive edges of
+	 * a node are sorted by their indexes in the graph, so that the
+	 * forces are always summed in the same order.
 	 * 
-	 * @param from
-	 * @param to
-	 * @param coulombConstant
-	 * @return
-	 * @see "http://en.wikipedia.org/wiki/Coulomb%27s_law"
+	 * @param graph
+	 * @param nodes
 	 */
-	private static Vector2D computeCoulombRepulsion(LayoutNode from, LayoutNode to, float coulombConstant) {
-		float rx = from.getCenterX() - to.getCenterX();
-		float ry = from.getCenterY() - to.getCenterY();
-		float squaredDistance = rx * rx + ry * ry;
-		float length = (float)Math.sqrt(squaredDistance);
-		float F = Math.max(-0f, coulombConstant / squaredDistance);
-		return new Vector2f(
-				rx * F / length,
-				ry * F / length);
-	}
-	
-	/** Coulomb's Equation is: {@code F = (k * Q1 * Q2) / d^2};
-	 * where {@k} is the {@link #COULOMB_CONSTANT Coulomb's constant};
-	 * {@code Q1} and {@code Q2} are the charges of the nodes; and 
-	 * {@code d} is the distance between the node's centers.
-	 * <p>
-	 * Here we assume that {@code Q1 = Q2 = -1}, ie. the two nodes
-	 * are exceeding of 1 electron. So that the two nodes are repulsives.
-	 * 
-	 * @param from
-	 * @param edge
-	 * @param edgeFigure
-	 * @param coulombConstant
-	 * @return
-	 * @see "http://en.wikipedia.org/wiki/Coulomb%27s_law"
-	 */
-	private static Vector2D computeCoulombRepulsion(LayoutNode from, Edge<?,?,?,?> edge, EdgeFigure<?> edgeFigure, float coulombConstant) {
-		float rx = 0f;
-		float ry = 0f;
-
-		if (from.getFigure().intersects(edgeFigure.getBounds())) {
-			Point2D pts = edgeFigure.getNearestPointTo(from.getCenterX(), from.getCenterY());
-			rx = (from.getCenterX() - pts.getX());
-			ry = (from.getCenterY() - pts.getY());
-			float squaredDistance = rx * rx + ry * ry;
-			float length = (float)Math.sqrt(squaredDistance);
-			float boxSize = Math.max(from.getFigure().getWidth(), from.getFigure().getHeight());
-			boxSize = boxSize * boxSize;
-			boxSize = (float)Math.sqrt(boxSize + boxSize);
-			if (length <= boxSize) {
-				float F = Math.max(0f, coulombConstant / squaredDistance);
-				assert(F>=0f);
-				rx = rx * F / length;
-				ry = ry * F / length;
+	private static void findRepulsiveEdges(LayoutGraph graph, LayoutNode[] nodes) {
+		int m = graph.getEdgeCount();
+		if (m==0) return;
+		GridViewComponentIndex<EdgeFigure<?>> index = new GridViewComponentIndex<EdgeFigure<?>>();
+		Map<EdgeFigure<?>,Integer> edgeIndexes = new IdentityHashMap<EdgeFigure<?>,Integer>();
+		for(int e=0; e<m; ++e) {
+			EdgeFigure<?> edgeFigure = graph.getEdgeFigure(e);
+			index.add(edgeFigure);
+			edgeIndexes.put(edgeFigure, Integer.valueOf(e));
+		}
+		List<EdgeFigure<?>> candidates = new ArrayList<EdgeFigure<?>>();
+		int[] found = new int[m];
+		int count, e;
+		for(int i=0; i<nodes.length; ++i) {
+			Figure figure = nodes[i].getFigure();
+			candidates.clear();
+			index.getComponentsIntersecting(figure.getBounds(), candidates);
+			count = 0;
+			for(EdgeFigure<?> edgeFigure : candidates) {
+				e = edgeIndexes.get(edgeFigure).intValue();
+				if (graph.getEdgeSource(e)!=i && graph.getEdgeTarget(e)!=i
+					&& figure.intersects(edgeFigure.getBounds())) {
+					found[count++] = e;
+				}
+			}
+			if (count>0) {
+				Arrays.sort(found, 0, count);
+				nodes[i].repulsiveEdges = new ArrayList<EdgeFigure<?>>(count);
+				for(int k=0; k<count; ++k) {
+					nodes[i].repulsiveEdges.add(graph.getEdgeFigure(found[k]));
+				}
 			}
 		}
-
-		return new Vector2f(rx, ry);
 	}
 
-	/** Hooke's Equation is: {@code F = -k . x};
-	 * where {@code x} is the displacement of the spring's end from its 
-	 * equilibrium position; {@code F} is the restoring force exerted
-	 * by the spring on that end; and {@code k} is a constant called
-	 * the rate or spring constant. 
+	/** Copy the positions of the layout nodes into the graph.
+	 * Only the nodes are moved by this layout.
 	 * 
-	 * @param from
-	 * @param to
-	 * @param spring
-	 * @param springConstant
-	 * @param insets
-	 * @return
-	 * @see "http://en.wikipedia.org/wiki/Hooke%27s_Law"
+	 * @param nodes
+	 * @param graph
 	 */
-	private static Vector2D computeHookeAttraction(
-			LayoutNode from, 
-			LayoutNode to,
-			Edge<?,?,?,?> spring,
-			float springConstant,
-			Margins insets,
-			float interNodeSpace) {
-		float displacementX, displacementY;
-		
-		if ((from.getMaxX()+insets.right()) < (to.getX()-insets.left()-interNodeSpace)) {
-			displacementX =
-					(from.getMaxX() + insets.right())
-					-
-					(to.getX() - insets.left() - interNodeSpace);
-		}
-		else if ((from.getX()-insets.left()) > (to.getMaxX()+insets.right()+interNodeSpace)) {
-			displacementX =
-					(from.getX() - insets.left())
-					-
-					(to.getMaxX() + insets.right() + interNodeSpace);
-		}
-		else {
-			displacementX = 0f;
-		}
-		
-		if ((from.getMaxY()+insets.bottom()) < (to.getY()-insets.top()-interNodeSpace)) {
-			displacementY =
-					(from.getMaxY() + insets.bottom())
-					-
-					(to.getY() - insets.top() - interNodeSpace);
-		}
-		else if ((from.getY()-insets.top()) > (to.getMaxY()+insets.bottom()+interNodeSpace)) {
-			displacementY =
-					(from.getY() - insets.top())
-					-
-					(to.getMaxY() + insets.bottom() + interNodeSpace);
-		}
-		else {
-			displacementY = 0f;
+	private static void copyPositions(LayoutNode[] nodes, LayoutGraph graph) {
+		float[] x = graph.getX();
+		float[] y = graph.getY();
+		for(int i=0; i<nodes.length; ++i) {
+			if (graph.isNode(i)) {
+				x[i] = nodes[i].getX();
+				y[i] = nodes[i].getY();
+			}
 		}
-		
-		float Fx = - springConstant * displacementX;
-		float Fy = - springConstant * displacementY;
-		
-		return new Vector2f(Fx, Fy);
 	}
-
-	/** Hooke's Equation is: {@code F = -k . x};
-	 * where {@code x} is the displacement of the spring's end from its 
-	 * equilibrium position; {@code F} is the restoring force exerted
-	 * by the spring on that end; and {@code k} is a constant called
-	 * the rate or spring constant. 
+	
+	/** Stop the nodes that are stable, and restart the nodes
+	 * that are linked to a moving node.
 	 * 
-	 * @param from
-	 * @param attractivePoint
-	 * @param springConstant
-	 * @param insets
-	 * @return
-	 * @see "http://en.wikipedia.org/wiki/Hooke%27s_Law"
+	 * @param nodes
+	 * @param nodeThreshold is the kinetic energy below which a node is stable.
+	 * @return the number of moving nodes.
 	 */
-	private static Vector2D computeHookeAttraction(
-			LayoutNode from, 
-			Point2D attractivePoint,
-			float springConstant, Margins insets) {
-		float displacementX, displacementY;
-		
-		if ((attractivePoint.getX()<(from.getX()-insets.left()))
-			||(attractivePoint.getX()>(from.getMaxX()+insets.right()))) {
-			displacementX = (from.getCenterX() - attractivePoint.getX());
-		}
-		else {
-			displacementX = 0f;
-		}
-		
-		if ((attractivePoint.getY()<(from.getY()-insets.top()))
-				||(attractivePoint.getY()>(from.getMaxY()+insets.bottom()))) {
-			displacementY = (from.getCenterY() - attractivePoint.getY());
+	private static int updateActiveNodes(LayoutNode[] nodes, float nodeThreshold) {
+		for(LayoutNode node : nodes) {
+			if (node.active) {
+				if (node.energy<=nodeThreshold) {
+					node.active = false;
+					node.velocity.set(0f, 0f);
+				}
+				else if (node.springs!=null) {
+					for(LayoutNode neighbour : node.springs) {
+						neighbour.wakeUp = true;
+					}
+				}
+			}
 		}
-		else {
-			displacementY = 0f;
+		int count = 0;
+		for(LayoutNode node : nodes) {
+			if (node.wakeUp) {
+				node.wakeUp = false;
+				if (!node.pinned) node.active = true;
+			}
+			if (node.active) ++count;
 		}
-
-		float Fx = - springConstant * displacementX;
-		float Fy = - springConstant * displacementY;
-		
-		return new Vector2f(Fx, Fy);
+		return count;
 	}
-
-	/** Node in the Force-based layout algorithm. 
+	
+	/** Step of the force-based algorithm that is run by an executor service.
+	 * <p>
+	 * The nodes are split in chunks of fixed size. The forces on all the
+	 * nodes are computed from the positions of the previous step and put
+	 * in a buffer; then the nodes are moved. The kinetic energies and the
+	 * barycenters of the chunks are summed in the order of the chunks,
+	 * so that the results do not depend on the number of threads.
 	 * 
 	 * @author $Author: galland$
 	 * @version $Name$ $Revision$ $Date$
 	 * @mavengroupid $GroupId$
 	 * @mavenartifactid $ArtifactId$
-	 * @see "http://en.wikipedia.org/wiki/Force-based_algorithms_(graph_drawing)"
 	 * @since 16.0
 	 */
-	private static class LayoutNode {
+	private static class ParallelStep {
 
-		/** Position of the node.
+		/** Number of nodes in a chunk.
 		 */
-		private float x;
-
-		/** Position of the node.
-		 */
-		private float y;
+		private static final int CHUNK_SIZE = 128;
 		
-		/** Center of the node.
-		 */
-		private float centerX;
-
-		/** Center of the node.
-		 */
-		private float centerY;
-
-		/** Max position of the node.
-		 */
-		private float maxX;
-
-		/** Max position of the node.
-		 */
-		private float maxY;
-
-		/** Velocity of the node.
-		 */
-		public final Vector2D velocity = new Vector2f();
+		private final List<Callable<Object>> forceTasks = new ArrayList<Callable<Object>>();
+		private final List<Callable<Object>> moveTasks = new ArrayList<Callable<Object>>();
 		
-		/** Mass of the node.
-		 */
-		public final float mass;
-
-		/** Graph node represented by this LayoutNode.
+		/** Forces applied on the nodes: <code>fx0, fy0, fx1, fy1...</code>
 		 */
-		private final Figure figure;
+		private final float[] forces;
 		
-		/**
-		 * @param x
-		 * @param y
-		 * @param figure
-		 * @param mass
+		/** Results of the chunks: <code>energy, barycenterX, barycenterY</code>
+		 * for each chunk.
 		 */
-		public LayoutNode(float x, float y, Figure figure, float mass) {
-			this.mass = mass;
-			this.figure = figure;
-			setX(x);
-			setY(y);
-		}
+		private final float[] results;
 
-		/** Replies the identifier of the view in whic hthe figure is.
-		 * 
-		 * @return the view id of the figure.
-		 */
-		public UUID getView() {
-			return this.figure.getViewUUID();
-		}
-		
-		/** Replies the node figure.
-		 * 
-		 * @return the node figure.
-		 */
-		public Figure getFigure() {
-			return this.figure;
-		}
-		
-		/** Replies if this LayoutNode contains a NodeFigure.
-		 * 
-		 * @return <code>true</code> if the figure inside is for a node;
-		 * otherwise <code>false</code>.
-		 */
-		public boolean isNodeFigure() {
-			return this.figure instanceof NodeFigure<?,?>;
-		}
-		
-		/** Replies the node embedded in this LayoutNode.
-		 * 
-		 * @return the node or <code>null</code> if this LayoutNode has
-		 * no node inside.
+		/**
+		 * @param accumulator
+		 * @param timestep
+		 * @param damping
 		 */
-		public Node<?,?,?,?> getNode() {
-			if (this.figure instanceof NodeFigure<?,?>) {
-				return ((NodeFigure<?,?>)this.figure).getModelObject();
+		public ParallelStep(final ForceAccumulator accumulator, final float timestep, final float damping) {
+			final LayoutNode[] nodes = accumulator.nodes;
+			this.forces = new float[nodes.length*2];
+			int chunkCount = (nodes.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			this.results = new float[chunkCount*3];
+			for(int c=0; c<chunkCount; ++c) {
+				final int chunk = c;
+				final int start = c * CHUNK_SIZE;
+				final int end = Math.min(nodes.length, start + CHUNK_SIZE);
+				this.forceTasks.add(new Callable<Object>() {
+					@SuppressWarnings("synthetic-access")
+					@Override
+					public Object call() throws Exception {
+						float[] force = new float[2];
+						int[] stack = BarnesHutQuadTree.newStack();
+						for(int i=start; i<end; ++i) {
+							accumulator.computeNetForce(i, force, stack);
+							ParallelStep.this.forces[i*2] = force[0];
+							ParallelStep.this.forces[i*2+1] = force[1];
+						}
+						return null;
+					}
+				});
+				this.moveTasks.add(new Callable<Object>() {
+					@SuppressWarnings("synthetic-access")
+					@Override
+					public Object call() throws Exception {
+						float energy = 0f;
+						float bx = 0f;
+						float by = 0f;
+						float[] f = ParallelStep.this.forces;
+						for(int i=start; i<end; ++i) {
+							energy += nodes[i].move(f[i*2], f[i*2+1], timestep, damping);
+							bx += nodes[i].getCenterX();
+							by += nodes[i].getCenterY();
+						}
+						ParallelStep.this.results[chunk*3] = energy;
+						ParallelStep.this.results[chunk*3+1] = bx;
+						ParallelStep.this.results[chunk*3+2] = by;
+						return null;
+					}
+				});
 			}
-			return null;
-		}
-
-		/** Replies x.
-		 * 
-		 * @return x
-		 */
-		public float getX() {
-			return this.x;
-		}
-
-		/** Set x.
-		 * 
-		 * @param x
-		 */
-		public void setX(float x) {
-			this.x = x;
-			float w = this.figure.getWidth();
-			this.centerX = this.x + w/2f;
-			this.maxX = this.x + w;
-		}
-
-		/** Replies y.
-		 * 
-		 * @return y
-		 */
-		public float getY() {
-			return this.y;
-		}
-
-		/** Set y.
-		 * 
-		 * @param y
-		 */
-		public void setY(float y) {
-			this.y = y;
-			float h = this.figure.getHeight();
-			this.centerY = this.y + h/2f;
-			this.maxY = this.y + h;
 		}
 
-		/** Replies the center x.
+		/** Run the step.
 		 * 
-		 * @return center x
+		 * @param executor
+		 * @return <code>{totalKineticEnergy, barycenterX, barycenterY}</code>, where the
+		 * barycenter is not divided by the number of nodes.
+		 * @throws InterruptedException if the step was interrupted.
 		 */
-		public float getCenterX() {
-			return this.centerX;
-		}
-
-		/** Replies the center y.
-		 * 
-		 * @return center y
-		 */
-		public float getCenterY() {
-			return this.centerY;
-		}
-
-		/** Replies the max x.
-		 * 
-		 * @return max x
-		 */
-		public float getMaxX() {
-			return this.maxX;
-		}
-
-		/** Replies the max y.
-		 * 
-		 * @return max y
-		 */
-		public float getMaxY() {
-			return this.maxY;
+		public float[] run(ExecutorService executor) throws InterruptedException {
+			invokeAll(executor, this.forceTasks);
+			invokeAll(executor, this.moveTasks);
+			float[] total = new float[3];
+			for(int i=0; i<this.results.length; i+=3) {
+				total[0] += this.results[i];
+				total[1] += this.results[i+1];
+				total[2] += this.results[i+2];
+			}
+			return total;
 		}
 		
-		@Override
-		public String toString() {
-			StringBuilder b = new StringBuilder();
-			b.append("((LayoutNode:"); //$NON-NLS-1$
-			b.append(this.figure);
-			b.append("=("); //$NON-NLS-1$
-			b.append(this.x);
-			b.append(";"); //$NON-NLS-1$
-			b.append(this.y);
-			b.append(")))"); //$NON-NLS-1$
-			return b.toString();
+		private static void invokeAll(ExecutorService executor, List<Callable<Object>> tasks) throws InterruptedException {
+			for(Future<Object> future : executor.invokeAll(tasks)) {
+				try {
+					future.get();
+				}
+				catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+					if (cause instanceof Error) throw (Error)cause;
+					throw new RuntimeException(cause);
+				}
+			}
 		}
 
-	}
+	} // class ParallelStep
 
 }
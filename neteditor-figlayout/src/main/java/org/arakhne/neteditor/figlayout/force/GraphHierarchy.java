@@ -0,0 +1,402 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.force;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/** Hierarchy of the coarsened graphs that is used by the
+ * multilevel laying-out.
+ * <p>
+ * The level <code>0</code> is the graph to lay out. Each vertex of the
+ * level <code>l+1</code> is the union of one or more vertices of the
+ * level <code>l</code>, which are matched along their heaviest edges.
+ * When the matching is not reducing enough the graph, eg. for the
+ * stars, the unmatched vertices are collapsed with one of their
+ * matched neighbours. The isolated vertices are paired together.
+ * <p>
+ * The vertices of a coarse vertex are summing their masses and
+ * their areas; the coarse vertex is a square. The edges between two
+ * coarse vertices are merged, and their weight is the number of
+ * edges of the level <code>0</code> that they are representing.
+ * All the graphs are undirected and stored in compressed rows.
+ *
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+class GraphHierarchy {
+
+	/** Ratio between the number of vertices of a coarse level and
+	 * the number of vertices of the finer level above which the
+	 * unmatched vertices are collapsed with their neighbours.
+	 */
+	private static final float COLLAPSE_RATIO = .75f;
+
+	/** Ratio between the number of vertices of a coarse level and
+	 * the number of vertices of the finer level above which the
+	 * coarsening is stopped.
+	 */
+	private static final float STOP_RATIO = .95f;
+
+	private final List<int[]> offsets = new ArrayList<int[]>();
+	private final List<int[]> adjacency = new ArrayList<int[]>();
+	private final List<float[]> weights = new ArrayList<float[]>();
+	private final List<float[]> masses = new ArrayList<float[]>();
+	private final List<float[]> widths = new ArrayList<float[]>();
+	private final List<float[]> heights = new ArrayList<float[]>();
+	/** Index of the coarse vertex of each vertex, for each level
+	 * except the coarsest.
+	 */
+	private final List<int[]> parents = new ArrayList<int[]>();
+
+	/**
+	 * @param offsets are the offsets of the neighbours of each vertex
+	 * in <var>adjacency</var>; the array has <code>n+1</code> elements.
+	 * @param adjacency are the neighbours of the vertices. Each edge must
+	 * be given in the rows of its two ends.
+	 * @param masses are the masses of the vertices.
+	 * @param widths are the widths of the vertices.
+	 * @param heights are the heights of the vertices.
+	 */
+	public GraphHierarchy(int[] offsets, int[] adjacency, float[] masses, float[] widths, float[] heights) {
+		float[] w = new float[adjacency.length];
+		for(int i=0; i<w.length; ++i) {
+			w[i] = 1f;
+		}
+		this.offsets.add(offsets);
+		this.adjacency.add(adjacency);
+		this.weights.add(w);
+		this.masses.add(masses);
+		this.widths.add(widths);
+		this.heights.add(heights);
+	}
+
+	/** Replies the number of levels.
+	 *
+	 * @return the number of levels.
+	 */
+	public int getLevelCount() {
+		return this.offsets.size();
+	}
+
+	/** Replies the number of vertices of the given level.
+	 *
+	 * @param level
+	 * @return the number of vertices.
+	 */
+	public int getVertexCount(int level) {
+		return this.offsets.get(level).length - 1;
+	}
+
+	/** Replies the offsets of the neighbours of the vertices of
+	 * the given level.
+	 *
+	 * @param level
+	 * @return the offsets; the array is shared.
+	 */
+	public int[] getOffsets(int level) {
+		return this.offsets.get(level);
+	}
+
+	/** Replies the neighbours of the vertices of the given level.
+	 *
+	 * @param level
+	 * @return the neighbours; the array is shared.
+	 */
+	public int[] getAdjacency(int level) {
+		return this.adjacency.get(level);
+	}
+
+	/** Replies the weights of the edges of the given level, in the
+	 * order of {@link #getAdjacency(int)}.
+	 *
+	 * @param level
+	 * @return the weights; the array is shared.
+	 */
+	public float[] getWeights(int level) {
+		return this.weights.get(level);
+	}
+
+	/** Replies the masses of the vertices of the given level.
+	 *
+	 * @param level
+	 * @return the masses; the array is shared.
+	 */
+	public float[] getMasses(int level) {
+		return this.masses.get(level);
+	}
+
+	/** Replies the widths of the vertices of the given level.
+	 *
+	 * @param level
+	 * @return the widths; the array is shared.
+	 */
+	public float[] getWidths(int level) {
+		return this.widths.get(level);
+	}
+
+	/** Replies the heights of the vertices of the given level.
+	 *
+	 * @param level
+	 * @return the heights; the array is shared.
+	 */
+	public float[] getHeights(int level) {
+		return this.heights.get(level);
+	}
+
+	/** Replies the coarse vertices of the vertices of the given level.
+	 *
+	 * @param level is a level lower than <code>getLevelCount()-1</code>.
+	 * @return the index of the vertex of the level <code>level+1</code>
+	 * for each vertex of the level <code>level</code>; the array is shared.
+	 */
+	public int[] getParents(int level) {
+		return this.parents.get(level);
+	}
+
+	/** Place the vertices of a level around the vertices of
+	 * the coarser level.
+	 * Each vertex is randomly put inside the box of its coarse vertex.
+	 *
+	 * @param level is a level lower than <code>getLevelCount()-1</code>.
+	 * @param coarseX are the x coordinates of the centers of the vertices
+	 * of the level <code>level+1</code>.
+	 * @param coarseY are the y coordinates of the centers of the vertices
+	 * of the level <code>level+1</code>.
+	 * @param x are the x coordinates of the centers of the vertices
+	 * of the level <code>level</code>, that are set by this function.
+	 * @param y are the y coordinates of the centers of the vertices
+	 * of the level <code>level</code>, that are set by this function.
+	 * @param random
+	 */
+	public void interpolate(int level, float[] coarseX, float[] coarseY, float[] x, float[] y, Random random) {
+		int[] parent = this.parents.get(level);
+		float[] coarseWidths = this.widths.get(level+1);
+		float[] coarseHeights = this.heights.get(level+1);
+		int p;
+		for(int v=0; v<parent.length; ++v) {
+			p = parent[v];
+			x[v] = coarseX[p] + (random.nextFloat() - .5f) * coarseWidths[p];
+			y[v] = coarseY[p] + (random.nextFloat() - .5f) * coarseHeights[p];
+		}
+	}
+
+	/** Coarsen the graph until the coarsest level has at most the given
+	 * number of vertices, or until the coarsening is not reducing
+	 * the graph anymore.
+	 *
+	 * @param coarsestSize is the maximal number of vertices of the coarsest level.
+	 * @param random is the generator of the order of the matching.
+	 */
+	public void coarsen(int coarsestSize, Random random) {
+		while (getVertexCount(getLevelCount()-1)>coarsestSize) {
+			if (!coarsenLevel(random)) return;
+		}
+	}
+
+	/** Add a coarse level.
+	 *
+	 * @param random
+	 * @return <code>true</code> if the level was added; <code>false</code>
+	 * if the graph cannot be reduced enough.
+	 */
+	private boolean coarsenLevel(Random random) {
+		int level = getLevelCount() - 1;
+		int n = getVertexCount(level);
+		int[] off = this.offsets.get(level);
+		int[] adj = this.adjacency.get(level);
+		float[] w = this.weights.get(level);
+		float[] mass = this.masses.get(level);
+
+		// Random order of the vertices
+		int[] order = new int[n];
+		for(int i=0; i<n; ++i) {
+			order[i] = i;
+		}
+		int j, tmp;
+		for(int i=n-1; i>0; --i) {
+			j = random.nextInt(i+1);
+			tmp = order[i];
+			order[i] = order[j];
+			order[j] = tmp;
+		}
+
+		// Heavy-edge matching; the isolated vertices are paired together
+		int[] match = new int[n];
+		for(int i=0; i<n; ++i) {
+			match[i] = -1;
+		}
+		int coarseCount = n;
+		int lastIsolated = -1;
+		int v, u, best;
+		float bestWeight, bestMass;
+		for(int i=0; i<n; ++i) {
+			v = order[i];
+			if (match[v]>=0) continue;
+			if (off[v]==off[v+1]) {
+				if (lastIsolated>=0) {
+					match[v] = lastIsolated;
+					match[lastIsolated] = v;
+					lastIsolated = -1;
+					--coarseCount;
+				}
+				else {
+					lastIsolated = v;
+				}
+				continue;
+			}
+			best = -1;
+			bestWeight = Float.NEGATIVE_INFINITY;
+			bestMass = Float.POSITIVE_INFINITY;
+			for(int k=off[v]; k<off[v+1]; ++k) {
+				u = adj[k];
+				if (u!=v && match[u]<0
+					&& (w[k]>bestWeight || (w[k]==bestWeight && mass[u]<bestMass))) {
+					best = u;
+					bestWeight = w[k];
+					bestMass = mass[u];
+				}
+			}
+			if (best>=0) {
+				match[v] = best;
+				match[best] = v;
+				--coarseCount;
+			}
+		}
+
+		// Collapse the unmatched vertices with one of their matched neighbours
+		int[] collapse = null;
+		if (coarseCount>n*COLLAPSE_RATIO) {
+			collapse = new int[n];
+			for(v=0; v<n; ++v) {
+				collapse[v] = -1;
+				if (match[v]<0 && off[v]<off[v+1]) {
+					best = -1;
+					bestWeight = Float.NEGATIVE_INFINITY;
+					for(int k=off[v]; k<off[v+1]; ++k) {
+						u = adj[k];
+						if (match[u]>=0 && w[k]>bestWeight) {
+							best = u;
+							bestWeight = w[k];
+						}
+					}
+					if (best>=0) {
+						collapse[v] = best;
+						--coarseCount;
+					}
+				}
+			}
+		}
+
+		if (coarseCount>n*STOP_RATIO) return false;
+
+		// Numbering of the coarse vertices
+		int[] parent = new int[n];
+		for(v=0; v<n; ++v) {
+			parent[v] = -1;
+		}
+		int count = 0;
+		for(v=0; v<n; ++v) {
+			if (parent[v]<0 && (collapse==null || collapse[v]<0)) {
+				parent[v] = count;
+				if (match[v]>=0) parent[match[v]] = count;
+				++count;
+			}
+		}
+		if (collapse!=null) {
+			for(v=0; v<n; ++v) {
+				if (collapse[v]>=0) parent[v] = parent[collapse[v]];
+			}
+		}
+		assert(count==coarseCount);
+
+		// Properties of the coarse vertices
+		float[] fineWidths = this.widths.get(level);
+		float[] fineHeights = this.heights.get(level);
+		float[] coarseMasses = new float[count];
+		float[] areas = new float[count];
+		int[] memberOffsets = new int[count+1];
+		for(v=0; v<n; ++v) {
+			coarseMasses[parent[v]] += mass[v];
+			areas[parent[v]] += fineWidths[v] * fineHeights[v];
+			++memberOffsets[parent[v]+1];
+		}
+		float[] coarseSizes = new float[count];
+		for(int c=0; c<count; ++c) {
+			coarseSizes[c] = (float)Math.sqrt(areas[c]);
+			memberOffsets[c+1] += memberOffsets[c];
+		}
+		int[] members = new int[n];
+		int[] fill = new int[count];
+		for(v=0; v<n; ++v) {
+			members[memberOffsets[parent[v]] + fill[parent[v]]++] = v;
+		}
+
+		// Merge the edges between the coarse vertices
+		int[] coarseOffsets = new int[count+1];
+		int[] coarseAdjacency = new int[adj.length];
+		float[] coarseWeights = new float[adj.length];
+		int[] marker = new int[count];
+		int[] position = new int[count];
+		for(int c=0; c<count; ++c) {
+			marker[c] = -1;
+		}
+		int length = 0;
+		int p;
+		for(int c=0; c<count; ++c) {
+			coarseOffsets[c] = length;
+			for(int m=memberOffsets[c]; m<memberOffsets[c+1]; ++m) {
+				v = members[m];
+				for(int k=off[v]; k<off[v+1]; ++k) {
+					p = parent[adj[k]];
+					if (p!=c) {
+						if (marker[p]!=c) {
+							marker[p] = c;
+							position[p] = length;
+							coarseAdjacency[length] = p;
+							coarseWeights[length] = w[k];
+							++length;
+						}
+						else {
+							coarseWeights[position[p]] += w[k];
+						}
+					}
+				}
+			}
+		}
+		coarseOffsets[count] = length;
+
+		this.parents.add(parent);
+		this.offsets.add(coarseOffsets);
+		this.adjacency.add(Arrays.copyOf(coarseAdjacency, length));
+		this.weights.add(Arrays.copyOf(coarseWeights, length));
+		this.masses.add(coarseMasses);
+		this.widths.add(coarseSizes);
+		this.heights.add(coarseSizes);
+		return true;
+	}
+
+}
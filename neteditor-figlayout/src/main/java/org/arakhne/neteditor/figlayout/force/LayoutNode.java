@@ -0,0 +1,251 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+
+package org.arakhne.neteditor.figlayout.force;
+
+import java.util.List;
+
+import org.arakhne.afc.math.continous.object2d.Vector2f;
+import org.arakhne.afc.math.generic.Vector2D;
+import org.arakhne.neteditor.fig.figure.Figure;
+import org.arakhne.neteditor.fig.figure.edge.EdgeFigure;
+
+/** Node in the Force-based layout algorithm. 
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @see "http://en.wikipedia.org/wiki/Force-based_algorithms_(graph_drawing)"
+ * @since 18.0
+ */
+class LayoutNode {
+
+	/** Position of the node.
+	 */
+	private float x;
+
+	/** Position of the node.
+	 */
+	private float y;
+	
+	/** Center of the node.
+	 */
+	private float centerX;
+
+	/** Center of the node.
+	 */
+	private float centerY;
+
+	/** Max position of the node.
+	 */
+	private float maxX;
+
+	/** Max position of the node.
+	 */
+	private float maxY;
+
+	/** Velocity of the node.
+	 */
+	public final Vector2D velocity = new Vector2f();
+	
+	/** Mass of the node.
+	 */
+	public final float mass;
+
+	/** Edges that may repulse this node; or <code>null</code> if none.
+	 */
+	public List<EdgeFigure<?>> repulsiveEdges = null;
+
+	/** Nodes that are linked to this node by a spring; or
+	 * <code>null</code> if this node is not for a node figure.
+	 */
+	public LayoutNode[] springs = null;
+
+	/** Factors of the spring constant for each of the {@link #springs};
+	 * or <code>null</code> if all the springs have the same constant.
+	 */
+	public float[] springWeights = null;
+
+	/** Indicates if the node is never moved.
+	 */
+	public boolean pinned = false;
+
+	/** Indicates if the node is moving.
+	 */
+	public boolean active = true;
+
+	/** Indicates if the node must be moving on the next iteration.
+	 */
+	public boolean wakeUp = false;
+
+	/** Kinetic energy of the node after its last move.
+	 */
+	public float energy = 0f;
+
+	/** Width of the node.
+	 */
+	public final float width;
+
+	/** Height of the node.
+	 */
+	public final float height;
+
+	/** Graph node represented by this LayoutNode, or <code>null</code>
+	 * if the node is standing for several figures.
+	 */
+	private final Figure figure;
+	
+	/**
+	 * @param x
+	 * @param y
+	 * @param width
+	 * @param height
+	 * @param figure
+	 * @param mass
+	 */
+	public LayoutNode(float x, float y, float width, float height, Figure figure, float mass) {
+		this.mass = mass;
+		this.figure = figure;
+		this.width = width;
+		this.height = height;
+		setX(x);
+		setY(y);
+	}
+
+	/** Replies the node figure.
+	 * 
+	 * @return the node figure.
+	 */
+	public Figure getFigure() {
+		return this.figure;
+	}
+
+	/** Replies x.
+	 * 
+	 * @return x
+	 */
+	public float getX() {
+		return this.x;
+	}
+
+	/** Set x.
+	 * 
+	 * @param x
+	 */
+	public void setX(float x) {
+		this.x = x;
+		this.centerX = this.x + this.width/2f;
+		this.maxX = this.x + this.width;
+	}
+
+	/** Replies y.
+	 * 
+	 * @return y
+	 */
+	public float getY() {
+		return this.y;
+	}
+
+	/** Set y.
+	 * 
+	 * @param y
+	 */
+	public void setY(float y) {
+		this.y = y;
+		this.centerY = this.y + this.height/2f;
+		this.maxY = this.y + this.height;
+	}
+
+	/** Move this node according to the given force.
+	 * 
+	 * @param fx is the net force applied on the node.
+	 * @param fy is the net force applied on the node.
+	 * @param timestep
+	 * @param damping
+	 * @return the kinetic energy of the node after its move.
+	 */
+	public float move(float fx, float fy, float timestep, float damping) {
+		if (!this.active) {
+			this.energy = 0f;
+			return 0f;
+		}
+		
+		// without damping, it moves forever
+		
+		// this_node.velocity := (this_node.velocity + timestep * net-force) * damping
+		this.velocity.add(fx * timestep, fy * timestep);
+		this.velocity.scale(damping);
+		
+		// this_node.position := this_node.position + timestep * this_node.velocity
+		setX(this.x + timestep * this.velocity.getX());
+		setY(this.y + timestep * this.velocity.getY());
+		
+		this.energy = this.mass * this.velocity.lengthSquared();
+		return this.energy;
+	}
+
+	/** Replies the center x.
+	 * 
+	 * @return center x
+	 */
+	public float getCenterX() {
+		return this.centerX;
+	}
+
+	/** Replies the center y.
+	 * 
+	 * @return center y
+	 */
+	public float getCenterY() {
+		return this.centerY;
+	}
+
+	/** Replies the max x.
+	 * 
+	 * @return max x
+	 */
+	public float getMaxX() {
+		return this.maxX;
+	}
+
+	/** Replies the max y.
+	 * 
+	 * @return max y
+	 */
+	public float getMaxY() {
+		return this.maxY;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append("((LayoutNode:"); //$NON-NLS-1$
+		b.append(this.figure);
+		b.append("=("); //$NON-NLS-1$
+		b.append(this.x);
+		b.append(";"); //$NON-NLS-1$
+		b.append(this.y);
+		b.append(")))"); //$NON-NLS-1$
+		return b.toString();
+	}
+
+}
@@ -0,0 +1,267 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.force;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.arakhne.afc.ui.vector.Margins;
+
+/** Force-based simulation on a level of a {@link GraphHierarchy}.
+ * <p>
+ * The forces are computed by the {@link ForceAccumulator} of the
+ * {@link ForceBasedFigureLayout}: the vertices are repulsing each other
+ * according to Coulomb's law, with the Barnes-Hut approximation; and
+ * the linked vertices are attracting each other according to Hooke's law
+ * when their boxes, enlarged with the margins, are farther than the
+ * preferred space. The springs of the merged edges are weighted by
+ * the number of merged edges.
+ * <p>
+ * A coarse vertex is standing for several vertices of the graph; its
+ * relative mass is the ratio between its mass and the mean mass of
+ * the vertices of the graph. The repulsion is multiplied by the mean
+ * relative mass of the level, and the attraction is divided by the
+ * relative mass of the attracted vertex, so that the coarse vertices
+ * are behaving as the groups of vertices they are standing for.
+ * Because the coarse levels are larger, the accelerations are
+ * multiplied by the square root of the mean relative mass of the
+ * level; and the velocities are bounded by the mean size of the vertices
+ * plus the preferred space, which avoids the explosion of the
+ * vertices that are interpolated close to each other.
+ * <p>
+ * On each step, the forces on all the vertices are computed from
+ * the positions of the previous step; then the vertices are moved.
+ * So that the forces may be computed in parallel, and the results
+ * do not depend on the number of threads.
+ * <p>
+ * The positions are the centers of the vertices.
+ *
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+class LevelSimulation {
+
+	/** Number of vertices in a chunk of the parallel computation.
+	 */
+	private static final int CHUNK_SIZE = 256;
+
+	private final BarnesHutQuadTree tree;
+
+	private final float coulombConstant;
+	private final float springConstant;
+	private final float theta;
+	private final float timestep;
+	private final float damping;
+	private final Margins insets;
+	private final float space;
+
+	private int count = 0;
+	private LayoutNode[] nodes;
+	private ForceAccumulator accumulator;
+	private float[] x;
+	private float[] y;
+	private float[] vx;
+	private float[] vy;
+	private float[] forces;
+	/** Maximal velocity of the vertices.
+	 */
+	private float maxVelocity;
+	/** Factor of the accelerations.
+	 */
+	private float scale;
+
+	/**
+	 * @param coulombConstant is the Coulomb's constant.
+	 * @param springConstant is the spring constant.
+	 * @param theta is the opening angle of the Barnes-Hut approximation.
+	 * @param timestep is the time step of a move.
+	 * @param damping is the damping of the velocities.
+	 * @param insets are the margins of the vertices.
+	 * @param space is the preferred space between two linked vertices.
+	 */
+	public LevelSimulation(float coulombConstant, float springConstant, float theta,
+			float timestep, float damping,
+			Margins insets, float space) {
+		this.coulombConstant = coulombConstant;
+		this.springConstant = springConstant;
+		this.theta = theta;
+		this.timestep = timestep;
+		this.damping = damping;
+		this.insets = insets;
+		this.space = space;
+		this.tree = (theta>0f) ? new BarnesHutQuadTree() : null;
+	}
+
+	/** Start the simulation of the given level.
+	 * The velocities are reset.
+	 *
+	 * @param hierarchy
+	 * @param level
+	 * @param x are the x coordinates of the centers of the vertices;
+	 * the array is modified by the simulation.
+	 * @param y are the y coordinates of the centers of the vertices;
+	 * the array is modified by the simulation.
+	 */
+	public void setLevel(GraphHierarchy hierarchy, int level, float[] x, float[] y) {
+		this.count = hierarchy.getVertexCount(level);
+		int[] offsets = hierarchy.getOffsets(level);
+		int[] adjacency = hierarchy.getAdjacency(level);
+		float[] weights = hierarchy.getWeights(level);
+		float[] masses = hierarchy.getMasses(level);
+		float[] widths = hierarchy.getWidths(level);
+		float[] heights = hierarchy.getHeights(level);
+		this.x = x;
+		this.y = y;
+		this.vx = new float[this.count];
+		this.vy = new float[this.count];
+		this.forces = new float[this.count*2];
+		float[] graphMasses = hierarchy.getMasses(0);
+		float m = 0f;
+		for(int i=0; i<graphMasses.length; ++i) {
+			m += graphMasses[i];
+		}
+		float unitMass = (m>0f) ? m / graphMasses.length : 1f;
+		float size = 0f;
+		m = 0f;
+		for(int i=0; i<this.count; ++i) {
+			size += widths[i] + heights[i];
+			m += masses[i];
+		}
+		float meanMass = m / (Math.max(1, this.count) * unitMass);
+		this.scale = (float)Math.sqrt(meanMass);
+		this.maxVelocity = (size / (2*Math.max(1, this.count)) + this.space) / this.timestep;
+
+		// The nodes are created from the centers of the vertices
+		this.nodes = new LayoutNode[this.count];
+		for(int i=0; i<this.count; ++i) {
+			this.nodes[i] = new LayoutNode(
+					x[i] - widths[i] / 2f, y[i] - heights[i] / 2f,
+					widths[i], heights[i], null, masses[i]);
+		}
+		// The attraction is divided by the relative mass of the attracted vertex
+		int degree;
+		LayoutNode node;
+		for(int i=0; i<this.count; ++i) {
+			node = this.nodes[i];
+			degree = offsets[i+1] - offsets[i];
+			node.springs = new LayoutNode[degree];
+			node.springWeights = new float[degree];
+			for(int k=0; k<degree; ++k) {
+				node.springs[k] = this.nodes[adjacency[offsets[i]+k]];
+				node.springWeights[k] = weights[offsets[i]+k] * unitMass / masses[i];
+			}
+		}
+		// The repulsion is multiplied by the mean relative mass of the level
+		this.accumulator = new ForceAccumulator(this.nodes, this.tree, this.theta,
+				this.coulombConstant * meanMass, this.springConstant,
+				this.insets, this.space, null);
+	}
+
+	/** Run one step of the simulation.
+	 *
+	 * @param executor is the executor service used for computing the forces
+	 * in parallel, or <code>null</code>.
+	 * @return the total kinetic energy after the step.
+	 * @throws InterruptedException if the step was interrupted; the
+	 * vertices are not moved.
+	 */
+	public float step(ExecutorService executor) throws InterruptedException {
+		if (this.tree!=null) {
+			this.tree.build(this.x, this.y, this.count);
+		}
+		if (executor!=null && this.count>CHUNK_SIZE) {
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+			for(int start=0; start<this.count; start+=CHUNK_SIZE) {
+				final int s = start;
+				final int e = Math.min(this.count, start+CHUNK_SIZE);
+				tasks.add(new Callable<Object>() {
+					@Override
+					public Object call() throws Exception {
+						computeForces(s, e);
+						return null;
+					}
+				});
+			}
+			for(Future<Object> future : executor.invokeAll(tasks)) {
+				try {
+					future.get();
+				}
+				catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+					if (cause instanceof Error) throw (Error)cause;
+					throw new RuntimeException(cause);
+				}
+			}
+		}
+		else {
+			computeForces(0, this.count);
+		}
+
+		float energy = 0f;
+		float[] f = this.forces;
+		float vxi, vyi, speed;
+		float maxSpeed = this.maxVelocity * this.maxVelocity;
+		LayoutNode node;
+		for(int i=0; i<this.count; ++i) {
+			vxi = (this.vx[i] + this.timestep * this.scale * f[i*2]) * this.damping;
+			vyi = (this.vy[i] + this.timestep * this.scale * f[i*2+1]) * this.damping;
+			speed = vxi * vxi + vyi * vyi;
+			if (speed>maxSpeed) {
+				speed = (float)Math.sqrt(maxSpeed / speed);
+				vxi *= speed;
+				vyi *= speed;
+			}
+			this.vx[i] = vxi;
+			this.vy[i] = vyi;
+			node = this.nodes[i];
+			node.setX(node.getX() + this.timestep * vxi);
+			node.setY(node.getY() + this.timestep * vyi);
+			this.x[i] = node.getCenterX();
+			this.y[i] = node.getCenterY();
+			energy += node.mass * (vxi * vxi + vyi * vyi);
+		}
+		return energy;
+	}
+
+	/** Compute the forces on the given vertices.
+	 *
+	 * @param start is the index of the first vertex.
+	 * @param end is the index after the last vertex.
+	 */
+	void computeForces(int start, int end) {
+		float[] force = new float[2];
+		int[] stack = BarnesHutQuadTree.newStack();
+		for(int i=start; i<end; ++i) {
+			this.accumulator.computeNetForce(i, force, stack);
+			this.forces[i*2] = force[0];
+			this.forces[i*2+1] = force[1];
+		}
+	}
+
+}
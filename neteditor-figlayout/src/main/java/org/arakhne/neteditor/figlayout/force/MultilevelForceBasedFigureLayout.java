@@ -0,0 +1,300 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.force;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+import org.arakhne.afc.math.generic.Point2D;
+import org.arakhne.afc.ui.vector.Margins;
+import org.arakhne.afc.vmutil.locale.Locale;
+import org.arakhne.neteditor.figlayout.FigureLayoutControl;
+import org.arakhne.neteditor.figlayout.LayoutGraph;
+
+/** This class provides the implementation of a multilevel
+ * force-based laying-out algorithm, for the large graphs.
+ * <p>
+ * The graph is coarsened by matching the linked nodes, until
+ * the coarsest graph is small enough. The coarsest graph is laid out
+ * from random positions; then, the nodes of each finer graph are
+ * put around the positions of their coarse nodes, and refined
+ * with a bounded number of iterations of the force model of
+ * the {@link ForceBasedFigureLayout}. Because the number of nodes
+ * is nearly divided by two from a level to the next one, and because
+ * the repulsion is approximated with the Barnes-Hut algorithm, the
+ * time of the laying-out is nearly linear in the size of the graph.
+ * <p>
+ * Only the nodes are moved; the decoration figures are not laid out.
+ * The edges are not repulsing the nodes.
+ * <p>
+ * The mass of a coarse node is the sum of the masses of its nodes.
+ * The random coordinates of the coarsest graph are computed in a space
+ * that is enlarged when it is too small for the nodes.
+ * The default opening angle of the Barnes-Hut approximation is
+ * {@link #RECOMMENDED_BARNES_HUT_OPENING_ANGLE}; when it is zero,
+ * the time of the laying-out is quadratic.
+ *
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @see "http://en.wikipedia.org/wiki/Force-based_algorithms_(graph_drawing)"
+ * @since 18.0
+ */
+public class MultilevelForceBasedFigureLayout extends AbstractForceBasedFigureLayout {
+
+	/** Factor of the number of iterations on the coarsest level,
+	 * which starts from random positions.
+	 */
+	private static final int COARSEST_LEVEL_ITERATION_FACTOR = 4;
+
+	/** Maximal number of nodes of the coarsest graph.
+	 */
+	private int coarsestGraphSize = DEFAULT_COARSEST_GRAPH_SIZE;
+
+	/** Maximal number of iterations on each level.
+	 */
+	private int levelIterations = DEFAULT_LEVEL_ITERATIONS;
+
+	/**
+	 */
+	public MultilevelForceBasedFigureLayout() {
+		setBarnesHutOpeningAngle(RECOMMENDED_BARNES_HUT_OPENING_ANGLE);
+	}
+
+	/** Replies the maximal number of nodes of the coarsest graph.
+	 *
+	 * @return the maximal number of nodes of the coarsest graph.
+	 */
+	public int getCoarsestGraphSize() {
+		return this.coarsestGraphSize;
+	}
+
+	/** Set the maximal number of nodes of the coarsest graph.
+	 * The coarsening is stopped earlier when it is not reducing
+	 * the graph anymore.
+	 *
+	 * @param size is the maximal number of nodes of the coarsest graph, at least 2.
+	 */
+	public void setCoarsestGraphSize(int size) {
+		if (size>=2) {
+			this.coarsestGraphSize = size;
+		}
+	}
+
+	/** Replies the maximal number of iterations on each level.
+	 * The coarsest level, that is starting from random positions,
+	 * is allowed four times more iterations.
+	 *
+	 * @return the maximal number of iterations on each level.
+	 */
+	public int getLevelIterationCount() {
+		return this.levelIterations;
+	}
+
+	/** Set the maximal number of iterations on each level.
+	 * The coarsest level, that is starting from random positions,
+	 * is allowed four times more iterations.
+	 *
+	 * @param iterations is the maximal number of iterations on each
+	 * level, stricly positive.
+	 */
+	public void setLevelIterationCount(int iterations) {
+		if (iterations>0) {
+			this.levelIterations = iterations;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected String getUndoName() {
+		return Locale.getString(MultilevelForceBasedFigureLayout.class, "UNDO_NAME"); //$NON-NLS-1$
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean computeLayout(LayoutGraph graph) {
+		Long seed = getRandomSeed();
+		Random random = (seed==null) ? new Random() : new Random(seed.longValue());
+		FigureMassCalculator calculator = getNodeMassCalculator();
+		ExecutorService executor = getExecutorService();
+		float threshold = getMaximalKinematicEnergy();
+		Point2D origin = getOrigin();
+		Margins insets = getMargins();
+		FigureLayoutControl control = createControl();
+
+		// Select the nodes
+		int[] vertices = new int[graph.getVertexCount()];
+		int[] nodeIndexes = new int[graph.getVertexCount()];
+		int n = 0;
+		for(int v=0; v<graph.getVertexCount(); ++v) {
+			if (graph.isNode(v)) {
+				nodeIndexes[v] = n;
+				vertices[n++] = v;
+			}
+			else {
+				nodeIndexes[v] = -1;
+			}
+		}
+		if (n==0) return true;
+
+		// Build the undirected graph of the nodes
+		int[] offsets = new int[n+1];
+		int s, t;
+		for(int e=0; e<graph.getEdgeCount(); ++e) {
+			s = nodeIndexes[graph.getEdgeSource(e)];
+			t = nodeIndexes[graph.getEdgeTarget(e)];
+			if (s!=t) {
+				++offsets[s+1];
+				++offsets[t+1];
+			}
+		}
+		for(int i=0; i<n; ++i) {
+			offsets[i+1] += offsets[i];
+		}
+		int[] adjacency = new int[offsets[n]];
+		int[] fill = new int[n];
+		for(int e=0; e<graph.getEdgeCount(); ++e) {
+			s = nodeIndexes[graph.getEdgeSource(e)];
+			t = nodeIndexes[graph.getEdgeTarget(e)];
+			if (s!=t) {
+				adjacency[offsets[s] + fill[s]++] = t;
+				adjacency[offsets[t] + fill[t]++] = s;
+			}
+		}
+		float[] masses = new float[n];
+		float[] widths = new float[n];
+		float[] heights = new float[n];
+		float mass;
+		for(int i=0; i<n; ++i) {
+			mass = (calculator==null) ? DEFAULT_MASS : calculator.computeMassFor(graph.getFigure(vertices[i]));
+			masses[i] = (mass>0f) ? mass : DEFAULT_MASS;
+			widths[i] = graph.getWidth()[vertices[i]];
+			heights[i] = graph.getHeight()[vertices[i]];
+		}
+
+		// Coarsening
+		GraphHierarchy hierarchy = new GraphHierarchy(offsets, adjacency, masses, widths, heights);
+		hierarchy.coarsen(getCoarsestGraphSize(), random);
+
+		// Random positions of the coarsest nodes
+		int level = hierarchy.getLevelCount() - 1;
+		int count = hierarchy.getVertexCount(level);
+		float area = 0f;
+		for(int i=0; i<count; ++i) {
+			area += hierarchy.getWidths(level)[i] * hierarchy.getHeights(level)[i];
+		}
+		float spaceSize = Math.max(getRandomCoordinateSpaceSize(), (float)Math.sqrt(area));
+		float[] x = new float[count];
+		float[] y = new float[count];
+		for(int i=0; i<count; ++i) {
+			x[i] = origin.getX() + (random.nextFloat()-random.nextFloat()) * spaceSize;
+			y[i] = origin.getY() + (random.nextFloat()-random.nextFloat()) * spaceSize;
+		}
+
+		// Refinement from the coarsest level to the graph
+		LevelSimulation simulation = new LevelSimulation(
+				getCoulombConstant(), getSpringConstant(), getBarnesHutOpeningAngle(),
+				getTimeStep(), getDamping(),
+				insets, getPreferredInterNodeSpace());
+		boolean stopped = false;
+		int maxIterations = getLevelIterationCount() * COARSEST_LEVEL_ITERATION_FACTOR;
+		int iterations;
+		float energy;
+		try {
+			while (level>=0) {
+				if (!stopped) {
+					simulation.setLevel(hierarchy, level, x, y);
+					iterations = 0;
+					do {
+						energy = simulation.step(executor);
+						++iterations;
+						if (control.isPublicationRequired()) {
+							copyPositions(graph, vertices, hierarchy, level, x, y);
+							control.publish(graph);
+						}
+						// When the laying-out is stopped, the nodes of
+						// the finer levels are only interpolated.
+						stopped = !control.nextIteration();
+					}
+					while (!stopped && energy>threshold && iterations<maxIterations);
+					maxIterations = getLevelIterationCount();
+				}
+				if (level>0) {
+					float[] fineX = new float[hierarchy.getVertexCount(level-1)];
+					float[] fineY = new float[fineX.length];
+					hierarchy.interpolate(level-1, x, y, fineX, fineY, random);
+					x = fineX;
+					y = fineY;
+				}
+				--level;
+			}
+		}
+		catch(InterruptedException e) {
+			// The layout is cancelled; the nodes are not moved.
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		// A cancelled layout does not change the figures.
+		if (control.isCancelled()) return false;
+
+		// Remove the intermediate control points.
+		graph.removeIntermediateControlPoints();
+		// Move the nodes
+		copyPositions(graph, vertices, hierarchy, 0, x, y);
+		return true;
+	}
+
+	/** Copy the positions of the nodes of a level into the graph.
+	 * Each node of the graph is put at the center of its
+	 * coarse node in the given level.
+	 *
+	 * @param graph
+	 * @param vertices are the vertices of the nodes in the graph.
+	 * @param hierarchy
+	 * @param level
+	 * @param x are the x coordinates of the centers of the nodes of the level.
+	 * @param y are the y coordinates of the centers of the nodes of the level.
+	 */
+	private static void copyPositions(LayoutGraph graph, int[] vertices, GraphHierarchy hierarchy,
+			int level, float[] x, float[] y) {
+		float[] graphX = graph.getX();
+		float[] graphY = graph.getY();
+		float[] widths = graph.getWidth();
+		float[] heights = graph.getHeight();
+		int node, v;
+		for(int i=0; i<hierarchy.getVertexCount(0); ++i) {
+			node = i;
+			for(int l=0; l<level; ++l) {
+				node = hierarchy.getParents(l)[node];
+			}
+			v = vertices[i];
+			graphX[v] = x[node] - widths[v] / 2f;
+			graphY[v] = y[node] - heights[v] / 2f;
+		}
+	}
+
+}
@@ -0,0 +1,353 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.sugiyama;
+
+import java.util.Arrays;
+
+/** Assignment of the coordinates of the nodes of a
+ * {@link LayeredGraph} inside their layers with the algorithm
+ * of Brandes and K&ouml;pf.
+ * <p>
+ * Four alignments are computed, toward the upper-left, the upper-right,
+ * the lower-left and the lower-right corners: each node is vertically
+ * aligned with a median neighbor in the adjacent layer, unless the
+ * alignment is crossing an alignment that is already done, or a segment
+ * between two virtual nodes. The aligned nodes are forming blocks that
+ * are compacted with a longest-path on the graph of the blocks.
+ * The four alignments are shifted on the alignment with the smallest
+ * width, and the coordinate of each node is the average of its two
+ * median coordinates.
+ * <p>
+ * The segments between two virtual nodes are preferred, so that
+ * the long edges are straight. All the steps are linear in the size
+ * of the graph, except the sort of the neighbors of each node.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @see "U. Brandes, B. K&ouml;pf, Fast and simple horizontal coordinate assignment, 2002"
+ * @since 18.0
+ */
+class CoordinateAssignment {
+
+	private final LayeredGraph graph;
+	private final float[] sizes;
+	private final float gap;
+	private final int nodeCount;
+
+	/** Type-1 conflicts, indexed as the segments to the upper layers.
+	 */
+	private final boolean[] upperConflicts;
+	/** Type-1 conflicts, indexed as the segments to the lower layers.
+	 */
+	private final boolean[] lowerConflicts;
+
+	private CoordinateAssignment(LayeredGraph graph, float[] sizes, float gap) {
+		this.graph = graph;
+		this.sizes = sizes;
+		this.gap = gap;
+		this.nodeCount = graph.getNodeCount();
+		this.upperConflicts = new boolean[graph.getUpperNodes().length];
+		this.lowerConflicts = new boolean[graph.getLowerNodes().length];
+	}
+
+	/** Compute the coordinates of the centers of the nodes in their layers.
+	 * 
+	 * @param graph is the layered graph.
+	 * @param sizes are the sizes of the nodes along the layers.
+	 * @param gap is the minimal space between two adjacent nodes.
+	 * @return the coordinates of the centers of the nodes; the coordinates of the
+	 * nodes that are not in a layer are undefined.
+	 */
+	public static float[] assignCoordinates(LayeredGraph graph, float[] sizes, float gap) {
+		CoordinateAssignment assignment = new CoordinateAssignment(graph, sizes, gap);
+		assignment.markType1Conflicts();
+
+		float[][] xs = new float[4][];
+		xs[0] = assignment.computeAlignment(true, false);
+		xs[1] = assignment.computeAlignment(true, true);
+		xs[2] = assignment.computeAlignment(false, false);
+		xs[3] = assignment.computeAlignment(false, true);
+
+		return assignment.balance(xs);
+	}
+
+	private boolean isLayered(int node) {
+		return this.graph.getLayerOf(node)>=0;
+	}
+
+	/** Mark the segments that are crossing a segment between
+	 * two virtual nodes.
+	 */
+	private void markType1Conflicts() {
+		int[] positions = this.graph.getPositions();
+		int[] upperOffsets = this.graph.getUpperOffsets();
+		int[] upperNodes = this.graph.getUpperNodes();
+		int[] lowerOffsets = this.graph.getLowerOffsets();
+		int[] lowerNodes = this.graph.getLowerNodes();
+		int v, w, k0, k1, scanPos, s, u, uPos;
+		for(int l=1; l<this.graph.getLayerCount(); ++l) {
+			int[] layer = this.graph.getLayer(l);
+			int upperLength = this.graph.getLayer(l-1).length;
+			k0 = 0;
+			scanPos = 0;
+			for(int i=0; i<layer.length; ++i) {
+				v = layer[i];
+				w = -1;
+				if (this.graph.isDummy(v) && upperOffsets[v]<upperOffsets[v+1]
+					&& this.graph.isDummy(upperNodes[upperOffsets[v]])) {
+					w = upperNodes[upperOffsets[v]];
+				}
+				if (w>=0 || i==layer.length-1) {
+					k1 = (w>=0) ? positions[w] : upperLength;
+					for(int j=scanPos; j<=i; ++j) {
+						s = layer[j];
+						for(int idx=upperOffsets[s]; idx<upperOffsets[s+1]; ++idx) {
+							u = upperNodes[idx];
+							uPos = positions[u];
+							if ((uPos<k0 || uPos>k1)
+								&& !(this.graph.isDummy(u) && this.graph.isDummy(s))) {
+								this.upperConflicts[idx] = true;
+								for(int k=lowerOffsets[u]; k<lowerOffsets[u+1]; ++k) {
+									if (lowerNodes[k]==s) this.lowerConflicts[k] = true;
+								}
+							}
+						}
+					}
+					scanPos = i + 1;
+					k0 = k1;
+				}
+			}
+		}
+	}
+
+	/** Compute one of the four alignments.
+	 * 
+	 * @param upward indicates if the nodes are aligned with their upper neighbors.
+	 * @param rightward indicates if the layers are traversed from the right.
+	 * @return the coordinates of the nodes.
+	 */
+	private float[] computeAlignment(boolean upward, boolean rightward) {
+		int layerCount = this.graph.getLayerCount();
+		int[] positions = this.graph.getPositions();
+
+		// Positions in the traversal order
+		int[] pos = new int[this.nodeCount];
+		int[] root = new int[this.nodeCount];
+		int[] align = new int[this.nodeCount];
+		for(int v=0; v<this.nodeCount; ++v) {
+			if (isLayered(v)) {
+				pos[v] = rightward ? this.graph.getLayer(this.graph.getLayerOf(v)).length - 1 - positions[v] : positions[v];
+			}
+			root[v] = v;
+			align[v] = v;
+		}
+
+		// Vertical alignment
+		int[] offsets = upward ? this.graph.getUpperOffsets() : this.graph.getLowerOffsets();
+		int[] neighbors = upward ? this.graph.getUpperNodes() : this.graph.getLowerNodes();
+		boolean[] conflicts = upward ? this.upperConflicts : this.lowerConflicts;
+		long[] sorted = new long[16];
+		int r, d, v, w, idx, start;
+		for(int k=0; k<layerCount; ++k) {
+			int[] layer = this.graph.getLayer(upward ? k : layerCount - 1 - k);
+			r = -1;
+			for(int i=0; i<layer.length; ++i) {
+				v = layer[rightward ? layer.length - 1 - i : i];
+				start = offsets[v];
+				d = offsets[v+1] - start;
+				if (d>0) {
+					// Sort the neighbors according to their positions
+					if (sorted.length<d) sorted = new long[d*2];
+					for(int j=0; j<d; ++j) {
+						sorted[j] = (((long)pos[neighbors[start+j]]) << 32) | (start+j);
+					}
+					Arrays.sort(sorted, 0, d);
+					for(int m=(d-1)/2; m<=d/2; ++m) {
+						if (align[v]==v) {
+							idx = (int)(sorted[m] & 0xffffffffL);
+							w = neighbors[idx];
+							if (!conflicts[idx] && r<pos[w]) {
+								align[w] = v;
+								root[v] = root[w];
+								align[v] = root[v];
+								r = pos[w];
+							}
+						}
+					}
+				}
+			}
+		}
+
+		float[] xs = compact(root, pos, rightward);
+		if (rightward) {
+			for(int i=0; i<xs.length; ++i) {
+				xs[i] = -xs[i];
+			}
+		}
+		return xs;
+	}
+
+	/** Compact the blocks with a longest path on the graph of
+	 * the blocks, and then pull the blocks toward their successors.
+	 */
+	private float[] compact(int[] root, int[] pos, boolean rightward) {
+		int layerCount = this.graph.getLayerCount();
+
+		// Graph of the blocks: edge from the block of the left node
+		// to the block of the right node of each pair of adjacent nodes.
+		int edgeCount = 0;
+		for(int l=0; l<layerCount; ++l) {
+			edgeCount += Math.max(0, this.graph.getLayer(l).length - 1);
+		}
+		int[] edgeFrom = new int[edgeCount];
+		int[] edgeTo = new int[edgeCount];
+		float[] edgeWeight = new float[edgeCount];
+		int e = 0;
+		int left, right;
+		for(int l=0; l<layerCount; ++l) {
+			int[] layer = this.graph.getLayer(l);
+			for(int i=0; i<layer.length-1; ++i) {
+				if (rightward) {
+					left = layer[layer.length-1-i];
+					right = layer[layer.length-2-i];
+				}
+				else {
+					left = layer[i];
+					right = layer[i+1];
+				}
+				edgeFrom[e] = root[left];
+				edgeTo[e] = root[right];
+				edgeWeight[e] = (this.sizes[left] + this.sizes[right]) / 2f + this.gap;
+				++e;
+			}
+		}
+		int[] outOffsets = new int[this.nodeCount+1];
+		int[] inOffsets = new int[this.nodeCount+1];
+		for(e=0; e<edgeCount; ++e) {
+			++outOffsets[edgeFrom[e]+1];
+			++inOffsets[edgeTo[e]+1];
+		}
+		for(int v=0; v<this.nodeCount; ++v) {
+			outOffsets[v+1] += outOffsets[v];
+			inOffsets[v+1] += inOffsets[v];
+		}
+		int[] outEdges = new int[edgeCount];
+		int[] inEdges = new int[edgeCount];
+		int[] outFill = new int[this.nodeCount];
+		int[] inFill = new int[this.nodeCount];
+		for(e=0; e<edgeCount; ++e) {
+			outEdges[outOffsets[edgeFrom[e]] + outFill[edgeFrom[e]]++] = e;
+			inEdges[inOffsets[edgeTo[e]] + inFill[edgeTo[e]]++] = e;
+		}
+
+		// Topological order of the blocks
+		int[] inDegree = new int[this.nodeCount];
+		int[] order = new int[this.nodeCount];
+		int count = 0;
+		for(int v=0; v<this.nodeCount; ++v) {
+			if (isLayered(v) && root[v]==v) {
+				inDegree[v] = inOffsets[v+1] - inOffsets[v];
+				if (inDegree[v]==0) order[count++] = v;
+			}
+		}
+		int b, t;
+		for(int k=0; k<count; ++k) {
+			b = order[k];
+			for(int i=outOffsets[b]; i<outOffsets[b+1]; ++i) {
+				t = edgeTo[outEdges[i]];
+				if (--inDegree[t]==0) order[count++] = t;
+			}
+		}
+
+		// Longest path from the left
+		float[] blockXs = new float[this.nodeCount];
+		float x;
+		for(int k=0; k<count; ++k) {
+			b = order[k];
+			x = 0f;
+			for(int i=inOffsets[b]; i<inOffsets[b+1]; ++i) {
+				e = inEdges[i];
+				x = Math.max(x, blockXs[edgeFrom[e]] + edgeWeight[e]);
+			}
+			blockXs[b] = x;
+		}
+
+		// Pull the blocks toward their right neighbors
+		float min;
+		for(int k=count-1; k>=0; --k) {
+			b = order[k];
+			if (outOffsets[b]<outOffsets[b+1]) {
+				min = Float.POSITIVE_INFINITY;
+				for(int i=outOffsets[b]; i<outOffsets[b+1]; ++i) {
+					e = outEdges[i];
+					min = Math.min(min, blockXs[edgeTo[e]] - edgeWeight[e]);
+				}
+				blockXs[b] = Math.max(blockXs[b], min);
+			}
+		}
+
+		float[] xs = new float[this.nodeCount];
+		for(int v=0; v<this.nodeCount; ++v) {
+			if (isLayered(v)) xs[v] = blockXs[root[v]];
+		}
+		return xs;
+	}
+
+	/** Align the four alignments on the smallest one, and
+	 * reply the average of the median coordinates.
+	 */
+	private float[] balance(float[][] xs) {
+		float[] mins = new float[xs.length];
+		float[] maxs = new float[xs.length];
+		int smallest = 0;
+		for(int k=0; k<xs.length; ++k) {
+			mins[k] = Float.POSITIVE_INFINITY;
+			maxs[k] = Float.NEGATIVE_INFINITY;
+			for(int v=0; v<this.nodeCount; ++v) {
+				if (isLayered(v)) {
+					mins[k] = Math.min(mins[k], xs[k][v] - this.sizes[v]/2f);
+					maxs[k] = Math.max(maxs[k], xs[k][v] + this.sizes[v]/2f);
+				}
+			}
+			if (maxs[k]-mins[k]<maxs[smallest]-mins[smallest]) smallest = k;
+		}
+		float[] shifts = new float[xs.length];
+		for(int k=0; k<xs.length; ++k) {
+			// The alignments 1 and 3 are traversed from the right
+			shifts[k] = ((k%2)==0) ? mins[smallest] - mins[k] : maxs[smallest] - maxs[k];
+		}
+		float[] result = new float[this.nodeCount];
+		float[] values = new float[xs.length];
+		for(int v=0; v<this.nodeCount; ++v) {
+			if (isLayered(v)) {
+				for(int k=0; k<xs.length; ++k) {
+					values[k] = xs[k][v] + shifts[k];
+				}
+				Arrays.sort(values);
+				result[v] = (values[1] + values[2]) / 2f;
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,397 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.sugiyama;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.arakhne.neteditor.figlayout.FigureLayoutControl;
+
+/** Reduction of the number of crossings in a {@link LayeredGraph}
+ * with layer sweeps.
+ * <p>
+ * Each iteration sweeps the layers, alternatively from the top and
+ * from the bottom. During a sweep, the nodes of a layer are sorted
+ * according to the median or the barycenter of the positions of their
+ * neighbors in the previous layer of the sweep; the nodes without
+ * neighbor stay at their places. Then, the adjacent nodes of each
+ * layer are transposed while the transposition is reducing the
+ * number of crossings. The best order that was encountered
+ * is kept.
+ * <p>
+ * The crossings between two layers are counted with the
+ * accumulator tree of Barth, J&uuml;nger and Mutzel, in
+ * <code>O(e log v)</code>.
+ * <p>
+ * A minimization is working on its own copy of the order of the
+ * layers, so that several minimizations with different initial
+ * orders may be run in parallel on the same graph.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @see "W. Barth, M. J&uuml;nger, P. Mutzel, Simple and efficient bilayer cross counting, 2002"
+ * @since 18.0
+ */
+class CrossingMinimization implements Callable<CrossingMinimization> {
+
+	/** Number of iterations without improvement after which
+	 * the minimization is stopped.
+	 */
+	private static final int MAX_ITERATIONS_WITHOUT_IMPROVEMENT = 4;
+
+	private final LayeredGraph graph;
+	private final CrossingReductionHeuristic heuristic;
+	private final int maxIterations;
+	private final Random random;
+	private final FigureLayoutControl control;
+
+	private final int[][] layers;
+	private final int[] positions;
+	private final int[][] bestLayers;
+	private int bestCrossings;
+
+	private final float[] weights;
+	private int[] buffer = new int[16];
+	private int[] tree = new int[16];
+
+	/**
+	 * @param graph is the graph to order.
+	 * @param heuristic is the heuristic used to sort the layers.
+	 * @param maxIterations is the maximal number of sweeps.
+	 * @param random is the generator used to shuffle the layers before
+	 * the minimization, or <code>null</code> to start from the current
+	 * order of the graph.
+	 * @param control is the controller of the laying-out.
+	 */
+	public CrossingMinimization(LayeredGraph graph, CrossingReductionHeuristic heuristic,
+			int maxIterations, Random random, FigureLayoutControl control) {
+		this.graph = graph;
+		this.heuristic = heuristic;
+		this.maxIterations = maxIterations;
+		this.random = random;
+		this.control = control;
+		int layerCount = graph.getLayerCount();
+		this.layers = new int[layerCount][];
+		this.bestLayers = new int[layerCount][];
+		for(int l=0; l<layerCount; ++l) {
+			this.layers[l] = graph.getLayer(l).clone();
+		}
+		this.positions = graph.getPositions().clone();
+		this.weights = new float[graph.getNodeCount()];
+	}
+
+	/** Replies the number of crossings of the best order.
+	 * 
+	 * @return the number of crossings.
+	 */
+	public int getCrossingCount() {
+		return this.bestCrossings;
+	}
+
+	/** Put the best order in the graph.
+	 */
+	public void apply() {
+		for(int l=0; l<this.bestLayers.length; ++l) {
+			System.arraycopy(this.bestLayers[l], 0, this.graph.getLayer(l), 0, this.bestLayers[l].length);
+			this.graph.updatePositions(l);
+		}
+	}
+
+	/** Replies if the minimization must stop.
+	 */
+	private boolean isStopped() {
+		return Thread.currentThread().isInterrupted() || this.control.isBudgetExhausted();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CrossingMinimization call() {
+		if (this.random!=null) {
+			for(int l=0; l<this.layers.length; ++l) {
+				shuffle(this.layers[l], this.random);
+				updatePositions(l);
+			}
+		}
+
+		int crossings = countCrossings();
+		saveBest(crossings);
+
+		int withoutImprovement = 0;
+		for(int iteration=0; this.bestCrossings>0 && iteration<this.maxIterations
+				&& withoutImprovement<MAX_ITERATIONS_WITHOUT_IMPROVEMENT && !isStopped(); ++iteration) {
+			if ((iteration%2)==0) {
+				for(int l=1; l<this.layers.length; ++l) {
+					sortLayer(l, this.graph.getUpperOffsets(), this.graph.getUpperNodes());
+				}
+			}
+			else {
+				for(int l=this.layers.length-2; l>=0; --l) {
+					sortLayer(l, this.graph.getLowerOffsets(), this.graph.getLowerNodes());
+				}
+			}
+			transpose();
+			crossings = countCrossings();
+			if (crossings<this.bestCrossings) {
+				saveBest(crossings);
+				withoutImprovement = 0;
+			}
+			else {
+				++withoutImprovement;
+			}
+		}
+		return this;
+	}
+
+	private void saveBest(int crossings) {
+		this.bestCrossings = crossings;
+		for(int l=0; l<this.layers.length; ++l) {
+			this.bestLayers[l] = this.layers[l].clone();
+		}
+	}
+
+	private void updatePositions(int layer) {
+		int[] nodes = this.layers[layer];
+		for(int i=0; i<nodes.length; ++i) {
+			this.positions[nodes[i]] = i;
+		}
+	}
+
+	private static void shuffle(int[] nodes, Random random) {
+		int tmp, j;
+		for(int i=nodes.length-1; i>0; --i) {
+			j = random.nextInt(i+1);
+			tmp = nodes[i];
+			nodes[i] = nodes[j];
+			nodes[j] = tmp;
+		}
+	}
+
+	/** Sort the given layer according to the positions of the
+	 * neighbors of its nodes in the adjacent layer.
+	 */
+	private void sortLayer(int layer, int[] offsets, int[] neighbors) {
+		int[] nodes = this.layers[layer];
+		int movable = 0;
+		int start, end, count;
+		for(int node : nodes) {
+			start = offsets[node];
+			end = offsets[node+1];
+			count = end - start;
+			if (count>0) {
+				int[] p = neighborPositions(neighbors, start, end);
+				if (this.heuristic==CrossingReductionHeuristic.MEDIAN) {
+					this.weights[node] = median(p, count);
+				}
+				else {
+					float sum = 0f;
+					for(int i=0; i<count; ++i) {
+						sum += p[i];
+					}
+					this.weights[node] = sum / count;
+				}
+				++movable;
+			}
+			else {
+				this.weights[node] = -1f;
+			}
+		}
+		if (movable>1) {
+			// The nodes without neighbor stay at their places
+			int[] sorted = new int[movable];
+			int k = 0;
+			for(int node : nodes) {
+				if (this.weights[node]>=0f) sorted[k++] = node;
+			}
+			sortByWeight(sorted, this.weights);
+			k = 0;
+			for(int i=0; i<nodes.length; ++i) {
+				if (this.weights[nodes[i]]>=0f) nodes[i] = sorted[k++];
+			}
+			updatePositions(layer);
+		}
+	}
+
+	/** Replies the sorted positions of the given neighbors in the
+	 * shared buffer.
+	 */
+	private int[] neighborPositions(int[] neighbors, int start, int end) {
+		int count = end - start;
+		if (this.buffer.length<count) this.buffer = new int[count*2];
+		for(int i=start; i<end; ++i) {
+			this.buffer[i-start] = this.positions[neighbors[i]];
+		}
+		Arrays.sort(this.buffer, 0, count);
+		return this.buffer;
+	}
+
+	/** Weighted median of Gansner et al.: when the number of
+	 * neighbors is even, the median is interpolated toward the
+	 * side where the neighbors are packed more tightly.
+	 */
+	private static float median(int[] p, int count) {
+		int m = count / 2;
+		if ((count%2)==1) return p[m];
+		if (count==2) return (p[0] + p[1]) / 2f;
+		float left = p[m-1] - p[0];
+		float right = p[count-1] - p[m];
+		if (left+right==0f) return (p[m-1] + p[m]) / 2f;
+		return (p[m-1] * right + p[m] * left) / (left + right);
+	}
+
+	/** Stable sort of nodes according to the given weights.
+	 * The weights and the current positions are packed in
+	 * primitive keys, so that the sort does not allocate objects.
+	 * 
+	 * @param nodes
+	 * @param weights
+	 */
+	static void sortByWeight(int[] nodes, float[] weights) {
+		long[] keys = new long[nodes.length];
+		int bits;
+		for(int i=0; i<nodes.length; ++i) {
+			bits = Float.floatToIntBits(weights[nodes[i]]);
+			// Order of the negative floats is reversed in their bit representation
+			bits ^= (bits >> 31) & 0x7fffffff;
+			keys[i] = (((long)bits) << 32) | i;
+		}
+		Arrays.sort(keys);
+		int[] copy = nodes.clone();
+		for(int i=0; i<nodes.length; ++i) {
+			nodes[i] = copy[(int)(keys[i] & 0xffffffffL)];
+		}
+	}
+
+	/** Transpose the adjacent nodes of the layers while
+	 * the number of crossings is reduced.
+	 * A layer is visited again only if it or one of its
+	 * adjacent layers was changed during the previous pass.
+	 */
+	private void transpose() {
+		int[] upperOffsets = this.graph.getUpperOffsets();
+		int[] upperNodes = this.graph.getUpperNodes();
+		int[] lowerOffsets = this.graph.getLowerOffsets();
+		int[] lowerNodes = this.graph.getLowerNodes();
+		int layerCount = this.layers.length;
+		boolean[] candidates = new boolean[layerCount];
+		boolean[] changed = new boolean[layerCount];
+		Arrays.fill(candidates, true);
+		boolean improved = true;
+		int v, w, before, after;
+		while (improved) {
+			improved = false;
+			Arrays.fill(changed, false);
+			for(int l=0; l<layerCount; ++l) {
+				if (candidates[l]) {
+					int[] nodes = this.layers[l];
+					for(int i=0; i<nodes.length-1; ++i) {
+						v = nodes[i];
+						w = nodes[i+1];
+						before = pairCrossings(v, w, upperOffsets, upperNodes)
+								+ pairCrossings(v, w, lowerOffsets, lowerNodes);
+						after = pairCrossings(w, v, upperOffsets, upperNodes)
+								+ pairCrossings(w, v, lowerOffsets, lowerNodes);
+						if (after<before) {
+							nodes[i] = w;
+							nodes[i+1] = v;
+							this.positions[w] = i;
+							this.positions[v] = i+1;
+							changed[l] = true;
+							improved = true;
+						}
+					}
+				}
+			}
+			for(int l=0; l<layerCount; ++l) {
+				candidates[l] = changed[l]
+						|| (l>0 && changed[l-1])
+						|| (l<layerCount-1 && changed[l+1]);
+			}
+		}
+	}
+
+	/** Replies the number of crossings between the segments of
+	 * <var>v</var> and the segments of <var>w</var> when
+	 * <var>v</var> is at the left of <var>w</var>.
+	 */
+	private int pairCrossings(int v, int w, int[] offsets, int[] neighbors) {
+		int crossings = 0;
+		int pv;
+		for(int i=offsets[v]; i<offsets[v+1]; ++i) {
+			pv = this.positions[neighbors[i]];
+			for(int j=offsets[w]; j<offsets[w+1]; ++j) {
+				if (pv>this.positions[neighbors[j]]) ++crossings;
+			}
+		}
+		return crossings;
+	}
+
+	/** Replies the total number of crossings.
+	 */
+	private int countCrossings() {
+		int crossings = 0;
+		for(int l=0; l<this.layers.length-1; ++l) {
+			crossings += countCrossings(l);
+		}
+		return crossings;
+	}
+
+	/** Replies the number of crossings between the given layer
+	 * and the next layer with an accumulator tree.
+	 */
+	private int countCrossings(int layer) {
+		int lowerSize = this.layers[layer+1].length;
+		if (lowerSize<2) return 0;
+		int firstIndex = 1;
+		while (firstIndex<lowerSize) firstIndex *= 2;
+		int treeSize = 2 * firstIndex - 1;
+		--firstIndex;
+		if (this.tree.length<treeSize) this.tree = new int[treeSize];
+		Arrays.fill(this.tree, 0, treeSize, 0);
+
+		int[] lowerOffsets = this.graph.getLowerOffsets();
+		int[] lowerNodes = this.graph.getLowerNodes();
+		int crossings = 0;
+		int start, end, index;
+		for(int node : this.layers[layer]) {
+			start = lowerOffsets[node];
+			end = lowerOffsets[node+1];
+			if (start<end) {
+				int[] p = neighborPositions(lowerNodes, start, end);
+				for(int i=0; i<end-start; ++i) {
+					index = p[i] + firstIndex;
+					++this.tree[index];
+					while (index>0) {
+						if ((index%2)==1) crossings += this.tree[index+1];
+						index = (index - 1) / 2;
+						++this.tree[index];
+					}
+				}
+			}
+		}
+		return crossings;
+	}
+
+}
@@ -0,0 +1,203 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.sugiyama;
+
+import java.util.Arrays;
+
+import org.arakhne.neteditor.figlayout.LayoutGraph;
+
+/** Remove the cycles of a graph by reversing the edges
+ * of a feedback arc set.
+ * <p>
+ * The feedback arc set is computed with the greedy heuristic
+ * of Eades, Lin and Smyth: the sinks are put at the end of a
+ * sequence of the nodes, the sources at its beginning, and
+ * when there is no more sink nor source, the node with the
+ * greatest difference between its out-degree and its in-degree
+ * is put at the beginning. The edges that are going backward
+ * in the sequence are reversed. The nodes are stored in buckets
+ * according to their degrees, so that the computation is
+ * linear in the size of the graph.
+ * <p>
+ * The loops on a single node are never reversed; they are
+ * ignored by the Sugiyama layout.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @see "P. Eades, X. Lin, W. F. Smyth, A fast and effective heuristic for the feedback arc set problem, 1993"
+ * @since 18.0
+ */
+class CycleRemoval {
+
+	private static final int SINKS = 0;
+	private static final int SOURCES = 1;
+
+	private final int[] outDegree;
+	private final int[] inDegree;
+	private final int maxDelta;
+	private final int[] head;
+	private final int[] next;
+	private final int[] previous;
+	private final int[] bucket;
+	private int top;
+
+	private CycleRemoval(int vertexCount, int[] outDegree, int[] inDegree, int maxDelta) {
+		this.outDegree = outDegree;
+		this.inDegree = inDegree;
+		this.maxDelta = maxDelta;
+		this.head = new int[2*maxDelta+3];
+		Arrays.fill(this.head, -1);
+		this.next = new int[vertexCount];
+		this.previous = new int[vertexCount];
+		this.bucket = new int[vertexCount];
+		this.top = this.head.length-1;
+	}
+
+	/** Compute the edges to reverse to obtain an acyclic graph.
+	 * Only the edges between two nodes are considered.
+	 * 
+	 * @param graph
+	 * @return the flags that indicate if the edges must be reversed,
+	 * indexed by the edge indexes of the graph.
+	 */
+	public static boolean[] computeReversedEdges(LayoutGraph graph) {
+		int n = graph.getVertexCount();
+		int m = graph.getEdgeCount();
+		int[] outDegree = new int[n];
+		int[] inDegree = new int[n];
+		int s, t;
+		for(int e=0; e<m; ++e) {
+			s = graph.getEdgeSource(e);
+			t = graph.getEdgeTarget(e);
+			if (s!=t) {
+				++outDegree[s];
+				++inDegree[t];
+			}
+		}
+		int maxDelta = 0;
+		for(int v=0; v<n; ++v) {
+			maxDelta = Math.max(maxDelta, Math.max(outDegree[v], inDegree[v]));
+		}
+
+		CycleRemoval buckets = new CycleRemoval(n, outDegree, inDegree, maxDelta);
+		boolean[] removed = new boolean[n];
+		int remaining = 0;
+		for(int v=0; v<n; ++v) {
+			if (graph.isNode(v)) {
+				buckets.insert(v, buckets.bucketOf(v));
+				++remaining;
+			}
+			else {
+				removed[v] = true;
+			}
+		}
+
+		// Rank of the nodes in the sequence: the nodes put at the
+		// beginning have increasing ranks from zero, the nodes
+		// put at the end have decreasing ranks from n-1.
+		int[] rank = new int[n];
+		int left = 0;
+		int right = n-1;
+		int[] outOffsets = graph.getOutOffsets();
+		int[] outEdges = graph.getOutEdges();
+		int[] inOffsets = graph.getInOffsets();
+		int[] inEdges = graph.getInEdges();
+		int v, w;
+		while (remaining>0) {
+			v = buckets.head[SINKS];
+			if (v>=0) {
+				rank[v] = right--;
+			}
+			else {
+				v = buckets.head[SOURCES];
+				if (v<0) v = buckets.pollMax();
+				rank[v] = left++;
+			}
+			buckets.unlink(v);
+			removed[v] = true;
+			--remaining;
+			for(int i=outOffsets[v]; i<outOffsets[v+1]; ++i) {
+				w = graph.getEdgeTarget(outEdges[i]);
+				if (!removed[w]) {
+					--inDegree[w];
+					buckets.update(w);
+				}
+			}
+			for(int i=inOffsets[v]; i<inOffsets[v+1]; ++i) {
+				w = graph.getEdgeSource(inEdges[i]);
+				if (!removed[w]) {
+					--outDegree[w];
+					buckets.update(w);
+				}
+			}
+		}
+
+		boolean[] reversed = new boolean[m];
+		for(int e=0; e<m; ++e) {
+			s = graph.getEdgeSource(e);
+			t = graph.getEdgeTarget(e);
+			reversed[e] = s!=t && rank[s]>rank[t];
+		}
+		return reversed;
+	}
+
+	private int bucketOf(int v) {
+		if (this.outDegree[v]==0) return SINKS;
+		if (this.inDegree[v]==0) return SOURCES;
+		return 2 + this.outDegree[v] - this.inDegree[v] + this.maxDelta;
+	}
+
+	private void insert(int v, int b) {
+		this.bucket[v] = b;
+		this.previous[v] = -1;
+		this.next[v] = this.head[b];
+		if (this.head[b]>=0) this.previous[this.head[b]] = v;
+		this.head[b] = v;
+		if (b>this.top) this.top = b;
+	}
+
+	private void unlink(int v) {
+		int b = this.bucket[v];
+		if (this.previous[v]>=0) this.next[this.previous[v]] = this.next[v];
+		else this.head[b] = this.next[v];
+		if (this.next[v]>=0) this.previous[this.next[v]] = this.previous[v];
+	}
+
+	private void update(int v) {
+		int b = bucketOf(v);
+		if (b!=this.bucket[v]) {
+			unlink(v);
+			insert(v, b);
+		}
+	}
+
+	/** Replies the node with the greatest difference between
+	 * its out-degree and its in-degree. There must be no
+	 * sink nor source.
+	 */
+	private int pollMax() {
+		while (this.head[this.top]<0) --this.top;
+		return this.head[this.top];
+	}
+
+}
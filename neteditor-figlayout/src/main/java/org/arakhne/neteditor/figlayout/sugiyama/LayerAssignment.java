@@ -0,0 +1,194 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.sugiyama;
+
+import java.util.Arrays;
+
+import org.arakhne.neteditor.figlayout.LayoutGraph;
+
+/** Assign the nodes of an acyclic graph to layers.
+ * <p>
+ * The nodes are first assigned with a longest-path layering:
+ * the nodes without predecessor are in the first layer, and each
+ * other node is in the layer that follows the deepest of its
+ * predecessors. This layering is computed in linear time
+ * along a topological order.
+ * <p>
+ * The total span of the edges may then be reduced: each node
+ * is moved to the lowest or the highest layer allowed by its
+ * neighbors, depending on the side of the majority of its edges.
+ * The number of layers is never increased.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+class LayerAssignment {
+
+	private LayerAssignment() {
+		//
+	}
+
+	/** Assign the nodes to the layers.
+	 * 
+	 * @param graph
+	 * @param reversed indicates the edges that are reversed to break the cycles.
+	 * @param minimizeEdgeSpan indicates if the total span of the edges must be reduced.
+	 * @return the layers of the vertices, indexed by the vertex indexes; <code>-1</code>
+	 * for the vertices that are not nodes.
+	 */
+	public static int[] assignLayers(LayoutGraph graph, boolean[] reversed, boolean minimizeEdgeSpan) {
+		int n = graph.getVertexCount();
+		int m = graph.getEdgeCount();
+		int[] layer = new int[n];
+		Arrays.fill(layer, -1);
+
+		int[] inDegree = new int[n];
+		int s, t;
+		for(int e=0; e<m; ++e) {
+			s = graph.getEdgeSource(e);
+			t = graph.getEdgeTarget(e);
+			if (s!=t) {
+				++inDegree[reversed[e] ? s : t];
+			}
+		}
+
+		// Topological order
+		int[] order = new int[n];
+		int count = 0;
+		for(int v=0; v<n; ++v) {
+			if (graph.isNode(v) && inDegree[v]==0) {
+				layer[v] = 0;
+				order[count++] = v;
+			}
+		}
+		int[] outOffsets = graph.getOutOffsets();
+		int[] outEdges = graph.getOutEdges();
+		int[] inOffsets = graph.getInOffsets();
+		int[] inEdges = graph.getInEdges();
+		int v, w, e;
+		for(int k=0; k<count; ++k) {
+			v = order[k];
+			for(int i=outOffsets[v]; i<outOffsets[v+1]; ++i) {
+				e = outEdges[i];
+				w = graph.getEdgeTarget(e);
+				if (!reversed[e] && w!=v) {
+					if (layer[v]+1>layer[w]) layer[w] = layer[v]+1;
+					if (--inDegree[w]==0) order[count++] = w;
+				}
+			}
+			for(int i=inOffsets[v]; i<inOffsets[v+1]; ++i) {
+				e = inEdges[i];
+				w = graph.getEdgeSource(e);
+				if (reversed[e] && w!=v) {
+					if (layer[v]+1>layer[w]) layer[w] = layer[v]+1;
+					if (--inDegree[w]==0) order[count++] = w;
+				}
+			}
+		}
+
+		if (minimizeEdgeSpan && count>0) {
+			minimizeEdgeSpan(graph, reversed, layer, order, count);
+		}
+
+		return layer;
+	}
+
+	/** Move the nodes to reduce the total span of the edges.
+	 * Each move is reducing the total span, so that the
+	 * iterations are finite; they are bounded by the number
+	 * of layers.
+	 */
+	private static void minimizeEdgeSpan(LayoutGraph graph, boolean[] reversed, int[] layer, int[] order, int count) {
+		int layerCount = 0;
+		for(int k=0; k<count; ++k) {
+			layerCount = Math.max(layerCount, layer[order[k]]+1);
+		}
+
+		int[] outOffsets = graph.getOutOffsets();
+		int[] outEdges = graph.getOutEdges();
+		int[] inOffsets = graph.getInOffsets();
+		int[] inEdges = graph.getInEdges();
+		int v, w, e, lo, hi, in, out, l;
+		boolean changed = true;
+		for(int pass=0; changed && pass<layerCount; ++pass) {
+			changed = false;
+			for(int k=count-1; k>=0; --k) {
+				v = order[k];
+				lo = 0;
+				hi = layerCount-1;
+				in = out = 0;
+				for(int i=outOffsets[v]; i<outOffsets[v+1]; ++i) {
+					e = outEdges[i];
+					w = graph.getEdgeTarget(e);
+					if (w!=v) {
+						if (reversed[e]) {
+							++in;
+							lo = Math.max(lo, layer[w]+1);
+						}
+						else {
+							++out;
+							hi = Math.min(hi, layer[w]-1);
+						}
+					}
+				}
+				for(int i=inOffsets[v]; i<inOffsets[v+1]; ++i) {
+					e = inEdges[i];
+					w = graph.getEdgeSource(e);
+					if (w!=v) {
+						if (reversed[e]) {
+							++out;
+							hi = Math.min(hi, layer[w]-1);
+						}
+						else {
+							++in;
+							lo = Math.max(lo, layer[w]+1);
+						}
+					}
+				}
+				if (out>in) l = hi;
+				else if (in>out) l = lo;
+				else l = layer[v];
+				if (l!=layer[v]) {
+					layer[v] = l;
+					changed = true;
+				}
+			}
+		}
+
+		// Remove the empty layers
+		int[] newLayers = new int[layerCount];
+		for(int k=0; k<count; ++k) {
+			newLayers[layer[order[k]]] = 1;
+		}
+		int next = 0;
+		for(int i=0; i<layerCount; ++i) {
+			if (newLayers[i]!=0) newLayers[i] = next++;
+		}
+		for(int k=0; k<count; ++k) {
+			v = order[k];
+			layer[v] = newLayers[layer[v]];
+		}
+	}
+
+}
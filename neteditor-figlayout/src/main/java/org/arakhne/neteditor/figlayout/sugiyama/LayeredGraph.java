@@ -0,0 +1,348 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.sugiyama;
+
+import org.arakhne.neteditor.figlayout.LayoutGraph;
+
+/** Proper layered graph that is built from a {@link LayoutGraph}
+ * and the layers of its nodes.
+ * <p>
+ * The nodes of the layered graph are identified by dense indexes:
+ * the indexes in <code>[0;v)</code> are the vertices of the
+ * layout graph, where <code>v</code> is the number of vertices, and
+ * the indexes from <code>v</code> are the virtual nodes that are
+ * inserted along the edges that are crossing several layers, so that
+ * each segment of the layered graph is between two consecutive layers.
+ * The vertices that are not nodes are not in the layers.
+ * <p>
+ * The segments are stored in compressed sparse row arrays, from the
+ * upper layers to the lower layers and from the lower layers to the
+ * upper layers. The order of the nodes inside each layer may be
+ * changed by the ordering phase.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+class LayeredGraph {
+
+	private final LayoutGraph graph;
+	private final boolean[] reversed;
+	private final int vertexCount;
+	private final int nodeCount;
+	private final int[] layerOf;
+	private final int[] dummyEdges;
+	private final int[][] layers;
+	private final int[] positions;
+
+	private final int[] lowerOffsets;
+	private final int[] lowerNodes;
+	private final int[] upperOffsets;
+	private final int[] upperNodes;
+
+	private final int[] chainOffsets;
+	private final int[] chainNodes;
+
+	/**
+	 * @param graph is the graph to lay out.
+	 * @param reversed indicates the edges that are reversed to break the cycles.
+	 * @param layer are the layers of the vertices, or <code>-1</code> for the vertices
+	 * that are not nodes.
+	 */
+	public LayeredGraph(LayoutGraph graph, boolean[] reversed, int[] layer) {
+		this.graph = graph;
+		this.reversed = reversed;
+		int n = graph.getVertexCount();
+		int m = graph.getEdgeCount();
+		this.vertexCount = n;
+
+		int layerCount = 0;
+		for(int v=0; v<n; ++v) {
+			if (layer[v]>=layerCount) layerCount = layer[v]+1;
+		}
+		int dummyCount = 0;
+		int segmentCount = 0;
+		int s, t, span;
+		for(int e=0; e<m; ++e) {
+			s = graph.getEdgeSource(e);
+			t = graph.getEdgeTarget(e);
+			if (s!=t) {
+				span = Math.abs(layer[t]-layer[s]);
+				assert(span>0);
+				dummyCount += span - 1;
+				segmentCount += span;
+			}
+		}
+
+		this.nodeCount = n + dummyCount;
+		this.layerOf = new int[this.nodeCount];
+		System.arraycopy(layer, 0, this.layerOf, 0, n);
+		this.dummyEdges = new int[dummyCount];
+		this.chainOffsets = new int[m+1];
+		this.chainNodes = new int[dummyCount];
+
+		// Virtual nodes and segments
+		int[] segmentUpper = new int[segmentCount];
+		int[] segmentLower = new int[segmentCount];
+		int dummy = n;
+		int chain = 0;
+		int segment = 0;
+		int upper, lower, previous;
+		for(int e=0; e<m; ++e) {
+			this.chainOffsets[e] = chain;
+			s = graph.getEdgeSource(e);
+			t = graph.getEdgeTarget(e);
+			if (s!=t) {
+				if (layer[s]<layer[t]) {
+					upper = s;
+					lower = t;
+				}
+				else {
+					upper = t;
+					lower = s;
+				}
+				previous = upper;
+				for(int l=layer[upper]+1; l<layer[lower]; ++l) {
+					this.layerOf[dummy] = l;
+					this.dummyEdges[dummy-n] = e;
+					this.chainNodes[chain++] = dummy;
+					segmentUpper[segment] = previous;
+					segmentLower[segment++] = dummy;
+					previous = dummy;
+					++dummy;
+				}
+				segmentUpper[segment] = previous;
+				segmentLower[segment++] = lower;
+			}
+		}
+		this.chainOffsets[m] = chain;
+
+		this.lowerOffsets = new int[this.nodeCount+1];
+		this.upperOffsets = new int[this.nodeCount+1];
+		for(int i=0; i<segmentCount; ++i) {
+			++this.lowerOffsets[segmentUpper[i]+1];
+			++this.upperOffsets[segmentLower[i]+1];
+		}
+		for(int i=0; i<this.nodeCount; ++i) {
+			this.lowerOffsets[i+1] += this.lowerOffsets[i];
+			this.upperOffsets[i+1] += this.upperOffsets[i];
+		}
+		this.lowerNodes = new int[segmentCount];
+		this.upperNodes = new int[segmentCount];
+		int[] lowerFill = new int[this.nodeCount];
+		int[] upperFill = new int[this.nodeCount];
+		for(int i=0; i<segmentCount; ++i) {
+			upper = segmentUpper[i];
+			lower = segmentLower[i];
+			this.lowerNodes[this.lowerOffsets[upper] + lowerFill[upper]++] = lower;
+			this.upperNodes[this.upperOffsets[lower] + upperFill[lower]++] = upper;
+		}
+
+		// Layers in the order of the node indexes
+		int[] sizes = new int[layerCount];
+		for(int i=0; i<this.nodeCount; ++i) {
+			if (this.layerOf[i]>=0) ++sizes[this.layerOf[i]];
+		}
+		this.layers = new int[layerCount][];
+		for(int l=0; l<layerCount; ++l) {
+			this.layers[l] = new int[sizes[l]];
+			sizes[l] = 0;
+		}
+		this.positions = new int[this.nodeCount];
+		int l;
+		for(int i=0; i<this.nodeCount; ++i) {
+			l = this.layerOf[i];
+			if (l>=0) {
+				this.positions[i] = sizes[l];
+				this.layers[l][sizes[l]++] = i;
+			}
+			else {
+				this.positions[i] = -1;
+			}
+		}
+	}
+
+	/** Replies the layout graph.
+	 * 
+	 * @return the layout graph.
+	 */
+	public LayoutGraph getGraph() {
+		return this.graph;
+	}
+
+	/** Replies the number of nodes, including the virtual nodes and
+	 * the vertices that are not in the layers.
+	 * 
+	 * @return the number of nodes.
+	 */
+	public int getNodeCount() {
+		return this.nodeCount;
+	}
+
+	/** Replies if the given node is a virtual node.
+	 * 
+	 * @param node
+	 * @return <code>true</code> if the node is virtual; <code>false</code>
+	 * if it is a vertex of the layout graph.
+	 */
+	public boolean isDummy(int node) {
+		return node>=this.vertexCount;
+	}
+
+	/** Replies the edge of the layout graph along which the given
+	 * virtual node was inserted.
+	 * 
+	 * @param node is a virtual node.
+	 * @return the index of the edge in the layout graph.
+	 */
+	public int getDummyEdge(int node) {
+		return this.dummyEdges[node-this.vertexCount];
+	}
+
+	/** Replies if the given edge of the layout graph was reversed
+	 * to break the cycles.
+	 * 
+	 * @param edge is the index of the edge in the layout graph.
+	 * @return <code>true</code> if the edge is going from a lower layer to
+	 * an upper layer.
+	 */
+	public boolean isReversed(int edge) {
+		return this.reversed[edge];
+	}
+
+	/** Replies the number of layers.
+	 * 
+	 * @return the number of layers.
+	 */
+	public int getLayerCount() {
+		return this.layers.length;
+	}
+
+	/** Replies the nodes in a layer, in their order.
+	 * The replied array is shared; if it is changed,
+	 * {@link #updatePositions(int)} must be invoked.
+	 * 
+	 * @param layer
+	 * @return the nodes of the layer.
+	 */
+	public int[] getLayer(int layer) {
+		return this.layers[layer];
+	}
+
+	/** Replies the layer of a node.
+	 * 
+	 * @param node
+	 * @return the layer, or <code>-1</code> if the node is not in a layer.
+	 */
+	public int getLayerOf(int node) {
+		return this.layerOf[node];
+	}
+
+	/** Replies the position of a node in its layer.
+	 * The replied array is shared and must not be modified.
+	 * 
+	 * @return the positions of the nodes in their layers, or <code>-1</code>
+	 * for the nodes that are not in a layer.
+	 */
+	public int[] getPositions() {
+		return this.positions;
+	}
+
+	/** Update the positions of the nodes of the given layer after
+	 * a change of its order.
+	 * 
+	 * @param layer
+	 */
+	public void updatePositions(int layer) {
+		int[] nodes = this.layers[layer];
+		for(int i=0; i<nodes.length; ++i) {
+			this.positions[nodes[i]] = i;
+		}
+	}
+
+	/** Replies the offsets of the segments to the lower layers.
+	 * The neighbors of the node <code>v</code> in the next layer are
+	 * <code>getLowerNodes()[getLowerOffsets()[v]]</code> to
+	 * <code>getLowerNodes()[getLowerOffsets()[v+1]-1]</code>.
+	 * The replied array is shared and must not be modified.
+	 * 
+	 * @return the offsets, indexed by the nodes.
+	 */
+	public int[] getLowerOffsets() {
+		return this.lowerOffsets;
+	}
+
+	/** Replies the neighbors in the lower layers.
+	 * The replied array is shared and must not be modified.
+	 * 
+	 * @return the neighbors.
+	 * @see #getLowerOffsets()
+	 */
+	public int[] getLowerNodes() {
+		return this.lowerNodes;
+	}
+
+	/** Replies the offsets of the segments to the upper layers.
+	 * The replied array is shared and must not be modified.
+	 * 
+	 * @return the offsets, indexed by the nodes.
+	 * @see #getLowerOffsets()
+	 */
+	public int[] getUpperOffsets() {
+		return this.upperOffsets;
+	}
+
+	/** Replies the neighbors in the upper layers.
+	 * The replied array is shared and must not be modified.
+	 * 
+	 * @return the neighbors.
+	 * @see #getUpperOffsets()
+	 */
+	public int[] getUpperNodes() {
+		return this.upperNodes;
+	}
+
+	/** Replies the offsets of the chains of virtual nodes.
+	 * The virtual nodes along the edge <code>e</code> of the layout graph
+	 * are <code>getChainNodes()[getChainOffsets()[e]]</code> to
+	 * <code>getChainNodes()[getChainOffsets()[e+1]-1]</code>, from
+	 * the upper layer to the lower layer.
+	 * The replied array is shared and must not be modified.
+	 * 
+	 * @return the offsets, indexed by the edges of the layout graph.
+	 */
+	public int[] getChainOffsets() {
+		return this.chainOffsets;
+	}
+
+	/** Replies the chains of virtual nodes.
+	 * The replied array is shared and must not be modified.
+	 * 
+	 * @return the virtual nodes.
+	 * @see #getChainOffsets()
+	 */
+	public int[] getChainNodes() {
+		return this.chainNodes;
+	}
+
+}
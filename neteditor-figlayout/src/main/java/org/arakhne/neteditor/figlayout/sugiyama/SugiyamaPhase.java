@@ -0,0 +1,51 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.figlayout.sugiyama;
+
+/** Phases of the {@link GanswerSugiyamaFigureLayout Sugiyama layout}.
+ * 
+ * @author $Author: galland$
+ * @version $Name$ $Revision$ $Date$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+public enum SugiyamaPhase {
+
+	/** Reversal of the edges of a feedback arc set, so that
+	 * the graph becomes acyclic.
+	 */
+	CYCLE_REMOVAL,
+
+	/** Assignment of the nodes to layers, and insertion of
+	 * the virtual nodes along the long edges.
+	 */
+	LAYERING,
+
+	/** Ordering of the nodes inside the layers.
+	 */
+	ORDERING,
+
+	/** Computation of the coordinates of the figures.
+	 */
+	POSITIONING;
+
+}
@@ -24,8 +24,7 @@ package org.arakhne.neteditor.formalism;
 
 import java.lang.reflect.Array;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.EventListener;
 import java.util.Map;
 import java.util.TreeMap;
@@ -46,7 +45,10 @@ public abstract class AbstractModelObject extends AbstractPropertyTooler impleme
 	
 	private String name;
 	private UUID uuid;
-	private transient Collection<ModelObjectListener> listeners = null;
+	/** Listeners, replaced by a new array on each change (copy-on-write)
+	 * to avoid any lock and allocation when events are fired.
+	 */
+	private transient volatile ModelObjectListener[] listeners = null;
 	private transient ViewBinding viewBinding = null;
 	
     /** Construct a new AbstractModelObject.
@@ -150,9 +152,15 @@ public abstract class AbstractModelObject extends AbstractPropertyTooler impleme
      */
     @Override
     public synchronized void addModelObjectListener(ModelObjectListener listener) {
-    	if (this.listeners==null)
-    		this.listeners = new ArrayList<ModelObjectListener>();
-    	this.listeners.add(listener);
+    	ModelObjectListener[] old = this.listeners;
+    	if (old==null) {
+    		this.listeners = new ModelObjectListener[] { listener };
+    	}
+    	else {
+    		ModelObjectListener[] tab = Arrays.copyOf(old, old.length+1);
+    		tab[old.length] = listener;
+    		this.listeners = tab;
+    	}
     }
     
     /**
@@ -160,10 +168,22 @@ public abstract class AbstractModelObject extends AbstractPropertyTooler impleme
      */
     @Override
     public synchronized void removeModelObjectListener(ModelObjectListener listener) {
-    	if (this.listeners!=null) {
-    		this.listeners.remove(listener);
-    		if (this.listeners.isEmpty())
-    			this.listeners = null;
+    	ModelObjectListener[] old = this.listeners;
+    	if (old!=null) {
+    		for(int i=0; i<old.length; ++i) {
+    			if (old[i].equals(listener)) {
+    				if (old.length==1) {
+    					this.listeners = null;
+    				}
+    				else {
+    					ModelObjectListener[] tab = new ModelObjectListener[old.length-1];
+    					System.arraycopy(old, 0, tab, 0, i);
+    					System.arraycopy(old, i+1, tab, i, tab.length-i);
+    					this.listeners = tab;
+    				}
+    				return;
+    			}
+    		}
     	}
     }
     
@@ -173,24 +193,37 @@ public abstract class AbstractModelObject extends AbstractPropertyTooler impleme
      * @return the listeners.
      */
     @SuppressWarnings("unchecked")
-	protected synchronized <T extends EventListener> T[] getListeners(Class<T> type) {
-    	if (this.listeners==null)
+	protected <T extends EventListener> T[] getListeners(Class<T> type) {
+    	ModelObjectListener[] l = this.listeners;
+    	if (l==null)
     		return (T[])Array.newInstance(type, 0);
-    	T[] tab = (T[])Array.newInstance(type, this.listeners.size());
-    	this.listeners.toArray(tab);
+    	T[] tab = (T[])Array.newInstance(type, l.length);
+    	System.arraycopy(l, 0, tab, 0, l.length);
     	return tab;
     }
     
+    /** Replies if the fire functions must build the events.
+     * By default, the events are built only when this model object
+     * has listeners. The subclasses that are forwarding the events
+     * to another model object must reply <code>true</code> when
+     * the events are forwarded.
+     * 
+     * @return <code>true</code> if the events must be built;
+     * <code>false</code> if they may be skipped.
+     */
+    protected boolean isEventNeeded() {
+    	return this.listeners!=null;
+    }
+    
     /**
      * {@inheritDoc}
      */
     @Override
     public ModelObjectEvent firePropertyChanged(String propertyName, Object oldValue, Object newValue) {
+    	if (!isEventNeeded()) return null;
     	ModelObjectEvent event = new ModelObjectEvent(this, propertyName, oldValue, newValue);
-    	for(ModelObjectListener listener : getListeners(ModelObjectListener.class)) {
-    		listener.modelPropertyChanged(event);
-    	}
-    	return event; 
+    	fireModelObjectEvent(event);
+    	return event;
     }
     
     /**
@@ -198,11 +231,10 @@ public abstract class AbstractModelObject extends AbstractPropertyTooler impleme
      */
     @Override
     public ModelObjectEvent fireContainerChanged(ModelObject oldContainer, ModelObject newContainer) {
+    	if (!isEventNeeded()) return null;
     	ModelObjectEvent event = new ModelObjectEvent(this, oldContainer, newContainer, Type.CONTAINER_CHANGE);
-    	for(ModelObjectListener listener : getListeners(ModelObjectListener.class)) {
-    		listener.modelContainerChanged(event);
-    	}
-    	return event; 
+    	fireModelObjectEvent(event);
+    	return event;
     }
 
     /**
@@ -210,11 +242,10 @@ public abstract class AbstractModelObject extends AbstractPropertyTooler impleme
      */
     @Override
     public ModelObjectEvent fireContentChanged(ModelObjectEvent cause) {
+    	if (!isEventNeeded()) return null;
     	ModelObjectEvent event = new ModelObjectEvent(this, cause);
-    	for(ModelObjectListener listener : getListeners(ModelObjectListener.class)) {
-    		listener.modelContentChanged(event);
-    	}
-    	return event; 
+    	fireModelObjectEvent(event);
+    	return event;
     }
 
     /**
@@ -222,11 +253,10 @@ public abstract class AbstractModelObject extends AbstractPropertyTooler impleme
      */
     @Override
     public ModelObjectEvent fireLinkChanged(ModelObject oldLinkedObject, ModelObject newLinkedObject) {
+    	if (!isEventNeeded()) return null;
     	ModelObjectEvent event = new ModelObjectEvent(this, oldLinkedObject, newLinkedObject, Type.LINK_CHANGE);
-    	for(ModelObjectListener listener : getListeners(ModelObjectListener.class)) {
-    		listener.modelLinkChanged(event);
-    	}
-    	return event; 
+    	fireModelObjectEvent(event);
+    	return event;
     }
     
     /**
@@ -234,11 +264,10 @@ public abstract class AbstractModelObject extends AbstractPropertyTooler impleme
      */
     @Override
     public ModelObjectEvent fireComponentAdded(ModelObject component) {
+    	if (!isEventNeeded()) return null;
     	ModelObjectEvent event = new ModelObjectEvent(this, component, Type.COMPONENT_ADDITION);
-    	for(ModelObjectListener listener : getListeners(ModelObjectListener.class)) {
-    		listener.modelComponentAdded(event);
-    	}
-    	return event; 
+    	fireModelObjectEvent(event);
+    	return event;
     }
 
     /**
@@ -246,11 +275,55 @@ public abstract class AbstractModelObject extends AbstractPropertyTooler impleme
      */
     @Override
     public ModelObjectEvent fireComponentRemoved(ModelObject component) {
+    	if (!isEventNeeded()) return null;
     	ModelObjectEvent event = new ModelObjectEvent(this, component, Type.COMPONENT_REMOVE);
-    	for(ModelObjectListener listener : getListeners(ModelObjectListener.class)) {
-    		listener.modelComponentRemoved(event);
+    	fireModelObjectEvent(event);
+    	return event;
+    }
+
+    /** Notifies the listeners about the given event.
+     * This function is invoked by the fire functions once
+     * the event was built. It may be overridden by the
+     * subclasses to delay or to merge the notifications.
+     * 
+     * @param event
+     */
+    protected void fireModelObjectEvent(ModelObjectEvent event) {
+    	ModelObjectListener[] l = this.listeners;
+    	if (l==null) return;
+    	switch(event.getType()) {
+    	case PROPERTY_CHANGE:
+    		for(ModelObjectListener listener : l) {
+    			listener.modelPropertyChanged(event);
+    		}
+    		break;
+    	case CONTAINER_CHANGE:
+    		for(ModelObjectListener listener : l) {
+    			listener.modelContainerChanged(event);
+    		}
+    		break;
+    	case LINK_CHANGE:
+    		for(ModelObjectListener listener : l) {
+    			listener.modelLinkChanged(event);
+    		}
+    		break;
+    	case CONTENT_CHANGE:
+    		for(ModelObjectListener listener : l) {
+    			listener.modelContentChanged(event);
+    		}
+    		break;
+    	case COMPONENT_ADDITION:
+    		for(ModelObjectListener listener : l) {
+    			listener.modelComponentAdded(event);
+    		}
+    		break;
+    	case COMPONENT_REMOVE:
+    		for(ModelObjectListener listener : l) {
+    			listener.modelComponentRemoved(event);
+    		}
+    		break;
+    	default:
     	}
-    	return event; 
     }
 
     /** {@inheritDoc}
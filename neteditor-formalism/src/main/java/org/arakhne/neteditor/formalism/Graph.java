@@ -207,5 +207,34 @@ public interface Graph<G extends Graph<?,N,A,E>, N extends Node<G,?,A,E>, A exte
 	 * @return the number of objects that were moved.
 	 */
 	public int moveFromGraph(G graph, Set<UUID> identifiersToExtract);
-	
+
+	/** Start a transaction on this graph.
+	 * <p>
+	 * During a transaction, the events fired by the graph are
+	 * not dispatched to its listeners. They are merged, and
+	 * the resulting change set is dispatched when the
+	 * transaction is committed. The transactions may be nested;
+	 * the events are dispatched when the outer transaction
+	 * is committed. A transaction must be used for the large
+	 * updates of the graph, eg. layout, paste, or import.
+	 * 
+	 * @see #commitTransaction()
+	 */
+	public void beginTransaction();
+
+	/** Commit the transaction that was started with
+	 * {@link #beginTransaction()}, and dispatch the merged
+	 * events if it is the outer transaction.
+	 * 
+	 * @see #beginTransaction()
+	 */
+	public void commitTransaction();
+
+	/** Replies if a transaction is running on this graph.
+	 * 
+	 * @return <code>true</code> if a transaction is running;
+	 * otherwise <code>false</code>.
+	 */
+	public boolean isInTransaction();
+
 }
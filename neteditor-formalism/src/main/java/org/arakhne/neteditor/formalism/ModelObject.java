@@ -100,7 +100,8 @@ public interface ModelObject extends Comparable<ModelObject>, Serializable {
 	 * @param propertyName is the name of the property.
 	 * @param oldValue is the old value of the property.
 	 * @param newValue is the new value of the property.
-	 * @return the fired event.
+	 * @return the fired event, or <code>null</code> if there is no listener
+	 * and no other object to which the event is forwarded.
 	 */
 	public ModelObjectEvent firePropertyChanged(String propertyName, Object oldValue, Object newValue);
 
@@ -109,7 +110,8 @@ public interface ModelObject extends Comparable<ModelObject>, Serializable {
 	 * 
 	 * @param oldContainer is the old container.
 	 * @param newContainer is the new container.
-	 * @return the fired event.
+	 * @return the fired event, or <code>null</code> if there is no listener
+	 * and no other object to which the event is forwarded.
 	 */
 	public ModelObjectEvent fireContainerChanged(ModelObject oldContainer, ModelObject newContainer);
 
@@ -117,7 +119,8 @@ public interface ModelObject extends Comparable<ModelObject>, Serializable {
 	 * Notifies the listener about the addition of a component in this model object.
 	 * 
 	 * @param component is the added component.
-	 * @return the fired event.
+	 * @return the fired event, or <code>null</code> if there is no listener
+	 * and no other object to which the event is forwarded.
 	 */
 	public ModelObjectEvent fireComponentAdded(ModelObject component);
 
@@ -125,7 +128,8 @@ public interface ModelObject extends Comparable<ModelObject>, Serializable {
 	 * Notifies the listener about the remove of a component in this model object.
 	 * 
 	 * @param component is the removed component.
-	 * @return the fired event.
+	 * @return the fired event, or <code>null</code> if there is no listener
+	 * and no other object to which the event is forwarded.
 	 */
 	public ModelObjectEvent fireComponentRemoved(ModelObject component);
 
@@ -134,7 +138,8 @@ public interface ModelObject extends Comparable<ModelObject>, Serializable {
 	 * 
 	 * @param cause is the cause of the event. If <code>null</code> the cause
 	 * of the event is not another event.
-	 * @return the fired event.
+	 * @return the fired event, or <code>null</code> if there is no listener
+	 * and no other object to which the event is forwarded.
 	 */
 	public ModelObjectEvent fireContentChanged(ModelObjectEvent cause);
 
@@ -143,7 +148,8 @@ public interface ModelObject extends Comparable<ModelObject>, Serializable {
 	 * 
 	 * @param oldLinkedObject is the old linked object.
 	 * @param newLinkedObject is the new linked object.
-	 * @return the fired event.
+	 * @return the fired event, or <code>null</code> if there is no listener
+	 * and no other object to which the event is forwarded.
 	 */
 	public ModelObjectEvent fireLinkChanged(ModelObject oldLinkedObject, ModelObject newLinkedObject);
 	
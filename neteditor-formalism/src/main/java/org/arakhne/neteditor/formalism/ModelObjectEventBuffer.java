@@ -0,0 +1,331 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.formalism;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.arakhne.neteditor.formalism.ModelObjectEvent.Type;
+
+/** Buffer of model events that merges the events
+ * related to the same change.
+ * <p>
+ * This buffer is used by the model objects that are
+ * delaying the notifications of their listeners, eg. during
+ * a transaction on a {@link Graph graph}. The merging rules are:
+ * <ul>
+ * <li>the changes of the same property, container, or link of the
+ * same source are merged into a single event, with the first old value
+ * and the last new value;</li>
+ * <li>the content changes that are caused by the change of the same
+ * property, container, or link of the same object are merged into the
+ * last content change;</li>
+ * <li>the merged changes that are restoring the original value
+ * are discarded;</li>
+ * <li>the addition of a component followed by its removal
+ * from the same source are discarded, with the content changes
+ * that are caused by this component.</li>
+ * </ul>
+ * The order of the merged events is the order of the first
+ * occurrence of each change.
+ *
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ */
+public class ModelObjectEventBuffer {
+
+	private final List<Slot> slots = new ArrayList<Slot>();
+	private final Map<Key,Slot> index = new HashMap<Key,Slot>();
+	private int size = 0;
+
+	/**
+	 */
+	public ModelObjectEventBuffer() {
+		//
+	}
+
+	/** Replies if the buffer contains no event.
+	 *
+	 * @return <code>true</code> if there is no event in the buffer;
+	 * otherwise <code>false</code>.
+	 */
+	public boolean isEmpty() {
+		return this.size==0;
+	}
+
+	/** Replies the number of merged events in the buffer.
+	 *
+	 * @return the number of merged events.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/** Remove all the events from the buffer.
+	 */
+	public void clear() {
+		this.slots.clear();
+		this.index.clear();
+		this.size = 0;
+	}
+
+	/** Add an event in the buffer and merge it with
+	 * the previous events related to the same change.
+	 *
+	 * @param event
+	 */
+	public void add(ModelObjectEvent event) {
+		if (event==null) return;
+		ModelObjectEvent cause = event.getCause();
+		Key key;
+		Slot slot;
+		switch(event.getType()) {
+		case PROPERTY_CHANGE:
+		case CONTAINER_CHANGE:
+		case LINK_CHANGE:
+			key = new Key(event.getSource(), event.getType(), event.getPropertyName());
+			slot = this.index.get(key);
+			if (slot==null) {
+				slot = new Slot(event, event.getOldPropertyValue());
+				this.index.put(key, slot);
+				this.slots.add(slot);
+				++this.size;
+			}
+			else {
+				slot.event = merge(event, slot.firstOldValue);
+			}
+			break;
+		case CONTENT_CHANGE:
+			if (cause!=event && cause.getType()!=Type.CONTENT_CHANGE
+				&& cause.getType()!=Type.COMPONENT_ADDITION
+				&& cause.getType()!=Type.COMPONENT_REMOVE) {
+				key = new Key(event.getSource(), cause.getSource(),
+						cause.getType(), cause.getPropertyName());
+				slot = this.index.get(key);
+				if (slot==null) {
+					slot = new Slot(event, cause.getOldPropertyValue());
+					this.index.put(key, slot);
+					this.slots.add(slot);
+					++this.size;
+				}
+				else {
+					// Keep the first old value of the original change
+					slot.event = new ModelObjectEvent(event.getSource(),
+							merge(cause, slot.firstOldValue));
+				}
+			}
+			else {
+				this.slots.add(new Slot(event, null));
+				++this.size;
+			}
+			break;
+		case COMPONENT_ADDITION:
+			slot = new Slot(event, null);
+			this.index.put(new Key(event.getSource(), event.getAddedObject(), Type.COMPONENT_ADDITION, null), slot);
+			this.slots.add(slot);
+			++this.size;
+			break;
+		case COMPONENT_REMOVE:
+			key = new Key(event.getSource(), event.getRemovedObject(), Type.COMPONENT_ADDITION, null);
+			slot = this.index.remove(key);
+			if (slot!=null && slot.event!=null) {
+				// The component was added and removed in the same transaction.
+				slot.event = null;
+				--this.size;
+				discardContentChanges(event.getRemovedObject());
+			}
+			else {
+				this.slots.add(new Slot(event, null));
+				++this.size;
+			}
+			break;
+		default:
+		}
+	}
+
+	/** Discard the content changes that are caused by the given component,
+	 * because the listeners were never notified about it.
+	 *
+	 * @param component
+	 */
+	private void discardContentChanges(ModelObject component) {
+		ModelObjectEvent event, cause;
+		for(Slot slot : this.slots) {
+			event = slot.event;
+			if (event!=null && event.getType()==Type.CONTENT_CHANGE) {
+				cause = event.getCause();
+				if (cause.getSource()==component) {
+					if (cause!=event && cause.getType()!=Type.CONTENT_CHANGE
+						&& cause.getType()!=Type.COMPONENT_ADDITION
+						&& cause.getType()!=Type.COMPONENT_REMOVE) {
+						this.index.remove(new Key(event.getSource(), cause.getSource(),
+								cause.getType(), cause.getPropertyName()));
+					}
+					slot.event = null;
+					--this.size;
+				}
+			}
+		}
+	}
+
+	private static ModelObjectEvent merge(ModelObjectEvent last, Object firstOldValue) {
+		if (last.getType()==Type.PROPERTY_CHANGE) {
+			return new ModelObjectEvent(last.getSource(), last.getPropertyName(),
+					firstOldValue, last.getNewPropertyValue());
+		}
+		return new ModelObjectEvent(last.getSource(),
+				(ModelObject)firstOldValue, (ModelObject)last.getNewPropertyValue(),
+				last.getType());
+	}
+
+	private static boolean isNeutral(Slot slot) {
+		ModelObjectEvent event = slot.event;
+		ModelObjectEvent cause = event.getCause();
+		Object newValue;
+		switch(cause.getType()) {
+		case PROPERTY_CHANGE:
+		case CONTAINER_CHANGE:
+		case LINK_CHANGE:
+			if (cause==event || slot.event!=slot.first) {
+				newValue = cause.getNewPropertyValue();
+				return slot.firstOldValue==newValue
+						|| (slot.firstOldValue!=null && slot.firstOldValue.equals(newValue));
+			}
+			return false;
+		default:
+			return false;
+		}
+	}
+
+	/** Replies the merged events and clear the buffer.
+	 *
+	 * @return the merged events in the order of their first occurrences.
+	 */
+	public List<ModelObjectEvent> flush() {
+		if (this.size==0) {
+			clear();
+			return Collections.emptyList();
+		}
+		List<ModelObjectEvent> events = new ArrayList<ModelObjectEvent>(this.size);
+		for(Slot slot : this.slots) {
+			if (slot.event!=null && !isNeutral(slot)) {
+				events.add(slot.event);
+			}
+		}
+		clear();
+		return events;
+	}
+
+	/**
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 */
+	private static class Slot {
+
+		public final ModelObjectEvent first;
+		public final Object firstOldValue;
+		public ModelObjectEvent event;
+
+		/**
+		 * @param event
+		 * @param firstOldValue
+		 */
+		public Slot(ModelObjectEvent event, Object firstOldValue) {
+			this.first = event;
+			this.event = event;
+			this.firstOldValue = firstOldValue;
+		}
+
+	} // class Slot
+
+	/** Key of a change. The model objects are compared
+	 * with their references.
+	 *
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 */
+	private static class Key {
+
+		private final Object source;
+		private final Object origin;
+		private final Type type;
+		private final String name;
+
+		/**
+		 * @param source
+		 * @param type
+		 * @param name
+		 */
+		public Key(Object source, Type type, String name) {
+			this(source, null, type, name);
+		}
+
+		/**
+		 * @param source
+		 * @param origin
+		 * @param type
+		 * @param name
+		 */
+		public Key(Object source, Object origin, Type type, String name) {
+			this.source = source;
+			this.origin = origin;
+			this.type = type;
+			this.name = name;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof Key) {
+				Key k = (Key)obj;
+				return this.source==k.source && this.origin==k.origin
+						&& this.type==k.type
+						&& (this.name==null ? k.name==null : this.name.equals(k.name));
+			}
+			return false;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			int h = System.identityHashCode(this.source);
+			h = h * 31 + System.identityHashCode(this.origin);
+			h = h * 31 + this.type.hashCode();
+			h = h * 31 + (this.name==null ? 0 : this.name.hashCode());
+			return h;
+		}
+
+	} // class Key
+
+}
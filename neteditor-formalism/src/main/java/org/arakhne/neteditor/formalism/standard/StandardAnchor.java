@@ -83,6 +83,16 @@ public class StandardAnchor<G extends StandardGraph<G,N,A,E>, N extends Abstract
 		return AnchorLocation.CENTER;
 	}
 	
+	/** {@inheritDoc}
+	 * <p>
+	 * The events of the anchor are forwarded to its node,
+	 * so they are built even if the anchor has no listener.
+	 */
+	@Override
+	protected boolean isEventNeeded() {
+		return getNode()!=null || super.isEventNeeded();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
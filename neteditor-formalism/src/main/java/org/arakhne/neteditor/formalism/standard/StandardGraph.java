@@ -22,6 +22,7 @@ package org.arakhne.neteditor.formalism.standard ;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,8 @@ import org.arakhne.neteditor.formalism.AbstractModelObject;
 import org.arakhne.neteditor.formalism.Graph;
 import org.arakhne.neteditor.formalism.ModelObject;
 import org.arakhne.neteditor.formalism.ModelObjectEvent;
+import org.arakhne.neteditor.formalism.ModelObjectEvent.Type;
+import org.arakhne.neteditor.formalism.ModelObjectEventBuffer;
 import org.arakhne.neteditor.formalism.ModelObjectListener;
 
 /** Define a graph with the standard implementation.
@@ -55,8 +58,38 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	private final Set<N> nodes = new TreeSet<N>();
 	private final Set<E> edges = new TreeSet<E>();
 	
+	/** Index of the nodes by their identifiers.
+	 */
+	private final Map<UUID,N> nodesByUUID = new HashMap<UUID,N>();
+	
+	/** Index of the edges by their identifiers.
+	 */
+	private final Map<UUID,E> edgesByUUID = new HashMap<UUID,E>();
+
+	/** Index of the anchors of the nodes by their identifiers.
+	 */
+	private final Map<UUID,A> anchorsByUUID = new HashMap<UUID,A>();
+	
+	/** Index of the nodes by their names.
+	 * The sets are sorted in the same order as {@link #nodes}.
+	 */
+	private final Map<String,Set<N>> nodesByName = new HashMap<String,Set<N>>();
+
+	/** Index of the edges by their names.
+	 * The sets are sorted in the same order as {@link #edges}.
+	 */
+	private final Map<String,Set<E>> edgesByName = new HashMap<String,Set<E>>();
+
 	private final Listener listener = new Listener();
 	
+	/** Number of nested transactions.
+	 */
+	private transient int transactionDepth = 0;
+
+	/** Events fired during the current transaction.
+	 */
+	private transient ModelObjectEventBuffer transactionBuffer = null;
+
 	/**
 	 */
 	public StandardGraph() {
@@ -93,15 +126,12 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	@Override
 	public ModelObject findModelObject(UUID id) {
 		if (getUUID().equals(id)) return this;
-		for(N node : this.nodes) {
-			ModelObject obj = node.findModelObject(id);
-			if (obj!=null) return obj;
-		}
-		for(E edge : this.edges) {
-			ModelObject obj = edge.findModelObject(id);
-			if (obj!=null) return obj;
-		}
-		return null;
+		if (id==null) return null;
+		ModelObject obj = this.nodesByUUID.get(id);
+		if (obj!=null) return obj;
+		obj = this.edgesByUUID.get(id);
+		if (obj!=null) return obj;
+		return this.anchorsByUUID.get(id);
 	}
 
 	/**
@@ -117,16 +147,9 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	 */
 	@Override
 	public Set<N> getNodesByName(String name) {
-		Set<N> collection = new TreeSet<N>();
-		String n;
-		for(N node : this.nodes) {
-			n = node.getName();
-			if ((name==null && n==null)
-				||(name!=null && name.equals(n))) {
-				collection.add(node);
-			}
-		}
-		return collection;
+		Set<N> set = this.nodesByName.get(name);
+		if (set==null) return new TreeSet<N>();
+		return new TreeSet<N>(set);
 	}
 
 	/**
@@ -134,15 +157,9 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	 */
 	@Override
 	public N getNodeByName(String name) {
-		String n;
-		for(N node : this.nodes) {
-			n = node.getName();
-			if ((name==null && n==null)
-				||(name!=null && name.equals(n))) {
-				return node;
-			}
-		}
-		return null;
+		Set<N> set = this.nodesByName.get(name);
+		if (set==null || set.isEmpty()) return null;
+		return set.iterator().next();
 	}
 	
 	/**
@@ -150,12 +167,8 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	 */
 	@Override
 	public N getNodeByUUID(UUID id) {
-		for(N node : this.nodes) {
-			if (node.getUUID().equals(id)) {
-				return node;
-			}
-		}
-		return null;
+		if (id==null) return null;
+		return this.nodesByUUID.get(id);
 	}
 
 	/**
@@ -184,9 +197,7 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	@Override
 	public Set<String> getNodeNames() {
 		Set<String> names = new TreeSet<String>();
-		String n;
-		for(N node : this.nodes) {
-			n = node.getName();
+		for(String n : this.nodesByName.keySet()) {
 			if (n!=null) {
 				names.add(n);
 			}
@@ -219,6 +230,7 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 				StandardGraphException.alreadyInsideGraph();
 			
 			if (this.nodes.add(node)) {
+				indexNode(node);
 				node.setGraph((G)this);
 				node.addModelObjectListener(this.listener);
 				fireComponentAdded(node);
@@ -238,6 +250,7 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 			List<E> edges = node.getEdges();
 			
 			if (this.nodes.remove(node)) {
+				unindexNode(node);
 				node.removeModelObjectListener(this.listener);
 				node.disconnect();
 				node.setGraph(null);
@@ -261,6 +274,7 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 				StandardGraphException.outsideGraph();
 			
 			if (this.nodes.remove(node)) {
+				unindexNode(node);
 				node.removeModelObjectListener(this.listener);
 				node.setGraph(null);
 			}
@@ -281,9 +295,7 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	@Override
 	public Set<String> getEdgeNames() {
 		Set<String> names = new TreeSet<String>();
-		String n;
-		for(E edge : this.edges) {
-			n = edge.getName();
+		for(String n : this.edgesByName.keySet()) {
 			if (n!=null) {
 				names.add(n);
 			}
@@ -296,16 +308,9 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	 */
 	@Override
 	public Set<E> getEdgesByName(String name) {
-		Set<E> collection = new TreeSet<E>();
-		String n;
-		for(E edge : this.edges) {
-			n = edge.getName();
-			if ((name==null && n==null)
-				||(name!=null && name.equals(n))) {
-				collection.add(edge);
-			}
-		}
-		return collection;
+		Set<E> set = this.edgesByName.get(name);
+		if (set==null) return new TreeSet<E>();
+		return new TreeSet<E>(set);
 	}
 
 	/**
@@ -313,15 +318,9 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	 */
 	@Override
 	public E getEdgeByName(String name) {
-		String n;
-		for(E edge : this.edges) {
-			n = edge.getName();
-			if ((name==null && n==null)
-				||(name!=null && name.equals(n))) {
-				return edge;
-			}
-		}
-		return null;
+		Set<E> set = this.edgesByName.get(name);
+		if (set==null || set.isEmpty()) return null;
+		return set.iterator().next();
 	}
 
 	/**
@@ -363,12 +362,8 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	 */
 	@Override
 	public E getEdgeByUUID(UUID id) {
-		for(E edge : this.edges) {
-			if (edge.getUUID().equals(id)) {
-				return edge;
-			}
-		}
-		return null;
+		if (id==null) return null;
+		return this.edgesByUUID.get(id);
 	}
 
 	/**
@@ -382,6 +377,7 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 				StandardGraphException.alreadyInsideGraph();
 			
 			if (this.edges.add(edge)) {
+				indexEdge(edge);
 				edge.setGraph((G)this);
 				edge.addModelObjectListener(this.listener);
 				fireComponentAdded(edge);
@@ -399,6 +395,7 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 				StandardGraphException.outsideGraph();
 			
 			if (this.edges.remove(edge)) {
+				unindexEdge(edge);
 				edge.removeModelObjectListener(this.listener);
 				edge.disconnect();
 				edge.setGraph(null);
@@ -418,6 +415,7 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 				StandardGraphException.outsideGraph();
 			
 			if (this.edges.remove(edge)) {
+				unindexEdge(edge);
 				edge.removeModelObjectListener(this.listener);
 				edge.setGraph(null);
 			}
@@ -436,12 +434,14 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 			List<E> addedEdges = new ArrayList<E>();
 			for(N node : graph.getNodes()) {
 				if (this.nodes.add(node)) {
+					indexNode(node);
 					addedNodes.add(node);
 					++moved;
 				}
 			}
 			for(E edge : graph.getEdges()) {
 				if (this.edges.add(edge)) {
+					indexEdge(edge);
 					addedEdges.add(edge);
 					++moved;
 				}
@@ -522,7 +522,9 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 
 			for(N node : addedNodes) {
 				graph.removeNodeSilently(node);
-				this.nodes.add(node);
+				if (this.nodes.add(node)) {
+					indexNode(node);
+				}
 				node.setGraph((G)this);
 				node.addModelObjectListener(this.listener);
 				fireComponentAdded(node);
@@ -530,7 +532,9 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 			
 			for(E edge : addedEdges) {
 				graph.removeEdgeSilently(edge);
-				this.edges.add(edge);
+				if (this.edges.add(edge)) {
+					indexEdge(edge);
+				}
 				edge.setGraph((G)this);
 				edge.addModelObjectListener(this.listener);
 				fireComponentAdded(edge);
@@ -544,6 +548,11 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 	 */
 	@Override
 	public void clear() {
+		this.nodesByUUID.clear();
+		this.nodesByName.clear();
+		this.anchorsByUUID.clear();
+		this.edgesByUUID.clear();
+		this.edgesByName.clear();
 		Iterator<N> nodeIterator = this.nodes.iterator();
 		N node;
 		while (nodeIterator.hasNext()) {
@@ -564,6 +573,200 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 		}
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void beginTransaction() {
+		if (this.transactionDepth==0 && this.transactionBuffer==null) {
+			this.transactionBuffer = new ModelObjectEventBuffer();
+		}
+		++this.transactionDepth;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void commitTransaction() {
+		if (this.transactionDepth<=0)
+			throw new IllegalStateException("no transaction"); //$NON-NLS-1$
+		--this.transactionDepth;
+		if (this.transactionDepth==0) {
+			// The buffer is flushed before the dispatching
+			// because the listeners may start a new transaction.
+			List<ModelObjectEvent> events = this.transactionBuffer.flush();
+			for(ModelObjectEvent event : events) {
+				super.fireModelObjectEvent(event);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isInTransaction() {
+		return this.transactionDepth>0;
+	}
+
+	/** {@inheritDoc}
+	 * <p>
+	 * The events are buffered when a transaction is running.
+	 */
+	@Override
+	protected void fireModelObjectEvent(ModelObjectEvent event) {
+		if (this.transactionDepth>0) {
+			this.transactionBuffer.add(event);
+		}
+		else {
+			super.fireModelObjectEvent(event);
+		}
+	}
+
+	/** Add the given node and its anchors in the indexes.
+	 * 
+	 * @param node
+	 */
+	private void indexNode(N node) {
+		this.nodesByUUID.put(node.getUUID(), node);
+		addInNameIndex(this.nodesByName, node.getName(), node);
+		for(A anchor : node.getAnchors()) {
+			this.anchorsByUUID.put(anchor.getUUID(), anchor);
+		}
+	}
+
+	/** Remove the given node and its anchors from the indexes.
+	 * 
+	 * @param node
+	 */
+	private void unindexNode(N node) {
+		this.nodesByUUID.remove(node.getUUID());
+		removeFromNameIndex(this.nodesByName, node.getName(), node);
+		for(A anchor : node.getAnchors()) {
+			this.anchorsByUUID.remove(anchor.getUUID());
+		}
+	}
+
+	/** Add the given edge in the indexes.
+	 * 
+	 * @param edge
+	 */
+	private void indexEdge(E edge) {
+		this.edgesByUUID.put(edge.getUUID(), edge);
+		addInNameIndex(this.edgesByName, edge.getName(), edge);
+	}
+
+	/** Remove the given edge from the indexes.
+	 * 
+	 * @param edge
+	 */
+	private void unindexEdge(E edge) {
+		this.edgesByUUID.remove(edge.getUUID());
+		removeFromNameIndex(this.edgesByName, edge.getName(), edge);
+	}
+
+	private static <T extends ModelObject> void addInNameIndex(Map<String,Set<T>> index, String name, T object) {
+		Set<T> set = index.get(name);
+		if (set==null) {
+			set = new TreeSet<T>();
+			index.put(name, set);
+		}
+		set.add(object);
+	}
+
+	private static <T extends ModelObject> void removeFromNameIndex(Map<String,Set<T>> index, String name, T object) {
+		Set<T> set = index.get(name);
+		if (set!=null && set.remove(object) && set.isEmpty()) {
+			index.remove(name);
+		}
+	}
+
+	/** Remove the given object from the given sorted collection
+	 * without using the comparison function.
+	 * This function is used when the identifier of the object,
+	 * ie. its sorting key, has changed after its insertion
+	 * in the collection.
+	 * 
+	 * @param collection
+	 * @param object
+	 * @return <code>true</code> if the object was removed.
+	 */
+	private static boolean removeByIdentity(Set<?> collection, Object object) {
+		Iterator<?> iterator = collection.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next()==object) {
+				iterator.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Update the indexes when a property of a node or an edge has changed.
+	 * 
+	 * @param event
+	 */
+	@SuppressWarnings("unchecked")
+	private void updateIndexes(ModelObjectEvent event) {
+		ModelObject source = event.getSource();
+		String propertyName = event.getPropertyName();
+		if (PROPERTY_NAME.equals(propertyName)) {
+			UUID id = source.getUUID();
+			String oldName = (String)event.getOldPropertyValue();
+			String newName = (String)event.getNewPropertyValue();
+			N node = this.nodesByUUID.get(id);
+			if (node==source) {
+				removeFromNameIndex(this.nodesByName, oldName, node);
+				addInNameIndex(this.nodesByName, newName, node);
+			}
+			else {
+				E edge = this.edgesByUUID.get(id);
+				if (edge==source) {
+					removeFromNameIndex(this.edgesByName, oldName, edge);
+					addInNameIndex(this.edgesByName, newName, edge);
+				}
+			}
+		}
+		else if (PROPERTY_UUID.equals(propertyName)) {
+			UUID oldId = (UUID)event.getOldPropertyValue();
+			UUID newId = source.getUUID();
+			N node = this.nodesByUUID.get(oldId);
+			if (node==source) {
+				this.nodesByUUID.remove(oldId);
+				this.nodesByUUID.put(newId, node);
+				// The sorting key has changed: reinsert the node
+				if (removeByIdentity(this.nodes, node)) {
+					this.nodes.add(node);
+				}
+				Set<N> sameName = this.nodesByName.get(node.getName());
+				if (sameName!=null && removeByIdentity(sameName, node)) {
+					sameName.add(node);
+				}
+				return;
+			}
+			E edge = this.edgesByUUID.get(oldId);
+			if (edge==source) {
+				this.edgesByUUID.remove(oldId);
+				this.edgesByUUID.put(newId, edge);
+				// The sorting key has changed: reinsert the edge
+				if (removeByIdentity(this.edges, edge)) {
+					this.edges.add(edge);
+				}
+				Set<E> sameName = this.edgesByName.get(edge.getName());
+				if (sameName!=null && removeByIdentity(sameName, edge)) {
+					sameName.add(edge);
+				}
+				return;
+			}
+			A anchor = this.anchorsByUUID.get(oldId);
+			if (anchor==source) {
+				this.anchorsByUUID.remove(oldId);
+				this.anchorsByUUID.put(newId, (A)source);
+			}
+		}
+	}
+
 	/**
 	 * @author $Author: galland$
 	 * @version $FullVersion$
@@ -583,6 +786,7 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 		 */
 		@Override
 		public void modelPropertyChanged(ModelObjectEvent event) {
+			updateIndexes(event);
 			fireContentChanged(event);
 		}
 
@@ -607,6 +811,11 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 		 */
 		@Override
 		public void modelContentChanged(ModelObjectEvent event) {
+			// The events of the anchors are forwarded by the nodes
+			ModelObjectEvent cause = event.getCause();
+			if (cause!=event && cause.getType()==Type.PROPERTY_CHANGE) {
+				updateIndexes(cause);
+			}
 			fireContentChanged(event);
 		}
 
@@ -614,7 +823,12 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 		 * {@inheritDoc}
 		 */
 		@Override
+		@SuppressWarnings("unchecked")
 		public void modelComponentAdded(ModelObjectEvent event) {
+			ModelObject component = event.getAddedObject();
+			if (component instanceof StandardAnchor<?,?,?,?>) {
+				StandardGraph.this.anchorsByUUID.put(component.getUUID(), (A)component);
+			}
 			fireContentChanged(event);
 		}
 
@@ -623,6 +837,11 @@ extends AbstractModelObject implements Graph<G,N,A,E> {
 		 */
 		@Override
 		public void modelComponentRemoved(ModelObjectEvent event) {
+			ModelObject component = event.getRemovedObject();
+			if (component!=null
+				&& StandardGraph.this.anchorsByUUID.get(component.getUUID())==component) {
+				StandardGraph.this.anchorsByUUID.remove(component.getUUID());
+			}
 			fireContentChanged(event);
 		}
 	
@@ -0,0 +1,99 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.io.binary ;
+
+/** Constants for the NetEditor binary format.
+ * <p>
+ * A binary content starts with the {@link #MAGIC_NUMBER} and the
+ * {@link #FORMAT_VERSION}. It is followed by a sequence of sections,
+ * and it is terminated by the {@link #SECTION_END} tag. Each section
+ * is composed of its tag on one byte, the length of its data in bytes
+ * on four bytes, and its data. A reader is able to skip a section
+ * without decoding it.
+ * <p>
+ * The sizes, the counts and the references are written as variable-length
+ * unsigned integers. The names of the types and the keys of the properties
+ * are replaced by their indexes in the table of strings. The UUIDs are
+ * written as two longs.
+ *
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+public interface BinaryConstants {
+
+	/** Magic number at the beginning of the binary contents ("NEBF").
+	 */
+	public static final int MAGIC_NUMBER = 0x4E454246;
+
+	/** Version of the binary format written by the binary writer.
+	 */
+	public static final short FORMAT_VERSION = 1;
+
+	/** Tag of the section that is terminating the content. */
+	public static final int SECTION_END = 0;
+	/** Tag of the section that contains the table of strings. */
+	public static final int SECTION_STRINGS = 1;
+	/** Tag of the section that contains the graphs. */
+	public static final int SECTION_GRAPH = 2;
+	/** Tag of the section that contains the figures. */
+	public static final int SECTION_FIGURES = 3;
+
+	/** Tag that is terminating a list of values. */
+	public static final int V_END = 0;
+	/** Tag of the boolean <code>false</code>. */
+	public static final int V_FALSE = 1;
+	/** Tag of the boolean <code>true</code>. */
+	public static final int V_TRUE = 2;
+	/** Tag of a 32-bit integer. */
+	public static final int V_INTEGER = 3;
+	/** Tag of a 64-bit integer. */
+	public static final int V_LONG = 4;
+	/** Tag of a single-precision floating-point number. */
+	public static final int V_FLOAT = 5;
+	/** Tag of a double-precision floating-point number. */
+	public static final int V_DOUBLE = 6;
+	/** Tag of a string. */
+	public static final int V_STRING = 7;
+	/** Tag of a string of control points "(x|y)(x|y)" stored as floating-point numbers. */
+	public static final int V_POINTS = 8;
+	/** Tag of an UUID. */
+	public static final int V_UUID = 9;
+	/** Tag of an enumeration constant. */
+	public static final int V_ENUM = 10;
+	/** Tag of an URL. */
+	public static final int V_URL = 11;
+	/** Tag of a set of values. */
+	public static final int V_SET = 12;
+	/** Tag of a list of values. */
+	public static final int V_LIST = 13;
+	/** Tag of a collection of values. */
+	public static final int V_COLLECTION = 14;
+	/** Tag of a serialized object. */
+	public static final int V_SERIAL = 15;
+
+	/** Reference that is not associated to a model object.
+	 */
+	public static final int NO_REFERENCE = 0;
+
+}
@@ -0,0 +1,626 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.io.binary ;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.arakhne.afc.progress.Progression;
+import org.arakhne.afc.progress.ProgressionInputStream;
+import org.arakhne.afc.progress.ProgressionUtil;
+import org.arakhne.afc.vmutil.FileSystem;
+import org.arakhne.afc.vmutil.locale.Locale;
+import org.arakhne.neteditor.fig.figure.Figure;
+import org.arakhne.neteditor.fig.figure.coercion.CoercedFigure;
+import org.arakhne.neteditor.fig.subfigure.SubFigure;
+import org.arakhne.neteditor.fig.view.ModelObjectView;
+import org.arakhne.neteditor.fig.view.ViewComponent;
+import org.arakhne.neteditor.formalism.Anchor;
+import org.arakhne.neteditor.formalism.Edge;
+import org.arakhne.neteditor.formalism.Graph;
+import org.arakhne.neteditor.formalism.ModelObject;
+import org.arakhne.neteditor.formalism.Node;
+import org.arakhne.neteditor.io.AbstractNetEditorReader;
+import org.arakhne.neteditor.io.NetEditorContentType;
+import org.arakhne.neteditor.io.resource.ResourceRepository;
+
+/** This class permits to read the
+ *  <strong>graph-model</strong> from the NetEditor binary format.
+ *  <p>
+ *  The sections of the binary content that are not needed
+ *  are skipped without being decoded, e.g. the figures when
+ *  only the graph is read. See {@link BinaryConstants} for
+ *  the layout of the binary content.
+ *
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @see BinaryWriter
+ * @since 18.0
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class BinaryReader extends AbstractNetEditorReader implements BinaryConstants {
+
+	private DataInputStream in = null;
+	private String[] strings = null;
+	private Class<?>[] types = null;
+	private final List<ModelObject> references = new ArrayList<ModelObject>();
+	private Map<UUID, List<ViewComponent>> allFigures = null;
+
+	/** Construct a new BinaryReader.
+	 */
+	public BinaryReader() {
+		//
+	}
+
+	@Override
+	public final NetEditorContentType getContentType() {
+		return NetEditorContentType.BINARY;
+	}
+
+	@Override
+	public final <G extends Graph<?, ?, ?, ?>> G read(Class<G> type, File inputFile,
+			Map<UUID, List<ViewComponent>> figures) throws IOException {
+		ResourceRepository rr = getResourceRepository();
+		if (rr!=null) rr.setRoot(FileSystem.dirname(inputFile));
+		FileInputStream fis = new FileInputStream(inputFile);
+		try {
+			return read(type, fis, figures);
+		}
+		finally {
+			fis.close();
+		}
+	}
+
+	@Override
+	public final <G extends Graph<?, ?, ?, ?>> G read(Class<G> type, URL inputURL,
+			Map<UUID, List<ViewComponent>> figures) throws IOException {
+		ResourceRepository rr = getResourceRepository();
+		if (rr!=null) rr.setRoot(FileSystem.dirname(inputURL));
+		InputStream is = inputURL.openStream();
+		try {
+			return read(type, is, figures);
+		}
+		finally {
+			is.close();
+		}
+	}
+
+	@SuppressWarnings("resource")
+	@Override
+	public final <G extends Graph<?, ?, ?, ?>> G read(Class<G> type, InputStream is,
+			Map<UUID, List<ViewComponent>> figures) throws IOException {
+		Progression progression = getProgression();
+		try {
+			ProgressionUtil.init(progression, 0, 100000);
+			InputStream iis = is;
+			if (progression!=null) {
+				iis = new ProgressionInputStream(iis,
+						ProgressionUtil.sub(progression, 95000));
+			}
+			// The stream is not closed because it is owned by the caller
+			this.in = new DataInputStream(new BufferedInputStream(iis));
+			this.allFigures = figures;
+			this.strings = null;
+			this.types = null;
+			this.references.clear();
+
+			if (this.in.readInt()!=MAGIC_NUMBER) {
+				throw new BinaryException(Locale.getString("INVALID_FORMAT")); //$NON-NLS-1$
+			}
+			short version = this.in.readShort();
+			if (version<1 || version>FORMAT_VERSION) {
+				throw new BinaryException(Locale.getString("INVALID_FORMAT_VERSION", //$NON-NLS-1$
+						Short.toString(version), Short.toString(FORMAT_VERSION)));
+			}
+
+			Map<ViewComponent,Map<String,UUID>> coercedFigures = new HashMap<ViewComponent,Map<String,UUID>>();
+			Graph<?,?,?,?> g = null;
+
+			// The reading progression is notified by the input stream
+			int section;
+			while ((section = this.in.readUnsignedByte())!=SECTION_END) {
+				int length = this.in.readInt();
+				if (section==SECTION_STRINGS && this.strings==null) {
+					readStrings();
+				}
+				else if (section==SECTION_GRAPH && g==null) {
+					g = readGraphs();
+					if (!(type.isInstance(g)))
+						throw new BinaryException(Locale.getString("INVALID_GRAPH_TYPE", type.getCanonicalName())); //$NON-NLS-1$
+				}
+				else if (section==SECTION_FIGURES && this.allFigures!=null) {
+					readFigures(coercedFigures);
+				}
+				else {
+					skip(length);
+				}
+			}
+
+			if (g==null) {
+				throw new BinaryException(Locale.getString("GRAPH_NOT_FOUND")); //$NON-NLS-1$
+			}
+
+			//
+			// Link the figures to their coerced figures.
+			//
+			for(Entry<ViewComponent,Map<String,UUID>> map1 : coercedFigures.entrySet()) {
+				for(Entry<String,UUID> map2 : map1.getValue().entrySet()) {
+					Figure slaveFigure = getFigure(map2.getValue());
+					if (slaveFigure instanceof CoercedFigure) {
+						map1.getKey().addAssociatedFigureIntoView(map2.getKey(), (CoercedFigure)slaveFigure);
+					}
+				}
+			}
+
+			ProgressionUtil.ensureNoSubTask(progression);
+			return type.cast(g);
+		}
+		catch(IOException e) {
+			throw e;
+		}
+		catch(Exception e) {
+			throw new IOException(e);
+		}
+		finally {
+			this.in = null;
+			this.allFigures = null;
+			this.strings = null;
+			this.types = null;
+			this.references.clear();
+			ProgressionUtil.end(progression);
+		}
+	}
+
+	private void skip(int length) throws IOException {
+		int remaining = length;
+		while (remaining>0) {
+			int n = this.in.skipBytes(remaining);
+			if (n<=0) {
+				// Force the detection of the end of the stream
+				this.in.readByte();
+				n = 1;
+			}
+			remaining -= n;
+		}
+	}
+
+	private void readStrings() throws IOException {
+		int count = readCount();
+		this.strings = new String[count];
+		this.types = new Class<?>[count];
+		for(int i=0; i<count; ++i) {
+			this.strings[i] = readString();
+		}
+	}
+
+	/** Read the graphs and reply the first one.
+	 */
+	private Graph<?,?,?,?> readGraphs() throws IOException {
+		Graph<?,?,?,?> first = null;
+		int count = readCount();
+		for(int i=0; i<count; ++i) {
+			Graph<?,?,?,?> graph = readGraph();
+			if (first==null) first = graph;
+		}
+		return first;
+	}
+
+	private Graph<?,?,?,?> readGraph() throws IOException {
+		Graph graph = createInstance(Graph.class, readType());
+		UUID id = readUUID();
+		graph.setProperties(readAttributes());
+		graph.setUUID(id);
+		this.references.add(graph);
+
+		int count = readCount();
+		for(int i=0; i<count; ++i) {
+			Node node = createInstance(Node.class, readType());
+			id = readUUID();
+			node.setProperties(readAttributes());
+			node.setUUID(id);
+			graph.addNode(node);
+			this.references.add(node);
+
+			int anchorCount = readCount();
+			for(int j=0; j<anchorCount; ++j) {
+				Anchor anchor = createInstance(Anchor.class, readType());
+				id = readUUID();
+				anchor.setProperties(readAttributes());
+				anchor.setUUID(id);
+				node.addAnchor(anchor);
+				this.references.add(anchor);
+			}
+		}
+
+		count = readCount();
+		for(int i=0; i<count; ++i) {
+			Edge edge = createInstance(Edge.class, readType());
+			id = readUUID();
+			edge.setProperties(readAttributes());
+			edge.setUUID(id);
+			Anchor startAnchor = readEdgeEnd();
+			Anchor endAnchor = readEdgeEnd();
+
+			graph.addEdge(edge);
+
+			this.references.add(edge);
+
+			edge.setStartAnchor(startAnchor);
+			edge.setEndAnchor(endAnchor);
+		}
+
+		return graph;
+	}
+
+	/** Read the reference to the anchor, or to the node
+	 * of the anchor when the anchors were not written.
+	 */
+	private Anchor readEdgeEnd() throws IOException {
+		ModelObject mo = readReference();
+		if (mo instanceof Anchor) {
+			return (Anchor)mo;
+		}
+		if (mo instanceof Node) {
+			List<Anchor> anchors = ((Node)mo).getAnchors();
+			if (!anchors.isEmpty()) return anchors.get(0);
+		}
+		throw new BinaryException(Locale.getString("INVALID_REFERENCE")); //$NON-NLS-1$
+	}
+
+	private void readFigures(Map<ViewComponent,Map<String,UUID>> coercedFigures) throws IOException {
+		int count = readCount();
+		for(int i=0; i<count; ++i) {
+			Class<?> figureType = readType();
+			UUID viewId = readUUID();
+			UUID figureId = readUUID();
+			ModelObject mo = readReference();
+			Map<String,Object> properties = readAttributes();
+
+			ViewComponent figure = createFigureInstance(ViewComponent.class, figureType, viewId);
+			boolean isFigure = figure instanceof Figure;
+			if (isFigure) {
+				figure.setProperties(properties);
+				figure.setUUID(figureId);
+				figure.setViewUUID(viewId);
+				if (mo!=null && figure instanceof ModelObjectView<?>) {
+					((ModelObjectView)figure).setModelObject(mo);
+				}
+				registerFigure(viewId, (Figure)figure);
+			}
+
+			int subfigureCount = readCount();
+			for(int j=0; j<subfigureCount; ++j) {
+				Class<?> subfigureType = readType();
+				UUID subfigureId = readUUID();
+				mo = readReference();
+				properties = readAttributes();
+				if (isFigure) {
+					SubFigure subfigure = createFigureInstance(SubFigure.class, subfigureType, viewId);
+					subfigure.setProperties(properties);
+					subfigure.setUUID(subfigureId);
+					subfigure.setViewUUID(viewId);
+					if (mo instanceof Anchor && subfigure instanceof ModelObjectView<?>) {
+						((ModelObjectView)subfigure).setModelObject(mo);
+					}
+				}
+			}
+
+			int coercionCount = readCount();
+			for(int j=0; j<coercionCount; ++j) {
+				String coercionId = readStringReference();
+				UUID uid = readUUID();
+				if (isFigure) {
+					Map<String,UUID> figs = coercedFigures.get(figure);
+					if (figs==null) {
+						figs = new HashMap<String,UUID>();
+						coercedFigures.put(figure, figs);
+					}
+					figs.put(coercionId, uid);
+				}
+			}
+		}
+	}
+
+	private void registerFigure(UUID view, Figure component) {
+		List<ViewComponent> components = this.allFigures.get(view);
+		if (components==null) {
+			components = new ArrayList<ViewComponent>();
+			this.allFigures.put(view, components);
+		}
+		components.add(component);
+	}
+
+	private Figure getFigure(UUID figure) {
+		if (this.allFigures!=null) {
+			for(List<ViewComponent> components : this.allFigures.values()) {
+				for(ViewComponent c : components) {
+					if (c instanceof Figure && c.getUUID().equals(figure)) {
+						return (Figure)c;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private Map<String,Object> readAttributes() throws IOException {
+		Map<String,Object> properties = new TreeMap<String,Object>();
+		int key;
+		// The index 0 is reserved to the end of the attributes
+		while ((key = readCount())!=0) {
+			String name = getString(key-1);
+			properties.put(name, readAttributeValue(this.in.readUnsignedByte()));
+		}
+		return properties;
+	}
+
+	private Object readAttributeValue(int tag) throws IOException {
+		switch(tag) {
+		case V_FALSE:
+			return Boolean.FALSE;
+		case V_TRUE:
+			return Boolean.TRUE;
+		case V_INTEGER:
+			return Integer.valueOf((int)readSigned());
+		case V_LONG:
+			return Long.valueOf(readSigned());
+		case V_FLOAT:
+			return Float.valueOf(this.in.readFloat());
+		case V_DOUBLE:
+			return Double.valueOf(this.in.readDouble());
+		case V_STRING:
+			return readString();
+		case V_POINTS:
+		{
+			int count = readCount();
+			StringBuilder b = new StringBuilder();
+			for(int i=0; i<count; ++i) {
+				b.append("("); //$NON-NLS-1$
+				b.append(this.in.readFloat());
+				b.append("|"); //$NON-NLS-1$
+				b.append(this.in.readFloat());
+				b.append(")"); //$NON-NLS-1$
+			}
+			return b.toString();
+		}
+		case V_UUID:
+			return readUUID();
+		case V_ENUM:
+		{
+			Class<?> enumType = readType();
+			String name = readStringReference();
+			if (enumType.isEnum()) {
+				for(Object enumConstant : enumType.getEnumConstants()) {
+					if (((Enum<?>)enumConstant).name().equals(name)) {
+						return enumConstant;
+					}
+				}
+			}
+			throw new BinaryException(Locale.getString("UNSUPPORTED_TYPE", enumType.getName()+"."+name)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		case V_URL:
+			return toURL(readString());
+		case V_SET:
+		{
+			Set<Object> theSet = new HashSet<Object>();
+			readCollection(theSet);
+			return theSet;
+		}
+		case V_LIST:
+		{
+			List<Object> theList = new ArrayList<Object>();
+			readCollection(theList);
+			return theList;
+		}
+		case V_COLLECTION:
+		{
+			Collection<Object> theCollection = new ArrayList<Object>();
+			readCollection(theCollection);
+			return theCollection;
+		}
+		case V_SERIAL:
+		{
+			byte[] data = new byte[readCount()];
+			this.in.readFully(data);
+			ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
+			try {
+				return ois.readObject();
+			}
+			catch (ClassNotFoundException e) {
+				throw new BinaryException(e);
+			}
+			finally {
+				ois.close();
+			}
+		}
+		default:
+		}
+		throw new BinaryException(Locale.getString("INVALID_VALUE_TAG", Integer.toString(tag))); //$NON-NLS-1$
+	}
+
+	private void readCollection(Collection<Object> collection) throws IOException {
+		int tag;
+		while ((tag = this.in.readUnsignedByte())!=V_END) {
+			collection.add(readAttributeValue(tag));
+		}
+	}
+
+	private URL toURL(String url) throws IOException {
+		String href = url.trim();
+		ResourceRepository resourceRepository = getResourceRepository();
+		try {
+			URL u = (resourceRepository==null) ? null : resourceRepository.getURL(href);
+			if (u==null) {
+				u = FileSystem.convertStringToURL(href, true);
+			}
+			return u;
+		}
+		catch (Exception _) {
+			try {
+				File file;
+				if (FileSystem.isWindowsNativeFilename(href)) {
+					file = FileSystem.normalizeWindowsNativeFilename(href);
+				}
+				else {
+					file = new File(href);
+				}
+				if (resourceRepository!=null) {
+					URL root = resourceRepository.getRoot();
+					if (root!=null) {
+						return FileSystem.makeAbsolute(file, root);
+					}
+				}
+				return file.toURI().toURL();
+			}
+			catch (Throwable e) {
+				throw new BinaryException(e);
+			}
+		}
+	}
+
+	private static <T> T createInstance(Class<T> type, Class<?> foundType) throws IOException {
+		if (type.isAssignableFrom(foundType)) {
+			try {
+				Object obj = foundType.newInstance();
+				return type.cast(obj);
+			}
+			catch (Exception e) {
+				throw new BinaryException(e);
+			}
+		}
+		throw new BinaryException(Locale.getString("UNEXPECTED_TYPE", foundType.getName(), type.getCanonicalName())); //$NON-NLS-1$
+	}
+
+	private static <T extends ViewComponent> T createFigureInstance(Class<T> type, Class<?> foundType, UUID viewId) throws IOException {
+		if (type.isAssignableFrom(foundType)) {
+			try {
+				Constructor<?> cons = foundType.getConstructor(UUID.class);
+				Object obj = cons.newInstance(viewId);
+				return type.cast(obj);
+			}
+			catch (Exception e) {
+				throw new BinaryException(e);
+			}
+		}
+		throw new BinaryException(Locale.getString("UNEXPECTED_TYPE", foundType.getName(), type.getCanonicalName())); //$NON-NLS-1$
+	}
+
+	/** Read a reference to a type in the table of strings,
+	 * and reply the corresponding class.
+	 */
+	private Class<?> readType() throws IOException {
+		int index = readCount();
+		String name = getString(index);
+		Class<?> type = this.types[index];
+		if (type==null) {
+			try {
+				type = Class.forName(name);
+			}
+			catch (ClassNotFoundException e) {
+				throw new BinaryException(Locale.getString("UNSUPPORTED_TYPE", name), e); //$NON-NLS-1$
+			}
+			this.types[index] = type;
+		}
+		return type;
+	}
+
+	private ModelObject readReference() throws IOException {
+		int ref = readCount();
+		if (ref==NO_REFERENCE) return null;
+		if (ref>this.references.size()) {
+			throw new BinaryException(Locale.getString("INVALID_REFERENCE")); //$NON-NLS-1$
+		}
+		return this.references.get(ref-1);
+	}
+
+	private UUID readUUID() throws IOException {
+		long most = this.in.readLong();
+		long least = this.in.readLong();
+		return new UUID(most, least);
+	}
+
+	private String readString() throws IOException {
+		byte[] bytes = new byte[readCount()];
+		this.in.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+
+	private String readStringReference() throws IOException {
+		return getString(readCount());
+	}
+
+	private String getString(int index) throws IOException {
+		if (this.strings==null || index<0 || index>=this.strings.length) {
+			throw new BinaryException(Locale.getString("INVALID_REFERENCE")); //$NON-NLS-1$
+		}
+		return this.strings[index];
+	}
+
+	private long readSigned() throws IOException {
+		long v = readUnsigned();
+		return (v >>> 1) ^ -(v & 1);
+	}
+
+	private int readCount() throws IOException {
+		long v = readUnsigned();
+		if (v<0 || v>Integer.MAX_VALUE) {
+			throw new BinaryException(Locale.getString("INVALID_FORMAT")); //$NON-NLS-1$
+		}
+		return (int)v;
+	}
+
+	private long readUnsigned() throws IOException {
+		long value = 0;
+		int shift = 0;
+		int b;
+		do {
+			if (shift>=64) {
+				throw new BinaryException(Locale.getString("INVALID_FORMAT")); //$NON-NLS-1$
+			}
+			b = this.in.readUnsignedByte();
+			value |= ((long)(b & 0x7F)) << shift;
+			shift += 7;
+		}
+		while ((b & 0x80)!=0);
+		return value;
+	}
+
+}
@@ -0,0 +1,629 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.io.binary ;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.arakhne.afc.progress.Progression;
+import org.arakhne.afc.progress.ProgressionUtil;
+import org.arakhne.afc.ui.vector.Image;
+import org.arakhne.afc.vmutil.ExternalizableResource;
+import org.arakhne.neteditor.fig.figure.Figure;
+import org.arakhne.neteditor.fig.figure.ModelObjectFigure;
+import org.arakhne.neteditor.fig.figure.coercion.CoercedFigure;
+import org.arakhne.neteditor.fig.subfigure.SubFigure;
+import org.arakhne.neteditor.fig.view.ModelObjectView;
+import org.arakhne.neteditor.fig.view.ViewComponent;
+import org.arakhne.neteditor.fig.view.ViewComponentContainer;
+import org.arakhne.neteditor.formalism.Anchor;
+import org.arakhne.neteditor.formalism.Edge;
+import org.arakhne.neteditor.formalism.Graph;
+import org.arakhne.neteditor.formalism.ModelObject;
+import org.arakhne.neteditor.formalism.Node;
+import org.arakhne.neteditor.io.AbstractNetEditorWriter;
+import org.arakhne.neteditor.io.resource.ResourceRepository;
+
+/** This class permits to export the
+ *  <strong>graph-model</strong> into the NetEditor binary format.
+ *  <p>
+ *  The binary format is dedicated to the files that are
+ *  read and written by NetEditor only. It contains the same
+ *  data as the XML and GML formats, without the cost
+ *  of their parsing. See {@link BinaryConstants} for
+ *  the layout of the binary content.
+ *
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @see BinaryReader
+ * @since 18.0
+ */
+public class BinaryWriter extends AbstractNetEditorWriter implements BinaryConstants {
+
+	private DataOutputStream out = null;
+	private final List<String> strings = new ArrayList<String>();
+	private final Map<String,Integer> stringIds = new HashMap<String,Integer>();
+	private final Map<UUID,Integer> uuidToReferences = new TreeMap<UUID,Integer>();
+
+	/** Construct a new BinaryWriter.
+	 */
+	public BinaryWriter() {
+		//
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void write(OutputStream os, Graph<?, ?, ?, ?> graph)
+			throws IOException {
+		Map<UUID,Graph<?,?,?,?>> graphs = new TreeMap<UUID,Graph<?,?,?,?>>();
+		if (graph!=null) graphs.put(graph.getUUID(), graph);
+		List<? extends Figure> figures = Collections.emptyList();
+		writeGraph(os, graphs, figures, getProgression());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final <G extends Graph<?, ?, ?, ?>> void write(OutputStream os, G graph,
+			ViewComponentContainer<?, G> container) throws IOException {
+		synchronized(container.getTreeLock()) {
+			ProgressionUtil.init(getProgression(), 0, 100000);
+			try {
+				Map<UUID,Graph<?,?,?,?>> graphs = new TreeMap<UUID,Graph<?,?,?,?>>();
+				if (graph!=null) graphs.put(graph.getUUID(), graph);
+				List<Figure> figures = new ArrayList<Figure>();
+				for(ViewComponent vc : container) {
+					if (vc instanceof Figure) {
+						figures.add((Figure)vc);
+					}
+					ProgressionUtil.advance(getProgression());
+				}
+				writeGraph(os, graphs, figures,
+						ProgressionUtil.subToEnd(getProgression()));
+			}
+			finally {
+				ProgressionUtil.end(getProgression());
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public final void write(OutputStream os, Collection<? extends Figure> figures)
+			throws IOException {
+		// Find a graph.
+		ProgressionUtil.init(getProgression(), 0, 3*figures.size());
+		Map<UUID,Graph<?,?,?,?>> graphs = new TreeMap<UUID,Graph<?,?,?,?>>();
+		Graph<?,?,?,?> g;
+		for(Figure figure : figures) {
+			if (figure instanceof ModelObjectFigure<?>) {
+				g = null;
+				ModelObject mo = ((ModelObjectFigure<?>)figure).getModelObject();
+				if (mo instanceof Graph<?,?,?,?>) {
+					g = (Graph<?,?,?,?>)mo;
+				}
+				else if (mo instanceof Node<?,?,?,?>) {
+					g = ((Node<?,?,?,?>)mo).getGraph();
+				}
+				else if (mo instanceof Edge<?,?,?,?>) {
+					g = ((Edge<?,?,?,?>)mo).getGraph();
+				}
+				if (g!=null) {
+					graphs.put(g.getUUID(), g);
+				}
+			}
+			ProgressionUtil.advance(getProgression());
+		}
+
+		// Write
+		writeGraph(os, graphs, figures, ProgressionUtil.subToEnd(getProgression()));
+
+		ProgressionUtil.end(getProgression());
+	}
+
+	/** Write the graph.
+	 * <p>
+	 * This function could be overridden by subclasses.
+	 *
+	 * @param os is the output stream.
+	 * @param graphs are the graphs to output.
+	 * @param figures are the figures to output. The list is ordered
+	 * from the front layer to the background layer.
+	 * @param progression is the progression indicator to be used.
+	 * @throws IOException
+	 */
+	protected void writeGraph(
+			OutputStream os,
+			Map<UUID, ? extends Graph<?,?,?,?>> graphs,
+			Collection<? extends Figure> figures,
+			Progression progression) throws IOException {
+		ProgressionUtil.init(progression, 0, figures.size()+graphs.size());
+
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(os));
+		try {
+			this.strings.clear();
+			this.stringIds.clear();
+			this.uuidToReferences.clear();
+
+			// The table of strings is known only when the other
+			// sections are built.
+			ByteArrayOutputStream graphSection = new ByteArrayOutputStream();
+			this.out = new DataOutputStream(graphSection);
+			writeUnsigned(graphs.size());
+			for(Graph<?,?,?,?> graph : graphs.values()) {
+				writeGraph(graph);
+				ProgressionUtil.advance(progression);
+			}
+			this.out.flush();
+
+			ByteArrayOutputStream figureSection = null;
+			if (!figures.isEmpty()) {
+				figureSection = new ByteArrayOutputStream();
+				this.out = new DataOutputStream(figureSection);
+				writeFigures(figures, progression);
+				this.out.flush();
+			}
+
+			ByteArrayOutputStream stringSection = new ByteArrayOutputStream();
+			this.out = new DataOutputStream(stringSection);
+			writeUnsigned(this.strings.size());
+			for(String str : this.strings) {
+				writeString(str);
+			}
+			this.out.flush();
+
+			dos.writeInt(MAGIC_NUMBER);
+			dos.writeShort(FORMAT_VERSION);
+			writeSection(dos, SECTION_STRINGS, stringSection);
+			writeSection(dos, SECTION_GRAPH, graphSection);
+			if (figureSection!=null) {
+				writeSection(dos, SECTION_FIGURES, figureSection);
+			}
+			dos.writeByte(SECTION_END);
+
+			ProgressionUtil.end(progression);
+		}
+		finally {
+			dos.close();
+			this.out = null;
+			this.strings.clear();
+			this.stringIds.clear();
+			this.uuidToReferences.clear();
+		}
+	}
+
+	private static void writeSection(DataOutputStream dos, int tag, ByteArrayOutputStream data) throws IOException {
+		dos.writeByte(tag);
+		dos.writeInt(data.size());
+		data.writeTo(dos);
+	}
+
+	private void writeGraph(Graph<?,?,?,?> graph) throws IOException {
+		writeType(graph);
+		registerReference(graph.getUUID());
+		writeUUID(graph.getUUID());
+		writeAttributes(graph.getProperties());
+
+		Set<? extends Node<?,?,?,?>> nodes = graph.getNodes();
+		writeUnsigned(nodes.size());
+		for(Node<?,?,?,?> node : nodes) {
+			writeNode(node);
+		}
+
+		Set<? extends Edge<?,?,?,?>> edges = graph.getEdges();
+		writeUnsigned(edges.size());
+		for(Edge<?,?,?,?> edge : edges) {
+			writeEdge(edge);
+		}
+	}
+
+	private void writeNode(Node<?,?,?,?> node) throws IOException {
+		writeType(node);
+		registerReference(node.getUUID());
+		writeUUID(node.getUUID());
+		writeAttributes(node.getProperties());
+
+		if (isAnchorOutput()) {
+			List<? extends Anchor<?,?,?,?>> anchors = node.getAnchors();
+			writeUnsigned(anchors.size());
+			for(Anchor<?,?,?,?> anchor : anchors) {
+				writeType(anchor);
+				registerReference(anchor.getUUID());
+				writeUUID(anchor.getUUID());
+				writeAttributes(anchor.getProperties());
+			}
+		}
+		else {
+			writeUnsigned(0);
+		}
+	}
+
+	private void writeEdge(Edge<?,?,?,?> edge) throws IOException {
+		writeType(edge);
+		registerReference(edge.getUUID());
+		writeUUID(edge.getUUID());
+		writeAttributes(edge.getProperties());
+		writeEdgeEnd(edge.getStartAnchor());
+		writeEdgeEnd(edge.getEndAnchor());
+	}
+
+	/** Write the reference to the anchor if anchors are
+	 * written, or the reference to the node of the anchor.
+	 */
+	private void writeEdgeEnd(Anchor<?,?,?,?> anchor) throws IOException {
+		int ref = getReference(anchor.getUUID());
+		if (ref==NO_REFERENCE) {
+			ref = getReference(anchor.getNode().getUUID());
+			if (ref==NO_REFERENCE) throw new BinaryException();
+		}
+		writeUnsigned(ref);
+	}
+
+	private void writeFigures(Collection<? extends Figure> figures, Progression progression) throws IOException {
+		writeUnsigned(figures.size());
+		for(Figure figure : figures) {
+			writeType(figure);
+			writeUUID(figure.getViewUUID());
+			writeUUID(figure.getUUID());
+			writeModelReference(figure);
+			writeAttributes(figure.getProperties());
+
+			List<SubFigure> subfigures = new ArrayList<SubFigure>();
+			for(SubFigure subFigure : figure.getSubFigures()) {
+				subfigures.add(subFigure);
+			}
+			writeUnsigned(subfigures.size());
+			for(SubFigure subFigure : subfigures) {
+				writeType(subFigure);
+				writeUUID(subFigure.getUUID());
+				writeModelReference(subFigure);
+				writeAttributes(subFigure.getProperties());
+			}
+
+			if (figure instanceof CoercedFigure) {
+				writeUnsigned(0);
+			}
+			else {
+				Map<String,CoercedFigure> coercedFigures = figure.getAssociatedFiguresInView();
+				writeUnsigned(coercedFigures.size());
+				for(Entry<String,CoercedFigure> entry : coercedFigures.entrySet()) {
+					writeStringReference(entry.getKey());
+					writeUUID(entry.getValue().getUUID());
+				}
+			}
+			ProgressionUtil.advance(progression);
+		}
+	}
+
+	private void writeModelReference(ViewComponent component) throws IOException {
+		int ref = NO_REFERENCE;
+		if (component instanceof ModelObjectView<?>) {
+			ModelObject mo = ((ModelObjectView<?>)component).getModelObject();
+			if (mo!=null) {
+				ref = getReference(mo.getUUID());
+			}
+		}
+		writeUnsigned(ref);
+	}
+
+	private void writeAttributes(Map<String,Object> properties) throws IOException {
+		if (properties!=null) {
+			for(Entry<String,Object> property : properties.entrySet()) {
+				String name = property.getKey();
+				Object value = property.getValue();
+				if (name!=null && !name.isEmpty()) {
+					int tag = getValueTag(value);
+					if (tag!=V_END) {
+						// The index 0 is reserved to the end of the attributes
+						writeUnsigned(getStringId(name)+1);
+						writeAttributeValue(tag, value);
+					}
+				}
+			}
+		}
+		writeUnsigned(0);
+	}
+
+	/** Replies the tag to use for the given value.
+	 *
+	 * @return the tag, or {@link #V_END} if the value cannot be written.
+	 */
+	private int getValueTag(Object value) {
+		if (value==null) return V_END;
+		if (value instanceof Integer || value instanceof Short
+			|| value instanceof Byte || value instanceof AtomicInteger) {
+			return V_INTEGER;
+		}
+		if (isInteger(value)) {
+			return V_LONG;
+		}
+		if (value instanceof Float) {
+			return V_FLOAT;
+		}
+		if (isFloat(value)) {
+			return V_DOUBLE;
+		}
+		if (value instanceof Boolean) {
+			return ((Boolean)value).booleanValue() ? V_TRUE : V_FALSE;
+		}
+		if (value instanceof AtomicBoolean) {
+			return ((AtomicBoolean)value).get() ? V_TRUE : V_FALSE;
+		}
+		if (isString(value)) {
+			return (parsePoints(value.toString())!=null) ? V_POINTS : V_STRING;
+		}
+		if (value instanceof Enum<?>) {
+			return V_ENUM;
+		}
+		if (value instanceof URL || value instanceof File || value instanceof URI) {
+			return V_URL;
+		}
+		if (value instanceof Set<?>) {
+			return V_SET;
+		}
+		if (value instanceof List<?>) {
+			return V_LIST;
+		}
+		if (value instanceof Collection<?>) {
+			return V_COLLECTION;
+		}
+		if (value instanceof ExternalizableResource) {
+			return (((ExternalizableResource)value).getExternalizableResourceLocation()!=null)
+					? V_URL : V_END;
+		}
+		if (value instanceof Image) {
+			return (getResourceRepository()!=null) ? V_URL : V_END;
+		}
+		if (value instanceof UUID) {
+			return V_UUID;
+		}
+		if (value instanceof Serializable) {
+			return V_SERIAL;
+		}
+		return V_END;
+	}
+
+	private void writeAttributeValue(int tag, Object value) throws IOException {
+		this.out.writeByte(tag);
+		switch(tag) {
+		case V_INTEGER:
+			writeSigned(((Number)value).intValue());
+			break;
+		case V_LONG:
+			writeSigned(((Number)value).longValue());
+			break;
+		case V_FLOAT:
+			this.out.writeFloat(((Number)value).floatValue());
+			break;
+		case V_DOUBLE:
+			this.out.writeDouble(((Number)value).doubleValue());
+			break;
+		case V_STRING:
+			writeString(value.toString());
+			break;
+		case V_POINTS:
+		{
+			float[] points = parsePoints(value.toString());
+			assert(points!=null);
+			writeUnsigned(points.length/2);
+			for(float coordinate : points) {
+				this.out.writeFloat(coordinate);
+			}
+			break;
+		}
+		case V_UUID:
+			writeUUID((UUID)value);
+			break;
+		case V_ENUM:
+		{
+			Enum<?> enumValue = (Enum<?>)value;
+			writeStringReference(enumValue.getDeclaringClass().getName());
+			writeStringReference(enumValue.name());
+			break;
+		}
+		case V_URL:
+			writeString(toURLString(value));
+			break;
+		case V_SET:
+		case V_LIST:
+		case V_COLLECTION:
+			for(Object v : (Collection<?>)value) {
+				int vtag = getValueTag(v);
+				if (vtag!=V_END) {
+					writeAttributeValue(vtag, v);
+				}
+			}
+			this.out.writeByte(V_END);
+			break;
+		case V_SERIAL:
+		{
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			ObjectOutputStream oos = new ObjectOutputStream(baos);
+			try {
+				oos.writeObject(value);
+			}
+			finally {
+				oos.close();
+			}
+			writeUnsigned(baos.size());
+			baos.writeTo(this.out);
+			break;
+		}
+		default:
+		}
+	}
+
+	private String toURLString(Object value) throws IOException {
+		ResourceRepository rr = getResourceRepository();
+		if (value instanceof URL) {
+			return (rr==null)
+					? ((URL)value).toExternalForm()
+							: rr.mapsTo((URL)value);
+		}
+		if (value instanceof File) {
+			return (rr==null)
+					? ((File)value).toURI().toASCIIString()
+							: rr.mapsTo(((File)value).toURI().toURL());
+		}
+		if (value instanceof URI) {
+			try {
+				URL u = ((URI)value).toURL();
+				return (rr==null)
+						? u.toExternalForm()
+								: rr.mapsTo(u);
+			}
+			catch (Throwable e) {
+				return ((URI)value).toASCIIString();
+			}
+		}
+		if (value instanceof ExternalizableResource) {
+			return ((ExternalizableResource)value).getExternalizableResourceLocation().toExternalForm();
+		}
+		assert(rr!=null);
+		return rr.mapsTo((Image)value);
+	}
+
+	/** Parse a string of control points "(x|y)(x|y)...".
+	 *
+	 * @param str
+	 * @return the coordinates of the points, or <code>null</code> if
+	 * the string cannot be rebuilt from the floating-point coordinates.
+	 */
+	static float[] parsePoints(String str) {
+		int length = str.length();
+		if (length==0 || str.charAt(0)!='(') return null;
+		float[] points = new float[8];
+		int count = 0;
+		int index = 0;
+		try {
+			while (index<length) {
+				if (str.charAt(index)!='(') return null;
+				int separator = str.indexOf('|', index);
+				if (separator<0) return null;
+				int end = str.indexOf(')', separator);
+				if (end<0) return null;
+				String x = str.substring(index+1, separator);
+				String y = str.substring(separator+1, end);
+				float fx = Float.parseFloat(x);
+				float fy = Float.parseFloat(y);
+				if (!x.equals(Float.toString(fx)) || !y.equals(Float.toString(fy))) {
+					return null;
+				}
+				if (count+2>points.length) {
+					float[] newPoints = new float[points.length*2];
+					System.arraycopy(points, 0, newPoints, 0, count);
+					points = newPoints;
+				}
+				points[count++] = fx;
+				points[count++] = fy;
+				index = end + 1;
+			}
+		}
+		catch(NumberFormatException _) {
+			return null;
+		}
+		float[] result = new float[count];
+		System.arraycopy(points, 0, result, 0, count);
+		return result;
+	}
+
+	private void writeType(Object object) throws IOException {
+		writeStringReference(object.getClass().getName());
+	}
+
+	private void writeUUID(UUID uuid) throws IOException {
+		this.out.writeLong(uuid.getMostSignificantBits());
+		this.out.writeLong(uuid.getLeastSignificantBits());
+	}
+
+	private void writeString(String str) throws IOException {
+		byte[] bytes = str.getBytes("UTF-8"); //$NON-NLS-1$
+		writeUnsigned(bytes.length);
+		this.out.write(bytes);
+	}
+
+	private void writeStringReference(String str) throws IOException {
+		writeUnsigned(getStringId(str));
+	}
+
+	private int getStringId(String str) {
+		Integer id = this.stringIds.get(str);
+		if (id==null) {
+			id = this.strings.size();
+			this.strings.add(str);
+			this.stringIds.put(str, id);
+		}
+		return id.intValue();
+	}
+
+	private void writeSigned(long value) throws IOException {
+		// Zig-zag encoding, to keep the small negative numbers small
+		writeUnsigned((value << 1) ^ (value >> 63));
+	}
+
+	private void writeUnsigned(long value) throws IOException {
+		long v = value;
+		while ((v & ~0x7FL)!=0) {
+			this.out.writeByte((int)((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		this.out.writeByte((int)v);
+	}
+
+	private void registerReference(UUID uuid) {
+		// The reference 0 is reserved to NO_REFERENCE
+		this.uuidToReferences.put(uuid, this.uuidToReferences.size()+1);
+	}
+
+	private int getReference(UUID uuid) {
+		Integer ref = this.uuidToReferences.get(uuid);
+		if (ref==null) return NO_REFERENCE;
+		return ref.intValue();
+	}
+
+}
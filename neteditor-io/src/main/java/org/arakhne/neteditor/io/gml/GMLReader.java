@@ -30,9 +30,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
 import org.arakhne.afc.progress.ProgressionInputStream;
 import org.arakhne.afc.progress.ProgressionUtil;
 import org.arakhne.afc.vmutil.FileSystem;
@@ -40,11 +37,10 @@ import org.arakhne.afc.vmutil.locale.Locale;
 import org.arakhne.neteditor.fig.view.ViewComponent;
 import org.arakhne.neteditor.formalism.Graph;
 import org.arakhne.neteditor.io.NetEditorContentType;
-import org.arakhne.neteditor.io.gml.parser.GMLParser;
+import org.arakhne.neteditor.io.gml.parser.GMLStreamReader;
 import org.arakhne.neteditor.io.gml.readers.AbstractGMLReader;
 import org.arakhne.neteditor.io.resource.ResourceRepository;
 import org.arakhne.neteditor.io.xml.AbstractXMLToolReader;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 /** This class permits to read the
@@ -108,23 +104,19 @@ public class GMLReader extends AbstractXMLToolReader implements GMLConstants {
 			Map<UUID, List<ViewComponent>> figures) throws IOException {
 		try {
 			ProgressionUtil.init(getProgression(), 0, 100000);
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			Document xmldocument = builder.newDocument();
 
-			GMLParser parser = new GMLParser(new ProgressionInputStream(
-					is,	ProgressionUtil.sub(getProgression(), 50000)));
-			Element root = parser.execute(xmldocument);
+			GMLStreamReader stream = new GMLStreamReader(new ProgressionInputStream(
+					is,	ProgressionUtil.sub(getProgression(), 95000)));
 			
-			String specVersion = AbstractGMLReader.extractSpecificationVersion(root, getResourceRepository());
+			String specVersion = AbstractGMLReader.readSpecificationVersion(stream);
 			
 			AbstractGMLReader backgroundReader = AbstractGMLReader.createGMLReader(specVersion);
 			backgroundReader.setResourceRepository(getResourceRepository());
 			
-			ProgressionUtil.ensureNoSubTask(getProgression());
-
-			G g = backgroundReader.readGraph(type, root, figures, ProgressionUtil.subToEnd(getProgression()));
+			// The reading progression is notified by the input stream
+			G g = backgroundReader.readGraph(type, stream, figures, null);
 			
+			ProgressionUtil.ensureNoSubTask(getProgression());
 			ProgressionUtil.end(getProgression());
 			
 			return g;
@@ -0,0 +1,303 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.io.gml.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/** Stream of characters for the GML token manager.
+ * <p>
+ * The characters are read from the reader by large blocks, and the
+ * buffer is only compacted when it is full. The lines and the columns
+ * are not stored for each read character: they are computed when the
+ * token manager asks for the position of a token, by scanning the
+ * characters from the last known position.
+ * The lines and the columns are the same as the ones computed by
+ * the streams generated by JavaCC.
+ *
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+class GMLCharStream implements CharStream {
+
+	/** Initial size of the buffer.
+	 */
+	private static final int BUFFER_SIZE = 65536;
+
+	/** Size of the tabulations.
+	 */
+	private static final int TAB_SIZE = 8;
+
+	private Reader reader;
+	private char[] buffer = new char[BUFFER_SIZE];
+	/** Number of characters in the buffer.
+	 */
+	private int count = 0;
+	/** Index of the last read character.
+	 */
+	private int position = -1;
+	/** Index of the first character of the current token.
+	 */
+	private int tokenBegin = 0;
+
+	/** Index of the last character for which the position is known.
+	 */
+	private int lineIndex = -1;
+	private int line = 1;
+	private int column = 0;
+	private boolean isPreviousCR = false;
+	private boolean isPreviousLF = false;
+
+	/** Index of the character for which the end position was computed.
+	 */
+	private int endIndex = -1;
+	private int endLine = 1;
+	private int endColumn = 0;
+
+	/**
+	 * @param reader is the reader to read.
+	 */
+	public GMLCharStream(Reader reader) {
+		this.reader = reader;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public char readChar() throws IOException {
+		if (++this.position>=this.count) {
+			fillBuffer();
+		}
+		return this.buffer[this.position];
+	}
+
+	private void fillBuffer() throws IOException {
+		if (this.reader==null) {
+			--this.position;
+			throw new IOException();
+		}
+		if (this.count==this.buffer.length) {
+			int keep = Math.min(this.tokenBegin, this.position);
+			if (keep>0) {
+				// Forget the characters before the current token
+				updatePosition(keep-1);
+				System.arraycopy(this.buffer, keep, this.buffer, 0, this.count-keep);
+				this.count -= keep;
+				this.position -= keep;
+				this.tokenBegin -= keep;
+				this.lineIndex -= keep;
+				this.endIndex = -1;
+			}
+			else {
+				char[] newBuffer = new char[this.buffer.length*2];
+				System.arraycopy(this.buffer, 0, newBuffer, 0, this.count);
+				this.buffer = newBuffer;
+			}
+		}
+		int n;
+		do {
+			n = this.reader.read(this.buffer, this.count, this.buffer.length-this.count);
+		}
+		while (n==0);
+		if (n<0) {
+			this.reader.close();
+			this.reader = null;
+			--this.position;
+			throw new IOException();
+		}
+		this.count += n;
+	}
+
+	/** Compute the line and the column of the characters until the given index.
+	 */
+	private void updatePosition(int index) {
+		for(int i=this.lineIndex+1; i<=index; ++i) {
+			++this.column;
+			if (this.isPreviousLF) {
+				this.isPreviousLF = false;
+				this.column = 1;
+				++this.line;
+			}
+			else if (this.isPreviousCR) {
+				this.isPreviousCR = false;
+				if (this.buffer[i]=='\n') {
+					this.isPreviousLF = true;
+				}
+				else {
+					this.column = 1;
+					++this.line;
+				}
+			}
+			switch(this.buffer[i]) {
+			case '\r':
+				this.isPreviousCR = true;
+				break;
+			case '\n':
+				this.isPreviousLF = true;
+				break;
+			case '\t':
+				--this.column;
+				this.column += TAB_SIZE - (this.column % TAB_SIZE);
+				break;
+			default:
+			}
+		}
+		if (index>this.lineIndex) {
+			this.lineIndex = index;
+		}
+	}
+
+	/** Compute the line and the column of the last read character.
+	 */
+	private void updateEndPosition() {
+		if (this.endIndex!=this.position) {
+			updatePosition(this.tokenBegin);
+			if (this.position<=this.tokenBegin) {
+				this.endLine = this.line;
+				this.endColumn = this.column;
+			}
+			else {
+				// Do not change the known position, which must stay
+				// at the beginning of the token because of the backups.
+				int l = this.line;
+				int c = this.column;
+				boolean cr = this.isPreviousCR;
+				boolean lf = this.isPreviousLF;
+				int li = this.lineIndex;
+				updatePosition(this.position);
+				this.endLine = this.line;
+				this.endColumn = this.column;
+				this.line = l;
+				this.column = c;
+				this.isPreviousCR = cr;
+				this.isPreviousLF = lf;
+				this.lineIndex = li;
+			}
+			this.endIndex = this.position;
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Deprecated
+	@Override
+	public int getColumn() {
+		return getEndColumn();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Deprecated
+	@Override
+	public int getLine() {
+		return getEndLine();
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getEndColumn() {
+		updateEndPosition();
+		return this.endColumn;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getEndLine() {
+		updateEndPosition();
+		return this.endLine;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getBeginColumn() {
+		updatePosition(this.tokenBegin);
+		return this.column;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public int getBeginLine() {
+		updatePosition(this.tokenBegin);
+		return this.line;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void backup(int amount) {
+		this.position -= amount;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public char BeginToken() throws IOException {
+		this.tokenBegin = this.position + 1;
+		try {
+			return readChar();
+		}
+		finally {
+			this.tokenBegin = Math.max(0, this.position);
+		}
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public String GetImage() {
+		return new String(this.buffer, this.tokenBegin, this.position-this.tokenBegin+1);
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public char[] GetSuffix(int len) {
+		char[] suffix = new char[len];
+		System.arraycopy(this.buffer, this.position-len+1, suffix, 0, len);
+		return suffix;
+	}
+
+	/** {@inheritDoc}
+	 */
+	@Override
+	public void Done() {
+		this.buffer = null;
+	}
+
+	/** Close the reader.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		if (this.reader!=null) {
+			this.reader.close();
+			this.reader = null;
+		}
+	}
+
+}
@@ -12,6 +12,13 @@ public class GMLParser implements GMLConstants, GMLParserConstants {
 
         private Document xmlDocument = null;
 
+        /** Construct a parser on the given reader.
+	 * @param reader is the reader of the GML content.
+	 */
+        public GMLParser(java.io.Reader reader) {
+                this(new GMLCharStream(reader));
+        }
+
         /** Run the lexer and the syntax analyzer.
 	 * @param xmlDocument is the document that permits to create the DOM.
 	 * @return the root of the DOM (just inside the given document).
@@ -88,7 +95,6 @@ public class GMLParser implements GMLConstants, GMLParserConstants {
 
   /** Generated Token Manager. */
   public GMLParserTokenManager token_source;
-  SimpleCharStream jj_input_stream;
   /** Current token. */
   public Token token;
   /** Next token. */
@@ -104,38 +110,9 @@ public class GMLParser implements GMLConstants, GMLParserConstants {
       jj_la1_0 = new int[] {0x1000,0x4440,};
    }
 
-  /** Constructor with InputStream. */
-  public GMLParser(java.io.InputStream stream) {
-     this(stream, null);
-  }
-  /** Constructor with InputStream and supplied encoding */
-  public GMLParser(java.io.InputStream stream, String encoding) {
-    try { jj_input_stream = new SimpleCharStream(stream, encoding, 1, 1); } catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }
-    token_source = new GMLParserTokenManager(jj_input_stream);
-    token = new Token();
-    jj_ntk = -1;
-    jj_gen = 0;
-    for (int i = 0; i < 2; i++) jj_la1[i] = -1;
-  }
-
-  /** Reinitialise. */
-  public void ReInit(java.io.InputStream stream) {
-     ReInit(stream, null);
-  }
-  /** Reinitialise. */
-  public void ReInit(java.io.InputStream stream, String encoding) {
-    try { jj_input_stream.ReInit(stream, encoding, 1, 1); } catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }
-    token_source.ReInit(jj_input_stream);
-    token = new Token();
-    jj_ntk = -1;
-    jj_gen = 0;
-    for (int i = 0; i < 2; i++) jj_la1[i] = -1;
-  }
-
-  /** Constructor. */
-  public GMLParser(java.io.Reader stream) {
-    jj_input_stream = new SimpleCharStream(stream, 1, 1);
-    token_source = new GMLParserTokenManager(jj_input_stream);
+  /** Constructor with user supplied CharStream. */
+  public GMLParser(CharStream stream) {
+    token_source = new GMLParserTokenManager(stream);
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
@@ -143,9 +120,8 @@ public class GMLParser implements GMLConstants, GMLParserConstants {
   }
 
   /** Reinitialise. */
-  public void ReInit(java.io.Reader stream) {
-    jj_input_stream.ReInit(stream, 1, 1);
-    token_source.ReInit(jj_input_stream);
+  public void ReInit(CharStream stream) {
+    token_source.ReInit(stream);
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
@@ -0,0 +1,320 @@
+/* 
+ * $Id$
+ * 
+ * Copyright (C) 2013 Stephane GALLAND.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ * This program is free software; you can redistribute it and/or modify
+ */
+package org.arakhne.neteditor.io.gml.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.arakhne.afc.text.TextUtil;
+import org.arakhne.neteditor.io.gml.GMLException;
+
+/** Pull parser on a GML content.
+ * <p>
+ * This parser replies the GML content as a sequence of typed
+ * events: each key associated to a number or to a string is
+ * reported as a single event; and each key associated to a list
+ * is reported by a {@link #START_LIST} event and a matching
+ * {@link #END_LIST} event. No intermediate tree is built, so the
+ * consumer of the events is able to read large GML contents with
+ * a small amount of memory.
+ * <p>
+ * The current event is the one replied by the last call to
+ * {@link #next()}. Just after the construction of the parser,
+ * the current event is {@link #START_DOCUMENT}.
+ *
+ * @author $Author: galland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 18.0
+ */
+public class GMLStreamReader {
+
+	/** Event that indicates the beginning of the GML content.
+	 */
+	public static final int START_DOCUMENT = 0;
+
+	/** Event that indicates the beginning of a list.
+	 * The key of the list is replied by {@link #getKey()}.
+	 */
+	public static final int START_LIST = 1;
+
+	/** Event that indicates the end of a list.
+	 * The key of the list is replied by {@link #getKey()}.
+	 */
+	public static final int END_LIST = 2;
+
+	/** Event that indicates a key associated to an integer value.
+	 */
+	public static final int INTEGER = 3;
+
+	/** Event that indicates a key associated to a floating-point value.
+	 */
+	public static final int FLOAT = 4;
+
+	/** Event that indicates a key associated to a string value.
+	 */
+	public static final int STRING = 5;
+
+	/** Event that indicates the end of the GML content.
+	 */
+	public static final int END_DOCUMENT = 6;
+
+	/** Kind of the token "[".
+	 */
+	private static final int OPEN_LIST = 14;
+
+	/** Kind of the token "]".
+	 */
+	private static final int CLOSE_LIST = 15;
+
+	private static final int[][] EXPECTED_AFTER_KEY = new int[][] {
+		{ GMLParserConstants.NUMBER },
+		{ GMLParserConstants.STRING },
+		{ OPEN_LIST },
+	};
+
+	private final GMLCharStream charStream;
+	private final GMLParserTokenManager tokenManager;
+	private final List<String> openedLists = new ArrayList<String>();
+	private Token token = new Token();
+
+	private int eventType = START_DOCUMENT;
+	private String key = null;
+	private int depth = 0;
+	private long integerValue = 0;
+	private double floatValue = 0.;
+	private String stringValue = null;
+
+	/**
+	 * @param reader is the reader of the GML content.
+	 */
+	public GMLStreamReader(Reader reader) {
+		this.charStream = new GMLCharStream(reader);
+		this.tokenManager = new GMLParserTokenManager(this.charStream);
+	}
+
+	/**
+	 * @param stream is the stream of the GML content.
+	 */
+	public GMLStreamReader(InputStream stream) {
+		this(new InputStreamReader(stream));
+	}
+
+	/** Move to the next event.
+	 *
+	 * @return the type of the new current event.
+	 * @throws GMLException if the GML content is malformed.
+	 */
+	public int next() throws GMLException {
+		if (this.eventType==END_DOCUMENT) {
+			return END_DOCUMENT;
+		}
+		this.stringValue = null;
+		Token previous = this.token;
+		Token t = nextToken(previous);
+		switch(t.kind) {
+		case GMLParserConstants.KEY:
+			this.key = t.image.trim();
+			this.depth = this.openedLists.size();
+			previous = t;
+			t = nextToken(previous);
+			switch(t.kind) {
+			case GMLParserConstants.NUMBER:
+				parseNumber(t.image);
+				break;
+			case GMLParserConstants.STRING:
+				this.stringValue = TextUtil.parseHTML(t.image.substring(1, t.image.length()-1));
+				this.eventType = STRING;
+				break;
+			case OPEN_LIST:
+				this.openedLists.add(this.key);
+				this.eventType = START_LIST;
+				break;
+			default:
+				throw new GMLException(new ParseException(previous, EXPECTED_AFTER_KEY,
+						GMLParserConstants.tokenImage));
+			}
+			break;
+		case CLOSE_LIST:
+			if (this.openedLists.isEmpty()) {
+				throw new GMLException(new ParseException(previous,
+						new int[][] {{GMLParserConstants.KEY}, {GMLParserConstants.EOF}},
+						GMLParserConstants.tokenImage));
+			}
+			this.key = this.openedLists.remove(this.openedLists.size()-1);
+			this.depth = this.openedLists.size();
+			this.eventType = END_LIST;
+			break;
+		case GMLParserConstants.EOF:
+			if (!this.openedLists.isEmpty()) {
+				throw new GMLException(new ParseException(previous,
+						new int[][] {{GMLParserConstants.KEY}, {CLOSE_LIST}},
+						GMLParserConstants.tokenImage));
+			}
+			this.key = null;
+			this.depth = 0;
+			this.eventType = END_DOCUMENT;
+			break;
+		default:
+			throw new GMLException(new ParseException(previous,
+					new int[][] {{GMLParserConstants.KEY}},
+					GMLParserConstants.tokenImage));
+		}
+		this.token = t;
+		return this.eventType;
+	}
+
+	private Token nextToken(Token previous) throws GMLException {
+		try {
+			Token t = this.tokenManager.getNextToken();
+			// Only the last token is linked for the error messages
+			previous.next = t;
+			t.next = null;
+			return t;
+		}
+		catch(TokenMgrError e) {
+			throw new GMLException(e);
+		}
+	}
+
+	private void parseNumber(String image) {
+		if (image.indexOf('.')<0 && image.indexOf('e')<0 && image.indexOf('E')<0) {
+			try {
+				this.integerValue = Long.parseLong(image);
+				this.eventType = INTEGER;
+				return;
+			}
+			catch(NumberFormatException _) {
+				//
+			}
+		}
+		double d = Double.parseDouble(image);
+		if (((long)d) == d) {
+			this.integerValue = (long)d;
+			this.eventType = INTEGER;
+		}
+		else {
+			this.floatValue = d;
+			this.eventType = FLOAT;
+		}
+	}
+
+	/** Skip the list on which the parser is positioned.
+	 * After the call to this function, the current
+	 * event is the {@link #END_LIST} that is closing the list.
+	 *
+	 * @throws GMLException if the GML content is malformed.
+	 */
+	public void skipList() throws GMLException {
+		if (this.eventType==START_LIST) {
+			int level = this.depth;
+			while (next()!=END_LIST || this.depth!=level) {
+				//
+			}
+		}
+	}
+
+	/** Replies the type of the current event.
+	 *
+	 * @return the type of the current event.
+	 */
+	public int getEventType() {
+		return this.eventType;
+	}
+
+	/** Replies the key of the current event.
+	 *
+	 * @return the key, or <code>null</code> if the current
+	 * event is not associated to a key.
+	 */
+	public String getKey() {
+		return this.key;
+	}
+
+	/** Replies the number of lists that are enclosing the key
+	 * of the current event.
+	 *
+	 * @return the depth of the current event; <code>0</code> for
+	 * the keys at the root of the GML content.
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/** Replies the value of the current {@link #INTEGER} event.
+	 *
+	 * @return the value.
+	 */
+	public long getIntegerValue() {
+		return this.integerValue;
+	}
+
+	/** Replies the value of the current {@link #FLOAT} event.
+	 *
+	 * @return the value.
+	 */
+	public double getFloatValue() {
+		return this.floatValue;
+	}
+
+	/** Replies the value of the current {@link #STRING} event.
+	 *
+	 * @return the value.
+	 */
+	public String getStringValue() {
+		return this.stringValue;
+	}
+
+	/** Replies the value of the current event.
+	 *
+	 * @return a {@link Long} for the {@link #INTEGER} events,
+	 * a {@link Double} for the {@link #FLOAT} events,
+	 * a {@link String} for the {@link #STRING} events, or
+	 * <code>null</code> for the other events.
+	 */
+	public Object getValue() {
+		switch(this.eventType) {
+		case INTEGER:
+			return Long.valueOf(this.integerValue);
+		case FLOAT:
+			return Double.valueOf(this.floatValue);
+		case STRING:
+			return this.stringValue;
+		default:
+		}
+		return null;
+	}
+
+	/** Close the parser and the underlying reader.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		this.openedLists.clear();
+		this.charStream.close();
+	}
+
+}
@@ -38,9 +38,6 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
 import org.arakhne.afc.progress.Progression;
 import org.arakhne.afc.progress.ProgressionInputStream;
 import org.arakhne.afc.progress.ProgressionUtil;
@@ -52,10 +49,9 @@ import org.arakhne.neteditor.formalism.Graph;
 import org.arakhne.neteditor.io.NetEditorContentType;
 import org.arakhne.neteditor.io.gml.GMLConstants;
 import org.arakhne.neteditor.io.gml.GMLException;
-import org.arakhne.neteditor.io.gml.parser.GMLParser;
+import org.arakhne.neteditor.io.gml.parser.GMLStreamReader;
 import org.arakhne.neteditor.io.resource.ResourceRepository;
 import org.arakhne.neteditor.io.xml.AbstractXMLToolReader;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 /** This class permits to read the
@@ -136,105 +132,123 @@ public abstract class AbstractGMLReader extends AbstractXMLToolReader implements
 		throw new GMLException();
 	}
 	
-	/** Check if the GML root element corresponds to the given NetEditor/GML specification version.
+	/** Check if the given version corresponds to the given NetEditor/GML specification version.
 	 * 
-	 * @param gmlRoot
-	 * @param resourceRepository is the repository of the resources from which they could be extracted.
+	 * @param version is the version read from the GML content, or <code>null</code>.
 	 * @param specificationVersion
 	 * @throws IOException
 	 */
-	protected static void assertSpecificationVersion(Element gmlRoot, String specificationVersion, ResourceRepository resourceRepository) throws IOException {
-		String version = extractSpecificationVersion(gmlRoot, resourceRepository);
+	protected static void assertSpecificationVersion(String version, String specificationVersion) throws IOException {
 		if (version!=null && !version.isEmpty() &&
 			!version.equalsIgnoreCase(specificationVersion)) {
 			throw new GMLException(Locale.getString("INVALID_SPECIFICATION_VERSION", version, specificationVersion)); //$NON-NLS-1$
 		}
 	}
 
-	/** Extract the NetEditor/GML specification version.
+	/** Read the NetEditor/GML specification version.
+	 * <p>
+	 * The values at the root of the GML content are read
+	 * until the first list is reached. After the call to this
+	 * function, the stream is positioned on the first list, or
+	 * at the end of the GML content.
 	 * 
-	 * @param gmlRoot
-	 * @param resourceRepository is the repository of the resources from which they could be extracted.
+	 * @param stream is the stream of the GML content.
 	 * @return the version or <code>null</code>
 	 * @throws IOException
 	 */
-	public static String extractSpecificationVersion(Element gmlRoot, ResourceRepository resourceRepository) throws IOException {
-		try {
-			return extractValueFromTag(gmlRoot, K_VERSION, String.class, resourceRepository);
+	public static String readSpecificationVersion(GMLStreamReader stream) throws IOException {
+		String version = null;
+		int event = stream.getEventType();
+		if (event!=GMLStreamReader.START_LIST) {
+			while ((event = stream.next())!=GMLStreamReader.START_LIST
+					&& event!=GMLStreamReader.END_DOCUMENT) {
+				if (version==null && K_VERSION.equals(stream.getKey())) {
+					version = stream.getStringValue();
+				}
+			}
 		}
-		catch(Throwable _) {
-			return null;
+		return version;
+	}
+
+	/** Read the list on which the stream is positioned.
+	 * After the call to this function, the stream is positioned
+	 * at the end of the list.
+	 * 
+	 * @param stream is the stream of the GML content.
+	 * @return the content of the list.
+	 * @throws IOException
+	 */
+	protected static GMLRecord readRecord(GMLStreamReader stream) throws IOException {
+		GMLRecord record = new GMLRecord(stream.getKey());
+		int event;
+		while ((event = stream.next())!=GMLStreamReader.END_LIST) {
+			if (event==GMLStreamReader.START_LIST) {
+				record.add(stream.getKey(), readRecord(stream));
+			}
+			else {
+				record.add(stream.getKey(), stream.getValue());
+			}
 		}
+		return record;
 	}
 
-	/** Extract a value from a XML representation of the GML content.
+	/** Extract a value from a GML list.
 	 * 
-	 * @param parent is the XML element (the parent) from which the data must be extracted.
-	 * @param child is the name of the data to extract.
+	 * @param parent is the list from which the data must be extracted.
+	 * @param key is the key of the data to extract.
 	 * @param type is the expected type of the data.
 	 * @param resourceRepository is the repository of the resources from which they could be extracted.
 	 * @return the data.
 	 * @throws IOException
 	 */
-	protected static <T> T extractValueFromTag(Element parent, String child, Class<T> type, ResourceRepository resourceRepository) throws IOException {
-		Element element = extractNode(parent, tag(child));
-		return extractValueFromTag(element, type, resourceRepository);
+	protected static <T> T extractValue(GMLRecord parent, String key, Class<T> type, ResourceRepository resourceRepository) throws IOException {
+		Object value = parent.get(key);
+		if (value==null) {
+			throw new GMLException(Locale.getString(AbstractXMLToolReader.class, "XML_NODE_NOT_FOUND", tag(key))); //$NON-NLS-1$
+		}
+		return extractValue(value, type, resourceRepository);
 	}
 
-	/** Extract a value from a XML representation of the GML content.
+	/** Extract a value from a GML value.
 	 * 
-	 * @param elementN is the XML element (the XML node itself) from which the data must be extracted.
-	 * @param vtype is the expected type of the data.
+	 * @param value is the GML value: a number, a string, or a list.
+	 * @param type is the expected type of the data.
 	 * @param resourceRepository is the repository of the resources from which they could be extracted.
 	 * @return the data.
 	 * @throws IOException
 	 */
-	protected static <T> T extractValueFromTag(Element elementN, Class<T> vtype, ResourceRepository resourceRepository) throws IOException {
-		String type = elementN.getAttribute(K_TYPE);
-		if (type!=null) {
-			type = type.trim();
-			if (K_INTEGER.equals(type)) {
-				String rawValue = elementN.getAttribute(K_VALUE);
-				return vtype.cast(Long.valueOf(rawValue));
-			}
-			if (K_FLOAT.equals(type)) {
-				String rawValue = elementN.getAttribute(K_VALUE);
-				return vtype.cast(Double.valueOf(rawValue));
-			}
-			if (K_LIST.equals(type)) {
-				return vtype.cast(extractValueFromTag(elementN, resourceRepository));
-			}
+	protected static <T> T extractValue(Object value, Class<T> type, ResourceRepository resourceRepository) throws IOException {
+		if (value instanceof GMLRecord) {
+			return type.cast(extractValue((GMLRecord)value, resourceRepository));
 		}
-		// Base type is string
-		String rawValue = elementN.getAttribute(K_VALUE);
-		return vtype.cast(rawValue);
+		return type.cast(value);
 	}
 
-	/** Extract a value from a XML representation of the GML content.
+	/** Extract a value from a GML list.
 	 * 
-	 * @param elementN is the XML element (the XML node itself) from which the data must be extracted.
+	 * @param record is the list from which the data must be extracted.
 	 * @param resourceRepository is the repository of the resources from which they could be extracted.
 	 * @return the data.
 	 * @throws IOException
 	 */
 	@SuppressWarnings("unchecked")
-	protected static Object extractValueFromTag(Element elementN, ResourceRepository resourceRepository) throws IOException {
-		Element typeN = extractNodeNoFail(elementN, tag(K_TYPE));
-		if (typeN!=null) {
-			String typeName = extractValueFromTag(typeN, String.class, resourceRepository);
+	protected static Object extractValue(GMLRecord record, ResourceRepository resourceRepository) throws IOException {
+		Object typeValue = record.get(K_TYPE);
+		if (typeValue!=null) {
+			String typeName = extractValue(typeValue, String.class, resourceRepository);
 			if (K_BOOLEAN.equals(typeName))	{
-				Number value = extractValueFromTag(elementN, K_VALUE, Number.class, resourceRepository);
+				Number value = extractValue(record, K_VALUE, Number.class, resourceRepository);
 				if (value!=null && value.intValue()!=0) {
 					return Boolean.TRUE;
 				}
 				return Boolean.FALSE;
 			}
 			if (K_UUID.equals(typeName)) {
-				return enforceUUID(extractValueFromTag(elementN, K_VALUE, String.class, resourceRepository));
+				return enforceUUID(extractValue(record, K_VALUE, String.class, resourceRepository));
 			}
 			if (K_ENUM.equals(typeName)) {
-				String name = extractValueFromTag(elementN, K_NAME, String.class, resourceRepository);
-				String value = extractValueFromTag(elementN, K_VALUE, String.class, resourceRepository);
+				String name = extractValue(record, K_NAME, String.class, resourceRepository);
+				String value = extractValue(record, K_VALUE, String.class, resourceRepository);
 				Class<?> type;
 				try {
 					type = Class.forName(name);
@@ -253,7 +267,7 @@ public abstract class AbstractGMLReader extends AbstractXMLToolReader implements
 				}
 			}
 			if (K_URL.equals(typeName)) {
-				String href = extractValueFromTag(elementN, K_VALUE, String.class, resourceRepository);
+				String href = extractValue(record, K_VALUE, String.class, resourceRepository);
 				href = href.trim();
 				try {
 					URL u = (resourceRepository==null) ? null : resourceRepository.getURL(href);
@@ -286,30 +300,30 @@ public abstract class AbstractGMLReader extends AbstractXMLToolReader implements
 			}
 			if (K_SET.equals(typeName)) {
 				Set<Object> theSet = new HashSet<Object>();
-				for(Element valueN : elements(elementN, tag(K_VALUE))) {
-					Object value = extractValueFromTag(valueN, Object.class, resourceRepository);
+				for(Object v : record.getAll(K_VALUE)) {
+					Object value = extractValue(v, Object.class, resourceRepository);
 					if (value!=null) theSet.add(value);
 				}
 				return theSet;
 			}
 			if (K_LIST.equals(typeName)) {
 				List<Object> theList = new ArrayList<Object>();
-				for(Element valueN : elements(elementN, tag(K_VALUE))) {
-					Object value = extractValueFromTag(valueN, Object.class, resourceRepository);
+				for(Object v : record.getAll(K_VALUE)) {
+					Object value = extractValue(v, Object.class, resourceRepository);
 					if (value!=null) theList.add(value);
 				}
 				return theList;
 			}
 			if (K_COLLECTION.equals(typeName)) {
 				Collection<Object> theCollection = new ArrayList<Object>();
-				for(Element valueN : elements(elementN, tag(K_VALUE))) {
-					Object value = extractValueFromTag(valueN, Object.class, resourceRepository);
+				for(Object v : record.getAll(K_VALUE)) {
+					Object value = extractValue(v, Object.class, resourceRepository);
 					if (value!=null) theCollection.add(value);
 				}
 				return theCollection;
 			}
 			if (K_SERIAL.equals(typeName)) {
-				String value = extractValueFromTag(elementN, K_VALUE, String.class, resourceRepository);
+				String value = extractValue(record, K_VALUE, String.class, resourceRepository);
 				value = Base64Coder.decodeString(value);
 				ByteArrayInputStream bais = new ByteArrayInputStream(value.getBytes());
 				try {
@@ -331,33 +345,97 @@ public abstract class AbstractGMLReader extends AbstractXMLToolReader implements
 				}
 			}
 			if (K_NS.equals(typeName)) {
-				Element valueN = extractNode(elementN, tag(K_VALUE));
-				Namespace ns = new Namespace(untag(elementN.getNodeName()));
-				for(Element eN : elements(valueN)) {
-					Object value = extractValueFromTag(eN, Object.class, resourceRepository);
-					if (value!=null) {
-						ns.put(untag(eN.getNodeName()), value);
+				Object nsValue = record.get(K_VALUE);
+				if (nsValue==null) {
+					throw new GMLException(Locale.getString(AbstractXMLToolReader.class, "XML_NODE_NOT_FOUND", tag(K_VALUE))); //$NON-NLS-1$
+				}
+				Namespace ns = new Namespace(record.getName());
+				if (nsValue instanceof GMLRecord) {
+					GMLRecord valueR = (GMLRecord)nsValue;
+					for(int i=0; i<valueR.size(); ++i) {
+						Object value = extractValue(valueR.getValue(i), Object.class, resourceRepository);
+						if (value!=null) {
+							ns.put(valueR.getKey(i), value);
+						}
 					}
 				}
 				return ns;
 			}
 			
-			throw new GMLException(typeN.getNodeName()+"=="+typeName); //$NON-NLS-1$
-		}
-		// Base type
-		String textValue = elementN.getTextContent();
-		if (textValue!=null) {
-			Long intValue = parseIntNoFail(textValue);
-			if (intValue!=null) {
-				return intValue;
+			throw new GMLException(tag(K_TYPE)+"=="+typeName); //$NON-NLS-1$
+		}
+		// A list without type has no text content
+		return ""; //$NON-NLS-1$
+	}
+
+	/** Extract the attributes from the given GML list.
+	 * 
+	 * @param record is the list that may contain the attributes.
+	 * @param resourceRepository is the repository of the resources from which they could be extracted.
+	 * @return the attributes.
+	 * @throws IOException
+	 */
+	protected static Map<String,Object> extractAttributes(GMLRecord record, ResourceRepository resourceRepository) throws IOException {
+		Map<String,Object> properties = new TreeMap<String,Object>();
+		Object attrValue = record.get(K_ATTRIBUTES);
+		if (attrValue instanceof GMLRecord) {
+			GMLRecord attrR = (GMLRecord)attrValue;
+			for(int i=0; i<attrR.size(); ++i) {
+				Object value = extractValue(attrR.getValue(i), Object.class, resourceRepository);
+				if (value!=null) {
+					if (value instanceof Namespace) {
+						((Namespace)value).fillProperties("", properties); //$NON-NLS-1$
+					}
+					else {
+						properties.put(attrR.getKey(i), value);
+					}
+				}
 			}
-			Double doubleValue = parseFloatNoFail(textValue);
-			if (doubleValue!=null) {
-				return doubleValue;
+		}		
+		return properties;
+	}
+
+	/** Extract the type of the object described by the given GML list.
+	 * 
+	 * @param record is the list to explore.
+	 * @return the type of the object, never <code>null</code>.
+	 * @throws IOException
+	 */
+	protected static String extractType(GMLRecord record) throws IOException {
+		Object value = record.get(K_TYPE);
+		if (value==null) {
+			throw new GMLException(Locale.getString(AbstractXMLToolReader.class, "XML_NODE_NOT_FOUND", tag(K_TYPE))); //$NON-NLS-1$
+		}
+		if (value instanceof String) {
+			String type = ((String)value).trim();
+			if (type.startsWith(SCHEMA_URL+"#")) { //$NON-NLS-1$
+				return type.substring(SCHEMA_URL.length()+1);
 			}
-			return textValue;
 		}
-		return null;
+		throw new GMLException(Locale.getString(AbstractXMLToolReader.class, "UNSUPPORTED_XML_NODE", tag(record.getName()))); //$NON-NLS-1$
+	}
+
+	/** Extract the type of a GML list and create the corresponding instance.
+	 * 
+	 * @param type is the expected type of the new instance.
+	 * @param record is the list from which the type should be extracted.
+	 * @return the new instance.
+	 * @throws IOException
+	 */
+	protected static <T> T createInstance(Class<T> type, GMLRecord record) throws IOException {
+		return createInstance(type, extractType(record), tag(record.getName()));
+	}
+
+	/** Extract the type of a GML list and create the corresponding instance.
+	 * 
+	 * @param type is the expected type of the new instance.
+	 * @param record is the list from which the type should be extracted.
+	 * @param viewId is the identifier of the view.
+	 * @return the new instance.
+	 * @throws IOException
+	 */
+	protected static <T extends ViewComponent> T createFigureInstance(Class<T> type, GMLRecord record, UUID viewId) throws IOException {
+		return createFigureInstance(type, extractType(record), tag(record.getName()), viewId);
 	}
 
 	/** Construct a new GraphWriter.          
@@ -402,19 +480,16 @@ public abstract class AbstractGMLReader extends AbstractXMLToolReader implements
 		Progression progression = getProgression();
 		try {
 			ProgressionUtil.init(progression, 0, 100000);
-			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder builder = factory.newDocumentBuilder();
-			Document xmldocument = builder.newDocument();
 			InputStream iis = is;
 			if (progression!=null) {
 				iis = new ProgressionInputStream(iis,
-						ProgressionUtil.sub(progression, 50000));
+						ProgressionUtil.sub(progression, 95000));
 			}
-			GMLParser parser = new GMLParser(iis);
-			Element root = parser.execute(xmldocument);
-			ProgressionUtil.advance(progression, 50000);
-			return readGraph(type, root, figures,
-					ProgressionUtil.subToEnd(progression));
+			GMLStreamReader stream = new GMLStreamReader(iis);
+			// The reading progression is notified by the input stream
+			G g = readGraph(type, stream, figures, null);
+			ProgressionUtil.ensureNoSubTask(progression);
+			return g;
 		}
 		catch(IOException e) {
 			throw e;
@@ -428,10 +503,15 @@ public abstract class AbstractGMLReader extends AbstractXMLToolReader implements
 	}
 	
 	/**
-	 * Read the graph from the XML representation of the GML content.
+	 * Read the graph from the GML stream.
+	 * <p>
+	 * The graph and its figures are built while the GML content
+	 * is read. The stream may be positioned on any value at the
+	 * root of the GML content; the values before this position
+	 * are ignored.
 	 * 
 	 * @param type is the type of the graph to read.
-	 * @param gmlRoot is the XML representation of the GML content.
+	 * @param stream is the stream of the GML content.
 	 * @param figures are the figures extracted from the file from the front to the background.
 	 * @param progression is the progression indicator that will be used.
 	 * @return the graph.
@@ -439,7 +519,7 @@ public abstract class AbstractGMLReader extends AbstractXMLToolReader implements
 	 */
 	public abstract <G extends Graph<?, ?, ?, ?>> G readGraph(
 			Class<G> type,
-			Element gmlRoot,
+			GMLStreamReader stream,
 			Map<UUID, List<ViewComponent>> figures,
 			Progression progression) throws IOException;
 
@@ -458,6 +538,117 @@ public abstract class AbstractGMLReader extends AbstractXMLToolReader implements
 		throw new GMLException(Locale.getString("UNSUPPORTED_XML_NODE", node.getNodeName())); //$NON-NLS-1$
 	}
 
+	/** Content of a list in the GML file.
+	 * <p>
+	 * The values are the {@link Long}, {@link Double},
+	 * {@link String} and {@link GMLRecord} that are
+	 * associated to the keys, in the order of the GML content.
+	 * 
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 18.0
+	 */
+	protected static class GMLRecord {
+
+		private final String name;
+		private final List<String> keys = new ArrayList<String>();
+		private final List<Object> values = new ArrayList<Object>();
+
+		/**
+		 * @param name is the key of the list.
+		 */
+		public GMLRecord(String name) {
+			this.name = name;
+		}
+
+		/** Replies the key of the list.
+		 * 
+		 * @return the key of the list.
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/** Add a value in the list.
+		 * 
+		 * @param key
+		 * @param value
+		 */
+		public void add(String key, Object value) {
+			this.keys.add(key);
+			this.values.add(value);
+		}
+
+		/** Replies the number of values in the list.
+		 * 
+		 * @return the number of values.
+		 */
+		public int size() {
+			return this.keys.size();
+		}
+
+		/** Replies the key at the given position.
+		 * 
+		 * @param index
+		 * @return the key.
+		 */
+		public String getKey(int index) {
+			return this.keys.get(index);
+		}
+
+		/** Replies the value at the given position.
+		 * 
+		 * @param index
+		 * @return the value.
+		 */
+		public Object getValue(int index) {
+			return this.values.get(index);
+		}
+
+		/** Replies the first value associated to the given key.
+		 * 
+		 * @param key
+		 * @return the value, or <code>null</code> if none.
+		 */
+		public Object get(String key) {
+			int index = this.keys.indexOf(key);
+			return (index>=0) ? this.values.get(index) : null;
+		}
+
+		/** Replies all the values associated to the given key.
+		 * 
+		 * @param key
+		 * @return the values.
+		 */
+		public List<Object> getAll(String key) {
+			List<Object> all = new ArrayList<Object>();
+			for(int i=0; i<this.keys.size(); ++i) {
+				if (key.equals(this.keys.get(i))) {
+					all.add(this.values.get(i));
+				}
+			}
+			return all;
+		}
+
+		/** Replies all the lists associated to the given key.
+		 * 
+		 * @param key
+		 * @return the lists.
+		 */
+		public List<GMLRecord> getRecords(String key) {
+			List<GMLRecord> all = new ArrayList<GMLRecord>();
+			for(int i=0; i<this.keys.size(); ++i) {
+				if (key.equals(this.keys.get(i)) && this.values.get(i) instanceof GMLRecord) {
+					all.add((GMLRecord)this.values.get(i));
+				}
+			}
+			return all;
+		}
+
+	}
+
 	/** Definition of a namespace in the GML file.
 	 * 
 	 * @author $Author: galland$
@@ -41,6 +41,8 @@ import org.arakhne.neteditor.formalism.Graph;
 import org.arakhne.neteditor.formalism.ModelObject;
 import org.arakhne.neteditor.formalism.Node;
 import org.arakhne.neteditor.io.gml.GMLException;
+import org.arakhne.neteditor.io.gml.parser.GMLStreamReader;
+import org.arakhne.neteditor.io.xml.AbstractXMLToolReader;
 import org.w3c.dom.Element;
 
 /** This class permits to read the
@@ -82,25 +84,40 @@ public class GMLReader1 extends AbstractGMLReader {
 	@Override
 	public <G extends Graph<?, ?, ?, ?>> G readGraph(
 			Class<G> type,
-			Element gmlRoot,
+			GMLStreamReader stream,
 			Map<UUID, List<ViewComponent>> figures,
 			Progression progression) throws IOException {
 		try {
-			ProgressionUtil.init(progression, 0, gmlRoot.getChildNodes().getLength()*2);
-			assertSpecificationVersion(gmlRoot, SPECIFICATION_VERSION, getResourceRepository());
-			
 			this.allFigures = figures;
 			this.anchors.clear();
 			this.nodes.clear();
 
-			Graph<?, ?, ?, ?> g = parseGraph(gmlRoot, ProgressionUtil.sub(progression, gmlRoot.getChildNodes().getLength()));
+			Graph<?, ?, ?, ?> g = null;
 
-			ProgressionUtil.ensureNoSubTask(progression);
-			
-			if (g!=null && !(type.isInstance(g)))
-				throw new IOException(Locale.getString(GMLReader1.class, "INVALID_GRAPH_TYPE", type.getCanonicalName())); //$NON-NLS-1$
+			int event = stream.getEventType();
+			while (event!=GMLStreamReader.END_DOCUMENT) {
+				if (event==GMLStreamReader.START_LIST) {
+					if (g==null && K_GRAPH.equals(stream.getKey())) {
+						g = parseGraph(stream);
+						if (!(type.isInstance(g)))
+							throw new IOException(Locale.getString(GMLReader1.class, "INVALID_GRAPH_TYPE", type.getCanonicalName())); //$NON-NLS-1$
+					}
+					else if (K_GRAPHICS.equals(stream.getKey())) {
+						parseOtherViews(stream);
+					}
+					else {
+						stream.skipList();
+					}
+				}
+				else if (K_VERSION.equals(stream.getKey())) {
+					assertSpecificationVersion(stream.getStringValue(), SPECIFICATION_VERSION);
+				}
+				event = stream.next();
+			}
 
-			parseOtherViews(gmlRoot, ProgressionUtil.subToEnd(progression));
+			if (g==null) {
+				throw new GMLException(Locale.getString(AbstractXMLToolReader.class, "XML_NODE_NOT_FOUND", tag(K_GRAPH))); //$NON-NLS-1$
+			}
 
 			ProgressionUtil.end(progression);
 
@@ -130,190 +147,187 @@ public class GMLReader1 extends AbstractGMLReader {
 		}
 	}
 
-	private void parseOtherViews(Element root, Progression progression) throws IOException {
-		for(Element graphicsN : elements(root, tag(K_GRAPHICS), progression)) {
-			for(Element figureN : elements(graphicsN, tag(K_FIGURE),
-					ProgressionUtil.sub(progression, 1))) {
-				UUID viewId = enforceUUID(extractValueFromTag(figureN, K_VIEWID, String.class, getResourceRepository()));
-				ViewComponent figure = createFigureInstance(ViewComponent.class, figureN, viewId);
-				if (figure instanceof Figure) {
-					Map<String,Object> properties = extractAttributes(figureN);
-					figure.setProperties(properties);
-					figure.setUUID(enforceUUID(extractValueFromTag(figureN, K_UUID, String.class, getResourceRepository())));
-					figure.setViewUUID(viewId);
-
-					registerFigure(viewId, (Figure)figure);
-
-					for(Element coercedFigureN : elements(figureN, tag(K_FIGURE))) {
-						String coerceId = extractValueFromTag(coercedFigureN, K_COERCIONID, String.class, getResourceRepository());
-						CoercedFigure coercedFigure = createFigureInstance(CoercedFigure.class, coercedFigureN, viewId);
-						properties = extractAttributes(coercedFigureN);
-						coercedFigure.setProperties(properties);
-						coercedFigure.setUUID(enforceUUID(extractValueFromTag(coercedFigureN, K_UUID, String.class, getResourceRepository())));
-						coercedFigure.setViewUUID(viewId);
-						registerFigure(viewId, coercedFigure);
-
-						figure.addAssociatedFigureIntoView(coerceId, coercedFigure);					
-					}
+	private void parseOtherViews(GMLStreamReader stream) throws IOException {
+		int event;
+		while ((event = stream.next())!=GMLStreamReader.END_LIST) {
+			if (event==GMLStreamReader.START_LIST) {
+				if (K_FIGURE.equals(stream.getKey())) {
+					parseOtherView(readRecord(stream));
+				}
+				else {
+					stream.skipList();
 				}
 			}
 		}
 	}
 
-	private void parseObjectFigure(ModelObject object, Element graphicsNode)  throws IOException {
-		for(Element figureN : elements(graphicsNode, tag(K_FIGURE))) {
-			UUID viewId = enforceUUID(extractValueFromTag(figureN, K_VIEWID, String.class, getResourceRepository()));
-			ViewComponent figure = createFigureInstance(ViewComponent.class, figureN, viewId);
-			Map<String,Object> properties = extractAttributes(figureN);
+	private void parseOtherView(GMLRecord figureR) throws IOException {
+		UUID viewId = enforceUUID(extractValue(figureR, K_VIEWID, String.class, getResourceRepository()));
+		ViewComponent figure = createFigureInstance(ViewComponent.class, figureR, viewId);
+		if (figure instanceof Figure) {
+			Map<String,Object> properties = extractAttributes(figureR, getResourceRepository());
 			figure.setProperties(properties);
-			figure.setUUID(enforceUUID(extractValueFromTag(figureN, K_UUID, String.class, getResourceRepository())));
+			figure.setUUID(enforceUUID(extractValue(figureR, K_UUID, String.class, getResourceRepository())));
 			figure.setViewUUID(viewId);
 
-			if (figure instanceof ModelObjectFigure<?>) {
-				((ModelObjectFigure)figure).setModelObject(object);
-			}
-
-			if (figure instanceof Figure) {
-				registerFigure(viewId, (Figure)figure);
-			}
+			registerFigure(viewId, (Figure)figure);
 
-			for(Element coercedFigureN : elements(figureN, tag(K_FIGURE))) {
-				String coerceId = extractValueFromTag(coercedFigureN, K_COERCIONID, String.class, getResourceRepository());
-				CoercedFigure coercedFigure = createFigureInstance(CoercedFigure.class, coercedFigureN, viewId);
-				properties = extractAttributes(coercedFigureN);
-				coercedFigure.setProperties(properties);
-				coercedFigure.setUUID(enforceUUID(extractValueFromTag(coercedFigureN, K_UUID, String.class, getResourceRepository())));
-				coercedFigure.setViewUUID(viewId);
-				registerFigure(viewId, coercedFigure);
+			parseCoercedFigures(figure, figureR, viewId);
+		}
+	}
 
-				figure.addAssociatedFigureIntoView(coerceId, coercedFigure);
-			}
+	private void parseCoercedFigures(ViewComponent figure, GMLRecord figureR, UUID viewId) throws IOException {
+		for(GMLRecord coercedFigureR : figureR.getRecords(K_FIGURE)) {
+			String coerceId = extractValue(coercedFigureR, K_COERCIONID, String.class, getResourceRepository());
+			CoercedFigure coercedFigure = createFigureInstance(CoercedFigure.class, coercedFigureR, viewId);
+			Map<String,Object> properties = extractAttributes(coercedFigureR, getResourceRepository());
+			coercedFigure.setProperties(properties);
+			coercedFigure.setUUID(enforceUUID(extractValue(coercedFigureR, K_UUID, String.class, getResourceRepository())));
+			coercedFigure.setViewUUID(viewId);
+			registerFigure(viewId, coercedFigure);
+
+			figure.addAssociatedFigureIntoView(coerceId, coercedFigure);
 		}
 	}
 
-	private Graph<?,?,?,?> parseGraph(Element root, Progression progression) throws IOException {
-		ProgressionUtil.init(progression, 0, 15000);
-		Element graphN = extractNode(root, tag(K_GRAPH));
-		Graph graph = createInstance(Graph.class, graphN);
-		Map<String,Object> properties = extractAttributes(graphN);
-		graph.setProperties(properties);
-		graph.setUUID(enforceUUID(extractValueFromTag(graphN, K_UUID, String.class, getResourceRepository())));
+	private void parseObjectFigures(ModelObject object, GMLRecord objectR)  throws IOException {
+		for(GMLRecord graphicsR : objectR.getRecords(K_GRAPHICS)) {
+			for(GMLRecord figureR : graphicsR.getRecords(K_FIGURE)) {
+				UUID viewId = enforceUUID(extractValue(figureR, K_VIEWID, String.class, getResourceRepository()));
+				ViewComponent figure = createFigureInstance(ViewComponent.class, figureR, viewId);
+				Map<String,Object> properties = extractAttributes(figureR, getResourceRepository());
+				figure.setProperties(properties);
+				figure.setUUID(enforceUUID(extractValue(figureR, K_UUID, String.class, getResourceRepository())));
+				figure.setViewUUID(viewId);
+
+				if (figure instanceof ModelObjectFigure<?>) {
+					((ModelObjectFigure)figure).setModelObject(object);
+				}
 
-		ProgressionUtil.advance(progression, 5000);
+				if (figure instanceof Figure) {
+					registerFigure(viewId, (Figure)figure);
+				}
 
-		for(Element nodeN : elements(graphN, tag(K_NODE),
-				ProgressionUtil.sub(progression, 5000))) {
-			parseNode(graph, nodeN);
+				parseCoercedFigures(figure, figureR, viewId);
+			}
 		}
+	}
 
-		ProgressionUtil.ensureNoSubTask(progression);
+	/** Read the graph list on which the stream is positioned.
+	 * <p>
+	 * The graph is created when its first node or edge is reached,
+	 * so the values that are describing the graph itself must be
+	 * before its nodes and its edges. The edges that are
+	 * referencing nodes or anchors not yet read are built at
+	 * the end of the graph list.
+	 */
+	private Graph<?,?,?,?> parseGraph(GMLStreamReader stream) throws IOException {
+		GMLRecord graphR = new GMLRecord(K_GRAPH);
+		Graph graph = null;
+		List<GMLRecord> pendingEdges = new ArrayList<GMLRecord>();
+		int event;
+		while ((event = stream.next())!=GMLStreamReader.END_LIST) {
+			String key = stream.getKey();
+			if (event==GMLStreamReader.START_LIST) {
+				if (K_NODE.equals(key)) {
+					if (graph==null) graph = createGraph(graphR);
+					parseNode(graph, readRecord(stream));
+				}
+				else if (K_EDGE.equals(key)) {
+					if (graph==null) graph = createGraph(graphR);
+					GMLRecord edgeR = readRecord(stream);
+					if (!parseEdge(graph, edgeR)) {
+						pendingEdges.add(edgeR);
+					}
+				}
+				else {
+					graphR.add(key, readRecord(stream));
+				}
+			}
+			else {
+				graphR.add(key, stream.getValue());
+			}
+		}
 
-		for(Element edgeN : elements(graphN, tag(K_EDGE),
-				ProgressionUtil.subToEnd(progression))) {
-			parseEdge(graph, edgeN);
+		if (graph==null) graph = createGraph(graphR);
+
+		for(GMLRecord edgeR : pendingEdges) {
+			if (!parseEdge(graph, edgeR)) throw new GMLException();
 		}
 
-		ProgressionUtil.end(progression);
+		return graph;
+	}
 
+	private Graph createGraph(GMLRecord graphR) throws IOException {
+		Graph graph = createInstance(Graph.class, graphR);
+		Map<String,Object> properties = extractAttributes(graphR, getResourceRepository());
+		graph.setProperties(properties);
+		graph.setUUID(enforceUUID(extractValue(graphR, K_UUID, String.class, getResourceRepository())));
 		return graph;
 	}
 
-	private void parseNode(Graph graph, Element root) throws IOException {
-		int id = extractValueFromTag(root, K_ID, Number.class, getResourceRepository()).intValue();
-		Node node = createInstance(Node.class, root);
-		Map<String,Object> properties = extractAttributes(root);
+	private void parseNode(Graph graph, GMLRecord nodeR) throws IOException {
+		int id = extractValue(nodeR, K_ID, Number.class, getResourceRepository()).intValue();
+		Node node = createInstance(Node.class, nodeR);
+		Map<String,Object> properties = extractAttributes(nodeR, getResourceRepository());
 		node.setProperties(properties);
-		node.setUUID(enforceUUID(extractValueFromTag(root, K_UUID, String.class, getResourceRepository())));
+		node.setUUID(enforceUUID(extractValue(nodeR, K_UUID, String.class, getResourceRepository())));
 
 		graph.addNode(node);
 
-		parseAnchorsFor(node, root);
+		parseAnchorsFor(node, nodeR);
 
 		this.nodes.put(id, node);
 
-		for(Element graphicN : elements(root, tag(K_GRAPHICS))) {
-			parseObjectFigure(node, graphicN);
-		}
+		parseObjectFigures(node, nodeR);
 	}
 
-	private void parseAnchorsFor(Node node, Element nodeElement) throws IOException {
-		for(Element anchorN : elements(nodeElement, tag(K_EDGEANCHOR))) {
-			int id = extractValueFromTag(anchorN, K_ID, Number.class, getResourceRepository()).intValue();
-			Anchor anchor = createInstance(Anchor.class, anchorN);
-			Map<String,Object> properties = extractAttributes(anchorN);
+	private void parseAnchorsFor(Node node, GMLRecord nodeR) throws IOException {
+		for(GMLRecord anchorR : nodeR.getRecords(K_EDGEANCHOR)) {
+			int id = extractValue(anchorR, K_ID, Number.class, getResourceRepository()).intValue();
+			Anchor anchor = createInstance(Anchor.class, anchorR);
+			Map<String,Object> properties = extractAttributes(anchorR, getResourceRepository());
 			anchor.setProperties(properties);
-			anchor.setUUID(enforceUUID(extractValueFromTag(anchorN, K_UUID, String.class, getResourceRepository())));
+			anchor.setUUID(enforceUUID(extractValue(anchorR, K_UUID, String.class, getResourceRepository())));
 			node.addAnchor(anchor);
 			this.anchors.put(id, anchor);
 
-			for(Element graphicN : elements(anchorN, tag(K_GRAPHICS))) {
-				parseObjectFigure(anchor, graphicN);
-			}
+			parseObjectFigures(anchor, anchorR);
 		}
 	}
 
-	private void parseEdge(Graph graph, Element root) throws IOException {
-		Edge edge = createInstance(Edge.class, root);
-		Map<String,Object> properties = extractAttributes(root);
+	/** Build the edge if its anchors are already known.
+	 * 
+	 * @return <code>false</code> if the anchors of the edge are not yet known.
+	 */
+	private boolean parseEdge(Graph graph, GMLRecord edgeR) throws IOException {
+		Anchor startAnchor = findAnchor(edgeR, K_SOURCEPORT, K_SOURCE);
+		Anchor endAnchor = findAnchor(edgeR, K_TARGETPORT, K_TARGET);
+		if (startAnchor==null || endAnchor==null) return false;
+
+		Edge edge = createInstance(Edge.class, edgeR);
+		Map<String,Object> properties = extractAttributes(edgeR, getResourceRepository());
 		edge.setProperties(properties);
-		edge.setUUID(enforceUUID(extractValueFromTag(root, K_UUID, String.class, getResourceRepository())));
+		edge.setUUID(enforceUUID(extractValue(edgeR, K_UUID, String.class, getResourceRepository())));
 
 		graph.addEdge(edge);
 
-		Element port;
-
-		port = extractNode(root, tag(K_SOURCEPORT));
-		if (port!=null) {
-			int portId = extractValueFromTag(port, Number.class, getResourceRepository()).intValue();
-			Anchor anchor = this.anchors.get(portId);
-			if (anchor==null) throw new GMLException();
-			edge.setStartAnchor(anchor);
-		}
-		else {
-			int nodeId = extractValueFromTag(root, K_SOURCE, Number.class, getResourceRepository()).intValue();
-			Node node = this.nodes.get(nodeId);
-			if (node==null) throw new GMLException();
-			Anchor anchor = (Anchor)node.getAnchors().get(0);
-			edge.setStartAnchor(anchor);
-		}
-
-		port = extractNode(root, tag(K_TARGETPORT));
-		if (port!=null) {
-			int portId = extractValueFromTag(port, Number.class, getResourceRepository()).intValue();
-			Anchor anchor = this.anchors.get(portId);
-			if (anchor==null) throw new GMLException();
-			edge.setEndAnchor(anchor);
-		}
-		else {
-			int nodeId = extractValueFromTag(root, K_TARGET, Number.class, getResourceRepository()).intValue();
-			Node node = this.nodes.get(nodeId);
-			if (node==null) throw new GMLException();
-			Anchor anchor = (Anchor)node.getAnchors().get(0);
-			edge.setEndAnchor(anchor);
-		}
+		edge.setStartAnchor(startAnchor);
+		edge.setEndAnchor(endAnchor);
 
-		for(Element graphicN : elements(root, tag(K_GRAPHICS))) {
-			parseObjectFigure(edge, graphicN);
-		}
+		parseObjectFigures(edge, edgeR);
+		return true;
 	}
 
-	private Map<String,Object> extractAttributes(Element node) throws IOException {
-		Map<String,Object> properties = new TreeMap<String,Object>();
-		Element attrN = extractNodeNoFail(node, tag(K_ATTRIBUTES));
-		if (attrN!=null) {
-			for(Element elementN : elements(attrN)) {
-				Object value = extractValueFromTag(elementN, Object.class, getResourceRepository());
-				if (value!=null) {
-					if (value instanceof Namespace) {
-						((Namespace)value).fillProperties("", properties); //$NON-NLS-1$
-					}
-					else {
-						properties.put(untag(elementN.getNodeName()), value);
-					}
-				}
-			}
-		}		
-		return properties;
+	private Anchor findAnchor(GMLRecord edgeR, String portKey, String nodeKey) throws IOException {
+		if (edgeR.get(portKey)!=null) {
+			int portId = extractValue(edgeR, portKey, Number.class, getResourceRepository()).intValue();
+			return this.anchors.get(portId);
+		}
+		int nodeId = extractValue(edgeR, nodeKey, Number.class, getResourceRepository()).intValue();
+		Node node = this.nodes.get(nodeId);
+		if (node==null) return null;
+		return (Anchor)node.getAnchors().get(0);
 	}
 
 	@Override
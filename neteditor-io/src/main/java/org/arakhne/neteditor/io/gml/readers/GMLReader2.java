@@ -43,6 +43,8 @@ import org.arakhne.neteditor.formalism.Edge;
 import org.arakhne.neteditor.formalism.Graph;
 import org.arakhne.neteditor.formalism.Node;
 import org.arakhne.neteditor.io.gml.GMLException;
+import org.arakhne.neteditor.io.gml.parser.GMLStreamReader;
+import org.arakhne.neteditor.io.xml.AbstractXMLToolReader;
 import org.w3c.dom.Element;
 
 /** This class permits to read the
@@ -85,26 +87,54 @@ public class GMLReader2 extends AbstractGMLReader {
 	@Override
 	public <G extends Graph<?, ?, ?, ?>> G readGraph(
 			Class<G> type,
-			Element gmlRoot,
+			GMLStreamReader stream,
 			Map<UUID, List<ViewComponent>> figures,
 			Progression progression) throws IOException {
 		try {
-			ProgressionUtil.init(progression, 0, gmlRoot.getChildNodes().getLength()*2);
-			assertSpecificationVersion(gmlRoot, SPECIFICATION_VERSION, getResourceRepository());
-			
 			this.allFigures = figures;
 			this.anchors.clear();
 			this.nodes.clear();
 			this.edges.clear();
 
-			Graph<?, ?, ?, ?> g = parseGraph(gmlRoot, ProgressionUtil.sub(progression, gmlRoot.getChildNodes().getLength()));
+			Map<ViewComponent,Map<String,UUID>> coercedFigures = new HashMap<ViewComponent,Map<String,UUID>>();
+			Graph<?, ?, ?, ?> g = null;
 
-			ProgressionUtil.ensureNoSubTask(progression);
+			int event = stream.getEventType();
+			while (event!=GMLStreamReader.END_DOCUMENT) {
+				if (event==GMLStreamReader.START_LIST) {
+					if (g==null && K_GRAPH.equals(stream.getKey())) {
+						g = parseGraph(stream);
+						if (!(type.isInstance(g)))
+							throw new IOException(Locale.getString(GMLReader2.class, "INVALID_GRAPH_TYPE", type.getCanonicalName())); //$NON-NLS-1$
+					}
+					else if (K_GRAPHICS.equals(stream.getKey())) {
+						parseViews(stream, coercedFigures);
+					}
+					else {
+						stream.skipList();
+					}
+				}
+				else if (K_VERSION.equals(stream.getKey())) {
+					assertSpecificationVersion(stream.getStringValue(), SPECIFICATION_VERSION);
+				}
+				event = stream.next();
+			}
 
-			if (g!=null && !(type.isInstance(g)))
-				throw new IOException(Locale.getString(GMLReader2.class, "INVALID_GRAPH_TYPE", type.getCanonicalName())); //$NON-NLS-1$
+			if (g==null) {
+				throw new GMLException(Locale.getString(AbstractXMLToolReader.class, "XML_NODE_NOT_FOUND", tag(K_GRAPH))); //$NON-NLS-1$
+			}
 
-			parseViews(gmlRoot, ProgressionUtil.subToEnd(progression));
+			//
+			// Link the figures to their coerced figures.
+			//
+			for(Entry<ViewComponent,Map<String,UUID>> map1 : coercedFigures.entrySet()) {
+				for(Entry<String,UUID> map2 : map1.getValue().entrySet()) {
+					Figure slaveFigure = getFigure(map2.getValue());
+					if (slaveFigure instanceof CoercedFigure) {
+						map1.getKey().addAssociatedFigureIntoView(map2.getKey(), (CoercedFigure)slaveFigure);
+					}
+				}
+			}
 
 			ProgressionUtil.end(progression);
 
@@ -148,209 +178,196 @@ public class GMLReader2 extends AbstractGMLReader {
 		return null;
 	}
 
-	private void parseViews(Element root, Progression progression) throws IOException {
-		Map<ViewComponent,Map<String,UUID>> coercedFigures = new HashMap<ViewComponent,Map<String,UUID>>();
-		
-		for(Element graphicsN : elements(root, tag(K_GRAPHICS), progression)) {
-			for(Element figureN : elements(graphicsN, tag(K_FIGURE),
-					ProgressionUtil.sub(progression, 1))) {
-				UUID viewId = enforceUUID(extractValueFromTag(figureN, K_VIEWID, String.class, getResourceRepository()));
-				ViewComponent figure = createFigureInstance(ViewComponent.class, figureN, viewId);
-				if (figure instanceof Figure) {
-					Map<String,Object> properties = extractAttributes(figureN);
-					figure.setProperties(properties);
-					UUID figureId = enforceUUID(extractValueFromTag(figureN, K_UUID, String.class, getResourceRepository())); 
-					figure.setUUID(figureId);
-					figure.setViewUUID(viewId);
-					
-					if (figure instanceof ModelObjectView<?>) {
-						ModelObjectView mof = (ModelObjectView)figure;
-						Long modelId = parseIntNoFail(extractValueFromTag(figureN, K_MODELID, String.class, getResourceRepository()));
-						if (modelId!=null) {
-							Node node = this.nodes.get(modelId.intValue());
-							if (node!=null) {
-								mof.setModelObject(node);
-							}
-							else {
-								Edge edge = this.edges.get(modelId.intValue());
-								if (edge!=null) {
-									mof.setModelObject(edge);
-								}
-							}
-						}
-					}
-
-					registerFigure(viewId, (Figure)figure);
+	private void parseViews(GMLStreamReader stream, Map<ViewComponent,Map<String,UUID>> coercedFigures) throws IOException {
+		int event;
+		while ((event = stream.next())!=GMLStreamReader.END_LIST) {
+			if (event==GMLStreamReader.START_LIST) {
+				if (K_FIGURE.equals(stream.getKey())) {
+					parseFigure(readRecord(stream), coercedFigures);
+				}
+				else {
+					stream.skipList();
+				}
+			}
+		}
+	}
 
-					for(Element subfigureN : elements(figureN, tag(K_FIGURE))) {
-						String subfigureId = null;
-						try {
-							subfigureId = extractValueFromTag(subfigureN, K_COERCIONID, String.class, getResourceRepository());
-						}
-						catch(Throwable _) {
-							//
-						}
-						if (subfigureId!=null) {
-							//
-							// COERCED FIGURE
-							//
-							UUID uid = enforceUUID(extractValueFromTag(subfigureN, K_UUID, String.class, getResourceRepository()));
-							Map<String,UUID> figs = coercedFigures.get(figureId);
-							if (figs==null) {
-								figs = new HashMap<String,UUID>();
-								coercedFigures.put(figure, figs);
-							}
-							figs.put(subfigureId, uid);
-						}
-						else {
-							//
-							// SUBFIGURE
-							//
-							int modelId = parseIntNoFail(extractValueFromTag(subfigureN, K_MODELID, String.class, getResourceRepository())).intValue();
-							SubFigure subfigure = createFigureInstance(SubFigure.class, subfigureN, viewId);
-							properties = extractAttributes(subfigureN);
-							subfigure.setProperties(properties);
-							subfigure.setUUID(enforceUUID(extractValueFromTag(subfigureN, K_UUID, String.class, getResourceRepository())));
-							subfigure.setViewUUID(viewId);
-
-							Anchor anchor = this.anchors.get(modelId);
-							if (anchor!=null && subfigure instanceof ModelObjectView<?>) {
-								((ModelObjectView)subfigure).setModelObject(anchor);
-							}
+	private void parseFigure(GMLRecord figureR, Map<ViewComponent,Map<String,UUID>> coercedFigures) throws IOException {
+		UUID viewId = enforceUUID(extractValue(figureR, K_VIEWID, String.class, getResourceRepository()));
+		ViewComponent figure = createFigureInstance(ViewComponent.class, figureR, viewId);
+		if (figure instanceof Figure) {
+			Map<String,Object> properties = extractAttributes(figureR, getResourceRepository());
+			figure.setProperties(properties);
+			UUID figureId = enforceUUID(extractValue(figureR, K_UUID, String.class, getResourceRepository())); 
+			figure.setUUID(figureId);
+			figure.setViewUUID(viewId);
+			
+			if (figure instanceof ModelObjectView<?>) {
+				ModelObjectView mof = (ModelObjectView)figure;
+				Long modelId = parseIntNoFail(extractValue(figureR, K_MODELID, String.class, getResourceRepository()));
+				if (modelId!=null) {
+					Node node = this.nodes.get(modelId.intValue());
+					if (node!=null) {
+						mof.setModelObject(node);
+					}
+					else {
+						Edge edge = this.edges.get(modelId.intValue());
+						if (edge!=null) {
+							mof.setModelObject(edge);
 						}
 					}
 				}
 			}
-		}
-		
-		//
-		// Link the figures to their coerced figures.
-		//
-		for(Entry<ViewComponent,Map<String,UUID>> map1 : coercedFigures.entrySet()) {
-			for(Entry<String,UUID> map2 : map1.getValue().entrySet()) {
-				Figure slaveFigure = getFigure(map2.getValue());
-				if (slaveFigure instanceof CoercedFigure) {
-					map1.getKey().addAssociatedFigureIntoView(map2.getKey(), (CoercedFigure)slaveFigure);
+
+			registerFigure(viewId, (Figure)figure);
+
+			for(GMLRecord subfigureR : figureR.getRecords(K_FIGURE)) {
+				Object coercionId = subfigureR.get(K_COERCIONID);
+				if (coercionId instanceof String) {
+					//
+					// COERCED FIGURE
+					//
+					UUID uid = enforceUUID(extractValue(subfigureR, K_UUID, String.class, getResourceRepository()));
+					Map<String,UUID> figs = coercedFigures.get(figure);
+					if (figs==null) {
+						figs = new HashMap<String,UUID>();
+						coercedFigures.put(figure, figs);
+					}
+					figs.put((String)coercionId, uid);
+				}
+				else {
+					//
+					// SUBFIGURE
+					//
+					int modelId = parseIntNoFail(extractValue(subfigureR, K_MODELID, String.class, getResourceRepository())).intValue();
+					SubFigure subfigure = createFigureInstance(SubFigure.class, subfigureR, viewId);
+					properties = extractAttributes(subfigureR, getResourceRepository());
+					subfigure.setProperties(properties);
+					subfigure.setUUID(enforceUUID(extractValue(subfigureR, K_UUID, String.class, getResourceRepository())));
+					subfigure.setViewUUID(viewId);
+
+					Anchor anchor = this.anchors.get(modelId);
+					if (anchor!=null && subfigure instanceof ModelObjectView<?>) {
+						((ModelObjectView)subfigure).setModelObject(anchor);
+					}
 				}
 			}
 		}
 	}
 
-	private Graph<?,?,?,?> parseGraph(Element root, Progression progression) throws IOException {
-		ProgressionUtil.init(progression, 0, 15000);
-		Element graphN = extractNode(root, tag(K_GRAPH));
-		Graph graph = createInstance(Graph.class, graphN);
-		Map<String,Object> properties = extractAttributes(graphN);
-		graph.setProperties(properties);
-		graph.setUUID(enforceUUID(extractValueFromTag(graphN, K_UUID, String.class, getResourceRepository())));
-		
-		ProgressionUtil.advance(progression, 5000);
-
-		for(Element nodeN : elements(graphN, tag(K_NODE),
-				ProgressionUtil.sub(progression, 5000))) {
-			parseNode(graph, nodeN);
+	/** Read the graph list on which the stream is positioned.
+	 * <p>
+	 * The graph is created when its first node or edge is reached,
+	 * so the values that are describing the graph itself must be
+	 * before its nodes and its edges. The edges that are
+	 * referencing nodes or anchors not yet read are built at
+	 * the end of the graph list.
+	 */
+	private Graph<?,?,?,?> parseGraph(GMLStreamReader stream) throws IOException {
+		GMLRecord graphR = new GMLRecord(K_GRAPH);
+		Graph graph = null;
+		List<GMLRecord> pendingEdges = new ArrayList<GMLRecord>();
+		int event;
+		while ((event = stream.next())!=GMLStreamReader.END_LIST) {
+			String key = stream.getKey();
+			if (event==GMLStreamReader.START_LIST) {
+				if (K_NODE.equals(key)) {
+					if (graph==null) graph = createGraph(graphR);
+					parseNode(graph, readRecord(stream));
+				}
+				else if (K_EDGE.equals(key)) {
+					if (graph==null) graph = createGraph(graphR);
+					GMLRecord edgeR = readRecord(stream);
+					if (!parseEdge(graph, edgeR)) {
+						pendingEdges.add(edgeR);
+					}
+				}
+				else {
+					graphR.add(key, readRecord(stream));
+				}
+			}
+			else {
+				graphR.add(key, stream.getValue());
+			}
 		}
-		
-		ProgressionUtil.ensureNoSubTask(progression);
 
-		for(Element edgeN : elements(graphN, tag(K_EDGE),
-				ProgressionUtil.subToEnd(progression))) {
-			parseEdge(graph, edgeN);
+		if (graph==null) graph = createGraph(graphR);
+
+		for(GMLRecord edgeR : pendingEdges) {
+			if (!parseEdge(graph, edgeR)) throw new GMLException();
 		}
 
-		ProgressionUtil.end(progression);
+		return graph;
+	}
 
+	private Graph createGraph(GMLRecord graphR) throws IOException {
+		Graph graph = createInstance(Graph.class, graphR);
+		Map<String,Object> properties = extractAttributes(graphR, getResourceRepository());
+		graph.setProperties(properties);
+		graph.setUUID(enforceUUID(extractValue(graphR, K_UUID, String.class, getResourceRepository())));
 		return graph;
 	}
 
-	private void parseNode(Graph graph, Element root) throws IOException {
-		int id = extractValueFromTag(root, K_ID, Number.class, getResourceRepository()).intValue();
-		Node node = createInstance(Node.class, root);
-		Map<String,Object> properties = extractAttributes(root);
+	private void parseNode(Graph graph, GMLRecord nodeR) throws IOException {
+		int id = extractValue(nodeR, K_ID, Number.class, getResourceRepository()).intValue();
+		Node node = createInstance(Node.class, nodeR);
+		Map<String,Object> properties = extractAttributes(nodeR, getResourceRepository());
 		node.setProperties(properties);
-		node.setUUID(enforceUUID(extractValueFromTag(root, K_UUID, String.class, getResourceRepository())));
+		node.setUUID(enforceUUID(extractValue(nodeR, K_UUID, String.class, getResourceRepository())));
 
 		graph.addNode(node);
 
-		parseAnchorsFor(node, root);
+		parseAnchorsFor(node, nodeR);
 
 		this.nodes.put(id, node);
 	}
 
-	private void parseAnchorsFor(Node node, Element nodeElement) throws IOException {
-		for(Element anchorN : elements(nodeElement, tag(K_EDGEANCHOR))) {
-			int id = extractValueFromTag(anchorN, K_ID, Number.class, getResourceRepository()).intValue();
-			Anchor anchor = createInstance(Anchor.class, anchorN);
-			Map<String,Object> properties = extractAttributes(anchorN);
+	private void parseAnchorsFor(Node node, GMLRecord nodeR) throws IOException {
+		for(GMLRecord anchorR : nodeR.getRecords(K_EDGEANCHOR)) {
+			int id = extractValue(anchorR, K_ID, Number.class, getResourceRepository()).intValue();
+			Anchor anchor = createInstance(Anchor.class, anchorR);
+			Map<String,Object> properties = extractAttributes(anchorR, getResourceRepository());
 			anchor.setProperties(properties);
-			anchor.setUUID(enforceUUID(extractValueFromTag(anchorN, K_UUID, String.class, getResourceRepository())));
+			anchor.setUUID(enforceUUID(extractValue(anchorR, K_UUID, String.class, getResourceRepository())));
 			node.addAnchor(anchor);
 			this.anchors.put(id, anchor);
 		}
 	}
 
-	private void parseEdge(Graph graph, Element root) throws IOException {
-		int id = extractValueFromTag(root, K_ID, Number.class, getResourceRepository()).intValue();
+	/** Build the edge if its anchors are already known.
+	 * 
+	 * @return <code>false</code> if the anchors of the edge are not yet known.
+	 */
+	private boolean parseEdge(Graph graph, GMLRecord edgeR) throws IOException {
+		Anchor startAnchor = findAnchor(edgeR, K_SOURCEPORT, K_SOURCE);
+		Anchor endAnchor = findAnchor(edgeR, K_TARGETPORT, K_TARGET);
+		if (startAnchor==null || endAnchor==null) return false;
+
+		int id = extractValue(edgeR, K_ID, Number.class, getResourceRepository()).intValue();
 
-		Edge edge = createInstance(Edge.class, root);
-		Map<String,Object> properties = extractAttributes(root);
+		Edge edge = createInstance(Edge.class, edgeR);
+		Map<String,Object> properties = extractAttributes(edgeR, getResourceRepository());
 		edge.setProperties(properties);
-		edge.setUUID(enforceUUID(extractValueFromTag(root, K_UUID, String.class, getResourceRepository())));
+		edge.setUUID(enforceUUID(extractValue(edgeR, K_UUID, String.class, getResourceRepository())));
 
 		graph.addEdge(edge);
 		
 		this.edges.put(id, edge);
 
-		Element port;
-
-		port = extractNode(root, tag(K_SOURCEPORT));
-		if (port!=null) {
-			int portId = extractValueFromTag(port, Number.class, getResourceRepository()).intValue();
-			Anchor anchor = this.anchors.get(portId);
-			if (anchor==null) throw new GMLException();
-			edge.setStartAnchor(anchor);
-		}
-		else {
-			int nodeId = extractValueFromTag(root, K_SOURCE, Number.class, getResourceRepository()).intValue();
-			Node node = this.nodes.get(nodeId);
-			if (node==null) throw new GMLException();
-			Anchor anchor = (Anchor)node.getAnchors().get(0);
-			edge.setStartAnchor(anchor);
-		}
-
-		port = extractNode(root, tag(K_TARGETPORT));
-		if (port!=null) {
-			int portId = extractValueFromTag(port, Number.class, getResourceRepository()).intValue();
-			Anchor anchor = this.anchors.get(portId);
-			if (anchor==null) throw new GMLException();
-			edge.setEndAnchor(anchor);
-		}
-		else {
-			int nodeId = extractValueFromTag(root, K_TARGET, Number.class, getResourceRepository()).intValue();
-			Node node = this.nodes.get(nodeId);
-			if (node==null) throw new GMLException();
-			Anchor anchor = (Anchor)node.getAnchors().get(0);
-			edge.setEndAnchor(anchor);
-		}
+		edge.setStartAnchor(startAnchor);
+		edge.setEndAnchor(endAnchor);
+		return true;
 	}
 
-	private Map<String,Object> extractAttributes(Element node) throws IOException {
-		Map<String,Object> properties = new TreeMap<String,Object>();
-		Element attrN = extractNodeNoFail(node, tag(K_ATTRIBUTES));
-		if (attrN!=null) {
-			for(Element elementN : elements(attrN)) {
-				Object value = extractValueFromTag(elementN, Object.class, getResourceRepository());
-				if (value!=null) {
-					if (value instanceof Namespace) {
-						((Namespace)value).fillProperties("", properties); //$NON-NLS-1$
-					}
-					else {
-						properties.put(untag(elementN.getNodeName()), value);
-					}
-				}
-			}
-		}		
-		return properties;
+	private Anchor findAnchor(GMLRecord edgeR, String portKey, String nodeKey) throws IOException {
+		if (edgeR.get(portKey)!=null) {
+			int portId = extractValue(edgeR, portKey, Number.class, getResourceRepository()).intValue();
+			return this.anchors.get(portId);
+		}
+		int nodeId = extractValue(edgeR, nodeKey, Number.class, getResourceRepository()).intValue();
+		Node node = this.nodes.get(nodeId);
+		if (node==null) return null;
+		return (Anchor)node.getAnchors().get(0);
 	}
 
 	@Override
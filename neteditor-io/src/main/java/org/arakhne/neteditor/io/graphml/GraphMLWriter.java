@@ -24,6 +24,7 @@ package org.arakhne.neteditor.io.graphml ;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -122,6 +123,50 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 	 */
 	@Override
 	protected Element createGraphDOM(Map<UUID, ? extends Graph<?,?,?,?>> graphs,  Collection<? extends Figure> figures, Progression progression) throws IOException {
+		Element gmlN = createGraphML();
+		createContent(gmlN, graphs, figures, false, progression);
+		return gmlN;
+	}
+	
+	/** {@inheritDoc}
+	 */
+	@Override
+	protected void writeGraphStream(Map<UUID, ? extends Graph<?,?,?,?>> graphs,  Collection<? extends Figure> figures, Progression progression) throws IOException {
+		Element gmlN = createGraphML();
+		writeStartElement(gmlN);
+		createContent(gmlN, graphs, figures, true, progression);
+		writeEndElement();
+	}
+
+	/** Create the root element of the document.
+	 * 
+	 * @return the root element.
+	 */
+	private Element createGraphML() {
+		Element gmlN = createElement(N_GRAPHML);
+		gmlN.setAttribute(A_XMLNS, C_XMLNS_URI);
+		gmlN.setAttribute(A_XMLNS_XLINK, C_XLINK_NS_URI);
+		gmlN.setAttribute(A_XMLNS_NETEDITOR, C_XMLNS_NETEDITOR_URI);
+		gmlN.setAttribute(A_GRAPHML_SPECIFICATION_VERSION, SPECIFICATION_VERSION);
+		
+		if (isWriteSVGDrawings()) {
+			gmlN.setAttribute(A_XMLNS_XSI, C_XMLNS_XSI_URI);
+			gmlN.setAttribute(A_XSI_SCHEMALOCATION, C_XSI_SCHEMALOCATION_URI);
+			gmlN.setAttribute(A_XMLNS_SVG, C_XMLNS_SVG_URI);
+		}
+		return gmlN;
+	}
+
+	/** Create the keys, the graphs and the views inside the root element.
+	 * 
+	 * @param gmlN is the XML node that contains GraphML.
+	 * @param graphs are the graphs to output.
+	 * @param figures are the figures to output.
+	 * @param streaming indicates if the root element is written on the stream.
+	 * @param progression notifies on the progression of the creation.
+	 * @throws IOException
+	 */
+	private void createContent(Element gmlN, Map<UUID, ? extends Graph<?,?,?,?>> graphs,  Collection<? extends Figure> figures, boolean streaming, Progression progression) throws IOException {
 		ProgressionUtil.init(progression, 0, figures.size()*2+graphs.size()+50);
 		
 		this.viewObjects.clear();
@@ -133,24 +178,20 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 				ProgressionUtil.sub(progression, figures.size()));
 		
 		try {
-			Element gmlN = createElement(N_GRAPHML);
-			gmlN.setAttribute(A_XMLNS, C_XMLNS_URI);
-			gmlN.setAttribute(A_XMLNS_XLINK, C_XLINK_NS_URI);
-			gmlN.setAttribute(A_XMLNS_NETEDITOR, C_XMLNS_NETEDITOR_URI);
-			gmlN.setAttribute(A_GRAPHML_SPECIFICATION_VERSION, SPECIFICATION_VERSION);
-			
-			if (isWriteSVGDrawings()) {
-				gmlN.setAttribute(A_XMLNS_XSI, C_XMLNS_XSI_URI);
-				gmlN.setAttribute(A_XSI_SCHEMALOCATION, C_XSI_SCHEMALOCATION_URI);
-				gmlN.setAttribute(A_XMLNS_SVG, C_XMLNS_SVG_URI);
+			if (streaming) {
+				// The additional keys are written before the other nodes,
+				// they must be known before the graphs are written.
+				collectAdditionalKeys(graphs);
+				for(Element keyN : this.additionalKeys.values()) {
+					output(gmlN, keyN);
+				}
 			}
 
 			Element refKeyN = createDefaultKeys(gmlN);
 
 			// Put the raw description of the graphs
 			for(Graph<?,?,?,?> graph : graphs.values()) {
-				Element graphN = createGraph(graph, ProgressionUtil.sub(progression, 1));
-				append(gmlN, graphN);
+				createGraph(gmlN, graph, ProgressionUtil.sub(progression, 1));
 			}
 
 			// Create the graph representations of the views
@@ -158,11 +199,11 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 				createFigures(gmlN, ProgressionUtil.sub(progression, figures.size()));
 			}
 			
-			addAdditionalKeys(gmlN, refKeyN);
+			if (!streaming) {
+				addAdditionalKeys(gmlN, refKeyN);
+			}
 
 			ProgressionUtil.end(progression);
-
-			return gmlN;
 		}
 		finally {
 			this.outputFigures.clear();
@@ -170,6 +211,102 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 			this.additionalKeys.clear();
 		}
 	}
+
+	/** Collect the keys of the attributes of the graphs and of the
+	 * figures that will be output.
+	 * The views are extracted in a separate map, as when the graphs
+	 * are output.
+	 * 
+	 * @param graphs are the graphs to output.
+	 * @throws IOException
+	 */
+	private void collectAdditionalKeys(Map<UUID, ? extends Graph<?,?,?,?>> graphs) throws IOException {
+		Map<UUID,List<ViewComponent>> views = new TreeMap<UUID,List<ViewComponent>>();
+		for(Graph<?,?,?,?> graph : graphs.values()) {
+			if (graph!=null) {
+				extractViews(graph, views, this.outputFigures, null);
+				addKeys(graph.getProperties());
+				for(org.arakhne.neteditor.formalism.Node<?,?,?,?> node : graph.getNodes()) {
+					extractViews(node, views, this.outputFigures, null);
+					addKeys(node.getProperties());
+					if (isAnchorOutput()) {
+						for(Anchor<?,?,?,?> anchor : node.getAnchors()) {
+							extractViews(anchor, views, this.outputFigures, null);
+							addKeys(anchor.getProperties());
+						}
+					}
+				}
+				for(Edge<?,?,?,?> edge : graph.getEdges()) {
+					extractViews(edge, views, this.outputFigures, null);
+					addKeys(edge.getProperties());
+				}
+			}
+		}
+		List<List<ViewComponent>> components = new ArrayList<List<ViewComponent>>();
+		components.addAll(this.viewObjects.values());
+		components.addAll(views.values());
+		for(List<ViewComponent> list : components) {
+			for(ViewComponent component : list) {
+				if (!(component instanceof SubFigure)) {
+					addKeys(component.getProperties());
+					if (component instanceof Figure) {
+						for(SubFigure subfigure : ((Figure)component).getSubFigures()) {
+							addKeys(subfigure.getProperties());
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/** Add the keys for the given attributes.
+	 * 
+	 * @param properties
+	 */
+	private void addKeys(Map<String,Object> properties) {
+		for(Entry<String,Object> attr : properties.entrySet()) {
+			Object value = attr.getValue();
+			if (value!=null) {
+				addKey(attr.getKey(), value);
+			}
+		}
+	}
+
+	/** Add the key for the given attribute if it has a simple type.
+	 * 
+	 * @param name is the name of the attribute.
+	 * @param value is the value of the attribute.
+	 * @return the identifier of the key, or <code>null</code> if the
+	 * attribute has no simple type.
+	 */
+	private String addKey(String name, Object value) {
+		String type;
+		if (isInteger(value)) {
+			type = C_ATTR_TYPE_LONG;
+		}
+		else if (isFloat(value)) {
+			type = C_ATTR_TYPE_DOUBLE;
+		}
+		else if (isBoolean(value)) {
+			type = C_ATTR_TYPE_BOOLEAN;
+		}
+		else if (isString(value)) {
+			type = C_ATTR_TYPE_STRING;
+		}
+		else {
+			return null;
+		}
+		String id = C_KEY_ATTR_PREFIX+name;
+		if (!this.additionalKeys.containsKey(id)) {
+			Element keyN = createElement(N_KEY);
+			keyN.setAttribute(A_ID, id);
+			keyN.setAttribute(A_FOR, C_FOR_ALL);
+			keyN.setAttribute(A_ATTR_NAME, name);
+			keyN.setAttribute(A_ATTR_TYPE, type);
+			this.additionalKeys.put(id, keyN);
+		}
+		return id;
+	}
 	
 	/** Put the additional keys just before the given key node.
 	 * 
@@ -186,51 +323,52 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 	 * 
 	 * @param graphNode is the node of the graphml.
 	 * @return the first key
+	 * @throws IOException
 	 */
-	private Element createDefaultKeys(Element graphNode) {
+	private Element createDefaultKeys(Element graphNode) throws IOException {
 		Element keyN = createElement(N_KEY);
 		Element firstKeyN = keyN;
 		keyN.setAttribute(A_ID, C_KEY_NETEDITOR_TYPE);
 		keyN.setAttribute(A_FOR, C_FOR_ALL);
-		append(graphNode, keyN);
+		output(graphNode, keyN);
 
 		keyN = createElement(N_KEY);
 		keyN.setAttribute(A_ID, C_KEY_NETEDITOR_ATTRIBUTES);
 		keyN.setAttribute(A_FOR, C_FOR_ALL);
-		append(graphNode, keyN);
+		output(graphNode, keyN);
 
 		if (!this.outputFigures.isEmpty()) {
 			keyN = createElement(N_KEY);
 			keyN.setAttribute(A_ID, C_KEY_NETEDITOR_VIEWS);
 			keyN.setAttribute(A_FOR, C_FOR_ALL);
-			append(graphNode, keyN);
+			output(graphNode, keyN);
 
 			keyN = createElement(N_KEY);
 			keyN.setAttribute(A_ID, C_KEY_NETEDITOR_MODELID);
 			keyN.setAttribute(A_FOR, C_FOR_ALL);
-			append(graphNode, keyN);
+			output(graphNode, keyN);
 
 			keyN = createElement(N_KEY);
 			keyN.setAttribute(A_ID, C_KEY_NETEDITOR_SUBFIGURES);
 			keyN.setAttribute(A_FOR, C_FOR_ALL);
-			append(graphNode, keyN);
+			output(graphNode, keyN);
 
 			keyN = createElement(N_KEY);
 			keyN.setAttribute(A_ID, C_KEY_NETEDITOR_COERCEDFIGURES);
 			keyN.setAttribute(A_FOR, C_FOR_ALL);
-			append(graphNode, keyN);
+			output(graphNode, keyN);
 		}
 		
 		if (isWriteSVGDrawings()) {
 			keyN = createElement(N_KEY);
 			keyN.setAttribute(A_ID, C_KEY_SVG_NODE);
 			keyN.setAttribute(A_FOR, C_FOR_NODE);
-			append(graphNode, keyN);
+			output(graphNode, keyN);
 
 			keyN = createElement(N_KEY);
 			keyN.setAttribute(A_ID, C_KEY_SVG_EDGE);
 			keyN.setAttribute(A_FOR, C_FOR_EDGE);
-			append(graphNode, keyN);
+			output(graphNode, keyN);
 		}
 		
 		return firstKeyN;
@@ -244,68 +382,88 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 	 */
 	private void createFigures(Element gmlN, Progression progression) throws IOException {
 		ProgressionUtil.init(progression, 0, this.viewObjects.size());
-		Element viewsN = createElement(N_DATA);
+		Element viewsN = null;
 		for(Entry<UUID,List<ViewComponent>> ventry : this.viewObjects.entrySet()) {
-			Element viewN = createElement(N_NETEDITOR_VIEW);
-			for(ViewComponent component : ventry.getValue()) {
-				if (!(component instanceof SubFigure)) {
-
-					Element componentN = createElement(N_NETEDITOR_VIEWCOMPONENT);
-					setType(componentN, component);
-					
-					if (component instanceof ModelObjectView<?>) {
-						ModelObjectView<?> mov = (ModelObjectView<?>) component;
-						ModelObject mo = mov.getModelObject();
-						if (mo!=null) {
-							Element modelObjectN = createElement(N_DATA);
-							modelObjectN.setAttribute(A_KEY, C_KEY_NETEDITOR_MODELID);
-							modelObjectN.appendChild(createTextNode(mo.getUUID().toString()));
-							append(componentN, modelObjectN);
+			if (hasComponent(ventry.getValue())) {
+				if (viewsN==null) {
+					viewsN = createElement(N_DATA);
+					viewsN.setAttribute(A_KEY, C_KEY_NETEDITOR_VIEWS);
+					openElement(gmlN, viewsN);
+				}
+				Element viewN = createElement(N_NETEDITOR_VIEW);
+				viewN.setAttribute(A_ID, ventry.getKey().toString());
+				openElement(viewsN, viewN);
+				for(ViewComponent component : ventry.getValue()) {
+					if (!(component instanceof SubFigure)) {
+
+						Element componentN = createElement(N_NETEDITOR_VIEWCOMPONENT);
+						setType(componentN, component);
+						
+						if (component instanceof ModelObjectView<?>) {
+							ModelObjectView<?> mov = (ModelObjectView<?>) component;
+							ModelObject mo = mov.getModelObject();
+							if (mo!=null) {
+								Element modelObjectN = createElement(N_DATA);
+								modelObjectN.setAttribute(A_KEY, C_KEY_NETEDITOR_MODELID);
+								modelObjectN.appendChild(createTextNode(mo.getUUID().toString()));
+								append(componentN, modelObjectN);
+							}
 						}
-					}
-
-					setAttributes(A_ID, componentN, component);
 
-					if (component instanceof Figure) {
-						Figure figure = (Figure)component;
-						createSubFigures(
-								componentN,
-								component,
-								figure.getSubFigures());
-					}
+						setAttributes(A_ID, componentN, component);
+	
+						if (component instanceof Figure) {
+							Figure figure = (Figure)component;
+							createSubFigures(
+									componentN,
+									component,
+									figure.getSubFigures());
+						}
 
-					Map<String,CoercedFigure> coercedFigures = component.getAssociatedFiguresInView();
-					if (!coercedFigures.isEmpty()) {
-						Element coercedFiguresN = createElement(N_DATA);
-						coercedFiguresN.setAttribute(A_KEY, C_KEY_NETEDITOR_COERCEDFIGURES);
-						for(Entry<String,CoercedFigure> entry : coercedFigures.entrySet()) {
-							CoercedFigure coercedFigure = entry.getValue();
-							if (coercedFigure!=null) {
-								Element coercedFigureN = createElement(N_NETEDITOR_COERCEDFIGURE);
-								coercedFigureN.setAttribute(A_COERCEDID, entry.getKey());
-								coercedFigureN.setAttribute(A_ID, coercedFigure.getUUID().toString());
-								append(coercedFiguresN, coercedFigureN);
+						Map<String,CoercedFigure> coercedFigures = component.getAssociatedFiguresInView();
+						if (!coercedFigures.isEmpty()) {
+							Element coercedFiguresN = createElement(N_DATA);
+							coercedFiguresN.setAttribute(A_KEY, C_KEY_NETEDITOR_COERCEDFIGURES);
+							for(Entry<String,CoercedFigure> entry : coercedFigures.entrySet()) {
+								CoercedFigure coercedFigure = entry.getValue();
+								if (coercedFigure!=null) {
+									Element coercedFigureN = createElement(N_NETEDITOR_COERCEDFIGURE);
+									coercedFigureN.setAttribute(A_COERCEDID, entry.getKey());
+									coercedFigureN.setAttribute(A_ID, coercedFigure.getUUID().toString());
+									append(coercedFiguresN, coercedFigureN);
+								}
 							}
+							append(componentN, coercedFiguresN);
 						}
-						append(componentN, coercedFiguresN);
+						
+						output(viewN,componentN);
 					}
-					
-					append(viewN,componentN);
 				}
-			}
-			if (!isEmpty(viewN)) {
-				viewN.setAttribute(A_ID, ventry.getKey().toString());
-				viewsN.appendChild(viewN);
+				closeElement(viewN);
 			}
 			ProgressionUtil.advance(progression);
 		}
-		if (!isEmpty(viewsN)) {
-			viewsN.setAttribute(A_KEY, C_KEY_NETEDITOR_VIEWS);
-			gmlN.appendChild(viewsN);
+		if (viewsN!=null) {
+			closeElement(viewsN);
 		}
 		ProgressionUtil.end(progression);
 	}
 
+	/** Replies if the given components contain a component that
+	 * is not a subfigure.
+	 * 
+	 * @param components
+	 * @return <code>true</code> if a component is not a subfigure.
+	 */
+	private static boolean hasComponent(List<ViewComponent> components) {
+		for(ViewComponent component : components) {
+			if (!(component instanceof SubFigure)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/** Create the views for the subfigures.
 	 * 
 	 * @param elementN is the XML node that contains GraphML to set.
@@ -341,13 +499,13 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 
 	/** Generate the XML node for the graph.
 	 * 
+	 * @param gmlN is the XML node that contains GraphML.
 	 * @param graph is the graph to put inside.
 	 * @param progression notifies on the progression of the creation.
-	 * @return the XML node of the graph. 
 	 * @throws IOException
 	 */
-	private Element createGraph(Graph<?,?,?,?> graph, Progression progression) throws IOException {
-		if (graph==null) return null;
+	private void createGraph(Element gmlN, Graph<?,?,?,?> graph, Progression progression) throws IOException {
+		if (graph==null) return;
 		ProgressionUtil.init(progression, 0, 10+graph.getNodeCount()+graph.getEdgeCount());
 		extractViews(graph, this.viewObjects, this.outputFigures,
 				ProgressionUtil.sub(progression, 10));
@@ -355,6 +513,7 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 		setType(graphN, graph);
 		setAttributes(A_ID, graphN, graph);
 		graphN.setAttribute(A_EDGEDEFAULT, C_DIRECTED);
+		openElement(gmlN, graphN);
 		ProgressionUtil.ensureNoSubTask(progression);
 
 		for(org.arakhne.neteditor.formalism.Node<?,?,?,?> node : graph.getNodes()) {
@@ -366,9 +525,9 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 			createEdge(graphN, edge, ProgressionUtil.sub(progression, 1));
 		}
 		
-		ProgressionUtil.end(progression);
+		closeElement(graphN);
 
-		return graphN;
+		ProgressionUtil.end(progression);
 	}
 
 	/** Generate the XML node for the graph edge.
@@ -403,7 +562,7 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 			}
 		}
 
-		append(graphNode, edgeN);
+		output(graphNode, edgeN);
 	}
 
 	/** Generate the XML node for the graph node.
@@ -421,7 +580,6 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 		Element nodeN = createElement(N_NODE);
 		setType(nodeN, node);
 		setAttributes(A_ID, nodeN, node);
-		append(graphNode, nodeN);
 
 		ProgressionUtil.ensureNoSubTask(progression);
 
@@ -443,6 +601,8 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 			}
 		}
 		
+		output(graphNode, nodeN);
+		
 		ProgressionUtil.end(progression);
 	}
 
@@ -480,35 +640,8 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 			for(Entry<String,Object> attr : object.getProperties().entrySet()) {
 				Object value = attr.getValue();
 				if (value!=null) {
-					String id = null;
-					String type = null;
-					
-					if (isInteger(value)) {
-						id = C_KEY_ATTR_PREFIX+attr.getKey();
-						type = C_ATTR_TYPE_LONG;
-					}
-					else if (isFloat(value)) {
-						id = C_KEY_ATTR_PREFIX+attr.getKey();
-						type = C_ATTR_TYPE_DOUBLE;
-					}
-					else if (isBoolean(value)) {
-						id = C_KEY_ATTR_PREFIX+attr.getKey();
-						type = C_ATTR_TYPE_BOOLEAN;
-					}
-					else if (isString(value)) {
-						id = C_KEY_ATTR_PREFIX+attr.getKey();
-						type = C_ATTR_TYPE_STRING;
-					}
-					
-					if (id!=null && type!=null) {
-						if (!this.additionalKeys.containsKey(id)) {
-							Element keyN = createElement(N_KEY);
-							keyN.setAttribute(A_ID, id);
-							keyN.setAttribute(A_FOR, C_FOR_ALL);
-							keyN.setAttribute(A_ATTR_NAME, attr.getKey());
-							keyN.setAttribute(A_ATTR_TYPE, type);
-							this.additionalKeys.put(id, keyN);
-						}
+					String id = addKey(attr.getKey(), value);
+					if (id!=null) {
 						Element valueN = createElement(N_DATA);
 						valueN.setAttribute(A_KEY, id);
 						valueN.appendChild(createTextNode(value.toString()));
@@ -542,35 +675,8 @@ public class GraphMLWriter extends AbstractXMLWriter implements GraphMLConstants
 			for(Entry<String,Object> attr : object.getProperties().entrySet()) {
 				Object value = attr.getValue();
 				if (value!=null) {
-					String id = null;
-					String type = null;
-					
-					if (isInteger(value)) {
-						id = C_KEY_ATTR_PREFIX+attr.getKey();
-						type = C_ATTR_TYPE_LONG;
-					}
-					else if (isFloat(value)) {
-						id = C_KEY_ATTR_PREFIX+attr.getKey();
-						type = C_ATTR_TYPE_DOUBLE;
-					}
-					else if (isBoolean(value)) {
-						id = C_KEY_ATTR_PREFIX+attr.getKey();
-						type = C_ATTR_TYPE_BOOLEAN;
-					}
-					else if (isString(value)) {
-						id = C_KEY_ATTR_PREFIX+attr.getKey();
-						type = C_ATTR_TYPE_STRING;
-					}
-					
-					if (id!=null && type!=null) {
-						if (!this.additionalKeys.containsKey(id)) {
-							Element keyN = createElement(N_KEY);
-							keyN.setAttribute(A_ID, id);
-							keyN.setAttribute(A_FOR, C_FOR_ALL);
-							keyN.setAttribute(A_ATTR_NAME, attr.getKey());
-							keyN.setAttribute(A_ATTR_TYPE, type);
-							this.additionalKeys.put(id, keyN);
-						}
+					String id = addKey(attr.getKey(), value);
+					if (id!=null) {
 						Element valueN = createElement(N_DATA);
 						valueN.setAttribute(A_KEY, id);
 						valueN.appendChild(createTextNode(value.toString()));
@@ -139,10 +139,18 @@ public abstract class AbstractGraphMLReader extends AbstractXMLReader implements
 	protected final void extractKeys(Element root, Progression progression) throws IOException {
 		this.keys.clear();
 		for(Element keyN : elements(root, N_KEY, progression)) {
-			String id = keyN.getAttribute(A_ID);
-			if (id!=null && !id.isEmpty()) {
-				this.keys.put(id, keyN);
-			}
+			addKey(keyN);
+		}
+	}
+
+	/** Add a key in the collection of the keys extracted from the GraphML.
+	 * 
+	 * @param keyN is the element of the key.
+	 */
+	protected final void addKey(Element keyN) {
+		String id = keyN.getAttribute(A_ID);
+		if (id!=null && !id.isEmpty()) {
+			this.keys.put(id, keyN);
 		}
 	}
 	
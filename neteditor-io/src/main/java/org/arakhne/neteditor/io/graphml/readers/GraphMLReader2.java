@@ -27,6 +27,8 @@ import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.UUID;
 
+import javax.xml.stream.XMLStreamReader;
+
 import org.arakhne.afc.progress.Progression;
 import org.arakhne.afc.progress.ProgressionUtil;
 import org.arakhne.afc.util.Pair;
@@ -84,39 +86,10 @@ public class GraphMLReader2 extends AbstractGraphMLReader {
 				for(Element viewN : elements(dataN, N_NETEDITOR_VIEW, subTask)) {
 					UUID viewId = enforceUUID(viewN.getAttribute(A_ID));
 					
-					ViewDescription viewDescription = getViewDescription(viewId);
-					
 					int position = 0;
 					
 					for(Element componentN : elements(viewN, N_NETEDITOR_VIEWCOMPONENT, ProgressionUtil.sub(subTask, PROGRESS_STEP_SIZE_IN_ITERATOR))) {
-						UUID componentId = enforceUUID(componentN.getAttribute(A_ID));
-						
-						Figure figure = createFigureInstance(Figure.class, componentN, viewId);
-						
-						extractAttributes(figure, componentN, null);
-						figure.setUUID(componentId);
-						figure.setViewUUID(viewId);
-						
-						Element modelIdNode = extractData(componentN, C_KEY_NETEDITOR_MODELID);
-						UUID modelId = null;
-						if (modelIdNode!=null) {
-							try {
-								modelId = UUID.fromString(modelIdNode.getTextContent());
-							}
-							catch(Throwable _) {
-								//
-							}
-						}
-						
-						viewDescription.addViewComponent(componentId, figure, position);
-						if (modelId!=null) {
-							viewDescription.addModelObject(componentId, modelId);
-						}
-						
-						extractSubFigures(componentN, figure, componentId, viewId, position, null);
-						
-						extractCoercedFigures(componentN, componentId, viewId);
-						
+						extractViewComponent(componentN, viewId, position);
 						++position;
 					}
 				}
@@ -124,6 +97,46 @@ public class GraphMLReader2 extends AbstractGraphMLReader {
 		}
 	}
 
+	/** Extract a view component, its subfigures and its coercions,
+	 * and put them in the description of the view.
+	 * 
+	 * @param componentN is the GraphML node to read.
+	 * @param viewId is the id of the view.
+	 * @param position is the position of the component in the view.
+	 * @throws IOException
+	 */
+	private void extractViewComponent(Element componentN, UUID viewId, int position) throws IOException {
+		ViewDescription viewDescription = getViewDescription(viewId);
+
+		UUID componentId = enforceUUID(componentN.getAttribute(A_ID));
+
+		Figure figure = createFigureInstance(Figure.class, componentN, viewId);
+
+		extractAttributes(figure, componentN, null);
+		figure.setUUID(componentId);
+		figure.setViewUUID(viewId);
+
+		Element modelIdNode = extractData(componentN, C_KEY_NETEDITOR_MODELID);
+		UUID modelId = null;
+		if (modelIdNode!=null) {
+			try {
+				modelId = UUID.fromString(modelIdNode.getTextContent());
+			}
+			catch(Throwable _) {
+				//
+			}
+		}
+
+		viewDescription.addViewComponent(componentId, figure, position);
+		if (modelId!=null) {
+			viewDescription.addModelObject(componentId, modelId);
+		}
+
+		extractSubFigures(componentN, figure, componentId, viewId, position, null);
+
+		extractCoercedFigures(componentN, componentId, viewId);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -161,6 +174,123 @@ public class GraphMLReader2 extends AbstractGraphMLReader {
 		}
 	}
 		
+	/** {@inheritDoc}
+	 * <p>
+	 * The model objects and the figures are created while their
+	 * elements are read. The DOM tree is never built: only the keys
+	 * and the elements of one model object or one figure are in memory
+	 * at the same time. The keys must be defined before the elements
+	 * that are using them, as required by GraphML.
+	 */
+	@Override
+	protected Graph<?,?,?,?> extractGraphFromStream(Progression progression) throws IOException {
+		try {
+			XMLStreamReader stream = stream();
+			if (!N_GRAPHML.equals(getElementName(stream))) throw new GraphMLException();
+
+			Graph<?,?,?,?> graph = null;
+
+			while (nextElement(stream)) {
+				String name = getElementName(stream);
+				if (N_KEY.equals(name)) {
+					addKey(readElement());
+				}
+				else if (N_GRAPH.equals(name) && graph==null) {
+					graph = readGraphElement();
+				}
+				else if (N_DATA.equals(name)
+						&& C_KEY_NETEDITOR_VIEWS.equals(getAttribute(stream, A_KEY))) {
+					readViews();
+				}
+				else {
+					skipElement(stream);
+				}
+			}
+
+			bindModelAndViews(graph, progression);
+
+			return graph;
+		}
+		finally {
+			clearKeys();
+		}
+	}
+
+	/** Read the views in the data element on which the stream is positioned.
+	 * The view components are put in the view descriptions while they are read.
+	 * 
+	 * @throws IOException
+	 */
+	private void readViews() throws IOException {
+		XMLStreamReader stream = stream();
+		while (nextElement(stream)) {
+			if (N_NETEDITOR_VIEW.equals(getElementName(stream))) {
+				UUID viewId = enforceUUID(getAttribute(stream, A_ID));
+				int position = 0;
+				while (nextElement(stream)) {
+					if (N_NETEDITOR_VIEWCOMPONENT.equals(getElementName(stream))) {
+						extractViewComponent(readElement(), viewId, position);
+						++position;
+					}
+					else {
+						skipElement(stream);
+					}
+				}
+			}
+			else {
+				skipElement(stream);
+			}
+		}
+	}
+
+	/** Read the graph element on which the stream is positioned.
+	 * <p>
+	 * The type of the graph element is known when its first node
+	 * or edge is reached. The model objects are linked at the end
+	 * of the graph element.
+	 * 
+	 * @return the graph model, or <code>null</code> if the graph element
+	 * is not describing a graph model.
+	 * @throws IOException
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private Graph<?,?,?,?> readGraphElement() throws IOException {
+		XMLStreamReader stream = stream();
+		Element graphN = readStartElement();
+		ModelContent content = null;
+
+		while (nextElement(stream)) {
+			String name = getElementName(stream);
+			if (N_NODE.equals(name) || N_EDGE.equals(name)) {
+				if (content==null) {
+					if (!isGraphModel(graphN)) {
+						skipElement(stream);
+						while (nextElement(stream)) {
+							skipElement(stream);
+						}
+						return null;
+					}
+					content = new ModelContent();
+				}
+				extractGraphModelElement(readElement(), content, null);
+			}
+			else {
+				graphN.appendChild(readElement());
+			}
+		}
+
+		if (content==null) {
+			if (!isGraphModel(graphN)) return null;
+			content = new ModelContent();
+		}
+
+		Graph g = createInstance(Graph.class, graphN);
+		extractAttributes(g, graphN, null);
+		g.setUUID(enforceUUID(graphN.getAttribute(A_ID)));
+		linkGraphModel(g, content, null);
+		return g;
+	}
+
 	/** Create the instance of a node from the GraphML.
 	 * 
 	 * @param nodeNode is the GraphML node to read.
@@ -330,53 +460,75 @@ public class GraphMLReader2 extends AbstractGraphMLReader {
 		extractAttributes(g, graphNode, ProgressionUtil.sub(progression, children.getLength()));
 		g.setUUID(enforceUUID(graphNode.getAttribute(A_ID)));
 
-		Map<UUID,org.arakhne.neteditor.formalism.Node<?,?,?,?>> nodes = new TreeMap<UUID,org.arakhne.neteditor.formalism.Node<?,?,?,?>>();
-		Map<UUID,Anchor<?,?,?,?>> anchors = new TreeMap<UUID,Anchor<?,?,?,?>>();
-		Map<UUID,Edge<?,?,?,?>> edges = new TreeMap<UUID,Edge<?,?,?,?>>();
-		Map<UUID,UUID> anchorLinks = new TreeMap<UUID,UUID>();
-		Map<UUID,Pair<UUID,UUID>> edgeLinks = new TreeMap<UUID,Pair<UUID,UUID>>();
+		ModelContent content = new ModelContent();
 
 		Progression subTask = ProgressionUtil.sub(progression, children.getLength());
 		for(int i=0; i<children.getLength(); ++i) {
 			ProgressionUtil.setValue(subTask, i);
 			Node node = children.item(i);
 			if (node instanceof Element) {
-				Element element = (Element)node;
-				if (N_NODE.equals(element.getNodeName())) {
-					Class<?> nodeType = extractTypeClass(element);
-					if (org.arakhne.neteditor.formalism.Node.class.isAssignableFrom(nodeType)) {
-						extractNode(element, nodes, anchors, anchorLinks, ProgressionUtil.sub(subTask, 1));
-					}
-					else {
-						throw new GraphMLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
-					}
-				}
-				else if (N_EDGE.equals(element.getNodeName())) {
-					Class<?> edgeType = extractTypeClass(element);
-					if (Edge.class.isAssignableFrom(edgeType)) {
-						extractEdge(element, edges, edgeLinks, ProgressionUtil.sub(subTask, 1));
-					}
-					else {
-						throw new GraphMLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
-					}
-				}
+				extractGraphModelElement((Element)node, content, subTask);
 			}
 		}
 
-		// Link the model objects
-		subTask = ProgressionUtil.sub(progression, children.getLength());
+		linkGraphModel(g, content, ProgressionUtil.sub(progression, children.getLength()));
+
+		ProgressionUtil.end(progression);
+		
+		return g;
+	}
+
+	/** Extract a node or an edge of a graph model.
+	 * 
+	 * @param element is the element to read.
+	 * @param content is the content of the graph model to fill.
+	 * @param progression is the progression indicator.
+	 * @throws IOException
+	 */
+	private void extractGraphModelElement(Element element, ModelContent content, Progression progression) throws IOException {
+		if (N_NODE.equals(element.getNodeName())) {
+			Class<?> nodeType = extractTypeClass(element);
+			if (org.arakhne.neteditor.formalism.Node.class.isAssignableFrom(nodeType)) {
+				extractNode(element, content.nodes, content.anchors, content.anchorLinks, ProgressionUtil.sub(progression, 1));
+			}
+			else {
+				throw new GraphMLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
+			}
+		}
+		else if (N_EDGE.equals(element.getNodeName())) {
+			Class<?> edgeType = extractTypeClass(element);
+			if (Edge.class.isAssignableFrom(edgeType)) {
+				extractEdge(element, content.edges, content.edgeLinks, ProgressionUtil.sub(progression, 1));
+			}
+			else {
+				throw new GraphMLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
+			}
+		}
+	}
 
-		for(org.arakhne.neteditor.formalism.Node node : nodes.values()) {
+	/** Link the model objects of a graph model, and add them in the graph.
+	 * 
+	 * @param g is the graph to fill.
+	 * @param content is the content of the graph model.
+	 * @param progression is the progression indicator.
+	 * @throws IOException
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void linkGraphModel(Graph g, ModelContent content, Progression progression) throws IOException {
+		ProgressionUtil.init(progression, 0, content.anchorLinks.size()+content.edgeLinks.size());
+
+		// Link the model objects
+		for(org.arakhne.neteditor.formalism.Node node : content.nodes.values()) {
 			g.addNode(node);
 			node.removeAllAnchors(); // Be sure that the model contains only the anchors below
 		}
 
-		for(Entry<UUID,UUID> entry : anchorLinks.entrySet()) {
+		for(Entry<UUID,UUID> entry : content.anchorLinks.entrySet()) {
 			UUID anchorId = entry.getKey();
 			UUID nodeId = entry.getValue();
-			org.arakhne.neteditor.formalism.Node node = nodes.get(nodeId);
+			org.arakhne.neteditor.formalism.Node node = content.nodes.get(nodeId);
 			if (node!=null) {
-				Anchor anchor = anchors.get(anchorId);
+				Anchor anchor = content.anchors.get(anchorId);
 				if (anchor!=null) {
 					node.addAnchor(anchor);
 				}
@@ -387,34 +539,34 @@ public class GraphMLReader2 extends AbstractGraphMLReader {
 			else {
 				throw new GraphMLException(Locale.getString("NODE_NOT_FOUND", nodeId)); //$NON-NLS-1$
 			}
-			ProgressionUtil.advance(subTask);
+			ProgressionUtil.advance(progression);
 		}
 
-		for(Edge edge : edges.values()) {
+		for(Edge edge : content.edges.values()) {
 			g.addEdge(edge);
 		}
 
-		for(Entry<UUID,Pair<UUID,UUID>> entry : edgeLinks.entrySet()) {
+		for(Entry<UUID,Pair<UUID,UUID>> entry : content.edgeLinks.entrySet()) {
 			UUID edgeId = entry.getKey();
 			UUID startId = entry.getValue().getA();
 			UUID endId = entry.getValue().getB();
-			Anchor start = anchors.get(startId);
+			Anchor start = content.anchors.get(startId);
 			if (start==null) {
-				org.arakhne.neteditor.formalism.Node<?,?,?,?> node = nodes.get(startId);
+				org.arakhne.neteditor.formalism.Node<?,?,?,?> node = content.nodes.get(startId);
 				if (node!=null && node.hasAnchor()) {
 					start = node.getAnchors().get(0);
 				}
 			}
 			if (start!=null) {
-				Anchor end = anchors.get(endId);
+				Anchor end = content.anchors.get(endId);
 				if (end==null) {
-					org.arakhne.neteditor.formalism.Node<?,?,?,?> node = nodes.get(endId);
+					org.arakhne.neteditor.formalism.Node<?,?,?,?> node = content.nodes.get(endId);
 					if (node!=null && node.hasAnchor()) {
 						end = node.getAnchors().get(0);
 					}
 				}
 				if (end!=null) {
-					Edge edge = edges.get(edgeId);
+					Edge edge = content.edges.get(edgeId);
 					if (edge!=null) {
 						edge.setStartAnchor(start);
 						edge.setEndAnchor(end);
@@ -430,12 +582,37 @@ public class GraphMLReader2 extends AbstractGraphMLReader {
 			else {
 				throw new GraphMLException(Locale.getString("ANCHOR_NOT_FOUND", startId)); //$NON-NLS-1$
 			}
-			ProgressionUtil.advance(subTask);
+			ProgressionUtil.advance(progression);
 		}
 
 		ProgressionUtil.end(progression);
-		
-		return g;
+	}
+
+	/** Model objects that are extracted from a graph model, and
+	 * the links between them. The model objects are linked when
+	 * all the elements of the graph model were read, because the
+	 * edges may reference nodes that are not yet read.
+	 *
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 18.0
+	 */
+	private static class ModelContent {
+
+		public final Map<UUID,org.arakhne.neteditor.formalism.Node<?,?,?,?>> nodes = new TreeMap<UUID,org.arakhne.neteditor.formalism.Node<?,?,?,?>>();
+		public final Map<UUID,Anchor<?,?,?,?>> anchors = new TreeMap<UUID,Anchor<?,?,?,?>>();
+		public final Map<UUID,Edge<?,?,?,?>> edges = new TreeMap<UUID,Edge<?,?,?,?>>();
+		public final Map<UUID,UUID> anchorLinks = new TreeMap<UUID,UUID>();
+		public final Map<UUID,Pair<UUID,UUID>> edgeLinks = new TreeMap<UUID,Pair<UUID,UUID>>();
+
+		/**
+		 */
+		public ModelContent() {
+			//
+		}
+
 	}
 
 }
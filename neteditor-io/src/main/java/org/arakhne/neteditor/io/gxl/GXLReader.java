@@ -34,6 +34,8 @@ import java.util.UUID;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.arakhne.afc.progress.ProgressionInputStream;
 import org.arakhne.afc.progress.ProgressionUtil;
@@ -60,6 +62,8 @@ import org.xml.sax.SAXException;
  *  given by a XML DTD (Document Type Definition). This exchange format 
  *  offers an adaptable and flexible means to support interoperability 
  *  between graph-based tools.
+ *  <p>
+ *  The document may be read with a StAX stream, see {@link #setStreaming(boolean)}.
  *
  * @author $Author: galland$
  * @version $FullVersion$
@@ -87,6 +91,7 @@ public class GXLReader extends AbstractXMLToolReader implements GXLConstants {
 
 	private boolean isDtdValidation = true;
 	private boolean connectFigures = true;
+	private boolean isStreaming = false;
 
 	/**
 	 */
@@ -134,6 +139,31 @@ public class GXLReader extends AbstractXMLToolReader implements GXLConstants {
 		return this.isDtdValidation;
 	}
 
+	/**
+	 * Set the flag that permits to read the document with
+	 * a StAX stream instead of building its DOM tree.
+	 * <p>
+	 * When streaming, the model objects and the figures are created
+	 * while the document is read; so that the memory usage is
+	 * proportional to the size of the graph, not to the size of the
+	 * document. The DTD is not validated when streaming.
+	 * 
+	 * @param streaming indicates if the document should be streamed.
+	 */
+	public void setStreaming(boolean streaming) {
+		this.isStreaming = streaming;
+	}
+
+	/**
+	 * Replies if the document is read with a StAX stream instead
+	 * of building its DOM tree.
+	 * 
+	 * @return <code>true</code> if the document is streamed; otherwise <code>false</code>.
+	 */
+	public boolean isStreaming() {
+		return this.isStreaming;
+	}
+
 	/** {@inheritDoc}
 	 */
 	@Override
@@ -173,6 +203,9 @@ public class GXLReader extends AbstractXMLToolReader implements GXLConstants {
 	@Override
 	public <G extends Graph<?, ?, ?, ?>> G read(Class<G> type, InputStream is,
 			Map<UUID, List<ViewComponent>> figures) throws IOException {
+		if (isStreaming()) {
+			return readStream(type, is, figures);
+		}
 		ProgressionUtil.init(getProgression(), 0, 100000);
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 		
@@ -219,6 +252,49 @@ public class GXLReader extends AbstractXMLToolReader implements GXLConstants {
 		}
 	}
 
+	/** Read the graph with a StAX stream.
+	 * 
+	 * @param type is the type of the graph to read.
+	 * @param is is the stream to read.
+	 * @param figures are the figures extracted from the file from the front to the background.
+	 * @return the graph.
+	 * @throws IOException
+	 */
+	@SuppressWarnings("resource")
+	private <G extends Graph<?, ?, ?, ?>> G readStream(Class<G> type, InputStream is,
+			Map<UUID, List<ViewComponent>> figures) throws IOException {
+		ProgressionUtil.init(getProgression(), 0, 100000);
+		XMLStreamReader stream = createStreamReader(
+				new ProgressionInputStream(is, ProgressionUtil.sub(getProgression(), 95000)),
+				getPublicDTD(), getSystemDTD());
+		try {
+			if (!N_GXL.equals(getElementName(stream))) {
+				throw new GXLException(Locale.getString("UNSUPPORTED_XML_NODE", getElementName(stream))); //$NON-NLS-1$
+			}
+			String spec = getAttribute(stream, A_SPECIFICATION_VERSION);
+			
+			AbstractGXLReader reader = AbstractGXLReader.createGXLReader(spec);
+			reader.setDTDValidation(false);
+			reader.setFigureConnection(isFigureConnection());
+			reader.setResourceRepository(getResourceRepository());
+
+			// The reading progression is notified by the input stream
+			G g = reader.readGraph(type, stream, figures, null);
+
+			ProgressionUtil.end(getProgression());
+
+			return g;
+		}
+		finally {
+			try {
+				stream.close();
+			}
+			catch (XMLStreamException e) {
+				//
+			}
+		}
+	}
+
 	@Override
 	protected String extractType(Element node) throws IOException {
 		Element typeN = extractNode(node, N_TYPE);
@@ -99,12 +99,43 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 	 */
 	@Override
 	protected Element createGraphDOM(Map<UUID, ? extends Graph<?,?,?,?>> graphs,  Collection<? extends Figure> figures, Progression progression) throws IOException {
-		ProgressionUtil.init(progression, 0, figures.size()*2+graphs.size()+50);
-		
+		Element gxlN = createGXL();
+		createContent(gxlN, graphs, figures, progression);
+		return gxlN;
+	}
+	
+	/** {@inheritDoc}
+	 */
+	@Override
+	protected void writeGraphStream(Map<UUID, ? extends Graph<?,?,?,?>> graphs,  Collection<? extends Figure> figures, Progression progression) throws IOException {
+		Element gxlN = createGXL();
+		writeStartElement(gxlN);
+		createContent(gxlN, graphs, figures, progression);
+		writeEndElement();
+	}
+	
+	/** Create the root element of the document.
+	 * 
+	 * @return the root element.
+	 */
+	private Element createGXL() {
 		Element gxlN = createElement(N_GXL);
 		gxlN.setAttribute(A_XMLNS_XLINK, C_XLINK_NS_URI);
 		gxlN.setAttribute(A_XMLNS_NETEDITOR, C_NETEDITOR_NS_URI);
 		gxlN.setAttribute(A_SPECIFICATION_VERSION, SPECIFICATION_VERSION);
+		return gxlN;
+	}
+	
+	/** Create the graphs and the views inside the root element.
+	 * 
+	 * @param gxlN is the XML node that contains GXL.
+	 * @param graphs are the graphs to output.
+	 * @param figures are the figures to output.
+	 * @param progression notifies on the progression of the creation.
+	 * @throws IOException
+	 */
+	private void createContent(Element gxlN, Map<UUID, ? extends Graph<?,?,?,?>> graphs,  Collection<? extends Figure> figures, Progression progression) throws IOException {
+		ProgressionUtil.init(progression, 0, figures.size()*2+graphs.size()+50);
 		
 		this.viewObjects.clear();
 		this.outputFigures.clear();
@@ -116,8 +147,7 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 		try {
 			// Put the raw description of the graphs
 			for(Graph<?,?,?,?> graph : graphs.values()) {
-				Element graphN = createGraph(graph, ProgressionUtil.sub(progression, 1));
-				append(gxlN, graphN);
+				createGraph(gxlN, graph, ProgressionUtil.sub(progression, 1));
 			}
 			
 			if (!this.outputFigures.isEmpty()) {
@@ -131,8 +161,6 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 			this.outputFigures.clear();
 			this.viewObjects.clear();
 		}
-		
-		return gxlN;
 	}
 	
 	/** Create the views.
@@ -154,12 +182,13 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 			typeN.setAttribute(A_XLINK_HREF, C_INTERNAL_VIEW_TYPE);
 			typeN.setAttribute(A_XLINK_TYPE, C_XLINK_SIMPLE);
 			append(viewN, typeN);
+			openElement(gxlN, viewN);
 			
 			for(ViewComponent view : entry.getValue()) {
 				Element figureN = createElement(N_NODE);
 				setType(figureN, view);
 				setAttributes(figureN, view);
-				append(viewN, figureN);
+				output(viewN, figureN);
 			
 				if (view instanceof ModelObjectView<?>) {
 					ModelObjectView<?> figure = (ModelObjectView<?>)view;
@@ -189,7 +218,7 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 						Element subfigureN = createElement(N_NODE);
 						setType(subfigureN, subfigure);
 						setAttributes(subfigureN, subfigure);
-						append(viewN, subfigureN);
+						output(viewN, subfigureN);
 						
 						if (subfigure instanceof ModelObjectView<?>) {
 							ModelObjectView<?> ofigure = (ModelObjectView<?>)subfigure;
@@ -242,10 +271,10 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 			}
 			
 			for(Element xmlNode : relations) {
-				append(viewN, xmlNode);
+				output(viewN, xmlNode);
 			}
 			
-			append(gxlN, viewN);
+			closeElement(viewN);
 
 			ProgressionUtil.advance(progression);
 		}
@@ -255,13 +284,13 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 
 	/** Generate the XML node for the graph.
 	 * 
+	 * @param gxlN is the XML node that contains GXL.
 	 * @param graph is the graph to put inside.
 	 * @param progression notifies on the progression of the creation.
-	 * @return the XML node of the graph. 
 	 * @throws IOException
 	 */
-	private Element createGraph(Graph<?,?,?,?> graph, Progression progression) throws IOException {
-		if (graph==null) return null;
+	private void createGraph(Element gxlN, Graph<?,?,?,?> graph, Progression progression) throws IOException {
+		if (graph==null) return;
 		ProgressionUtil.init(progression, 0, 10+graph.getNodeCount()+graph.getEdgeCount());
 		extractViews(graph, this.viewObjects, this.outputFigures,
 				ProgressionUtil.sub(progression, 10));
@@ -270,6 +299,7 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 		setAttributes(graphN, graph);
 		graphN.setAttribute(A_EDGEIDS, Boolean.TRUE.toString());
 		graphN.setAttribute(A_EDGEMODE, C_GXL_EDGE_DEFAULTDIRECTED);
+		openElement(gxlN, graphN);
 		ProgressionUtil.ensureNoSubTask(progression);
 		
 		for(org.arakhne.neteditor.formalism.Node<?,?,?,?> node : graph.getNodes()) {
@@ -280,9 +310,9 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 			createEdge(graphN, edge, ProgressionUtil.sub(progression, 1));
 		}
 		
+		closeElement(graphN);
+		
 		ProgressionUtil.end(progression);
-
-		return graphN;
 	}
 	
 	/** Generate the XML node for the graph node.
@@ -302,7 +332,7 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 		setAttributes(nodeN, node);
 		Element attrN = createAttribute(C_ATTR_LABEL, node.getExternalLabel());
 		append(nodeN, attrN);
-		append(graphNode, nodeN);
+		output(graphNode, nodeN);
 		
 		ProgressionUtil.ensureNoSubTask(progression);
 		
@@ -332,7 +362,7 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 		Element anchorN = createElement(N_NODE);
 		setType(anchorN, anchor);
 		setAttributes(anchorN, anchor);
-		append(graphNode, anchorN);
+		output(graphNode, anchorN);
 		
 		Element anchorLinkN = createElement(N_REL);
 		anchorLinkN.setAttribute(A_ISDIRECTED, Boolean.FALSE.toString());
@@ -348,7 +378,7 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 		anchorLinkEdgeN.setAttribute(A_IDREF, anchor.getUUID().toString());
 		anchorLinkEdgeN.setAttribute(A_DIRECTION, C_GXL_REL_OUT);
 		append(anchorLinkN, anchorLinkEdgeN);
-		append(graphNode, anchorLinkN);
+		output(graphNode, anchorLinkN);
 	}
 
 	/** Generate the XML node for the graph edge.
@@ -377,7 +407,7 @@ public class GXLWriter extends AbstractXMLWriter implements GXLConstants {
 		}
 		edgeN.setAttribute(A_ISDIRECTED, Boolean.TRUE.toString());
 		
-		append(graphNode, edgeN);
+		output(graphNode, edgeN);
 	}
 	
 	/** Add the attributes of the specified object into the specified XML node.
@@ -29,6 +29,8 @@ import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.UUID;
 
+import javax.xml.stream.XMLStreamReader;
+
 import org.arakhne.afc.progress.Progression;
 import org.arakhne.afc.progress.ProgressionUtil;
 import org.arakhne.afc.util.Pair;
@@ -98,6 +100,107 @@ public class GXLReader2 extends AbstractGXLReader {
 		return graph;
 	}
 
+	/** {@inheritDoc}
+	 * <p>
+	 * The model objects and the figures are created while their
+	 * elements are read. The DOM tree is never built: only the
+	 * elements of one model object or one figure are in memory
+	 * at the same time.
+	 */
+	@Override
+	protected Graph<?,?,?,?> extractGraphFromStream(Progression progression) throws IOException {
+		XMLStreamReader stream = stream();
+		if (!N_GXL.equals(getElementName(stream))) throw new GXLException();
+		Graph<?,?,?,?> graph = null;
+
+		while (nextElement(stream)) {
+			if (N_GRAPH.equals(getElementName(stream))) {
+				Graph<?,?,?,?> g = readGraphElement();
+				if (g!=null) {
+					if (graph!=null) throw new GXLException("TOO_MANY_GRAPHS_IN_GXL"); //$NON-NLS-1$
+					graph = g;
+				}
+			}
+			else {
+				skipElement(stream);
+			}
+		}
+
+		bindModelAndViews(graph, progression);
+
+		return graph;
+	}
+
+	/** Read the graph element on which the stream is positioned.
+	 * <p>
+	 * The type of the graph element is known when its first node, edge
+	 * or relation is reached. The figures are put in the view description
+	 * while they are read; and the model objects are linked at the end
+	 * of the graph element.
+	 *  
+	 * @return the graph model, or <code>null</code> if the graph element
+	 * is not describing a graph model.
+	 * @throws IOException
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Graph<?,?,?,?> readGraphElement() throws IOException {
+		XMLStreamReader stream = stream();
+		Element graphN = readStartElement();
+		ModelContent content = null;
+		UUID viewID = null;
+		int i = 0;
+
+		while (nextElement(stream)) {
+			String name = getElementName(stream);
+			if (N_NODE.equals(name) || N_EDGE.equals(name) || N_REL.equals(name)) {
+				if (content==null && viewID==null) {
+					if (isGraphModel(graphN)) {
+						content = new ModelContent();
+					}
+					else if (isFigureModel(graphN)) {
+						viewID = enforceUUID(graphN.getAttribute(A_ID));
+					}
+					else {
+						skipElement(stream);
+						while (nextElement(stream)) {
+							skipElement(stream);
+						}
+						return null;
+					}
+				}
+				if (content!=null) {
+					extractGraphModelElement(readElement(), content, null);
+				}
+				else if (N_NODE.equals(name)) {
+					if (extractFigure(readElement(), viewID, i)) ++i;
+				}
+				else if (N_REL.equals(name)) {
+					extractFigureRelation(readElement(), viewID);
+				}
+				else {
+					skipElement(stream);
+				}
+			}
+			else {
+				graphN.appendChild(readElement());
+			}
+		}
+
+		if (content==null && viewID==null && isGraphModel(graphN)) {
+			content = new ModelContent();
+		}
+
+		if (content!=null) {
+			Graph g = createInstance(Graph.class, graphN);
+			extractAttributes(g, graphN, null);
+			g.setUUID(enforceUUID(graphN.getAttribute(A_ID)));
+			linkGraphModel(g, content, null);
+			return g;
+		}
+
+		return null;
+	}
+
 	/** Extract a figure and put it and its binding in the specified map.
 	 *  
 	 * @param node
@@ -112,55 +215,79 @@ public class GXLReader2 extends AbstractGXLReader {
 		int i=0; 
 		for(Element element : elements(node, N_NODE,
 				ProgressionUtil.sub(progression, childCount))) {
-			ViewComponent component = createFigureInstance(ViewComponent.class, element, viewID);
-			extractAttributes(component, element, null);
-			component.setUUID(enforceUUID(element.getAttribute(A_ID)));
-			getViewDescription(viewID).addViewComponent(component.getUUID(), component, i);
-			if (component instanceof Figure) ++i;
+			if (extractFigure(element, viewID, i)) ++i;
 		}
 
 		for(Element element : elements(node, N_REL,
 				ProgressionUtil.sub(progression, childCount))) {
-			String internalType = extractInternalType(element);
+			extractFigureRelation(element, viewID);
+		}
+		ProgressionUtil.end(progression);
+	}
 
-			if (C_INTERNAL_COERCION_RELATION_TYPE.equals(internalType)) {
-				String name = extractAttribute(String.class, element, "name", null); //$NON-NLS-1$
-				if (name==null || name.isEmpty()) throw new GXLException();
-				UUID coercedFigureId = null;
-				UUID coerciveFigureId = null;
-				Iterator<Element> elementIterator = elementIterator(element, N_RELEND);
-				while ((coercedFigureId==null || coerciveFigureId==null) && elementIterator.hasNext()) {
-					Element relEndN = elementIterator.next();
-					if (C_GXL_REL_IN.equals(relEndN.getAttribute(A_DIRECTION))) {
-						coerciveFigureId = parseUUID(relEndN.getAttribute(A_IDREF));
-					}
-					else if (C_GXL_REL_OUT.equals(relEndN.getAttribute(A_DIRECTION))) {
-						coercedFigureId = parseUUID(relEndN.getAttribute(A_IDREF));
-					}
+	/** Extract a view component and put it in the description of its view.
+	 *  
+	 * @param element is the node of the view component.
+	 * @param viewID is the identifier of the view.
+	 * @param position is the position of the figure in the view.
+	 * @return <code>true</code> if the view component is a figure;
+	 * <code>false</code> otherwise.
+	 * @throws IOException
+	 */
+	private boolean extractFigure(Element element, UUID viewID, int position) throws IOException {
+		ViewComponent component = createFigureInstance(ViewComponent.class, element, viewID);
+		extractAttributes(component, element, null);
+		component.setUUID(enforceUUID(element.getAttribute(A_ID)));
+		getViewDescription(viewID).addViewComponent(component.getUUID(), component, position);
+		return component instanceof Figure;
+	}
+
+	/** Extract a relation between a figure and another object, and
+	 * put it in the description of the view.
+	 *  
+	 * @param element is the node of the relation.
+	 * @param viewID is the identifier of the view.
+	 * @throws IOException
+	 */
+	private void extractFigureRelation(Element element, UUID viewID) throws IOException {
+		String internalType = extractInternalType(element);
+
+		if (C_INTERNAL_COERCION_RELATION_TYPE.equals(internalType)) {
+			String name = extractAttribute(String.class, element, "name", null); //$NON-NLS-1$
+			if (name==null || name.isEmpty()) throw new GXLException();
+			UUID coercedFigureId = null;
+			UUID coerciveFigureId = null;
+			Iterator<Element> elementIterator = elementIterator(element, N_RELEND);
+			while ((coercedFigureId==null || coerciveFigureId==null) && elementIterator.hasNext()) {
+				Element relEndN = elementIterator.next();
+				if (C_GXL_REL_IN.equals(relEndN.getAttribute(A_DIRECTION))) {
+					coerciveFigureId = parseUUID(relEndN.getAttribute(A_IDREF));
 				}
-				if (coercedFigureId!=null && coerciveFigureId!=null) {
-					getViewDescription(viewID).coerceFigure(coerciveFigureId, coercedFigureId, name);
+				else if (C_GXL_REL_OUT.equals(relEndN.getAttribute(A_DIRECTION))) {
+					coercedFigureId = parseUUID(relEndN.getAttribute(A_IDREF));
 				}
 			}
-			else if (C_INTERNAL_VIEW_RELATION_TYPE.equals(internalType)) {
-				UUID figureId = null;
-				UUID modelObjectId = null;
-				Iterator<Element> elementIterator = elementIterator(element, N_RELEND);
-				while ((figureId==null || modelObjectId==null) && elementIterator.hasNext()) {
-					Element relEndN = elementIterator.next();
-					if (C_GXL_REL_IN.equals(relEndN.getAttribute(A_DIRECTION))) {
-						figureId = parseUUID(relEndN.getAttribute(A_IDREF));
-					}
-					else if (C_GXL_REL_OUT.equals(relEndN.getAttribute(A_DIRECTION))) {
-						modelObjectId = parseUUID(relEndN.getAttribute(A_IDREF));
-					}
+			if (coercedFigureId!=null && coerciveFigureId!=null) {
+				getViewDescription(viewID).coerceFigure(coerciveFigureId, coercedFigureId, name);
+			}
+		}
+		else if (C_INTERNAL_VIEW_RELATION_TYPE.equals(internalType)) {
+			UUID figureId = null;
+			UUID modelObjectId = null;
+			Iterator<Element> elementIterator = elementIterator(element, N_RELEND);
+			while ((figureId==null || modelObjectId==null) && elementIterator.hasNext()) {
+				Element relEndN = elementIterator.next();
+				if (C_GXL_REL_IN.equals(relEndN.getAttribute(A_DIRECTION))) {
+					figureId = parseUUID(relEndN.getAttribute(A_IDREF));
 				}
-				if (figureId!=null && modelObjectId!=null) {
-					getViewDescription(viewID).addModelObject(figureId, modelObjectId);
+				else if (C_GXL_REL_OUT.equals(relEndN.getAttribute(A_DIRECTION))) {
+					modelObjectId = parseUUID(relEndN.getAttribute(A_IDREF));
 				}
 			}
+			if (figureId!=null && modelObjectId!=null) {
+				getViewDescription(viewID).addModelObject(figureId, modelObjectId);
+			}
 		}
-		ProgressionUtil.end(progression);
 	}
 
 	/** Extract a graph model from the specified node.
@@ -179,11 +306,7 @@ public class GXLReader2 extends AbstractGXLReader {
 		extractAttributes(g, graphNode, ProgressionUtil.sub(progression, 100));
 		g.setUUID(enforceUUID(graphNode.getAttribute(A_ID)));
 
-		Map<UUID,org.arakhne.neteditor.formalism.Node<?,?,?,?>> nodes = new TreeMap<UUID,org.arakhne.neteditor.formalism.Node<?,?,?,?>>();
-		Map<UUID,Anchor<?,?,?,?>> anchors = new TreeMap<UUID,Anchor<?,?,?,?>>();
-		Map<UUID,Edge<?,?,?,?>> edges = new TreeMap<UUID,Edge<?,?,?,?>>();
-		Map<UUID,UUID> anchorLinks = new TreeMap<UUID,UUID>();
-		Map<UUID,Pair<UUID,UUID>> edgeLinks = new TreeMap<UUID,Pair<UUID,UUID>>();
+		ModelContent content = new ModelContent();
 
 		ProgressionUtil.ensureNoSubTask(progression);
 		
@@ -191,72 +314,96 @@ public class GXLReader2 extends AbstractGXLReader {
 			ProgressionUtil.setValue(progression, i*PROGRESS_STEP_SIZE_IN_ITERATOR);
 			Node node = children.item(i);
 			if (node instanceof Element) {
-				Element element = (Element)node;
-				if (N_NODE.equals(element.getNodeName())) {
-					Class<?> nodeType = extractTypeClass(element);
-					if (org.arakhne.neteditor.formalism.Node.class.isAssignableFrom(nodeType)) {
-						extractNode(nodes, element, ProgressionUtil.sub(progression, PROGRESS_STEP_SIZE_IN_ITERATOR));
+				extractGraphModelElement((Element)node, content, progression);
+			}
+		}
+
+		linkGraphModel(g, content, progression);
+
+		return g;
+	}
+
+	/** Extract a node, an edge or a relation of a graph model.
+	 * 
+	 * @param element is the element to read.
+	 * @param content is the content of the graph model to fill.
+	 * @param progression notifies on the progression of the reading.
+	 * @throws IOException
+	 */
+	private void extractGraphModelElement(Element element, ModelContent content, Progression progression) throws IOException {
+		if (N_NODE.equals(element.getNodeName())) {
+			Class<?> nodeType = extractTypeClass(element);
+			if (org.arakhne.neteditor.formalism.Node.class.isAssignableFrom(nodeType)) {
+				extractNode(content.nodes, element, ProgressionUtil.sub(progression, PROGRESS_STEP_SIZE_IN_ITERATOR));
+			}
+			else if (Anchor.class.isAssignableFrom(nodeType)) {
+				extractAnchor(content.anchors, element, ProgressionUtil.sub(progression, PROGRESS_STEP_SIZE_IN_ITERATOR));
+			}
+			else {
+				throw new GXLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
+			}
+		}
+		else if (N_EDGE.equals(element.getNodeName())) {
+			Class<?> edgeType = extractTypeClass(element);
+			if (Edge.class.isAssignableFrom(edgeType)) {
+				extractEdge(content.edges, content.edgeLinks, element, ProgressionUtil.sub(progression, PROGRESS_STEP_SIZE_IN_ITERATOR));
+			}
+			else {
+				throw new GXLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
+			}
+		}
+		else if (N_REL.equals(element.getNodeName())) {
+			String type = extractInternalType(element);
+			if (C_INTERNAL_NODE_ANCHOR_RELATION_TYPE.equals(type)) {
+				UUID nodeId = null;
+				UUID anchorId = null;
+				Iterator<Element> elementIterator = elementIterator(element, N_RELEND);
+				while ((nodeId==null || anchorId==null) && elementIterator.hasNext()) {
+					Element elt = elementIterator.next();
+					if (C_GXL_REL_IN.equals(elt.getAttribute(A_DIRECTION))) {
+						nodeId = parseUUID(elt.getAttribute(A_IDREF));
 					}
-					else if (Anchor.class.isAssignableFrom(nodeType)) {
-						extractAnchor(anchors, element, ProgressionUtil.sub(progression, PROGRESS_STEP_SIZE_IN_ITERATOR));
-					}
-					else {
-						throw new GXLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
+					else if (C_GXL_REL_OUT.equals(elt.getAttribute(A_DIRECTION))) {
+						anchorId = parseUUID(elt.getAttribute(A_IDREF));
 					}
 				}
-				else if (N_EDGE.equals(element.getNodeName())) {
-					Class<?> edgeType = extractTypeClass(element);
-					if (Edge.class.isAssignableFrom(edgeType)) {
-						extractEdge(edges, edgeLinks, element, ProgressionUtil.sub(progression, PROGRESS_STEP_SIZE_IN_ITERATOR));
-					}
-					else {
-						throw new GXLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
-					}
+				if (nodeId!=null && anchorId!=null) {
+					content.anchorLinks.put(anchorId, nodeId);
 				}
-				else if (N_REL.equals(element.getNodeName())) {
-					String type = extractInternalType(element);
-					if (C_INTERNAL_NODE_ANCHOR_RELATION_TYPE.equals(type)) {
-						UUID nodeId = null;
-						UUID anchorId = null;
-						Iterator<Element> elementIterator = elementIterator(element, N_RELEND);
-						while ((nodeId==null || anchorId==null) && elementIterator.hasNext()) {
-							Element elt = elementIterator.next();
-							if (C_GXL_REL_IN.equals(elt.getAttribute(A_DIRECTION))) {
-								nodeId = parseUUID(elt.getAttribute(A_IDREF));
-							}
-							else if (C_GXL_REL_OUT.equals(elt.getAttribute(A_DIRECTION))) {
-								anchorId = parseUUID(elt.getAttribute(A_IDREF));
-							}
-						}
-						if (nodeId!=null && anchorId!=null) {
-							anchorLinks.put(anchorId, nodeId);
-						}
-						else {
-							throw new GXLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
-						}
-					}
-					else {
-						throw new GXLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
-					}
+				else {
+					throw new GXLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
 				}
 			}
+			else {
+				throw new GXLException(Locale.getString("UNSUPPORTED_XML_NODE", element.getNodeName())); //$NON-NLS-1$
+			}
 		}
+	}
 
+	/** Link the model objects of a graph model, and add them in the graph.
+	 * 
+	 * @param g is the graph to fill.
+	 * @param content is the content of the graph model.
+	 * @param progression notifies on the progression of the reading.
+	 * @throws IOException
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void linkGraphModel(Graph g, ModelContent content, Progression progression) throws IOException {
 		// Link the model objects
 
-		for(org.arakhne.neteditor.formalism.Node node : nodes.values()) {
+		for(org.arakhne.neteditor.formalism.Node node : content.nodes.values()) {
 			g.addNode(node);
 			node.removeAllAnchors(); // Be sure that the model contains only the anchors below
 		}
 
 		ProgressionUtil.advance(progression);
 
-		for(Entry<UUID,UUID> entry : anchorLinks.entrySet()) {
+		for(Entry<UUID,UUID> entry : content.anchorLinks.entrySet()) {
 			UUID anchorId = entry.getKey();
 			UUID nodeId = entry.getValue();
-			org.arakhne.neteditor.formalism.Node node = nodes.get(nodeId);
+			org.arakhne.neteditor.formalism.Node node = content.nodes.get(nodeId);
 			if (node!=null) {
-				Anchor anchor = anchors.get(anchorId);
+				Anchor anchor = content.anchors.get(anchorId);
 				if (anchor!=null) {
 					node.addAnchor(anchor);
 				}
@@ -271,21 +418,21 @@ public class GXLReader2 extends AbstractGXLReader {
 
 		ProgressionUtil.advance(progression);
 
-		for(Edge edge : edges.values()) {
+		for(Edge edge : content.edges.values()) {
 			g.addEdge(edge);
 		}
 
 		ProgressionUtil.advance(progression);
 
-		for(Entry<UUID,Pair<UUID,UUID>> entry : edgeLinks.entrySet()) {
+		for(Entry<UUID,Pair<UUID,UUID>> entry : content.edgeLinks.entrySet()) {
 			UUID edgeId = entry.getKey();
 			UUID startId = entry.getValue().getA();
 			UUID endId = entry.getValue().getB();
-			Anchor start = anchors.get(startId);
+			Anchor start = content.anchors.get(startId);
 			if (start!=null) {
-				Anchor end = anchors.get(endId);
+				Anchor end = content.anchors.get(endId);
 				if (end!=null) {
-					Edge edge = edges.get(edgeId);
+					Edge edge = content.edges.get(edgeId);
 					if (edge!=null) {
 						edge.setStartAnchor(start);
 						edge.setEndAnchor(end);
@@ -304,8 +451,6 @@ public class GXLReader2 extends AbstractGXLReader {
 		}
 
 		ProgressionUtil.end(progression);
-
-		return g;
 	}
 
 	/** Create the instance of a node from the GXL.
@@ -360,4 +505,30 @@ public class GXLReader2 extends AbstractGXLReader {
 		edgeLinks.put(id, new Pair<UUID,UUID>(from,to));
 	}
 
+	/** Model objects that are extracted from a graph model, and
+	 * the links between them. The model objects are linked when
+	 * all the elements of the graph model were read, because the
+	 * elements may reference elements that are not yet read.
+	 *
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 */
+	private static class ModelContent {
+
+		public final Map<UUID,org.arakhne.neteditor.formalism.Node<?,?,?,?>> nodes = new TreeMap<UUID,org.arakhne.neteditor.formalism.Node<?,?,?,?>>();
+		public final Map<UUID,Anchor<?,?,?,?>> anchors = new TreeMap<UUID,Anchor<?,?,?,?>>();
+		public final Map<UUID,Edge<?,?,?,?>> edges = new TreeMap<UUID,Edge<?,?,?,?>>();
+		public final Map<UUID,UUID> anchorLinks = new TreeMap<UUID,UUID>();
+		public final Map<UUID,Pair<UUID,UUID>> edgeLinks = new TreeMap<UUID,Pair<UUID,UUID>>();
+
+		/**
+		 */
+		public ModelContent() {
+			//
+		}
+
+	}
+
 }
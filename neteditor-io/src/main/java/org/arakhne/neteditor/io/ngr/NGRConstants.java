@@ -44,6 +44,10 @@ public interface NGRConstants {
 	 */
 	public static final String GML_INNER_FILENAME = "graph.gml"; //$NON-NLS-1$
 
+	/** Name of the inner file dedicated to the NetEditor binary format.
+	 */
+	public static final String BINARY_INNER_FILENAME = "graph.bin"; //$NON-NLS-1$
+
 	/** Name of the directory that may contains the resources, with the terminal slash.
 	 */
 	public static final String RESOURCE_DIRNAME = "resources/"; //$NON-NLS-1$
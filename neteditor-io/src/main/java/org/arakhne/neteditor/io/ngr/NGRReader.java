@@ -40,6 +40,7 @@ import org.arakhne.neteditor.formalism.Graph;
 import org.arakhne.neteditor.io.AbstractNetEditorReader;
 import org.arakhne.neteditor.io.NetEditorContentType;
 import org.arakhne.neteditor.io.NetEditorReader;
+import org.arakhne.neteditor.io.binary.BinaryReader;
 import org.arakhne.neteditor.io.gml.GMLReader;
 import org.arakhne.neteditor.io.graphml.GraphMLReader;
 import org.arakhne.neteditor.io.gxl.GXLReader;
@@ -60,6 +61,7 @@ import org.arakhne.neteditor.io.resource.ResourceRepository;
  * @see GXLReader
  * @see GraphMLReader
  * @see GMLReader
+ * @see BinaryReader
  */
 public class NGRReader extends AbstractNetEditorReader implements NGRConstants {
 
@@ -233,6 +235,10 @@ public class NGRReader extends AbstractNetEditorReader implements NGRConstants {
 					reader = gmlReader;
 					this.type = NetEditorContentType.GML;
 				}
+				else if (BINARY_INNER_FILENAME.equalsIgnoreCase(je.getName())) {
+					reader = new BinaryReader();
+					this.type = NetEditorContentType.BINARY;
+				}
 			}
 			if (reader==null) je = jis.getNextJarEntry();
 		}
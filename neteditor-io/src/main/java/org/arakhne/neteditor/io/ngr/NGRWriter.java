@@ -22,6 +22,8 @@
 
 package org.arakhne.neteditor.io.ngr ;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -29,10 +31,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collection;
 import java.util.Map.Entry;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
 
 import org.arakhne.afc.io.stream.UnclosableOutputStream;
 import org.arakhne.afc.progress.Progression;
@@ -40,12 +48,15 @@ import org.arakhne.afc.progress.ProgressionUtil;
 import org.arakhne.afc.ui.vector.Image;
 import org.arakhne.afc.ui.vector.VectorToolkit;
 import org.arakhne.afc.util.Pair;
+import org.arakhne.afc.vmutil.FileSystem;
+import org.arakhne.afc.vmutil.URISchemeType;
 import org.arakhne.neteditor.fig.figure.Figure;
 import org.arakhne.neteditor.fig.view.ViewComponentContainer;
 import org.arakhne.neteditor.formalism.Graph;
 import org.arakhne.neteditor.io.AbstractNetEditorWriter;
 import org.arakhne.neteditor.io.NetEditorContentType;
 import org.arakhne.neteditor.io.NetEditorWriter;
+import org.arakhne.neteditor.io.binary.BinaryWriter;
 import org.arakhne.neteditor.io.gml.GMLWriter;
 import org.arakhne.neteditor.io.graphml.GraphMLWriter;
 import org.arakhne.neteditor.io.gxl.GXLWriter;
@@ -67,10 +78,29 @@ import org.arakhne.neteditor.io.resource.ResourceRepository;
  * @see GXLWriter
  * @see GraphMLWriter
  * @see GMLWriter
+ * @see BinaryWriter
  */
 public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 	
+	/** Size of the buffers used to write the archive.
+	 */
+	private static final int BUFFER_SIZE = 65536;
+
+	/** Maximal number of bytes that are transfered at once
+	 * from the temp file to the output stream.
+	 */
+	private static final int TRANSFER_SIZE = 1048576;
+
+	/** Extensions of the resources that are already compressed,
+	 * and that are stored without compression in the archive.
+	 */
+	private static final String[] COMPRESSED_EXTENSIONS = new String[] {
+		".png", ".jpg", ".jpeg", ".gif", ".zip", ".jar", ".gz", ".ngr" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+	};
+
 	private NetEditorContentType type = NetEditorContentType.GRAPHML;
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+	private boolean isTemporaryFileUsed = false;
 
 	/**
 	 */
@@ -98,6 +128,107 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 		}
 	}
 
+	/** Replies the level of compression of the entries in the NGR.
+	 * 
+	 * @return the level of compression, from {@link Deflater#NO_COMPRESSION}
+	 * to {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}.
+	 * @since 18.0
+	 */
+	public int getCompressionLevel() {
+		return this.compressionLevel;
+	}
+
+	/** Set the level of compression of the entries in the NGR.
+	 * <p>
+	 * The images and the resources that are already compressed
+	 * are always stored without compression.
+	 * 
+	 * @param level is the level of compression, from {@link Deflater#NO_COMPRESSION}
+	 * to {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}.
+	 * @since 18.0
+	 */
+	public void setCompressionLevel(int level) {
+		if (level==Deflater.DEFAULT_COMPRESSION
+			|| (level>=Deflater.NO_COMPRESSION && level<=Deflater.BEST_COMPRESSION)) {
+			this.compressionLevel = level;
+		}
+	}
+
+	/** Replies if the NGR is built in a temp file before being
+	 * copied into the output stream.
+	 * 
+	 * @return <code>true</code> if a temp file is used; <code>false</code>
+	 * if the NGR is directly written into the output stream.
+	 * @since 18.0
+	 */
+	public boolean isTemporaryFileUsed() {
+		return this.isTemporaryFileUsed;
+	}
+
+	/** Set if the NGR is always built in a temp file before being
+	 * copied into the output stream.
+	 * <p>
+	 * A temp file must be used when the output stream is writing
+	 * into a file from which the resources are read, e.g. when
+	 * a NGR file is overwritten while its resources are still
+	 * read from it. Even if this flag is <code>false</code>, a temp
+	 * file is used when one of the resources is read from a local
+	 * file or from a local jar file. The NGR is directly written into
+	 * the output stream only when all the resources are read from
+	 * other locations.
+	 * 
+	 * @param useTemporaryFile is <code>true</code> if a temp file is used;
+	 * <code>false</code> if the NGR is directly written into the output stream.
+	 * @since 18.0
+	 */
+	public void setTemporaryFileUsed(boolean useTemporaryFile) {
+		this.isTemporaryFileUsed = useTemporaryFile;
+	}
+
+	/** Replies if the NGR must be built in a temp file.
+	 * A temp file is needed when it is {@link #isTemporaryFileUsed() forced},
+	 * or when a resource is read from a local file, that may be the
+	 * file into which the output stream is writing.
+	 */
+	private boolean isTemporaryFileNeeded() {
+		if (isTemporaryFileUsed()) return true;
+		ResourceRepository repository = getResourceRepository();
+		if (repository!=null) {
+			for(Entry<URL,String> entry : repository.getURLEntries()) {
+				if (isLocalFile(entry.getKey())) return true;
+			}
+		}
+		return false;
+	}
+
+	/** Replies if the given URL is a "file:" or a "jar:file:" URL.
+	 */
+	private static boolean isLocalFile(URL url) {
+		URL u = url;
+		if (FileSystem.isJarURL(u)) {
+			u = FileSystem.getJarURL(u);
+		}
+		return u!=null && URISchemeType.getSchemeType(u)==URISchemeType.FILE;
+	}
+
+	/** Open the archive in the temp file, or in the output stream
+	 * if the temp file is <code>null</code>.
+	 */
+	@SuppressWarnings("resource")
+	private JarOutputStream openArchive(OutputStream outputStream, File tempFile) throws IOException {
+		OutputStream os;
+		if (tempFile!=null) {
+			os = new FileOutputStream(tempFile);
+		}
+		else {
+			// The output stream is closed by the caller
+			os = new UnclosableOutputStream(outputStream);
+		}
+		JarOutputStream jos = new JarOutputStream(new BufferedOutputStream(os, BUFFER_SIZE));
+		jos.setLevel(getCompressionLevel());
+		return jos;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -106,10 +237,12 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 	public void write(OutputStream outputStream, Graph<?, ?, ?, ?> graph)
 			throws IOException {
 		ProgressionUtil.init(getProgression(), 0, 300000);
-		// Create temp file to be sure that there is not conflict between the reader and the writer of the resources
-		File tempFile = File.createTempFile("neteditor", ".dta");  //$NON-NLS-1$//$NON-NLS-2$
+		// A temp file may be used to be sure that there is not conflict between the reader and the writer of the resources
+		File tempFile = isTemporaryFileNeeded()
+				? File.createTempFile("neteditor", ".dta")  //$NON-NLS-1$//$NON-NLS-2$
+				: null;
 		try {
-			JarOutputStream jos = new JarOutputStream(new FileOutputStream(tempFile));
+			JarOutputStream jos = openArchive(outputStream, tempFile);
 			try {
 				NetEditorWriter xmlWriter;
 				String innerFilename;
@@ -135,6 +268,12 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 					innerFilename = GML_INNER_FILENAME;
 					break;
 				}
+				case BINARY:
+				{
+					xmlWriter = new BinaryWriter();
+					innerFilename = BINARY_INNER_FILENAME;
+					break;
+				}
 				default:
 					throw new IllegalStateException();
 				}
@@ -154,10 +293,15 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 			finally {
 				jos.close();
 			}
-			copyToStream(outputStream, tempFile, ProgressionUtil.sub(getProgression(), 100000));
+			if (tempFile!=null) {
+				copyToStream(outputStream, tempFile, ProgressionUtil.sub(getProgression(), 100000));
+			}
+			else {
+				outputStream.flush();
+			}
 		}
 		finally {
-			if (tempFile.exists()) tempFile.delete();
+			if (tempFile!=null && tempFile.exists()) tempFile.delete();
 			ProgressionUtil.end(getProgression());
 		}
 	}
@@ -170,10 +314,12 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 	public <G extends Graph<?, ?, ?, ?>> void write(OutputStream outputStream, G graph,
 			ViewComponentContainer<?, G> container) throws IOException {
 		ProgressionUtil.init(getProgression(), 0, 300000);
-		// Create temp file to be sure that there is not conflict between the reader and the writer of the resources
-		File tempFile = File.createTempFile("neteditor", ".dta");  //$NON-NLS-1$//$NON-NLS-2$
+		// A temp file may be used to be sure that there is not conflict between the reader and the writer of the resources
+		File tempFile = isTemporaryFileNeeded()
+				? File.createTempFile("neteditor", ".dta")  //$NON-NLS-1$//$NON-NLS-2$
+				: null;
 		try {
-			JarOutputStream jos = new JarOutputStream(new FileOutputStream(tempFile));
+			JarOutputStream jos = openArchive(outputStream, tempFile);
 			try {
 				NetEditorWriter xmlWriter;
 				String innerFilename;
@@ -199,6 +345,12 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 					innerFilename = GML_INNER_FILENAME;
 					break;
 				}
+				case BINARY:
+				{
+					xmlWriter = new BinaryWriter();
+					innerFilename = BINARY_INNER_FILENAME;
+					break;
+				}
 				default:
 					throw new IllegalStateException();
 				}
@@ -218,10 +370,15 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 			finally {
 				jos.close();
 			}
-			copyToStream(outputStream, tempFile, ProgressionUtil.sub(getProgression(), 100000));
+			if (tempFile!=null) {
+				copyToStream(outputStream, tempFile, ProgressionUtil.sub(getProgression(), 100000));
+			}
+			else {
+				outputStream.flush();
+			}
 		}
 		finally {
-			if (tempFile.exists()) tempFile.delete();
+			if (tempFile!=null && tempFile.exists()) tempFile.delete();
 			ProgressionUtil.end(getProgression());
 		}
 	}
@@ -235,10 +392,12 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 			throws IOException {
 		ProgressionUtil.init(getProgression(), 0, figures.size()*3000);
 		
-		// Create temp file to be sure that there is not conflict between the reader and the writer of the resources
-		File tempFile = File.createTempFile("neteditor", ".dta");  //$NON-NLS-1$//$NON-NLS-2$
+		// A temp file may be used to be sure that there is not conflict between the reader and the writer of the resources
+		File tempFile = isTemporaryFileNeeded()
+				? File.createTempFile("neteditor", ".dta")  //$NON-NLS-1$//$NON-NLS-2$
+				: null;
 		try {
-			JarOutputStream jos = new JarOutputStream(new FileOutputStream(tempFile));
+			JarOutputStream jos = openArchive(outputStream, tempFile);
 			try {
 				NetEditorWriter xmlWriter;
 				String innerFilename;
@@ -265,6 +424,12 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 					innerFilename = GML_INNER_FILENAME;
 					break;
 				}
+				case BINARY:
+				{
+					xmlWriter = new BinaryWriter();
+					innerFilename = BINARY_INNER_FILENAME;
+					break;
+				}
 				default:
 					throw new IllegalStateException();
 				}
@@ -284,10 +449,15 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 			finally {
 				jos.close();
 			}
-			copyToStream(outputStream, tempFile, ProgressionUtil.sub(getProgression(), figures.size()*1000));
+			if (tempFile!=null) {
+				copyToStream(outputStream, tempFile, ProgressionUtil.sub(getProgression(), figures.size()*1000));
+			}
+			else {
+				outputStream.flush();
+			}
 		}
 		finally {
-			if (tempFile.exists()) tempFile.delete();
+			if (tempFile!=null && tempFile.exists()) tempFile.delete();
 			 ProgressionUtil.end(getProgression());
 		}
 	}
@@ -302,16 +472,19 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 	@SuppressWarnings("static-method")
 	private void writeResources(JarOutputStream stream, ResourceRepository repository, Progression progression) throws IOException {
 		ProgressionUtil.init(progression, 0, repository.getURLEntries().size()*2);
-		byte[] buffer = new byte[512];
-		int len;
+		byte[] buffer = new byte[BUFFER_SIZE];
 		for(Entry<URL,String> entry : repository.getURLEntries()) {
-			stream.putNextEntry(new JarEntry(RESOURCE_DIRNAME+entry.getValue()));
+			String name = RESOURCE_DIRNAME+entry.getValue();
 			InputStream is = entry.getKey().openStream();
 			try {
-				len = is.read(buffer);
-				while (len>0) {
-					stream.write(buffer, 0, len);
-					len = is.read(buffer);
+				if (isCompressedResource(name)) {
+					ByteArrayOutputStream data = new ByteArrayOutputStream();
+					copy(is, data, buffer);
+					putStoredEntry(stream, name, data);
+				}
+				else {
+					stream.putNextEntry(new JarEntry(name));
+					copy(is, stream, buffer);
 				}
 			}
 			finally {
@@ -321,24 +494,70 @@ public class NGRWriter extends AbstractNetEditorWriter implements NGRConstants {
 			ProgressionUtil.advance(progression);
 		}
 		for(Pair<String,Image> pair : repository.getImages()) {
-			stream.putNextEntry(new JarEntry(RESOURCE_DIRNAME+pair.getA()));
-			VectorToolkit.writeImage(pair.getB(), "png", stream); //$NON-NLS-1$
+			// PNG is already compressed
+			ByteArrayOutputStream data = new ByteArrayOutputStream();
+			VectorToolkit.writeImage(pair.getB(), "png", data); //$NON-NLS-1$
+			putStoredEntry(stream, RESOURCE_DIRNAME+pair.getA(), data);
 			stream.closeEntry();
 			ProgressionUtil.advance(progression);
 		}
 		ProgressionUtil.end(progression);
 	}
 
+	private static boolean isCompressedResource(String name) {
+		String lname = name.toLowerCase();
+		for(String extension : COMPRESSED_EXTENSIONS) {
+			if (lname.endsWith(extension)) return true;
+		}
+		return false;
+	}
+
+	/** Put an entry that is stored without compression.
+	 * The sizes and the CRC of a stored entry must be known
+	 * before its data are written.
+	 */
+	private static void putStoredEntry(JarOutputStream stream, String name, ByteArrayOutputStream data) throws IOException {
+		byte[] bytes = data.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		JarEntry entry = new JarEntry(name);
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(bytes.length);
+		entry.setCompressedSize(bytes.length);
+		entry.setCrc(crc.getValue());
+		stream.putNextEntry(entry);
+		stream.write(bytes);
+	}
+
+	private static void copy(InputStream is, OutputStream os, byte[] buffer) throws IOException {
+		int len = is.read(buffer);
+		while (len>0) {
+			os.write(buffer, 0, len);
+			len = is.read(buffer);
+		}
+	}
+
 	private static void copyToStream(OutputStream stream, File file, Progression progression) throws IOException {
-		ProgressionUtil.init(progression, 0, (int)file.length());
+		long size = file.length();
+		ProgressionUtil.init(progression, 0, (int)size);
 		FileInputStream fis = new FileInputStream(file);
 		try {
-			byte[] buffer = new byte[512];
-			int n = fis.read(buffer);
-			while (n>0) {
-				stream.write(buffer, 0, n);
-				ProgressionUtil.advance(progression, n);
-				n = fis.read(buffer);
+			FileChannel input = fis.getChannel();
+			// The channel is not closed because it would close the stream.
+			// Only the channel of a file permits a transfer without copy
+			// in the user space.
+			WritableByteChannel output = (stream instanceof FileOutputStream)
+					? ((FileOutputStream)stream).getChannel()
+					: Channels.newChannel(stream);
+			long position = 0;
+			while (position<size) {
+				long n = input.transferTo(position, Math.min(TRANSFER_SIZE, size-position), output);
+				if (n<=0) {
+					throw new IOException("Incomplete copy of the NGR archive: " //$NON-NLS-1$
+							+position+"/"+size+" bytes"); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				position += n;
+				ProgressionUtil.advance(progression, (int)n);
 			}
 			stream.flush();
 		}
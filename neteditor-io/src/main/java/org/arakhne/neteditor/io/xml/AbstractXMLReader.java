@@ -41,6 +41,7 @@ import java.util.UUID;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.arakhne.afc.progress.Progression;
 import org.arakhne.afc.progress.ProgressionInputStream;
@@ -68,6 +69,12 @@ import org.xml.sax.SAXException;
 /** Abstract implementation of an XML reader.
  * This class provides the basic abstract implementation
  * of a XML reader based on DOM and on DTD validation.
+ * <p>
+ * The graph may also be read from a StAX stream with
+ * {@link #readGraph(Class, XMLStreamReader, Map, Progression)}.
+ * The subclasses that are overriding {@link #extractGraphFromStream(Progression)}
+ * are building the graph and the view components while the elements
+ * are read, without building the complete DOM tree.
  *
  * @author $Author: galland$
  * @version $FullVersion$
@@ -80,6 +87,7 @@ public abstract class AbstractXMLReader extends AbstractXMLToolReader implements
 	private boolean connectFigures = true;
 
 	private Document currentDocument = null;
+	private XMLStreamReader currentStream = null;
 	private final Map<UUID,ViewDescription> views = new TreeMap<UUID,ViewDescription>();
 	private Map<UUID,List<ViewComponent>> figures = null;
 
@@ -104,6 +112,38 @@ public abstract class AbstractXMLReader extends AbstractXMLToolReader implements
 		return this.currentDocument;
 	}
 
+	/** Replies the stream under reading.
+	 * 
+	 * @return the stream under reading, or <code>null</code> if the
+	 * graph is not read from a stream.
+	 */
+	protected final XMLStreamReader stream() {
+		return this.currentStream;
+	}
+
+	/** Read the element on which the stream under reading is positioned,
+	 * with all its content.
+	 * The stream is moved to the end of the element.
+	 * 
+	 * @return the element.
+	 * @throws IOException
+	 * @see #readElement(XMLStreamReader, Document)
+	 */
+	protected final Element readElement() throws IOException {
+		return readElement(this.currentStream, this.currentDocument);
+	}
+
+	/** Create the XML element that is corresponding to the element on which the
+	 * stream under reading is positioned, with its attributes but
+	 * without its children. The stream is not moved.
+	 * 
+	 * @return the element.
+	 * @see #readStartElement(XMLStreamReader, Document)
+	 */
+	protected final Element readStartElement() {
+		return readStartElement(this.currentStream, this.currentDocument);
+	}
+
 	/**
 	 * Set the flag that permits to connect the model objects and
 	 * the figures, or not.
@@ -390,30 +430,74 @@ public abstract class AbstractXMLReader extends AbstractXMLToolReader implements
 		this.views.clear();
 		this.figures = figures;
 		try {
-			// Parse the DOM tree and create the graph
-			Graph<?,?,?,?> g = null;
-			try {
-				g = extractGraph(progression);
-			}
-			catch(IOException e) {
-				throw e;
-			}
-			catch(Throwable e) {
-				throw new IOException(e);
-			}
-
-			if (g!=null && !(type.isInstance(g)))
-				throw new IOException(Locale.getString(AbstractXMLReader.class, "INVALID_GRAPH_TYPE", type.getCanonicalName())); //$NON-NLS-1$
+			return extractGraph(type, false, progression);
+		}
+		finally {
+			this.currentDocument = null;
+			this.views.clear();
+			this.figures = null;
+		}
+	}
 
-			return type.cast(g);
+	/**
+	 * Read the graph from a StAX stream.
+	 * <p>
+	 * The stream must be positioned on the start of the root element.
+	 * The DTD is not validated.
+	 * 
+	 * @param type is the type of the graph to read.
+	 * @param stream is the XML stream.
+	 * @param figures are the figures extracted from the file from the front to the background.
+	 * @param progression is the reading progression.
+	 * @return the graph.
+	 * @throws IOException
+	 */
+	public final <G extends Graph<?, ?, ?, ?>> G readGraph(
+			Class<G> type,
+			XMLStreamReader stream,
+			Map<UUID, List<ViewComponent>> figures,
+			Progression progression) throws IOException {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		try {
+			this.currentDocument = factory.newDocumentBuilder().newDocument();
+		}
+		catch (ParserConfigurationException e) {
+			throw new IOException(e);
+		}
+		this.currentStream = stream;
+		this.views.clear();
+		this.figures = figures;
+		try {
+			return extractGraph(type, true, progression);
 		}
 		finally {
 			this.currentDocument = null;
+			this.currentStream = null;
 			this.views.clear();
 			this.figures = null;
 		}
 	}
 
+	private <G extends Graph<?, ?, ?, ?>> G extractGraph(
+			Class<G> type, boolean streaming, Progression progression) throws IOException {
+		// Parse the tree and create the graph
+		Graph<?,?,?,?> g = null;
+		try {
+			g = streaming ? extractGraphFromStream(progression) : extractGraph(progression);
+		}
+		catch(IOException e) {
+			throw e;
+		}
+		catch(Throwable e) {
+			throw new IOException(e);
+		}
+
+		if (g!=null && !(type.isInstance(g)))
+			throw new IOException(Locale.getString(AbstractXMLReader.class, "INVALID_GRAPH_TYPE", type.getCanonicalName())); //$NON-NLS-1$
+
+		return type.cast(g);
+	}
+
 	/**
 	 * Extract a graph from a XML tree.
 	 * 
@@ -423,6 +507,27 @@ public abstract class AbstractXMLReader extends AbstractXMLToolReader implements
 	 */
 	protected abstract Graph<?,?,?,?> extractGraph(Progression progression) throws IOException;
 
+	/**
+	 * Extract a graph from the stream replied by {@link #stream()}.
+	 * <p>
+	 * The stream is positioned on the start of the root element.
+	 * The view components should be put in the view descriptions
+	 * when they are read, and bound to the model objects with
+	 * {@link #bindModelAndViews(Graph, Progression)} at the end
+	 * of the stream.
+	 * <p>
+	 * By default, this function builds the DOM tree of the root
+	 * element and invokes {@link #extractGraph(Progression)}.
+	 * 
+	 * @param progression is the reading progression.
+	 * @return the graph extracted from the stream.
+	 * @throws IOException
+	 */
+	protected Graph<?,?,?,?> extractGraphFromStream(Progression progression) throws IOException {
+		this.currentDocument.appendChild(readElement());
+		return extractGraph(progression);
+	}
+
 	/** Extract the value of an attribute.
 	 * 
 	 * @param node is the XML node to explore.
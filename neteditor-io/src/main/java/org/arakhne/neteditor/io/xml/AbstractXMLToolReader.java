@@ -23,24 +23,36 @@
 package org.arakhne.neteditor.io.xml ;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Constructor;
+import java.net.URL;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.arakhne.afc.progress.Progression;
 import org.arakhne.afc.progress.ProgressionUtil;
 import org.arakhne.afc.vmutil.locale.Locale;
 import org.arakhne.neteditor.fig.view.ViewComponent;
 import org.arakhne.neteditor.formalism.Graph;
 import org.arakhne.neteditor.io.AbstractNetEditorReader;
+import org.w3c.dom.DOMConfiguration;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 
 /** Abstract implementation of a NetEditor reader that provides XML tools.
- * This class provides basic tools to parse XML nodes.
+ * This class provides basic tools to parse XML nodes, and to
+ * parse XML streams with StAX.
  * It does not provides any abstract implementation of the parser.
  *
  * @author $Author: galland$
@@ -157,6 +169,225 @@ public abstract class AbstractXMLToolReader extends AbstractNetEditorReader {
 		return new ElementIterable(parent, null, progression);
 	}
 
+	/** Create a StAX reader on the given stream, and move it
+	 * to the root element of the document.
+	 * <p>
+	 * The DTD is not validated, but it is loaded with the given
+	 * resolver in order to replace the entities and to provide the
+	 * default values of the attributes.
+	 * 
+	 * @param is is the stream to read.
+	 * @param publicDTD is the public URL of the DTD.
+	 * @param systemDTD is the local copy of the DTD.
+	 * @return the reader, positioned on the start of the root element.
+	 * @throws IOException
+	 */
+	protected static XMLStreamReader createStreamReader(InputStream is, String publicDTD, URL systemDTD) throws IOException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		factory.setXMLResolver(new DTDResolver(publicDTD, systemDTD));
+		try {
+			XMLStreamReader stream = factory.createXMLStreamReader(is);
+			while (stream.getEventType()!=XMLStreamConstants.START_ELEMENT) {
+				if (!stream.hasNext()) {
+					throw new IOException(Locale.getString("XML_NODE_NOT_FOUND", "")); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				stream.next();
+			}
+			return stream;
+		}
+		catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/** Replies the qualified name of the element on which the
+	 * given stream is positioned.
+	 * 
+	 * @param stream
+	 * @return the name of the current element, including its prefix.
+	 */
+	protected static String getElementName(XMLStreamReader stream) {
+		return qualifiedName(stream.getPrefix(), stream.getLocalName());
+	}
+
+	/** Replies the value of an attribute of the element on which the
+	 * given stream is positioned.
+	 * 
+	 * @param stream
+	 * @param name is the qualified name of the attribute.
+	 * @return the value of the attribute, or the empty string if
+	 * the element has not the attribute, as {@link Element#getAttribute(String)}.
+	 */
+	protected static String getAttribute(XMLStreamReader stream, String name) {
+		for(int i=0; i<stream.getAttributeCount(); ++i) {
+			if (name.equals(qualifiedName(stream.getAttributePrefix(i), stream.getAttributeLocalName(i)))) {
+				return stream.getAttributeValue(i);
+			}
+		}
+		return ""; //$NON-NLS-1$
+	}
+
+	private static String qualifiedName(String prefix, String localName) {
+		if (prefix==null || prefix.isEmpty()) return localName;
+		return prefix + ":" + localName; //$NON-NLS-1$
+	}
+
+	/** Move the given stream to the next child element of the current element.
+	 * <p>
+	 * The stream must be positioned on the start of the current
+	 * element, or on the end of the previous child element.
+	 * 
+	 * @param stream
+	 * @return <code>true</code> if the stream is positioned on the start of the
+	 * next child element; <code>false</code> if the stream is positioned on the
+	 * end of the current element.
+	 * @throws IOException
+	 */
+	protected static boolean nextElement(XMLStreamReader stream) throws IOException {
+		try {
+			while (stream.hasNext()) {
+				switch(stream.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					return true;
+				case XMLStreamConstants.END_ELEMENT:
+					return false;
+				default:
+				}
+			}
+			return false;
+		}
+		catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/** Skip the element on which the given stream is positioned.
+	 * The stream is moved to the end of the element.
+	 * 
+	 * @param stream
+	 * @throws IOException
+	 */
+	protected static void skipElement(XMLStreamReader stream) throws IOException {
+		try {
+			int depth = 1;
+			while (depth>0 && stream.hasNext()) {
+				switch(stream.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					++depth;
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					--depth;
+					break;
+				default:
+				}
+			}
+		}
+		catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/** Create the XML element that is corresponding to the element on which the
+	 * given stream is positioned, with its attributes but without its children.
+	 * The stream is not moved.
+	 * 
+	 * @param stream
+	 * @param document is the document used to create the element.
+	 * @return the element, not attached to the document.
+	 */
+	protected static Element readStartElement(XMLStreamReader stream, Document document) {
+		boolean namespaceAware = isNamespaceAware(document);
+		Element element;
+		if (namespaceAware) {
+			element = document.createElementNS(stream.getNamespaceURI(), getElementName(stream));
+		}
+		else {
+			element = document.createElement(getElementName(stream));
+		}
+		String prefix, name;
+		for(int i=0; i<stream.getNamespaceCount(); ++i) {
+			prefix = stream.getNamespacePrefix(i);
+			// xmlns="uri" for the default namespace, xmlns:prefix="uri" otherwise
+			if (prefix==null || prefix.isEmpty()) {
+				name = XMLConstants.XMLNS_ATTRIBUTE;
+			}
+			else {
+				name = qualifiedName(XMLConstants.XMLNS_ATTRIBUTE, prefix);
+			}
+			if (namespaceAware) {
+				element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, name, stream.getNamespaceURI(i));
+			}
+			else {
+				element.setAttribute(name, stream.getNamespaceURI(i));
+			}
+		}
+		for(int i=0; i<stream.getAttributeCount(); ++i) {
+			name = qualifiedName(stream.getAttributePrefix(i), stream.getAttributeLocalName(i));
+			if (namespaceAware) {
+				element.setAttributeNS(stream.getAttributeNamespace(i), name, stream.getAttributeValue(i));
+			}
+			else {
+				element.setAttribute(name, stream.getAttributeValue(i));
+			}
+		}
+		return element;
+	}
+
+	/** Replies if the namespaces are processed in the given document.
+	 * 
+	 * @param document
+	 * @return <code>true</code> if the nodes must be created with their namespaces;
+	 * otherwise <code>false</code>.
+	 */
+	private static boolean isNamespaceAware(Document document) {
+		try {
+			DOMConfiguration config = document.getDomConfig();
+			return config!=null && Boolean.TRUE.equals(config.getParameter("namespaces")); //$NON-NLS-1$
+		}
+		catch(DOMException e) {
+			return false;
+		}
+	}
+
+	/** Read the element on which the given stream is positioned,
+	 * with all its content. The stream is moved to the end of the element.
+	 * <p>
+	 * This function permits to use the DOM tools on a part of a document
+	 * without building the complete document.
+	 * 
+	 * @param stream
+	 * @param document is the document used to create the nodes.
+	 * @return the element, not attached to the document.
+	 * @throws IOException
+	 */
+	protected static Element readElement(XMLStreamReader stream, Document document) throws IOException {
+		try {
+			Element root = readStartElement(stream, document);
+			Node current = root;
+			while (current!=null && stream.hasNext()) {
+				switch(stream.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					current = current.appendChild(readStartElement(stream, document));
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					current = (current==root) ? null : current.getParentNode();
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					current.appendChild(document.createTextNode(stream.getText()));
+					break;
+				default:
+				}
+			}
+			return root;
+		}
+		catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
 	/** Extract the type of the specified node as a string.
 	 * 
 	 * @param node is the node to explore
@@ -172,14 +403,24 @@ public abstract class AbstractXMLToolReader extends AbstractNetEditorReader {
 	 * @throws IOException
 	 */
 	protected final Class<?> extractTypeClass(Element node) throws IOException {
-		String type = extractType(node);
+		return extractTypeClass(extractType(node), node.getNodeName());
+	}
+
+	/** Replies the class with the given name.
+	 * 
+	 * @param type is the name of the type.
+	 * @param nodeName is the name of the node from which the type was extracted.
+	 * @return the type, never <code>null</code>.
+	 * @throws IOException
+	 */
+	protected static Class<?> extractTypeClass(String type, String nodeName) throws IOException {
 		try {
 			return Class.forName(type);
 		}
 		catch (ClassNotFoundException _) {
 			//
 		}
-		throw new IOException(Locale.getString("UNSUPPORTED_XML_NODE", node.getNodeName())); //$NON-NLS-1$
+		throw new IOException(Locale.getString("UNSUPPORTED_XML_NODE", nodeName)); //$NON-NLS-1$
 	}
 
 	/** Extract the type of a node and create the corresponding instance.
@@ -190,7 +431,19 @@ public abstract class AbstractXMLToolReader extends AbstractNetEditorReader {
 	 * @throws IOException
 	 */
 	protected final <T> T createInstance(Class<T> type, Element node) throws IOException {
-		Class<?> foundType = extractTypeClass(node);
+		return createInstance(type, extractType(node), node.getNodeName());
+	}
+
+	/** Create the instance of the given type.
+	 * 
+	 * @param type is the expected type of the new instance.
+	 * @param typeName is the name of the type of the new instance.
+	 * @param nodeName is the name of the node from which the type was extracted.
+	 * @return the new instance.
+	 * @throws IOException
+	 */
+	protected static <T> T createInstance(Class<T> type, String typeName, String nodeName) throws IOException {
+		Class<?> foundType = extractTypeClass(typeName, nodeName);
 		if (type.isAssignableFrom(foundType)) {
 			try {
 				Object obj = foundType.newInstance();
@@ -200,7 +453,7 @@ public abstract class AbstractXMLToolReader extends AbstractNetEditorReader {
 				throw new IOException(e);
 			}
 		}
-		throw new IOException(Locale.getString("UNEXPECTED_TYPE", node.getNodeName(), type.getCanonicalName())); //$NON-NLS-1$
+		throw new IOException(Locale.getString("UNEXPECTED_TYPE", nodeName, type.getCanonicalName())); //$NON-NLS-1$
 	}
 
 	/** Extract the type of a node and create the corresponding instance.
@@ -212,7 +465,20 @@ public abstract class AbstractXMLToolReader extends AbstractNetEditorReader {
 	 * @throws IOException
 	 */
 	protected final <T extends ViewComponent> T createFigureInstance(Class<T> type, Element node, UUID viewId) throws IOException {
-		Class<?> foundType = extractTypeClass(node);
+		return createFigureInstance(type, extractType(node), node.getNodeName(), viewId);
+	}
+
+	/** Create the instance of the given figure type.
+	 * 
+	 * @param type is the expected type of the new instance.
+	 * @param typeName is the name of the type of the new instance.
+	 * @param nodeName is the name of the node from which the type was extracted.
+	 * @param viewId is the identifier of the view.
+	 * @return the new instance.
+	 * @throws IOException
+	 */
+	protected static <T extends ViewComponent> T createFigureInstance(Class<T> type, String typeName, String nodeName, UUID viewId) throws IOException {
+		Class<?> foundType = extractTypeClass(typeName, nodeName);
 		if (type.isAssignableFrom(foundType)) {
 			try {
 				Constructor<?> cons = foundType.getConstructor(UUID.class);
@@ -223,7 +489,7 @@ public abstract class AbstractXMLToolReader extends AbstractNetEditorReader {
 				throw new IOException(e);
 			}
 		}
-		throw new IOException(Locale.getString("UNEXPECTED_TYPE", node.getNodeName(), type.getCanonicalName())); //$NON-NLS-1$
+		throw new IOException(Locale.getString("UNEXPECTED_TYPE", nodeName, type.getCanonicalName())); //$NON-NLS-1$
 	}
 
 	/** Replies if the specified node is the node for a graph model.
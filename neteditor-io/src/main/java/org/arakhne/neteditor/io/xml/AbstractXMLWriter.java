@@ -22,10 +22,12 @@
 
 package org.arakhne.neteditor.io.xml ;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
@@ -41,6 +43,9 @@ import java.util.UUID;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
@@ -67,11 +72,22 @@ import org.arakhne.neteditor.io.resource.ResourceRepository;
 import org.w3c.dom.Comment;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 import org.w3c.dom.Text;
 
 
 /** This class provides XML utilities for writers. 
+ * <p>
+ * By default, the DOM tree of the document is built and serialized
+ * when it is complete. When streaming, see {@link #setStreaming(boolean)},
+ * the elements are written on a {@link XMLStreamWriter} as soon as
+ * they are created. The subclasses are creating the elements with the
+ * same functions in the two modes: {@link #output(Node, Element)},
+ * {@link #openElement(Node, Element)} and {@link #closeElement(Element)}
+ * add the elements in the DOM tree, or write them on the stream when
+ * their parent is the element that is currently written on the stream.
  *
  * @author $Author: galland$
  * @version $FullVersion$
@@ -81,6 +97,14 @@ import org.w3c.dom.Text;
  */
 public abstract class AbstractXMLWriter extends AbstractNetEditorWriter implements XMLConstants {
 
+	/** Size of the buffer of the output stream when streaming.
+	 */
+	private static final int BUFFER_SIZE = 65536;
+
+	/** Number of spaces for each indentation level.
+	 */
+	private static final int INDENT_SIZE = 2;
+
 	/** Add the given child into the given parent if
 	 * the child is not empty.
 	 * 
@@ -212,12 +236,40 @@ public abstract class AbstractXMLWriter extends AbstractNetEditorWriter implemen
 	}
 	
 	private Document currentDocument = null;
+	private XMLStreamWriter currentStream = null;
+	private final List<Element> streamedElements = new ArrayList<Element>();
+	private boolean isPendingStartTag = false;
+	private boolean isStreaming = false;
 
 	/**
 	 */
 	protected AbstractXMLWriter() {
 		//
 	}
+
+	/**
+	 * Set the flag that permits to write the elements on a
+	 * StAX stream as soon as they are created, instead of building
+	 * the complete DOM tree of the document.
+	 * <p>
+	 * The written document is the same in the two modes.
+	 * 
+	 * @param streaming indicates if the document should be streamed.
+	 */
+	public void setStreaming(boolean streaming) {
+		this.isStreaming = streaming;
+	}
+
+	/**
+	 * Replies if the elements are written on a StAX stream as
+	 * soon as they are created, instead of building the complete
+	 * DOM tree of the document.
+	 * 
+	 * @return <code>true</code> if the document is streamed; otherwise <code>false</code>.
+	 */
+	public boolean isStreaming() {
+		return this.isStreaming;
+	}
 	
 	/** Replies the document under construction.
 	 * 
@@ -260,6 +312,280 @@ public abstract class AbstractXMLWriter extends AbstractNetEditorWriter implemen
 			Map<UUID, ? extends Graph<?,?,?,?>> graphs, 
 			Collection<? extends Figure> figures,
 			Progression progression) throws IOException;
+
+	/** Write the content on the stream.
+	 * <p>
+	 * The root element should be started with {@link #writeStartElement(Element)},
+	 * and ended with {@link #writeEndElement()}.
+	 * By default, this function writes the element replied by
+	 * {@link #createGraphDOM(Map, Collection, Progression)}.
+	 * 
+	 * @param graphs are the graphs to output.
+	 * @param figures are the figures to output. The list is ordered
+	 * from the front layer to the background layer.
+	 * @param progression is the task progression.
+	 * @throws IOException
+	 */
+	protected void writeGraphStream(
+			Map<UUID, ? extends Graph<?,?,?,?>> graphs, 
+			Collection<? extends Figure> figures,
+			Progression progression) throws IOException {
+		Element root = createGraphDOM(graphs, figures, progression);
+		if (root==null) throw new IOException();
+		writeStartElement(root);
+		writeEndElement();
+	}
+
+	/** Add the given child into the given parent if the child is not empty.
+	 * If the parent is the element that is currently written on the stream,
+	 * the child is written on the stream.
+	 * 
+	 * @param parent
+	 * @param child
+	 * @return <code>true</code> if the child is added, <code>false</code>
+	 * if the child is not added.
+	 * @throws IOException
+	 * @see #append(Node, Node)
+	 */
+	protected final boolean output(Node parent, Element child) throws IOException {
+		if (isStreamedElement(parent)) {
+			return writeElement(child);
+		}
+		return append(parent, child);
+	}
+
+	/** Add the given element into the given parent before its content is created.
+	 * If the parent is the element that is currently written on the stream,
+	 * the element is started on the stream; and its content is written on the
+	 * stream when it is passed to {@link #output(Node, Element)}.
+	 * <p>
+	 * The attributes of the element must be set before this function is invoked.
+	 * 
+	 * @param parent
+	 * @param element
+	 * @throws IOException
+	 * @see #closeElement(Element)
+	 */
+	protected final void openElement(Node parent, Element element) throws IOException {
+		if (isStreamedElement(parent)) {
+			writeStartElement(element);
+		}
+		else if (parent!=null) {
+			parent.appendChild(element);
+		}
+	}
+
+	/** Terminate the element that was passed to {@link #openElement(Node, Element)}.
+	 * The element is removed from its parent if it is empty.
+	 * 
+	 * @param element
+	 * @throws IOException
+	 */
+	protected final void closeElement(Element element) throws IOException {
+		if (isStreamedElement(element)) {
+			writeEndElement();
+		}
+		else if (isEmpty(element) && element.getParentNode()!=null) {
+			element.getParentNode().removeChild(element);
+		}
+	}
+
+	private boolean isStreamedElement(Node node) {
+		return node!=null && this.currentStream!=null && !this.streamedElements.isEmpty()
+				&& this.streamedElements.get(this.streamedElements.size()-1)==node;
+	}
+
+	/** Start the given element on the stream.
+	 * The start tag and the current children of the element are written
+	 * when the first child is written with {@link #writeElement(Element)},
+	 * or when the element is ended.
+	 * 
+	 * @param element
+	 * @throws IOException
+	 * @see #writeEndElement()
+	 */
+	protected final void writeStartElement(Element element) throws IOException {
+		try {
+			writePendingStartTag();
+			this.streamedElements.add(element);
+			this.isPendingStartTag = true;
+		}
+		catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/** End the last element that was started with {@link #writeStartElement(Element)}.
+	 * The element is not written if it is empty.
+	 * 
+	 * @throws IOException
+	 */
+	protected final void writeEndElement() throws IOException {
+		try {
+			Element element = this.streamedElements.remove(this.streamedElements.size()-1);
+			int level = this.streamedElements.size();
+			if (this.isPendingStartTag) {
+				this.isPendingStartTag = false;
+				if (!isEmpty(element)) {
+					writeNode(element, level, true);
+				}
+			}
+			else {
+				writeIndentation(level);
+				this.currentStream.writeEndElement();
+			}
+		}
+		catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/** Write the given element and its content inside the last element that
+	 * was started with {@link #writeStartElement(Element)}, if the element
+	 * is not empty.
+	 * The written element may be forgotten.
+	 * 
+	 * @param element
+	 * @return <code>true</code> if the element is written, <code>false</code>
+	 * if the element is empty.
+	 * @throws IOException
+	 */
+	protected final boolean writeElement(Element element) throws IOException {
+		if (isEmpty(element)) return false;
+		try {
+			writePendingStartTag();
+			writeNode(element, this.streamedElements.size(), true);
+			return true;
+		}
+		catch (XMLStreamException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private void writePendingStartTag() throws XMLStreamException {
+		if (this.isPendingStartTag) {
+			this.isPendingStartTag = false;
+			int level = this.streamedElements.size() - 1;
+			Element element = this.streamedElements.get(level);
+			writeStartTag(element, level, true, false);
+			for(Node child = element.getFirstChild(); child!=null; child = child.getNextSibling()) {
+				if (child instanceof Element) {
+					writeNode((Element)child, level+1, true);
+				}
+			}
+		}
+	}
+
+	/** Write an element with the same layout as the DOM serializer:
+	 * the elements are indented, except inside the elements with a text.
+	 */
+	private void writeNode(Element element, int level, boolean indent) throws XMLStreamException {
+		NodeList children = element.getChildNodes();
+		boolean indentChildren = true;
+		for(int i=0; indentChildren && i<children.getLength(); ++i) {
+			if (!(children.item(i) instanceof Element)) {
+				indentChildren = false;
+			}
+		}
+		writeStartTag(element, level, indent, children.getLength()==0);
+		if (children.getLength()>0) {
+			for(int i=0; i<children.getLength(); ++i) {
+				Node child = children.item(i);
+				if (child instanceof Element) {
+					writeNode((Element)child, level+1, indentChildren);
+				}
+				else if (child instanceof Text) {
+					this.currentStream.writeCharacters(child.getNodeValue());
+				}
+				else if (child instanceof Comment) {
+					this.currentStream.writeComment(child.getNodeValue());
+				}
+			}
+			if (indentChildren) writeIndentation(level);
+			this.currentStream.writeEndElement();
+		}
+	}
+
+	private void writeStartTag(Element element, int level, boolean indent, boolean empty) throws XMLStreamException {
+		if (level==0) {
+			writeDocumentType(element.getNodeName());
+		}
+		else if (indent) {
+			writeIndentation(level);
+		}
+		if (empty) {
+			this.currentStream.writeEmptyElement(element.getNodeName());
+		}
+		else {
+			this.currentStream.writeStartElement(element.getNodeName());
+		}
+		// The namespace declarations are written before the other attributes
+		NamedNodeMap attributes = element.getAttributes();
+		for(int i=0; i<attributes.getLength(); ++i) {
+			Node attribute = attributes.item(i);
+			if (isNamespaceDeclaration(attribute)) {
+				this.currentStream.writeAttribute(attribute.getNodeName(), attribute.getNodeValue());
+			}
+		}
+		for(int i=0; i<attributes.getLength(); ++i) {
+			Node attribute = attributes.item(i);
+			if (!isNamespaceDeclaration(attribute)) {
+				this.currentStream.writeAttribute(attribute.getNodeName(), attribute.getNodeValue());
+			}
+		}
+	}
+
+	private static boolean isNamespaceDeclaration(Node attribute) {
+		String name = attribute.getNodeName();
+		return "xmlns".equals(name) || name.startsWith("xmlns:"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private void writeIndentation(int level) throws XMLStreamException {
+		StringBuilder b = new StringBuilder(level*INDENT_SIZE+1);
+		b.append('\n');
+		for(int i=0; i<level*INDENT_SIZE; ++i) {
+			b.append(' ');
+		}
+		this.currentStream.writeCharacters(b.toString());
+	}
+
+	private void writeDocumentType(String rootName) throws XMLStreamException {
+		String publicDTD = getDTDLocation(getPublicDTD());
+		String systemDTD = getDTDLocation(getSystemDTD());
+		if (systemDTD!=null) {
+			StringBuilder b = new StringBuilder();
+			b.append("<!DOCTYPE "); //$NON-NLS-1$
+			b.append(rootName);
+			if (publicDTD!=null) {
+				b.append(" PUBLIC \""); //$NON-NLS-1$
+				b.append(publicDTD);
+				b.append("\""); //$NON-NLS-1$
+			}
+			else {
+				b.append(" SYSTEM"); //$NON-NLS-1$
+			}
+			b.append(" \""); //$NON-NLS-1$
+			b.append(systemDTD);
+			b.append("\">"); //$NON-NLS-1$
+			this.currentStream.writeDTD(b.toString());
+		}
+		this.currentStream.writeCharacters("\n"); //$NON-NLS-1$
+	}
+
+	private static String getDTDLocation(URL dtd) {
+		if (dtd==null) return null;
+		URL su = FileSystem.toShortestURL(dtd);
+		return (su!=null) ? su.toExternalForm() : dtd.toExternalForm();
+	}
+
+	private String getCreatorComment() {
+		return "\n\tCreator: Arakhne.org NetEditor " //$NON-NLS-1$
+				+getClass().getName()
+				+" "+getWriterVersion() //$NON-NLS-1$
+				+"\n\tCreationDate: " //$NON-NLS-1$
+				+(new Date())
+				+"\n"; //$NON-NLS-1$
+	}
 	
 	/** Replies the URL of the SYSTEM DTD.
 	 * 
@@ -298,6 +624,11 @@ public abstract class AbstractXMLWriter extends AbstractNetEditorWriter implemen
 			
 			this.currentDocument = xmldocument;
 
+			if (isStreaming()) {
+				streamGraph(os, graphs, figures, progression);
+				return;
+			}
+
 			Node node = createGraphDOM(graphs, figures,
 					ProgressionUtil.sub(progression, 8000));
 
@@ -306,20 +637,14 @@ public abstract class AbstractXMLWriter extends AbstractNetEditorWriter implemen
 			xmldocument.setXmlVersion("1.0"); //$NON-NLS-1$
 
 			Comment comment;
-			comment = xmldocument.createComment(
-					"\n\tCreator: Arakhne.org NetEditor " //$NON-NLS-1$
-					+getClass().getName()
-					+" "+getWriterVersion() //$NON-NLS-1$
-					+"\n\tCreationDate: " //$NON-NLS-1$
-					+(new Date())
-					+"\n"); //$NON-NLS-1$
+			comment = xmldocument.createComment(getCreatorComment());
 			xmldocument.appendChild(comment);
 
 			xmldocument.appendChild(node);
 
 			TransformerFactory transFactory = TransformerFactory.newInstance();
 			try {
-				transFactory.setAttribute("indent-number", Integer.valueOf(2)); //$NON-NLS-1$
+				transFactory.setAttribute("indent-number", Integer.valueOf(INDENT_SIZE)); //$NON-NLS-1$
 			}
 			catch(Throwable _) {
 				// Ignore the error when the attribute is not supported by the backend.
@@ -327,20 +652,16 @@ public abstract class AbstractXMLWriter extends AbstractNetEditorWriter implemen
 			Transformer trans = transFactory.newTransformer();
 			trans.setParameter(OutputKeys.INDENT, "yes"); //$NON-NLS-1$
 			trans.setOutputProperty(OutputKeys.INDENT, "yes"); //$NON-NLS-1$
-			URL u;
-			u = getPublicDTD();
-			if (u!=null) { 
-				URL su = FileSystem.toShortestURL(u);
-				if (su!=null) u = su;
-				trans.setParameter(OutputKeys.DOCTYPE_PUBLIC, u.toExternalForm());
-				trans.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, u.toExternalForm());
+			String dtd;
+			dtd = getDTDLocation(getPublicDTD());
+			if (dtd!=null) { 
+				trans.setParameter(OutputKeys.DOCTYPE_PUBLIC, dtd);
+				trans.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, dtd);
 			}
-			u = getSystemDTD();
-			if (u!=null) {
-				URL su = FileSystem.toShortestURL(u);
-				if (su!=null) u = su;
-				trans.setParameter(OutputKeys.DOCTYPE_SYSTEM, u.toExternalForm());
-				trans.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, u.toExternalForm());
+			dtd = getDTDLocation(getSystemDTD());
+			if (dtd!=null) {
+				trans.setParameter(OutputKeys.DOCTYPE_SYSTEM, dtd);
+				trans.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, dtd);
 			}
 
 			DOMSource source = new DOMSource(xmldocument);
@@ -360,6 +681,46 @@ public abstract class AbstractXMLWriter extends AbstractNetEditorWriter implemen
 		}
 	}
 
+	/** Write the graph on a StAX stream.
+	 * 
+	 * @param os is the output stream.
+	 * @param graphs are the graphs to output.
+	 * @param figures are the figures to output. The list is sorted from
+	 * the front layer to the background layer.
+	 * @param progression is the task progression.
+	 * @throws IOException
+	 * @throws XMLStreamException
+	 */
+	@SuppressWarnings("resource")
+	private void streamGraph(
+			OutputStream os,
+			Map<UUID, ? extends Graph<?,?,?,?>> graphs, 
+			Collection<? extends Figure> figures,
+			Progression progression) throws IOException, XMLStreamException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"), BUFFER_SIZE); //$NON-NLS-1$
+		// Same declaration as the DOM serializer
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"); //$NON-NLS-1$
+		this.currentStream = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+		try {
+			this.currentStream.writeComment(getCreatorComment());
+
+			writeGraphStream(graphs, figures,
+					ProgressionUtil.sub(progression, 9000));
+
+			if (!this.streamedElements.isEmpty()) throw new IOException();
+
+			this.currentStream.writeCharacters("\n"); //$NON-NLS-1$
+			this.currentStream.flush();
+			writer.flush();
+			ProgressionUtil.end(progression);
+		}
+		finally {
+			this.currentStream = null;
+			this.streamedElements.clear();
+			this.isPendingStartTag = false;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -26,6 +26,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamException;
+
 import org.arakhne.afc.vmutil.FileSystem;
 import org.arakhne.afc.vmutil.Resources;
 import org.arakhne.afc.vmutil.URISchemeType;
@@ -35,13 +38,14 @@ import org.xml.sax.SAXException;
 
 /**
  * This class provides resolver for XML entities.
+ * It may be used by the DOM parsers and by the StAX parsers.
  * 
  * @author $Author: galland$
  * @version $FullVersion$
  * @mavengroupid $GroupId$
  * @mavenartifactid $ArtifactId$
  */
-public class DTDResolver implements EntityResolver {
+public class DTDResolver implements EntityResolver, XMLResolver {
 
 	private final String dtdURL;
 	private final URL dtdFilename;
@@ -111,4 +115,18 @@ public class DTDResolver implements EntityResolver {
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) throws XMLStreamException {
+		try {
+			InputSource is = resolveEntity(publicID, systemID);
+			return (is==null) ? null : is.getByteStream();
+		}
+		catch (Exception e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
 }
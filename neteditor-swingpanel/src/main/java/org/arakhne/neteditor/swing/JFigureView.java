@@ -34,13 +34,13 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -106,15 +106,19 @@ import org.arakhne.neteditor.fig.graphics.ViewGraphics2D;
 import org.arakhne.neteditor.fig.graphics.ViewGraphicsUtil;
 import org.arakhne.neteditor.fig.graphics.ViewGraphicsUtil.Factory;
 import org.arakhne.neteditor.fig.subfigure.SubFigure;
+import org.arakhne.neteditor.fig.view.GridViewComponentIndex;
+import org.arakhne.neteditor.fig.view.IncrementalViewBounds;
 import org.arakhne.neteditor.fig.view.ModelObjectView;
 import org.arakhne.neteditor.fig.view.ViewComponent;
 import org.arakhne.neteditor.fig.view.ViewComponentBindingListener;
 import org.arakhne.neteditor.fig.view.ViewComponentChangeEvent;
 import org.arakhne.neteditor.fig.view.ViewComponentChangeListener;
 import org.arakhne.neteditor.fig.view.ViewComponentContainer;
+import org.arakhne.neteditor.fig.view.ViewComponentIndex;
 import org.arakhne.neteditor.fig.view.ViewComponentLayoutListener;
 import org.arakhne.neteditor.fig.view.ViewComponentPropertyChangeEvent;
 import org.arakhne.neteditor.fig.view.ViewComponentPropertyChangeListener;
+import org.arakhne.neteditor.fig.view.ZOrderList;
 import org.arakhne.neteditor.formalism.Anchor;
 import org.arakhne.neteditor.formalism.Edge;
 import org.arakhne.neteditor.formalism.Graph;
@@ -167,9 +171,52 @@ implements ViewComponentContainer<Figure, G> {
 	
 	private final ViewDocumentWrapper documentWrapper;
 
-	private volatile LinkedList<Figure> figures = new LinkedList<Figure>();
+	private final ZOrderList<Figure> figures = new ZOrderList<Figure>();
 
-	private SoftReference<Rectangle2f> documentBounds = null;
+	/** Spatial index on the figures.
+	 */
+	private ViewComponentIndex<Figure> figureIndex = new GridViewComponentIndex<Figure>();
+
+	private final Comparator<Figure> zOrderComparator = new ZOrderComparator();
+
+	/** Bounds of the document, maintained incrementally.
+	 */
+	private final IncrementalViewBounds<Figure> documentBounds = new IncrementalViewBounds<Figure>() {
+		@Override
+		protected Rectangle2f computeBounds() {
+			return calcViewBounds();
+		}
+	};
+
+	private int paintedFigureCount = 0;
+	private int skippedFigureCount = 0;
+
+	/** Number of nested transactions.
+	 */
+	private int transactionDepth = 0;
+
+	/** Graph on which a transaction was started by the outer
+	 * transaction of this view.
+	 */
+	private G transactionGraph = null;
+
+	/** Union of the areas to repaint at the end of the transaction.
+	 */
+	private Rectangle2f transactionDirtyArea = null;
+
+	/** Indicates if the entire view must be repainted at the
+	 * end of the transaction.
+	 */
+	private boolean transactionFullRepaint = false;
+
+	/** Indicates if the view parameters must be updated at the
+	 * end of the transaction.
+	 */
+	private boolean transactionViewParametersChanged = false;
+
+	/** Figures that have changed during the transaction.
+	 */
+	private Set<Figure> transactionChangedFigures = null;
 
 	private G graph; 
 
@@ -553,7 +600,8 @@ implements ViewComponentContainer<Figure, G> {
 				removeFigureListeners(fig);
 				iterator.remove();
 			}
-			this.documentBounds = null;
+			this.figureIndex.clear();
+			this.documentBounds.clear();
 			this.graph.addModelObjectListener(this.eventHandler);
 			firePropertyChange("graph", old, this.graph); //$NON-NLS-1$
 			onUpdateViewParameters();
@@ -597,10 +645,11 @@ implements ViewComponentContainer<Figure, G> {
 			boolean firstComponent = this.figures.isEmpty();
 			position = 0;
 			this.figures.add(position,component);
-			this.documentBounds = null;
+			this.figureIndex.add(component);
+			this.documentBounds.add(component);
 			component.setViewComponentContainer(this);
 			addFigureListeners(component);
-			onUpdateViewParameters();
+			invalidateViewParameters();
 			if (firstComponent) setScalingFactorForPixelRatio(1f);
 			fireFigureAdded(component);
 		}
@@ -634,6 +683,8 @@ implements ViewComponentContainer<Figure, G> {
 				position = this.figures.indexOf(component);
 				if (position>=0) {
 					this.figures.remove(position);
+					this.figureIndex.remove(component);
+					this.documentBounds.remove(component);
 					component.setViewComponentContainer(null);
 					removeFigureListeners(component);
 					if (!this.skipFigureModelUnlink && 
@@ -641,10 +692,9 @@ implements ViewComponentContainer<Figure, G> {
 							component instanceof ModelObjectFigure<?>) {
 						((ModelObjectFigure<?>)component).setModelObject(null);
 					}
-					this.documentBounds = null;
-					onUpdateViewParameters();
+					invalidateViewParameters();
 					fireFigureRemoved(component);
-					repaint();
+					repaintArea(null);
 				}
 			}
 			return position;
@@ -661,10 +711,11 @@ implements ViewComponentContainer<Figure, G> {
 	public Figure removeFigureAt(int index) {
 		Figure fig = this.figures.remove(index);
 		if (fig!=null) {
+			this.figureIndex.remove(fig);
+			this.documentBounds.remove(fig);
 			fig.setViewComponentContainer(null);
 			removeFigureListeners(fig);
-			this.documentBounds = null;
-			onUpdateViewParameters();
+			invalidateViewParameters();
 			fireFigureRemoved(fig);
 		}
 		return fig;
@@ -676,16 +727,17 @@ implements ViewComponentContainer<Figure, G> {
 	@Override
 	public void removeAllFigures() {
 		if (!this.figures.isEmpty()) {
-			List<Figure> oldFigures = this.figures;
-			this.figures = new LinkedList<Figure>();
+			List<Figure> oldFigures = new ArrayList<Figure>(this.figures);
+			this.figures.clear();
+			this.figureIndex.clear();
+			this.documentBounds.clear();
 
 			for(Figure fig : oldFigures) {
 				fig.setViewComponentContainer(null);
 				removeFigureListeners(fig);
 			}
 
-			this.documentBounds = null;
-			onUpdateViewParameters();
+			invalidateViewParameters();
 
 			for(Figure fig : oldFigures) {
 				fireFigureRemoved(fig);
@@ -693,6 +745,140 @@ implements ViewComponentContainer<Figure, G> {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void beginTransaction() {
+		if (this.transactionDepth==0) {
+			// The model changes are merged in the same transaction
+			G g = getGraph();
+			if (g!=null) {
+				g.beginTransaction();
+				this.transactionGraph = g;
+			}
+		}
+		++this.transactionDepth;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void commitTransaction() {
+		if (this.transactionDepth<=0)
+			throw new IllegalStateException("no transaction"); //$NON-NLS-1$
+		G g = null;
+		if (this.transactionDepth==1) {
+			g = this.transactionGraph;
+			this.transactionGraph = null;
+		}
+		try {
+			// The model events are dispatched before the view is
+			// updated, so that their effects on the figures are
+			// merged in this transaction.
+			if (g!=null) g.commitTransaction();
+		}
+		finally {
+			--this.transactionDepth;
+		}
+		if (this.transactionDepth==0) {
+			Set<Figure> changedFigures = this.transactionChangedFigures;
+			Rectangle2f dirtyArea = this.transactionDirtyArea;
+			boolean fullRepaint = this.transactionFullRepaint;
+			boolean updateParameters = this.transactionViewParametersChanged;
+			this.transactionChangedFigures = null;
+			this.transactionDirtyArea = null;
+			this.transactionFullRepaint = false;
+			this.transactionViewParametersChanged = false;
+
+			if (updateParameters) {
+				onUpdateViewParameters();
+			}
+			if (changedFigures!=null) {
+				for(Figure figure : changedFigures) {
+					if (this.figures.contains(figure)) {
+						fireFigureChanged(figure);
+					}
+				}
+			}
+			if (fullRepaint) {
+				repaint();
+			}
+			else if (dirtyArea!=null) {
+				repaint(dirtyArea);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isInTransaction() {
+		return this.transactionDepth>0;
+	}
+
+	/** Update the view parameters, or delay the update until the end
+	 * of the current transaction.
+	 */
+	private void invalidateViewParameters() {
+		if (this.transactionDepth>0) {
+			this.transactionViewParametersChanged = true;
+		}
+		else {
+			onUpdateViewParameters();
+		}
+	}
+
+	/** Repaint the given area, or merge it with the area
+	 * to repaint at the end of the current transaction.
+	 * 
+	 * @param area is the area to repaint, or <code>null</code>
+	 * to repaint the entire view.
+	 */
+	private void repaintArea(Rectangle2f area) {
+		if (this.transactionDepth>0) {
+			if (area==null) {
+				this.transactionFullRepaint = true;
+				this.transactionDirtyArea = null;
+			}
+			else if (!this.transactionFullRepaint) {
+				if (this.transactionDirtyArea==null) {
+					this.transactionDirtyArea = area.clone();
+				}
+				else {
+					Rectangle2f.union(this.transactionDirtyArea, area, this.transactionDirtyArea);
+				}
+			}
+		}
+		else if (area==null) {
+			repaint();
+		}
+		else {
+			repaint(area);
+		}
+	}
+
+	/** Notifies the listeners about the change of a figure,
+	 * or delay the notification until the end of the
+	 * current transaction.
+	 * 
+	 * @param figure
+	 */
+	private void onFigureChanged(Figure figure) {
+		if (this.transactionDepth>0) {
+			if (this.transactionChangedFigures==null) {
+				this.transactionChangedFigures = Collections.newSetFromMap(
+						new IdentityHashMap<Figure,Boolean>());
+			}
+			this.transactionChangedFigures.add(figure);
+		}
+		else {
+			fireFigureChanged(figure);
+		}
+	}
+
 	/** Replies if the axis are drawn.
 	 * 
 	 * @return <code>true</code> if the axis are drawn;
@@ -761,17 +947,29 @@ implements ViewComponentContainer<Figure, G> {
 	@Override
 	public void paintViewComponents(ViewGraphics2D g) {
 		Rectangle2f bounds;
+		int painted = 0;
 
 		VectorToolkit.prepareDrawing(g);
 
+		// Only the figures intersecting the clip are painted.
+		Shape2f clip = g.getClip();
+		Rectangle2f clipBounds = (clip==null) ? null : clip.toBoundingBox();
+
 		if (isShadowDrawn() && g.getLOD().compareTo(Graphics2DLOD.NORMAL_LEVEL_OF_DETAIL)>=0) {
-			Iterator<Figure> iterator = this.figures.descendingIterator();
 			Figure figure;
 			ViewGraphics2D sg = new ShadowViewGraphics2D(g);
+			float tx = g.getShadowTranslationX();
+			float ty = g.getShadowTranslationY();
 			Transform2D trans = g.getTransform().clone();
-			trans.translate(
-					g.getShadowTranslationX(),
-					g.getShadowTranslationY());
+			trans.translate(tx, ty);
+			// The shadows are translated, so the visible shadows are
+			// the ones of the figures under the clip moved backward.
+			Iterator<Figure> iterator = getFiguresToPaint(
+					clipBounds==null ? null : new Rectangle2f(
+							clipBounds.getMinX() - tx,
+							clipBounds.getMinY() - ty,
+							clipBounds.getWidth(),
+							clipBounds.getHeight()));
 			while (iterator.hasNext()) {
 				figure = iterator.next();
 				bounds = figure.getBounds();
@@ -782,7 +980,7 @@ implements ViewComponentContainer<Figure, G> {
 			}
 		}
 
-		Iterator<Figure> iterator = this.figures.descendingIterator();
+		Iterator<Figure> iterator = getFiguresToPaint(clipBounds);
 		Figure figure;
 		while (iterator.hasNext()) {
 			figure = iterator.next();
@@ -793,11 +991,56 @@ implements ViewComponentContainer<Figure, G> {
 					bounds);
 			figure.paint(g);
 			g.popRenderingContext();
+			++painted;
 		}
 		
+		this.paintedFigureCount = painted;
+		this.skippedFigureCount = Math.max(0, this.figures.size() - painted);
+		
 		VectorToolkit.finalizeDrawing(g);		
 	}
 
+	/** Replies the figures to paint in the given area, from the
+	 * background to the front.
+	 * 
+	 * @param area is the area to paint, or <code>null</code> to
+	 * paint all the figures.
+	 * @return the iterator on the figures to paint.
+	 */
+	private Iterator<Figure> getFiguresToPaint(Rectangle2f area) {
+		if (area!=null) {
+			List<Figure> candidates = new ArrayList<Figure>();
+			this.figureIndex.getComponentsIntersecting(area, candidates);
+			if (candidates.size()<this.figures.size()) {
+				sortFromFront(candidates);
+				Collections.reverse(candidates);
+				return candidates.iterator();
+			}
+		}
+		return this.figures.descendingIterator();
+	}
+
+	/** Replies the number of figures that were painted during
+	 * the last call to {@link #paintViewComponents(ViewGraphics2D)}.
+	 * 
+	 * @return the number of painted figures in the last frame.
+	 * @see #getSkippedFigureCount()
+	 */
+	public int getPaintedFigureCount() {
+		return this.paintedFigureCount;
+	}
+
+	/** Replies the number of figures that were not painted during
+	 * the last call to {@link #paintViewComponents(ViewGraphics2D)}
+	 * because they are outside the clip.
+	 * 
+	 * @return the number of skipped figures in the last frame.
+	 * @see #getPaintedFigureCount()
+	 */
+	public int getSkippedFigureCount() {
+		return this.skippedFigureCount;
+	}
+
 	@Override
 	protected float getPreferredFocusX() {
 		Rectangle2f r = getViewBounds();
@@ -966,6 +1209,11 @@ implements ViewComponentContainer<Figure, G> {
 	}
 
 	/** Compute and reply the bounds of the entire document.
+	 * <p>
+	 * The bounds of the document are maintained incrementally.
+	 * This function is invoked only when they must be recomputed
+	 * from all the figures, eg. when a figure on the border of
+	 * the document is removed.
 	 * 
 	 * @return the bounds of the entire document.
 	 */
@@ -986,12 +1234,7 @@ implements ViewComponentContainer<Figure, G> {
 	 */
 	@Override
 	public final Rectangle2f getViewBounds() {
-		Rectangle2f r = (this.documentBounds==null) ? null : this.documentBounds.get();
-		if (r==null) {
-			r = calcViewBounds();
-			this.documentBounds = new SoftReference<Rectangle2f>(r);
-		}
-		return r;
+		return this.documentBounds.getBounds();
 	}
 
 	/** Replies the figures in the container.
@@ -1018,7 +1261,9 @@ implements ViewComponentContainer<Figure, G> {
 	public Figure getFigureAt(float x, float y) {
 		float precision = pixel2logical_size(getHitPrecision());
 		Circle2f circle = new Circle2f(x, y, precision);
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsAt(x, y, precision, candidates);
+		for(Figure figure : sortFromFront(candidates)) {
 			if (figure.intersects(circle)) {
 				return figure;
 			}
@@ -1042,7 +1287,9 @@ implements ViewComponentContainer<Figure, G> {
 		Rectangle2f clickRect = new Rectangle2f();
 		clickRect.setFromCorners(x-precision, y-precision, x+precision, y+precision);
 		Rectangle2f figureBounds;
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsIntersecting(clickRect, candidates);
+		for(Figure figure : sortFromFront(candidates)) {
 			figureBounds = figure.getBounds();
 			if (figureBounds!=null && figureBounds.intersects(clickRect)) {
 				return figure;
@@ -1058,7 +1305,9 @@ implements ViewComponentContainer<Figure, G> {
 	 */
 	public Set<Figure> getFiguresOn(Shape2f bounds) {
 		Set<Figure> figures = new TreeSet<Figure>();
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsIntersecting(bounds.toBoundingBox(), candidates);
+		for(Figure figure : candidates) {
 			if (figure.intersects(bounds)) {
 				figures.add(figure);
 			}
@@ -1075,7 +1324,9 @@ implements ViewComponentContainer<Figure, G> {
 		assert(bounds!=null);
 		Rectangle2f figureBounds;
 		Set<Figure> figures = new TreeSet<Figure>();
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsIntersecting(bounds, candidates);
+		for(Figure figure : candidates) {
 			figureBounds = figure.getBounds();
 			if (figureBounds!=null && bounds.contains(figureBounds)) {
 				figures.add(figure);
@@ -1090,7 +1341,9 @@ implements ViewComponentContainer<Figure, G> {
 	 * @return the hit figure, or <code>null</code>.
 	 */
 	public Figure getFigureOn(Shape2f bounds) {
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsIntersecting(bounds.toBoundingBox(), candidates);
+		for(Figure figure : sortFromFront(candidates)) {
 			if (figure.intersects(bounds)) {
 				return figure;
 			}
@@ -1105,7 +1358,9 @@ implements ViewComponentContainer<Figure, G> {
 	 */
 	public Figure getFigureIn(Rectangle2f bounds) {
 		Rectangle2f figureBounds;
-		for(Figure figure : this.figures) {
+		List<Figure> candidates = new ArrayList<Figure>();
+		this.figureIndex.getComponentsIntersecting(bounds, candidates);
+		for(Figure figure : sortFromFront(candidates)) {
 			figureBounds = figure.getBounds();
 			if (figureBounds!=null && bounds.contains(figureBounds)) {
 				return figure;
@@ -1122,8 +1377,7 @@ implements ViewComponentContainer<Figure, G> {
 		int idx = indexOfFigure(figure);
 		if (idx>0) {
 			Figure o = this.figures.get(idx-1);
-			this.figures.set(idx, o);
-			this.figures.set(idx-1, figure);
+			this.figures.move(idx, idx-1);
 
 			Rectangle2f r = figure.getBounds();
 			r = o.getBounds().createUnion(r);
@@ -1140,8 +1394,7 @@ implements ViewComponentContainer<Figure, G> {
 		int idx = indexOfFigure(figure);
 		if (idx>=0 && idx<this.figures.size()-1) {
 			Figure o = this.figures.get(idx+1);
-			this.figures.set(idx, o);
-			this.figures.set(idx+1, figure);
+			this.figures.move(idx, idx+1);
 
 			Rectangle2f r = figure.getBounds();
 			r = o.getBounds().createUnion(r);
@@ -1157,8 +1410,7 @@ implements ViewComponentContainer<Figure, G> {
 	public void moveFigureFront(Figure figure) {
 		int idx = indexOfFigure(figure);
 		if (idx>0) {
-			this.figures.remove(idx);
-			this.figures.add(0, figure);
+			this.figures.move(idx, 0);
 			repaint(figure);
 		}
 	}
@@ -1170,8 +1422,7 @@ implements ViewComponentContainer<Figure, G> {
 	public void moveFigureBackground(Figure figure) {
 		int idx = indexOfFigure(figure);
 		if (idx>=0 && idx<this.figures.size()-1) {
-			this.figures.remove(idx);
-			this.figures.add(figure);
+			this.figures.move(idx, this.figures.size()-1);
 			repaint(figure);
 		}
 	}
@@ -1185,12 +1436,11 @@ implements ViewComponentContainer<Figure, G> {
 	 * @throws IllegalArgumentException
 	 */
 	public int moveFigureAt(Figure figure, int index) {
-		if (index<0 && index>=this.figures.size())
+		if (index<0 || index>=this.figures.size())
 			throw new IllegalArgumentException();
 		int idx = indexOfFigure(figure);
 		if (idx!=index && idx>=0) {
-			this.figures.remove(idx);
-			this.figures.add(index, figure);
+			this.figures.move(idx, index);
 			repaint(figure);
 		}
 		return idx;
@@ -1208,6 +1458,57 @@ implements ViewComponentContainer<Figure, G> {
 		return this.figures.indexOf(figure);
 	}
 
+	/** Replies the spatial index used to retreive the figures
+	 * from their positions.
+	 * 
+	 * @return the spatial index.
+	 */
+	public ViewComponentIndex<Figure> getFigureIndex() {
+		return this.figureIndex;
+	}
+
+	/** Set the spatial index used to retreive the figures
+	 * from their positions. The new index is filled with
+	 * the figures of this view.
+	 * 
+	 * @param index is the new spatial index.
+	 */
+	public void setFigureIndex(ViewComponentIndex<Figure> index) {
+		if (index!=null && index!=this.figureIndex) {
+			ViewComponentIndex<Figure> old = this.figureIndex;
+			index.clear();
+			for(Figure figure : this.figures) {
+				index.add(figure);
+			}
+			this.figureIndex = index;
+			old.clear();
+			firePropertyChange("figureIndex", old, this.figureIndex); //$NON-NLS-1$
+		}
+	}
+
+	/** Replies the position of the figure in the layers.
+	 * 
+	 * @param figure
+	 * @return the position of the figure, or {@link Integer#MAX_VALUE}
+	 * if the figure is not in this view.
+	 */
+	private int getZOrderRank(Figure figure) {
+		int rank = this.figures.indexOf(figure);
+		return rank<0 ? Integer.MAX_VALUE : rank;
+	}
+
+	/** Sort the given figures from the front to the background.
+	 * 
+	 * @param candidates are the figures to sort.
+	 * @return <var>candidates</var>
+	 */
+	private List<Figure> sortFromFront(List<Figure> candidates) {
+		if (candidates.size()>1) {
+			Collections.sort(candidates, this.zOrderComparator);
+		}
+		return candidates;
+	}
+
 	/** Import the graph and the specified figures into this editor.
 	 * 
 	 * @param undoLabel is the label of the undoable edit to reply.
@@ -1218,20 +1519,26 @@ implements ViewComponentContainer<Figure, G> {
 	public Undoable importGraph(String undoLabel, G graph, Map<UUID,List<ViewComponent>> figures) {
 		MajorImportUndo cEdit = new MajorImportUndo(undoLabel);
 
-		G original = getGraph();
-		GraphImportUndo gUndo = new GraphImportUndo(original, graph, false);
-		gUndo.doEdit();
-		cEdit.addEdit(gUndo);
-
-		for(List<ViewComponent> theSet : figures.values()) {
-			ViewComponent o;
-			for(int i=theSet.size()-1; i>=0; --i) {
-				o = theSet.get(i);
-				FigureImportUndo undo = new FigureImportUndo(o, false);
-				undo.doEdit();
-				cEdit.addEdit(undo);
+		beginTransaction();
+		try {
+			G original = getGraph();
+			GraphImportUndo gUndo = new GraphImportUndo(original, graph, false);
+			gUndo.doEdit();
+			cEdit.addEdit(gUndo);
+
+			for(List<ViewComponent> theSet : figures.values()) {
+				ViewComponent o;
+				for(int i=theSet.size()-1; i>=0; --i) {
+					o = theSet.get(i);
+					FigureImportUndo undo = new FigureImportUndo(o, false);
+					undo.doEdit();
+					cEdit.addEdit(undo);
+				}
 			}
 		}
+		finally {
+			commitTransaction();
+		}
 
 		cEdit.end();
 		return cEdit;
@@ -1247,17 +1554,23 @@ implements ViewComponentContainer<Figure, G> {
 	public Undoable importGraph(String undoLabel, G graph, List<ViewComponent> figures) {
 		MajorImportUndo cEdit = new MajorImportUndo(undoLabel);
 
-		G original = getGraph();
-		GraphImportUndo gUndo = new GraphImportUndo(original, graph, false);
-		gUndo.doEdit();
-		cEdit.addEdit(gUndo);
+		beginTransaction();
+		try {
+			G original = getGraph();
+			GraphImportUndo gUndo = new GraphImportUndo(original, graph, false);
+			gUndo.doEdit();
+			cEdit.addEdit(gUndo);
 
-		ViewComponent o;
-		for(int i=figures.size()-1; i>=0; --i) {
-			o = figures.get(i);
-			FigureImportUndo undo = new FigureImportUndo(o, false);
-			undo.doEdit();
-			cEdit.addEdit(undo);
+			ViewComponent o;
+			for(int i=figures.size()-1; i>=0; --i) {
+				o = figures.get(i);
+				FigureImportUndo undo = new FigureImportUndo(o, false);
+				undo.doEdit();
+				cEdit.addEdit(undo);
+			}
+		}
+		finally {
+			commitTransaction();
 		}
 
 		cEdit.end();
@@ -1599,7 +1912,9 @@ implements ViewComponentContainer<Figure, G> {
 		@Override
 		public boolean isCollisionFree(Rectangle2f bounds, Set<? extends ViewComponent> exceptions) {
 			Rectangle2f r;
-			for(Figure figure : JFigureView.this) {
+			List<Figure> candidates = new ArrayList<Figure>();
+			getFigureIndex().getComponentsIntersecting(bounds, candidates);
+			for(Figure figure : candidates) {
 				if (figure instanceof BlockFigure && !exceptions.contains(figure)) {
 					r = figure.getBounds();
 					if (r!=null && !r.isEmpty()
@@ -1614,10 +1929,13 @@ implements ViewComponentContainer<Figure, G> {
 		/**
 		 * {@inheritDoc}
 		 */
+		@SuppressWarnings("synthetic-access")
 		@Override
 		public Rectangle2f detectCollision(Rectangle2f bounds, Set<? extends ViewComponent> exceptions) {
 			Rectangle2f r;
-			for(Figure figure : JFigureView.this) {
+			List<Figure> candidates = new ArrayList<Figure>();
+			getFigureIndex().getComponentsIntersecting(bounds, candidates);
+			for(Figure figure : sortFromFront(candidates)) {
 				if (figure instanceof BlockFigure && !exceptions.contains(figure)) {
 					r = figure.getBounds();
 					if (r!=null && !r.isEmpty()
@@ -1631,6 +1949,35 @@ implements ViewComponentContainer<Figure, G> {
 
 	} // class CAvoider
 
+	/** Compare the figures according to their positions in the layers,
+	 * from the front to the background.
+	 * 
+	 * @author $Author: galland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 */
+	private class ZOrderComparator implements Comparator<Figure> {
+
+		/**
+		 */
+		public ZOrderComparator() {
+			//
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public int compare(Figure o1, Figure o2) {
+			int r1 = getZOrderRank(o1);
+			int r2 = getZOrderRank(o2);
+			return (r1<r2) ? -1 : ((r1==r2) ? 0 : 1);
+		}
+
+	} // class ZOrderComparator
+
 	/**
 	 * @author $Author: galland$
 	 * @version $FullVersion$
@@ -2515,12 +2862,17 @@ implements ViewComponentContainer<Figure, G> {
 		@SuppressWarnings("synthetic-access")
 		@Override
 		public void componentRepaint(ViewComponent component, boolean boundsChanged) {
+			if (component instanceof Figure) {
+				// The update is cheap when the bounds have not changed
+				JFigureView.this.figureIndex.update((Figure)component);
+			}
 			if (boundsChanged) {
-				JFigureView.this.documentBounds = null;
-				onUpdateViewParameters();
+				if (component instanceof Figure) {
+					JFigureView.this.documentBounds.update((Figure)component);
+				}
+				invalidateViewParameters();
 			}
-			Rectangle2f bb = component.getBounds();
-			repaint(bb);
+			repaintArea(component.getBounds());
 		}
 
 		/**
@@ -2668,22 +3020,24 @@ implements ViewComponentContainer<Figure, G> {
 		/**
 		 * {@inheritDoc}
 		 */
+		@SuppressWarnings("synthetic-access")
 		@Override
 		public void propertyChange(ViewComponentPropertyChangeEvent event) {
 			ViewComponent vc = event.getSource();
 			if (vc instanceof Figure) {
-				fireFigureChanged((Figure)vc);
+				onFigureChanged((Figure)vc);
 			}
 		}
 
 		/**
 		 * {@inheritDoc}
 		 */
+		@SuppressWarnings("synthetic-access")
 		@Override
 		public void componentChange(ViewComponentChangeEvent event) {
 			ViewComponent vc = event.getSource();
 			if (vc instanceof Figure) {
-				fireFigureChanged((Figure)vc);
+				onFigureChanged((Figure)vc);
 			}
 		}
 